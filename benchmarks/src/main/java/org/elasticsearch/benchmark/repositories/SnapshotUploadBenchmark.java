@@ -0,0 +1,293 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+package org.elasticsearch.benchmark.repositories;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.SegmentInfos;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.store.IOContext;
+import org.apache.lucene.store.IndexInput;
+import org.elasticsearch.common.hash.MessageDigests;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the bytes uploaded by an incremental snapshot of a shard whose segments were merged since the previous snapshot, for the current
+ * repository format, which reuses whole files by name and checksum, and for a format that splits files into content-defined chunks and
+ * reuses chunks by their content hash. A local directory stands in for an {@code FsRepository}. The {@code uploadedBytes} counter reports
+ * the bytes written per snapshot and the score reports the time taken to determine and write them.
+ * <p>
+ * Repositories do not support the chunked format: it exists only in this benchmark, to tell whether it is worth a new shard snapshot
+ * format. Such a format would also have to keep a chunk index in {@code BlobStoreIndexShardSnapshot}, only be written once all nodes
+ * can read it, count the references to each chunk when deleting snapshots, and read chunks in parallel on restore.
+ */
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") // invoked by benchmarking framework
+public class SnapshotUploadBenchmark {
+
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_CHUNK_SIZE = 1024 * 1024;
+    // cut a chunk when the top 18 bits of the rolling hash are zero, i.e. every 256kb on average after the minimum chunk size
+    private static final long CHUNK_BOUNDARY_MASK = ((1L << 18) - 1) << (Long.SIZE - 18);
+    private static final long[] GEAR = new long[256];
+
+    static {
+        final Random random = new Random(0L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    @Param({ "200000" })
+    public int numDocs;
+
+    // the number of documents indexed between the two snapshots, relative to numDocs
+    @Param({ "0.05", "0.25" })
+    public double newDocsRatio;
+
+    // the number of documents updated between the two snapshots, relative to numDocs
+    @Param({ "0.0", "0.01" })
+    public double updatedDocsRatio;
+
+    @Param({ "false", "true" })
+    public boolean forceMerge;
+
+    private Path tempDir;
+    private Path indexPath;
+    private Collection<String> secondCommitFiles;
+    private final Set<String> firstSnapshotFileBlobs = new HashSet<>();
+    private final Set<String> firstSnapshotChunkBlobs = new HashSet<>();
+    private final List<Path> repositories = new ArrayList<>();
+
+    @Setup
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("snapshot-upload");
+        indexPath = tempDir.resolve("index");
+        final Random random = new Random(42L);
+        try (Directory directory = FSDirectory.open(indexPath);
+             IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig(new StandardAnalyzer()))) {
+            addDocs(writer, random, 0, numDocs);
+            writer.commit();
+            for (String file : SegmentInfos.readLatestCommit(directory).files(true)) {
+                firstSnapshotFileBlobs.add(fileBlobKey(directory, file));
+                forEachChunk(indexPath.resolve(file), (chunk, length) -> firstSnapshotChunkBlobs.add(chunkBlobKey(chunk, length)));
+            }
+
+            addDocs(writer, random, numDocs, (int) (numDocs * newDocsRatio));
+            final int updatedDocs = (int) (numDocs * updatedDocsRatio);
+            for (int i = 0; i < updatedDocs; i++) {
+                final int id = random.nextInt(numDocs);
+                writer.updateDocument(new Term("_id", Integer.toString(id)), newDoc(random, id));
+            }
+            if (forceMerge) {
+                writer.forceMerge(1);
+            }
+            writer.commit();
+            secondCommitFiles = SegmentInfos.readLatestCommit(directory).files(true);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteRepositories() throws IOException {
+        IOUtils.rm(repositories.toArray(new Path[0]));
+        repositories.clear();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        IOUtils.rm(tempDir);
+    }
+
+    @Benchmark
+    public long wholeFiles(UploadCounters counters) throws IOException {
+        final Path repository = newRepository();
+        long uploadedBytes = 0L;
+        try (Directory directory = FSDirectory.open(indexPath)) {
+            for (String file : secondCommitFiles) {
+                if (firstSnapshotFileBlobs.contains(fileBlobKey(directory, file)) == false) {
+                    final Path source = indexPath.resolve(file);
+                    Files.copy(source, repository.resolve(file));
+                    uploadedBytes += Files.size(source);
+                }
+            }
+        }
+        counters.uploadedBytes += uploadedBytes;
+        return uploadedBytes;
+    }
+
+    @Benchmark
+    public long contentDefinedChunks(UploadCounters counters) throws IOException {
+        final Path repository = newRepository();
+        final Set<String> chunkBlobs = new HashSet<>(firstSnapshotChunkBlobs);
+        final long[] uploadedBytes = new long[1];
+        try (Directory directory = FSDirectory.open(indexPath)) {
+            for (String file : secondCommitFiles) {
+                if (firstSnapshotFileBlobs.contains(fileBlobKey(directory, file))) {
+                    continue;
+                }
+                forEachChunk(indexPath.resolve(file), (chunk, length) -> {
+                    final String key = chunkBlobKey(chunk, length);
+                    if (chunkBlobs.add(key)) {
+                        try (OutputStream out = Files.newOutputStream(repository.resolve(key))) {
+                            out.write(chunk, 0, length);
+                        }
+                        uploadedBytes[0] += length;
+                    }
+                });
+            }
+        }
+        counters.uploadedBytes += uploadedBytes[0];
+        return uploadedBytes[0];
+    }
+
+    private Path newRepository() throws IOException {
+        final Path repository = Files.createTempDirectory(tempDir, "repository");
+        repositories.add(repository);
+        return repository;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class UploadCounters {
+        public long uploadedBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            uploadedBytes = 0L;
+        }
+    }
+
+    private static void addDocs(IndexWriter writer, Random random, int firstId, int count) throws IOException {
+        for (int id = firstId; id < firstId + count; id++) {
+            writer.addDocument(newDoc(random, id));
+        }
+    }
+
+    private static Document newDoc(Random random, int id) {
+        final Document doc = new Document();
+        doc.add(new StringField("_id", Integer.toString(id), Field.Store.YES));
+        final long timestamp = 1_600_000_000_000L + id * 1000L;
+        doc.add(new LongPoint("@timestamp", timestamp));
+        doc.add(new NumericDocValuesField("@timestamp", timestamp));
+        final StringBuilder message = new StringBuilder();
+        final int words = 5 + random.nextInt(20);
+        for (int i = 0; i < words; i++) {
+            message.append("word").append(random.nextInt(5000)).append(' ');
+        }
+        doc.add(new TextField("message", message.toString(), Field.Store.NO));
+        doc.add(new StoredField("_source", "{\"@timestamp\":" + timestamp + ",\"message\":\"" + message + "\"}"));
+        return doc;
+    }
+
+    /**
+     * The key by which the current repository format reuses a file that was uploaded by an earlier snapshot.
+     */
+    private static String fileBlobKey(Directory directory, String file) throws IOException {
+        try (IndexInput input = directory.openInput(file, IOContext.READONCE)) {
+            return file + ":" + input.length() + ":" + CodecUtil.retrieveChecksum(input);
+        }
+    }
+
+    private static String chunkBlobKey(byte[] chunk, int length) {
+        final MessageDigest digest = MessageDigests.sha256();
+        digest.update(chunk, 0, length);
+        return MessageDigests.toHexString(digest.digest());
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(byte[] chunk, int length) throws IOException;
+    }
+
+    /**
+     * Splits the given file into chunks whose boundaries depend on the content only, using a gear-based rolling hash, so that inserting
+     * or removing bytes only changes the chunks around the change.
+     */
+    private static void forEachChunk(Path file, ChunkConsumer consumer) throws IOException {
+        final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+        try (InputStream in = Files.newInputStream(file)) {
+            int length = 0;
+            boolean eof = false;
+            while (true) {
+                while (length < buffer.length && eof == false) {
+                    final int read = in.read(buffer, length, buffer.length - length);
+                    if (read == -1) {
+                        eof = true;
+                    } else {
+                        length += read;
+                    }
+                }
+                if (length == 0) {
+                    return;
+                }
+                final int cut = findChunkBoundary(buffer, length);
+                consumer.accept(buffer, cut);
+                System.arraycopy(buffer, cut, buffer, 0, length - cut);
+                length -= cut;
+            }
+        }
+    }
+
+    private static int findChunkBoundary(byte[] buffer, int length) {
+        if (length <= MIN_CHUNK_SIZE) {
+            return length;
+        }
+        long hash = 0L;
+        for (int i = MIN_CHUNK_SIZE; i < length; i++) {
+            hash = (hash << 1) + GEAR[buffer[i] & 0xFF];
+            if ((hash & CHUNK_BOUNDARY_MASK) == 0L) {
+                return i + 1;
+            }
+        }
+        return length;
+    }
+}
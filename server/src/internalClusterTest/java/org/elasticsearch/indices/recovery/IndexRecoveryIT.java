@@ -1429,6 +1429,68 @@ public class IndexRecoveryIT extends ESIntegTestCase {
     public void testUsesFileBasedRecoveryIfRetentionLeaseMissing() throws Exception {
         internalCluster().ensureAtLeastNumDataNodes(2);
 
+        String indexName = "test-index";
+        createIndex(indexName, Settings.builder()
+            .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
+            .put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 0)
+            .put(IndexSettings.INDEX_SOFT_DELETES_SETTING.getKey(), true)
+            // retain the history above the replica's local checkpoint, so that only the cost tells the two recoveries apart
+            .put(IndexSettings.INDEX_SOFT_DELETES_RETENTION_OPERATIONS_SETTING.getKey(), 1000)
+            .put(UnassignedInfo.INDEX_DELAYED_NODE_LEFT_TIMEOUT_SETTING.getKey(), "12h")
+            .build());
+        indexRandom(randomBoolean(), false, randomBoolean(), IntStream.range(0, between(20, 50))
+            .mapToObj(n -> client().prepareIndex(indexName, "_doc").setSource("text", randomAlphaOfLength(8192))).collect(toList()));
+        client().admin().indices().prepareFlush(indexName).get();
+
+        // the replica copies the files of the primary, so both copies share these large documents
+        client().admin().indices().prepareUpdateSettings(indexName)
+            .setSettings(Settings.builder().put(IndexMetadata.SETTING_NUMBER_OF_REPLICAS, 1)).get();
+        ensureGreen(indexName);
+
+        final ShardId shardId = new ShardId(resolveIndex(indexName), 0);
+        final DiscoveryNodes discoveryNodes = clusterService().state().nodes();
+        final IndexShardRoutingTable indexShardRoutingTable = clusterService().state().routingTable().shardRoutingTable(shardId);
+
+        final IndexShard primary = internalCluster().getInstance(IndicesService.class,
+            discoveryNodes.get(indexShardRoutingTable.primaryShard().currentNodeId()).getName()).getShardOrNull(shardId);
+
+        final ShardRouting replicaShardRouting = indexShardRoutingTable.replicaShards().get(0);
+        internalCluster().restartNode(discoveryNodes.get(replicaShardRouting.currentNodeId()).getName(),
+            new InternalTestCluster.RestartCallback() {
+                @Override
+                public Settings onNodeStopped(String nodeName) throws Exception {
+                    assertFalse(client().admin().cluster().prepareHealth()
+                        .setWaitForNodes(Integer.toString(discoveryNodes.getSize() - 1))
+                        .setWaitForEvents(Priority.LANGUID).get().isTimedOut());
+
+                    final PlainActionFuture<ReplicationResponse> future = new PlainActionFuture<>();
+                    primary.removeRetentionLease(ReplicationTracker.getPeerRecoveryRetentionLeaseId(replicaShardRouting), future);
+                    future.get();
+
+                    // the replica misses these small documents: replaying them is estimated at the average size of the large
+                    // documents, while copying files only sends the small segment that holds them. They are not indexed with
+                    // indexRandom, which might force-merge them with the segments that the replica shares.
+                    final int numSmallDocs = between(50, 100);
+                    for (int i = 0; i < numSmallDocs; i++) {
+                        client().prepareIndex(indexName, "_doc").setSource("num", i).get();
+                    }
+                    client().admin().indices().prepareFlush(indexName).get();
+
+                    return super.onNodeStopped(nodeName);
+                }
+            });
+
+        ensureGreen(indexName);
+
+        //noinspection OptionalGetWithoutIsPresent because it fails the test if absent
+        final RecoveryState recoveryState = client().admin().indices().prepareRecoveries(indexName).get()
+            .shardRecoveryStates().get(indexName).stream().filter(rs -> rs.getPrimary() == false).findFirst().get();
+        assertThat(recoveryState.getIndex().totalFileCount(), greaterThan(0));
+    }
+
+    public void testUsesOperationsBasedRecoveryIfRetentionLeaseMissingButReplayIsCheaper() throws Exception {
+        internalCluster().ensureAtLeastNumDataNodes(2);
+
         String indexName = "test-index";
         createIndex(indexName, Settings.builder()
             .put(IndexMetadata.SETTING_NUMBER_OF_SHARDS, 1)
@@ -1469,7 +1531,11 @@ public class IndexRecoveryIT extends ESIntegTestCase {
         //noinspection OptionalGetWithoutIsPresent because it fails the test if absent
         final RecoveryState recoveryState = client().admin().indices().prepareRecoveries(indexName).get()
             .shardRecoveryStates().get(indexName).stream().filter(rs -> rs.getPrimary() == false).findFirst().get();
-        assertThat(recoveryState.getIndex().totalFileCount(), greaterThan(0));
+        // the replica is not missing any operations, so replaying the (empty) history is cheaper than copying any files
+        assertThat(recoveryState.getIndex().totalFileCount(), equalTo(0));
+        assertTrue("should have re-created lease for " + replicaShardRouting,
+            client().admin().indices().prepareStats(indexName).get().getShards()[0].getRetentionLeaseStats()
+                .retentionLeases().contains(ReplicationTracker.getPeerRecoveryRetentionLeaseId(replicaShardRouting)));
     }
 
     public void testUsesFileBasedRecoveryIfRetentionLeaseAheadOfGlobalCheckpoint() throws Exception {
@@ -44,6 +44,9 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public static final ClusterInfo EMPTY = new ClusterInfo();
     final ImmutableOpenMap<ShardRouting, String> routingToDataPath;
     final ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace;
+    // the load maps are only used by the allocator on the elected master, which computes them, so they are not serialized
+    final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+    final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
     protected ClusterInfo() {
        this(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
@@ -65,12 +68,37 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
                        ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
                        ImmutableOpenMap<ShardId, Long> shardDataSetSizes, ImmutableOpenMap<ShardRouting, String> routingToDataPath,
                        ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace) {
+        this(leastAvailableSpaceUsage, mostAvailableSpaceUsage, shardSizes, shardDataSetSizes, routingToDataPath, reservedSpace,
+            ImmutableOpenMap.of(), ImmutableOpenMap.of());
+    }
+
+    /**
+     * Creates a new ClusterInfo instance which also carries the load of each shard. The load of a shard is the average number of threads
+     * that were busy indexing into, or searching, each of its copies. Loads are not serialized, see {@link #writeTo(StreamOutput)}.
+     *
+     * @param leastAvailableSpaceUsage a node id to disk usage mapping for the path that has the least available space on the node.
+     * @param mostAvailableSpaceUsage  a node id to disk usage mapping for the path that has the most available space on the node.
+     * @param shardSizes a shardkey to size in bytes mapping per shard.
+     * @param shardDataSetSizes a shard id to data set size in bytes mapping per shard
+     * @param routingToDataPath the shard routing to datapath mapping
+     * @param reservedSpace reserved space per shard broken down by node and data path
+     * @param shardWriteLoads a shard id to the write load of each copy of the shard
+     * @param shardSearchLoads a shard id to the search load of each copy of the shard
+     * @see #shardIdentifierFromRouting
+     */
+    public ClusterInfo(ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsage,
+                       ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsage, ImmutableOpenMap<String, Long> shardSizes,
+                       ImmutableOpenMap<ShardId, Long> shardDataSetSizes, ImmutableOpenMap<ShardRouting, String> routingToDataPath,
+                       ImmutableOpenMap<NodeAndPath, ReservedSpace> reservedSpace, ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+                       ImmutableOpenMap<ShardId, Double> shardSearchLoads) {
         this.leastAvailableSpaceUsage = leastAvailableSpaceUsage;
         this.shardSizes = shardSizes;
         this.shardDataSetSizes = shardDataSetSizes;
         this.mostAvailableSpaceUsage = mostAvailableSpaceUsage;
         this.routingToDataPath = routingToDataPath;
         this.reservedSpace = reservedSpace;
+        this.shardWriteLoads = shardWriteLoads;
+        this.shardSearchLoads = shardSearchLoads;
     }
 
     public ClusterInfo(StreamInput in) throws IOException {
@@ -103,8 +131,13 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
         this.routingToDataPath = routingBuilder.putAll(routingMap).build();
         ImmutableOpenMap.Builder<NodeAndPath, ReservedSpace> reservedSpaceBuilder = ImmutableOpenMap.builder();
         this.reservedSpace = reservedSpaceBuilder.putAll(reservedSpaceMap).build();
+        this.shardWriteLoads = ImmutableOpenMap.of();
+        this.shardSearchLoads = ImmutableOpenMap.of();
     }
 
+    /**
+     * Writes this instance to the given stream, except for the shard loads which are only meaningful on the master that computed them.
+     */
     @Override
     public void writeTo(StreamOutput out) throws IOException {
         out.writeVInt(this.leastAvailableSpaceUsage.size());
@@ -217,6 +250,25 @@ public class ClusterInfo implements ToXContentFragment, Writeable {
     public Optional<Long> getShardDataSetSize(ShardId shardId) {
         return Optional.ofNullable(shardDataSetSizes.get(shardId));
     }
+
+    /**
+     * Returns the average number of threads busy indexing into each copy of the given shard or <code>defaultValue</code> if that metric
+     * is not available.
+     */
+    public double getShardWriteLoad(ShardId shardId, double defaultValue) {
+        final Double load = shardWriteLoads.get(shardId);
+        return load == null ? defaultValue : load;
+    }
+
+    /**
+     * Returns the average number of threads busy searching each copy of the given shard or <code>defaultValue</code> if that metric is
+     * not available.
+     */
+    public double getShardSearchLoad(ShardId shardId, double defaultValue) {
+        final Double load = shardSearchLoads.get(shardId);
+        return load == null ? defaultValue : load;
+    }
+
     /**
      * Returns the reserved space for each shard on the given node/path pair
      */
@@ -27,6 +27,7 @@ import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.DiskThresholdSettings;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -57,8 +58,11 @@ import java.util.function.Consumer;
  * Listens for changes in the number of data nodes and immediately submits a
  * ClusterInfoUpdateJob if a node has been added.
  *
- * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * Every time the timer runs, gathers information about the disk usage,
+ * shard sizes and shard loads across the cluster. The information is gathered
+ * when the disk threshold decider is enabled or when the balancer weighs the
+ * loads of the shards, and the write and search loads are only gathered when
+ * the balancer weighs them.
  */
 public class InternalClusterInfoService implements ClusterInfoService, ClusterStateListener {
 
@@ -70,10 +74,20 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     public static final Setting<TimeValue> INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING =
         Setting.positiveTimeSetting("cluster.info.update.timeout", TimeValue.timeValueSeconds(15),
             Property.Dynamic, Property.NodeScope);
-
-    private volatile boolean enabled;
+    /**
+     * The weight of the previous load of a shard when computing its new load from the latest stats, see {@link ShardLoadTracker}. Higher
+     * values make the loads react more slowly to changes in the workload, which avoids moving shards back and forth on short bursts.
+     */
+    public static final Setting<Double> INTERNAL_CLUSTER_INFO_LOAD_DAMPING_SETTING =
+        Setting.doubleSetting("cluster.info.load.damping", 0.7d, 0.0d, 0.95d, Property.Dynamic, Property.NodeScope);
+
+    private volatile boolean diskThresholdEnabled;
+    private volatile float writeLoadBalance;
+    private volatile float searchLoadBalance;
+    private volatile float diskUsageBalance;
     private volatile TimeValue updateFrequency;
     private volatile TimeValue fetchTimeout;
+    private volatile double loadDamping;
 
     private volatile ImmutableOpenMap<String, DiskUsage> leastAvailableSpaceUsages;
     private volatile ImmutableOpenMap<String, DiskUsage> mostAvailableSpaceUsages;
@@ -82,8 +96,15 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     private final ThreadPool threadPool;
     private final Client client;
     private final List<Consumer<ClusterInfo>> listeners = new CopyOnWriteArrayList<>();
-
     private final Object mutex = new Object();
+    // the shard load tracker and the fields below are guarded by the mutex
+    private final ShardLoadTracker shardLoadTracker = new ShardLoadTracker();
+    // the loads whose stats the last processed indices stats response held
+    private boolean trackedWriteLoad;
+    private boolean trackedSearchLoad;
+    // incremented whenever the tracker is cleared on losing mastership, so that a response received afterwards is not tracked
+    private long shardLoadTrackerResets;
+
     private final List<ActionListener<ClusterInfo>> nextRefreshListeners = new ArrayList<>();
     private AsyncRefresh currentRefresh;
     private RefreshScheduler refreshScheduler;
@@ -96,16 +117,43 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         this.client = client;
         this.updateFrequency = INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
         this.fetchTimeout = INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING.get(settings);
-        this.enabled = DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.get(settings);
+        this.loadDamping = INTERNAL_CLUSTER_INFO_LOAD_DAMPING_SETTING.get(settings);
+        this.diskThresholdEnabled = DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.get(settings);
+        this.writeLoadBalance = BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings);
+        this.searchLoadBalance = BalancedShardsAllocator.SEARCH_LOAD_BALANCE_FACTOR_SETTING.get(settings);
+        this.diskUsageBalance = BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING.get(settings);
         ClusterSettings clusterSettings = clusterService.getClusterSettings();
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING, this::setFetchTimeout);
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING, this::setUpdateFrequency);
+        clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_LOAD_DAMPING_SETTING, this::setLoadDamping);
         clusterSettings.addSettingsUpdateConsumer(DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING,
-                                                  this::setEnabled);
+                                                  this::setDiskThresholdEnabled);
+        clusterSettings.addSettingsUpdateConsumer(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING, this::setWriteLoadBalance);
+        clusterSettings.addSettingsUpdateConsumer(BalancedShardsAllocator.SEARCH_LOAD_BALANCE_FACTOR_SETTING, this::setSearchLoadBalance);
+        clusterSettings.addSettingsUpdateConsumer(BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING, this::setDiskUsageBalance);
+    }
+
+    private void setDiskThresholdEnabled(boolean diskThresholdEnabled) {
+        this.diskThresholdEnabled = diskThresholdEnabled;
+    }
+
+    private void setWriteLoadBalance(float writeLoadBalance) {
+        this.writeLoadBalance = writeLoadBalance;
+    }
+
+    private void setSearchLoadBalance(float searchLoadBalance) {
+        this.searchLoadBalance = searchLoadBalance;
+    }
+
+    private void setDiskUsageBalance(float diskUsageBalance) {
+        this.diskUsageBalance = diskUsageBalance;
     }
 
-    private void setEnabled(boolean enabled) {
-        this.enabled = enabled;
+    /**
+     * The cluster info is needed by the disk threshold decider, and by the balancer if it weighs the loads of the shards.
+     */
+    private boolean isEnabled() {
+        return diskThresholdEnabled || writeLoadBalance > 0.0f || searchLoadBalance > 0.0f || diskUsageBalance > 0.0f;
     }
 
     private void setFetchTimeout(TimeValue fetchTimeout) {
@@ -116,11 +164,20 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         this.updateFrequency = updateFrequency;
     }
 
+    private void setLoadDamping(double loadDamping) {
+        this.loadDamping = loadDamping;
+    }
+
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
         final Runnable newRefresh;
         synchronized (mutex) {
             if (event.localNodeMaster() == false) {
+                if (refreshScheduler != null) {
+                    logger.trace("no longer master, forgetting shard loads");
+                    shardLoadTracker.clear();
+                    shardLoadTrackerResets++;
+                }
                 refreshScheduler = null;
                 return;
             }
@@ -148,9 +205,12 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
 
         private final List<ActionListener<ClusterInfo>> thisRefreshListeners;
         private final CountDown countDown = new CountDown(2);
+        private final long shardLoadTrackerResetsAtStart;
 
         AsyncRefresh(List<ActionListener<ClusterInfo>> thisRefreshListeners) {
+            assert Thread.holdsLock(mutex) : "mutex not held";
             this.thisRefreshListeners = thisRefreshListeners;
+            this.shardLoadTrackerResetsAtStart = shardLoadTrackerResets;
         }
 
         void execute() {
@@ -199,6 +259,10 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
             final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
             indicesStatsRequest.clear();
             indicesStatsRequest.store(true);
+            final boolean trackWriteLoad = writeLoadBalance > 0.0f;
+            final boolean trackSearchLoad = searchLoadBalance > 0.0f;
+            indicesStatsRequest.indexing(trackWriteLoad);
+            indicesStatsRequest.search(trackSearchLoad);
             indicesStatsRequest.indicesOptions(IndicesOptions.STRICT_EXPAND_OPEN_CLOSED_HIDDEN);
             indicesStatsRequest.timeout(fetchTimeout);
             client.admin().indices().stats(indicesStatsRequest, ActionListener.runAfter(new ActionListener<IndicesStatsResponse>() {
@@ -241,10 +305,27 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                             = ImmutableOpenMap.builder();
                     reservedSpaceBuilders.forEach((nodeAndPath, builder) -> rsrvdSpace.put(nodeAndPath, builder.build()));
 
+                    final ImmutableOpenMap<ShardId, Double> writeLoads;
+                    final ImmutableOpenMap<ShardId, Double> searchLoads;
+                    synchronized (mutex) {
+                        if (shardLoadTrackerResetsAtStart == shardLoadTrackerResets) {
+                            if (trackWriteLoad != trackedWriteLoad || trackSearchLoad != trackedSearchLoad) {
+                                // samples without the stats of a load would look like it dropped to zero, or jumped, once requested
+                                shardLoadTracker.clear();
+                                trackedWriteLoad = trackWriteLoad;
+                                trackedSearchLoad = trackSearchLoad;
+                            }
+                            if (trackWriteLoad || trackSearchLoad) {
+                                shardLoadTracker.update(stats, threadPool.relativeTimeInMillis(), loadDamping);
+                            }
+                        }
+                        writeLoads = shardLoadTracker.getWriteLoads();
+                        searchLoads = shardLoadTracker.getSearchLoads();
+                    }
+
                     indicesStatsSummary = new IndicesStatsSummary(
                         shardSizeByIdentifierBuilder.build(), shardDataSetSizeBuilder.build(),
-                        dataPathByShardRoutingBuilder.build(),
-                        rsrvdSpace.build());
+                        dataPathByShardRoutingBuilder.build(), rsrvdSpace.build(), writeLoads, searchLoads);
                 }
 
                 @Override
@@ -314,7 +395,7 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         final ArrayList<ActionListener<ClusterInfo>> thisRefreshListeners = new ArrayList<>(nextRefreshListeners);
         nextRefreshListeners.clear();
 
-        if (enabled) {
+        if (isEnabled()) {
             currentRefresh = new AsyncRefresh(thisRefreshListeners);
             return currentRefresh::execute;
         } else {
@@ -322,6 +403,9 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
                 leastAvailableSpaceUsages = ImmutableOpenMap.of();
                 mostAvailableSpaceUsages = ImmutableOpenMap.of();
                 indicesStatsSummary = IndicesStatsSummary.EMPTY;
+                synchronized (mutex) {
+                    shardLoadTracker.clear();
+                }
                 thisRefreshListeners.forEach(l -> l.onResponse(ClusterInfo.EMPTY));
             };
         }
@@ -360,7 +444,8 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
         final IndicesStatsSummary indicesStatsSummary = this.indicesStatsSummary; // single volatile read
         return new ClusterInfo(leastAvailableSpaceUsages, mostAvailableSpaceUsages,
             indicesStatsSummary.shardSizes, indicesStatsSummary.shardDataSetSizes,
-            indicesStatsSummary.shardRoutingToDataPath, indicesStatsSummary.reservedSpace);
+            indicesStatsSummary.shardRoutingToDataPath, indicesStatsSummary.reservedSpace,
+            indicesStatsSummary.shardWriteLoads, indicesStatsSummary.shardSearchLoads);
     }
 
     // allow tests to adjust the node stats on receipt
@@ -473,22 +558,28 @@ public class InternalClusterInfoService implements ClusterInfoService, ClusterSt
     }
 
     private static class IndicesStatsSummary {
-        static final IndicesStatsSummary EMPTY
-            = new IndicesStatsSummary(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
+        static final IndicesStatsSummary EMPTY = new IndicesStatsSummary(ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of());
 
         final ImmutableOpenMap<String, Long> shardSizes;
         final ImmutableOpenMap<ShardId, Long> shardDataSetSizes;
         final ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath;
         final ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace;
+        final ImmutableOpenMap<ShardId, Double> shardWriteLoads;
+        final ImmutableOpenMap<ShardId, Double> shardSearchLoads;
 
         IndicesStatsSummary(ImmutableOpenMap<String, Long> shardSizes,
                             ImmutableOpenMap<ShardId, Long> shardDataSetSizes,
                             ImmutableOpenMap<ShardRouting, String> shardRoutingToDataPath,
-                            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace) {
+                            ImmutableOpenMap<ClusterInfo.NodeAndPath, ClusterInfo.ReservedSpace> reservedSpace,
+                            ImmutableOpenMap<ShardId, Double> shardWriteLoads,
+                            ImmutableOpenMap<ShardId, Double> shardSearchLoads) {
             this.shardSizes = shardSizes;
             this.shardDataSetSizes = shardDataSetSizes;
             this.shardRoutingToDataPath = shardRoutingToDataPath;
             this.reservedSpace = reservedSpace;
+            this.shardWriteLoads = shardWriteLoads;
+            this.shardSearchLoads = shardSearchLoads;
         }
     }
 
@@ -0,0 +1,153 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.ShardId;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Derives the write and search load of each shard from the cumulative indexing and search times reported by successive indices stats
+ * responses. The load of a shard copy over an interval is the time spent indexing into, or searching, the copy divided by the length of
+ * the interval, i.e. the average number of threads that were busy with it. The load of a shard is the average load of its copies,
+ * smoothed with an exponentially weighted moving average so that a short burst does not cause shards to be moved back and forth.
+ * <p>
+ * A copy contributes a load once it has been seen by two successive responses. The last known load of a shard is retained while none of
+ * its copies has a load yet, e.g. after its only copy was relocated, because the shard would otherwise look idle on its new node.
+ * <p>
+ * Missing indexing or search stats count as no time spent, since they are only requested when the matching load is weighed. The
+ * tracker must be {@link #clear() cleared} when the requested stats change, so that no load is derived from a sample without them.
+ * <p>
+ * Instances are not thread-safe, the {@link InternalClusterInfoService} only accesses its tracker while holding its mutex.
+ */
+final class ShardLoadTracker {
+
+    private Map<String, Sample> samplesByAllocationId = new HashMap<>();
+    private Map<ShardId, Double> writeLoads = new HashMap<>();
+    private Map<ShardId, Double> searchLoads = new HashMap<>();
+
+    private ImmutableOpenMap<ShardId, Double> writeLoadsSnapshot = ImmutableOpenMap.of();
+    private ImmutableOpenMap<ShardId, Double> searchLoadsSnapshot = ImmutableOpenMap.of();
+
+    /**
+     * Updates the loads from the given shard stats.
+     *
+     * @param stats       the shard-level stats of an indices stats response
+     * @param nowMillis   the relative time at which the response was received
+     * @param damping     the weight of the previous load of a shard in its new load, between 0 (no smoothing) and 1 (exclusive)
+     */
+    void update(ShardStats[] stats, long nowMillis, double damping) {
+        assert damping >= 0.0d && damping < 1.0d : damping;
+        final Map<String, Sample> newSamples = new HashMap<>(stats.length);
+        final Map<ShardId, double[]> intervalLoads = new HashMap<>(); // write load sum, search load sum, copies
+        for (ShardStats shardStats : stats) {
+            final CommonStats commonStats = shardStats.getStats();
+            if (commonStats == null || (commonStats.getIndexing() == null && commonStats.getSearch() == null)) {
+                continue;
+            }
+            // only the stats of the loads that the balancer weighs are requested, the others count as idle
+            final IndexingStats.Stats indexing = commonStats.getIndexing() == null ? null : commonStats.getIndexing().getTotal();
+            final long indexTimeMillis = indexing == null ? 0L : indexing.getIndexTime().millis();
+            final SearchStats.Stats search = commonStats.getSearch() == null ? null : commonStats.getSearch().getTotal();
+            final long searchTimeMillis = search == null ? 0L : search.getQueryTimeInMillis() + search.getFetchTimeInMillis();
+            final Sample sample = new Sample(nowMillis, indexTimeMillis, searchTimeMillis);
+            final String allocationId = shardStats.getShardRouting().allocationId().getId();
+            newSamples.put(allocationId, sample);
+
+            final Sample previous = samplesByAllocationId.get(allocationId);
+            if (previous == null || nowMillis <= previous.timeMillis
+                || sample.indexTimeMillis < previous.indexTimeMillis || sample.searchTimeMillis < previous.searchTimeMillis) {
+                // a new copy, or one whose stats were reset, e.g. because it was closed and reopened
+                continue;
+            }
+            final double elapsedMillis = nowMillis - previous.timeMillis;
+            final double[] loads = intervalLoads.computeIfAbsent(shardStats.getShardRouting().shardId(), k -> new double[3]);
+            loads[0] += (sample.indexTimeMillis - previous.indexTimeMillis) / elapsedMillis;
+            loads[1] += (sample.searchTimeMillis - previous.searchTimeMillis) / elapsedMillis;
+            loads[2] += 1;
+        }
+
+        final Map<ShardId, Double> newWriteLoads = new HashMap<>();
+        final Map<ShardId, Double> newSearchLoads = new HashMap<>();
+        final ImmutableOpenMap.Builder<ShardId, Double> writeLoadsBuilder = ImmutableOpenMap.builder();
+        final ImmutableOpenMap.Builder<ShardId, Double> searchLoadsBuilder = ImmutableOpenMap.builder();
+        for (ShardStats shardStats : stats) {
+            final ShardId shardId = shardStats.getShardRouting().shardId();
+            if (newWriteLoads.containsKey(shardId)) {
+                continue;
+            }
+            final Double previousWriteLoad = writeLoads.get(shardId);
+            final Double previousSearchLoad = searchLoads.get(shardId);
+            final double[] loads = intervalLoads.get(shardId);
+            final double writeLoad;
+            final double searchLoad;
+            if (loads == null) {
+                if (previousWriteLoad == null) {
+                    continue;
+                }
+                writeLoad = previousWriteLoad;
+                searchLoad = previousSearchLoad;
+            } else {
+                writeLoad = smooth(previousWriteLoad, loads[0] / loads[2], damping);
+                searchLoad = smooth(previousSearchLoad, loads[1] / loads[2], damping);
+            }
+            newWriteLoads.put(shardId, writeLoad);
+            newSearchLoads.put(shardId, searchLoad);
+            writeLoadsBuilder.put(shardId, writeLoad);
+            searchLoadsBuilder.put(shardId, searchLoad);
+        }
+
+        samplesByAllocationId = newSamples;
+        writeLoads = newWriteLoads;
+        searchLoads = newSearchLoads;
+        writeLoadsSnapshot = writeLoadsBuilder.build();
+        searchLoadsSnapshot = searchLoadsBuilder.build();
+    }
+
+    /**
+     * Forgets all samples and loads, e.g. when this node is no longer the elected master or the collection of stats is disabled.
+     */
+    void clear() {
+        samplesByAllocationId = new HashMap<>();
+        writeLoads = new HashMap<>();
+        searchLoads = new HashMap<>();
+        writeLoadsSnapshot = ImmutableOpenMap.of();
+        searchLoadsSnapshot = ImmutableOpenMap.of();
+    }
+
+    ImmutableOpenMap<ShardId, Double> getWriteLoads() {
+        return writeLoadsSnapshot;
+    }
+
+    ImmutableOpenMap<ShardId, Double> getSearchLoads() {
+        return searchLoadsSnapshot;
+    }
+
+    private static double smooth(Double previous, double current, double damping) {
+        return previous == null ? current : damping * previous + (1.0d - damping) * current;
+    }
+
+    private static final class Sample {
+        final long timeMillis;
+        final long indexTimeMillis;
+        final long searchTimeMillis;
+
+        Sample(long timeMillis, long indexTimeMillis, long searchTimeMillis) {
+            this.timeMillis = timeMillis;
+            this.indexTimeMillis = indexTimeMillis;
+            this.searchTimeMillis = searchTimeMillis;
+        }
+    }
+}
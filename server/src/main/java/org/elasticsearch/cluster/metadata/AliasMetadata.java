@@ -195,7 +195,7 @@ public class AliasMetadata extends AbstractDiffable<AliasMetadata> implements To
     }
 
     public AliasMetadata(StreamInput in) throws IOException {
-        alias = in.readString();
+        alias = in.readString().intern(); // aliases are typically shared by many indices
         if (in.readBoolean()) {
             filter = CompressedXContent.readCompressedString(in);
         } else {
@@ -451,6 +451,18 @@ public class IndexMetadata implements Diffable<IndexMetadata>, ToXContentFragmen
         assert numberOfShards * routingFactor == routingNumShards :  routingNumShards + " must be a multiple of " + numberOfShards;
     }
 
+    /**
+     * Returns a copy of this instance with the given mappings, which must be equal to the mappings of this instance. Used to share the
+     * instances of equal mappings across indices, see {@link Metadata.Builder#build()}.
+     */
+    IndexMetadata withMappings(ImmutableOpenMap<String, MappingMetadata> mappings) {
+        assert mappings.equals(this.mappings) : mappings + " vs " + this.mappings;
+        return new IndexMetadata(index, version, mappingVersion, settingsVersion, aliasesVersion, primaryTerms, state, numberOfShards,
+            numberOfReplicas, settings, mappings, aliases, customData, inSyncAllocationIds, requireFilters, initialRecoveryFilters,
+            includeFilters, excludeFilters, indexCreatedVersion, routingNumShards, routingPartitionSize, waitForActiveShards, rolloverInfos,
+            isSystem, timestampRange);
+    }
+
     public Index getIndex() {
         return index;
     }
@@ -52,6 +52,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.gateway.MetadataStateFormat;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.rest.RestStatus;
 
@@ -191,13 +192,15 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
     private final String[] visibleClosedIndices;
 
     private final SortedMap<String, IndexAbstraction> indicesLookup;
+    // the distinct mappings of all indices, each mapping maps to itself, see Builder#deduplicateMappings
+    private final Map<MappingMetadata, MappingMetadata> distinctMappings;
 
     Metadata(String clusterUUID, boolean clusterUUIDCommitted, long version, CoordinationMetadata coordinationMetadata,
              Settings transientSettings, Settings persistentSettings, DiffableStringMap hashesOfConsistentSettings,
              ImmutableOpenMap<String, IndexMetadata> indices, ImmutableOpenMap<String, IndexTemplateMetadata> templates,
              ImmutableOpenMap<String, Custom> customs, String[] allIndices, String[] visibleIndices, String[] allOpenIndices,
              String[] visibleOpenIndices, String[] allClosedIndices, String[] visibleClosedIndices,
-             SortedMap<String, IndexAbstraction> indicesLookup) {
+             SortedMap<String, IndexAbstraction> indicesLookup, Map<MappingMetadata, MappingMetadata> distinctMappings) {
         this.clusterUUID = clusterUUID;
         this.clusterUUIDCommitted = clusterUUIDCommitted;
         this.version = version;
@@ -227,12 +230,32 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         this.allClosedIndices = allClosedIndices;
         this.visibleClosedIndices = visibleClosedIndices;
         this.indicesLookup = indicesLookup;
+        this.distinctMappings = distinctMappings;
     }
 
     public long version() {
         return this.version;
     }
 
+    /**
+     * Returns the number of distinct mappings across all indices. Indices with equal mappings share a single {@link MappingMetadata}
+     * instance, so this is the number of compressed mapping sources held in memory.
+     */
+    public int getDistinctMappingsCount() {
+        return distinctMappings.size();
+    }
+
+    /**
+     * Returns the total size of the compressed sources of the distinct mappings across all indices.
+     */
+    public long getDistinctMappingsSizeInBytes() {
+        long sizeInBytes = 0L;
+        for (MappingMetadata mapping : distinctMappings.keySet()) {
+            sizeInBytes += mapping.source().compressed().length;
+        }
+        return sizeInBytes;
+    }
+
     public String clusterUUID() {
         return this.clusterUUID;
     }
@@ -1034,6 +1057,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         @Override
         public Metadata apply(Metadata part) {
             Builder builder = builder();
+            builder.previousMappings = part.distinctMappings;
             builder.clusterUUID(clusterUUID);
             builder.clusterUUIDCommitted(clusterUUIDCommitted);
             builder.version(version);
@@ -1139,12 +1163,14 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
         private final ImmutableOpenMap.Builder<String, IndexMetadata> indices;
         private final ImmutableOpenMap.Builder<String, IndexTemplateMetadata> templates;
         private final ImmutableOpenMap.Builder<String, Custom> customs;
+        private Map<MappingMetadata, MappingMetadata> previousMappings;
 
         public Builder() {
             clusterUUID = UNKNOWN_CLUSTER_UUID;
             indices = ImmutableOpenMap.builder();
             templates = ImmutableOpenMap.builder();
             customs = ImmutableOpenMap.builder();
+            previousMappings = Collections.emptyMap();
             indexGraveyard(IndexGraveyard.builder().build()); // create new empty index graveyard to initialize
         }
 
@@ -1159,6 +1185,7 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             this.indices = ImmutableOpenMap.builder(metadata.indices);
             this.templates = ImmutableOpenMap.builder(metadata.templates);
             this.customs = ImmutableOpenMap.builder(metadata.customs);
+            this.previousMappings = metadata.distinctMappings;
         }
 
         public Builder put(IndexMetadata.Builder indexMetadataBuilder) {
@@ -1549,6 +1576,8 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
             //    while these datastructures aren't even used.
             // 2) The aliasAndIndexLookup can be updated instead of rebuilding it all the time.
 
+            final Map<MappingMetadata, MappingMetadata> distinctMappings = deduplicateMappings();
+
             final Set<String> allIndices = new HashSet<>(indices.size());
             final List<String> visibleIndices = new ArrayList<>();
             final List<String> allOpenIndices = new ArrayList<>();
@@ -1644,7 +1673,53 @@ public class Metadata implements Iterable<IndexMetadata>, Diffable<Metadata>, To
 
             return new Metadata(clusterUUID, clusterUUIDCommitted, version, coordinationMetadata, transientSettings, persistentSettings,
                 hashesOfConsistentSettings, indices.build(), templates.build(), customs.build(), allIndicesArray, visibleIndicesArray,
-                allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray, indicesLookup);
+                allOpenIndicesArray, visibleOpenIndicesArray, allClosedIndicesArray, visibleClosedIndicesArray, indicesLookup,
+                distinctMappings);
+        }
+
+        /**
+         * Makes indices with equal mappings share the same {@link MappingMetadata} instance, preferring the instances of the metadata
+         * that this builder started from so that existing indices are left untouched. Indices created from the same template usually
+         * have equal mappings, but every index read from the wire or from disk comes with its own copy of the compressed mapping source.
+         *
+         * @return the distinct mappings, each mapping maps to itself
+         */
+        private Map<MappingMetadata, MappingMetadata> deduplicateMappings() {
+            final Map<MappingMetadata, MappingMetadata> distinctMappings = new HashMap<>();
+            List<IndexMetadata> deduplicated = null;
+            for (ObjectCursor<IndexMetadata> cursor : indices.values()) {
+                final IndexMetadata indexMetadata = cursor.value;
+                if (indexMetadata.getMappings().containsKey(MapperService.DEFAULT_MAPPING)) {
+                    // the default mapping of legacy indices updates the other mappings of the index in place, so they cannot be shared
+                    continue;
+                }
+                ImmutableOpenMap.Builder<String, MappingMetadata> mappings = null;
+                for (ObjectObjectCursor<String, MappingMetadata> mapping : indexMetadata.getMappings()) {
+                    MappingMetadata shared = distinctMappings.get(mapping.value);
+                    if (shared == null) {
+                        shared = previousMappings.getOrDefault(mapping.value, mapping.value);
+                        distinctMappings.put(shared, shared);
+                    }
+                    if (shared != mapping.value) {
+                        if (mappings == null) {
+                            mappings = ImmutableOpenMap.builder(indexMetadata.getMappings());
+                        }
+                        mappings.put(mapping.key, shared);
+                    }
+                }
+                if (mappings != null) {
+                    if (deduplicated == null) {
+                        deduplicated = new ArrayList<>();
+                    }
+                    deduplicated.add(indexMetadata.withMappings(mappings.build()));
+                }
+            }
+            if (deduplicated != null) {
+                for (IndexMetadata indexMetadata : deduplicated) {
+                    indices.put(indexMetadata.getIndex().getName(), indexMetadata);
+                }
+            }
+            return Collections.unmodifiableMap(distinctMappings);
         }
 
         private SortedMap<String, IndexAbstraction> buildIndicesLookup() {
@@ -35,6 +35,7 @@ import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.gateway.GatewayAllocator;
 import org.elasticsearch.gateway.PriorityComparator;
 import org.elasticsearch.snapshots.SnapshotsInfoService;
@@ -416,7 +417,15 @@ public class AllocationService {
         routingNodes.unassigned().shuffle();
         RoutingAllocation allocation = new RoutingAllocation(allocationDeciders, routingNodes, fixedClusterState,
             clusterInfoService.getClusterInfo(), snapshotsInfoService.snapshotShardSizes(), currentNanoTime());
+        if (logger.isTraceEnabled()) {
+            allocation.enableDeciderTiming();
+        }
         reroute(allocation);
+        if (allocation.isDeciderTimingEnabled()) {
+            logger.trace("reroute [{}] spent time in deciders [{}]", reason, allocation.getDeciderTimesInNanos().entrySet().stream()
+                .map(e -> e.getKey() + "=" + TimeValue.timeValueNanos(e.getValue()))
+                .collect(Collectors.joining(", ")));
+        }
         if (fixedClusterState == clusterState && allocation.routingNodesChanged() == false) {
             return clusterState;
         }
@@ -11,15 +11,19 @@ package org.elasticsearch.cluster.routing.allocation;
 import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.RestoreInProgress;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.RoutingChangesObserver;
 import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.Index;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.RestoreService.RestoreInProgressUpdater;
 import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
@@ -27,9 +31,13 @@ import org.elasticsearch.snapshots.SnapshotShardSizeInfo;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Supplier;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
 
 /**
@@ -65,6 +73,11 @@ public class RoutingAllocation {
 
     private final long currentNanoTime;
 
+    private final Map<CachedDecisionKey, Decision> cachedDecisions = new HashMap<>();
+
+    @Nullable
+    private Map<String, Long> deciderTimesInNanos = null;
+
     private final IndexMetadataUpdater indexMetadataUpdater = new IndexMetadataUpdater();
     private final RoutingNodesChangedObserver nodesChangedObserver = new RoutingNodesChangedObserver();
     private final RestoreInProgressUpdater restoreInProgressUpdater = new RestoreInProgressUpdater();
@@ -267,6 +280,61 @@ public class RoutingAllocation {
         }
     }
 
+    /**
+     * Returns the decision computed by the given supplier, remembering it for the remainder of this allocation. A decider may use this
+     * for a decision that only depends on the settings of the index, on the given attributes of the node, and on state that does not
+     * change during an allocation such as the cluster settings and the set of nodes in the cluster. Nothing is remembered in debug mode
+     * since decisions then carry an explanation.
+     *
+     * @param deciderLabel   a label that is unique to the decider
+     * @param indexMetadata  the index the decision is about
+     * @param nodeAttributes the attributes of the node that the decision depends on, these must implement equals and hashCode
+     */
+    public Decision cachedDecision(
+        String deciderLabel,
+        IndexMetadata indexMetadata,
+        Object nodeAttributes,
+        Supplier<Decision> decisionSupplier
+    ) {
+        if (debugDecision()) {
+            return decisionSupplier.get();
+        }
+        return cachedDecisions.computeIfAbsent(
+            new CachedDecisionKey(deciderLabel, indexMetadata.getIndex(), indexMetadata.getSettingsVersion(), nodeAttributes),
+            k -> decisionSupplier.get()
+        );
+    }
+
+    /**
+     * Enables recording the time that each decider spends making decisions in this allocation, see {@link #getDeciderTimesInNanos()}.
+     */
+    public void enableDeciderTiming() {
+        if (deciderTimesInNanos == null) {
+            deciderTimesInNanos = new HashMap<>();
+        }
+    }
+
+    public boolean isDeciderTimingEnabled() {
+        return deciderTimesInNanos != null;
+    }
+
+    /**
+     * Records that the given decider spent the given time making a decision, if timing is enabled.
+     */
+    public void addDeciderTime(AllocationDecider decider, long timeInNanos) {
+        if (deciderTimesInNanos != null) {
+            deciderTimesInNanos.merge(decider.getClass().getSimpleName(), timeInNanos, Long::sum);
+        }
+    }
+
+    /**
+     * @return the total time that each decider, by its simple class name, spent making decisions in this allocation, which is empty unless
+     *         {@link #enableDeciderTiming()} was called before making the decisions
+     */
+    public Map<String, Long> getDeciderTimesInNanos() {
+        return deciderTimesInNanos == null ? emptyMap() : unmodifiableMap(deciderTimesInNanos);
+    }
+
     /**
      * Returns <code>true</code> iff the current allocation run has not processed all of the in-flight or available
      * shard or store fetches. Otherwise <code>true</code>
@@ -283,6 +351,40 @@ public class RoutingAllocation {
         this.hasPendingAsyncFetch = true;
     }
 
+    private static final class CachedDecisionKey {
+        private final String deciderLabel;
+        private final Index index;
+        private final long settingsVersion;
+        private final Object nodeAttributes;
+
+        CachedDecisionKey(String deciderLabel, Index index, long settingsVersion, Object nodeAttributes) {
+            this.deciderLabel = deciderLabel;
+            this.index = index;
+            this.settingsVersion = settingsVersion;
+            this.nodeAttributes = nodeAttributes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CachedDecisionKey that = (CachedDecisionKey) o;
+            return settingsVersion == that.settingsVersion
+                && deciderLabel.equals(that.deciderLabel)
+                && index.equals(that.index)
+                && nodeAttributes.equals(that.nodeAttributes);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(deciderLabel, index, settingsVersion, nodeAttributes);
+        }
+    }
+
     public enum DebugMode {
         /**
          * debug mode is off
@@ -12,6 +12,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.cluster.routing.RoutingNode;
@@ -53,12 +54,15 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 
 /**
  * The {@link BalancedShardsAllocator} re-balances the nodes allocations
- * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by four parameters which can be set
+ * within an cluster based on a {@link WeightFunction}. The clusters balance is defined by the following parameters which can be set
  * in the cluster update API that allows changes in real-time:
  * <ul><li><code>cluster.routing.allocation.balance.shard</code> - The <b>shard balance</b> defines the weight factor
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.write_load</code>, <code>cluster.routing.allocation.balance.search_load</code> and
+ * <code>cluster.routing.allocation.balance.disk_usage</code> - optional factors to the indexing load, search load and disk usage of
+ * the shards allocated on a specific node, as collected by the {@link org.elasticsearch.cluster.InternalClusterInfoService}</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -74,12 +78,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         Setting.floatSetting("cluster.routing.allocation.balance.index", 0.55f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> SHARD_BALANCE_FACTOR_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.shard", 0.45f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> WRITE_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.write_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> SEARCH_LOAD_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.search_load", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
+    public static final Setting<Float> DISK_USAGE_BALANCE_FACTOR_SETTING =
+        Setting.floatSetting("cluster.routing.allocation.balance.disk_usage", 0.0f, 0.0f, Property.Dynamic, Property.NodeScope);
     public static final Setting<Float> THRESHOLD_SETTING =
         Setting.floatSetting("cluster.routing.allocation.balance.threshold", 1.0f, 0.0f,
             Property.Dynamic, Property.NodeScope);
 
     private volatile WeightFunction weightFunction;
     private volatile float threshold;
+    private volatile float writeLoadBalance;
+    private volatile float searchLoadBalance;
+    private volatile float diskUsageBalance;
 
     public BalancedShardsAllocator(Settings settings) {
         this(settings, new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS));
@@ -87,14 +100,35 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     @Inject
     public BalancedShardsAllocator(Settings settings, ClusterSettings clusterSettings) {
+        writeLoadBalance = WRITE_LOAD_BALANCE_FACTOR_SETTING.get(settings);
+        searchLoadBalance = SEARCH_LOAD_BALANCE_FACTOR_SETTING.get(settings);
+        diskUsageBalance = DISK_USAGE_BALANCE_FACTOR_SETTING.get(settings);
         setWeightFunction(INDEX_BALANCE_FACTOR_SETTING.get(settings), SHARD_BALANCE_FACTOR_SETTING.get(settings));
         setThreshold(THRESHOLD_SETTING.get(settings));
         clusterSettings.addSettingsUpdateConsumer(INDEX_BALANCE_FACTOR_SETTING, SHARD_BALANCE_FACTOR_SETTING, this::setWeightFunction);
+        clusterSettings.addSettingsUpdateConsumer(WRITE_LOAD_BALANCE_FACTOR_SETTING, this::setWriteLoadBalance);
+        clusterSettings.addSettingsUpdateConsumer(SEARCH_LOAD_BALANCE_FACTOR_SETTING, this::setSearchLoadBalance);
+        clusterSettings.addSettingsUpdateConsumer(DISK_USAGE_BALANCE_FACTOR_SETTING, this::setDiskUsageBalance);
         clusterSettings.addSettingsUpdateConsumer(THRESHOLD_SETTING, this::setThreshold);
     }
 
     private void setWeightFunction(float indexBalance, float shardBalanceFactor) {
-        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor);
+        weightFunction = new WeightFunction(indexBalance, shardBalanceFactor, writeLoadBalance, searchLoadBalance, diskUsageBalance);
+    }
+
+    private void setWriteLoadBalance(float writeLoadBalance) {
+        this.writeLoadBalance = writeLoadBalance;
+        setWeightFunction(weightFunction.indexBalance, weightFunction.shardBalance);
+    }
+
+    private void setSearchLoadBalance(float searchLoadBalance) {
+        this.searchLoadBalance = searchLoadBalance;
+        setWeightFunction(weightFunction.indexBalance, weightFunction.shardBalance);
+    }
+
+    private void setDiskUsageBalance(float diskUsageBalance) {
+        this.diskUsageBalance = diskUsageBalance;
+        setWeightFunction(weightFunction.indexBalance, weightFunction.shardBalance);
     }
 
     private void setThreshold(float threshold) {
@@ -179,13 +213,37 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the write load related weight factor.
+     */
+    public float getWriteLoadBalance() {
+        return weightFunction.writeLoadBalance;
+    }
+
+    /**
+     * Returns the search load related weight factor.
+     */
+    public float getSearchLoadBalance() {
+        return weightFunction.searchLoadBalance;
+    }
+
+    /**
+     * Returns the disk usage related weight factor.
+     */
+    public float getDiskUsageBalance() {
+        return weightFunction.diskUsageBalance;
+    }
+
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 5 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>write load balance</code> - balance property over the indexing load per cluster</li>
+     * <li><code>search load balance</code> - balance property over the search load per cluster</li>
+     * <li><code>disk usage balance</code> - balance property over the shard sizes per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative
@@ -203,29 +261,85 @@ public class BalancedShardsAllocator implements ShardsAllocator {
      * </li>
      * </ul>
      * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <p>
+     * If any of the load factors is positive then the weight also includes the following terms, in which loads are expressed in
+     * multiples of the average load of a shard so that a node carrying one average shard too many has the same load weight as a node
+     * holding one shard too many:
+     * </p>
+     * <ul>
+     * <li>
+     * <code>weight<sub>write</sub>(node) = writeLoadBalance * (node.writeLoad() - avgWriteLoadPerNode) / avgWriteLoadPerShard</code>
+     * </li>
+     * <li>
+     * <code>weight<sub>search</sub>(node) = searchLoadBalance * (node.searchLoad() - avgSearchLoadPerNode) / avgSearchLoadPerShard</code>
+     * </li>
+     * <li>
+     * <code>weight<sub>disk</sub>(node) = diskUsageBalance * (node.diskUsage() - avgDiskUsagePerNode) / avgDiskUsagePerShard</code>
+     * </li>
+     * </ul>
      */
     private static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float writeLoadBalance;
+        private final float searchLoadBalance;
+        private final float diskUsageBalance;
         private final float theta0;
         private final float theta1;
+        private final float theta2;
+        private final float theta3;
+        private final float theta4;
 
-        WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+        WeightFunction(float indexBalance, float shardBalance, float writeLoadBalance, float searchLoadBalance, float diskUsageBalance) {
+            float sum = indexBalance + shardBalance + writeLoadBalance + searchLoadBalance + diskUsageBalance;
             if (sum <= 0.0f) {
                 throw new IllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
             theta0 = shardBalance / sum;
             theta1 = indexBalance / sum;
+            theta2 = writeLoadBalance / sum;
+            theta3 = searchLoadBalance / sum;
+            theta4 = diskUsageBalance / sum;
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.writeLoadBalance = writeLoadBalance;
+            this.searchLoadBalance = searchLoadBalance;
+            this.diskUsageBalance = diskUsageBalance;
+        }
+
+        /**
+         * Returns {@code true} iff the weights depend on the loads of the shards.
+         */
+        boolean isLoadAware() {
+            return theta2 > 0.0f || theta3 > 0.0f || theta4 > 0.0f;
         }
 
         float weight(Balancer balancer, ModelNode node, String index) {
             final float weightShard = node.numShards() - balancer.avgShardsPerNode();
             final float weightIndex = node.numShards(index) - balancer.avgShardsPerNode(index);
-            return theta0 * weightShard + theta1 * weightIndex;
+            float weight = theta0 * weightShard + theta1 * weightIndex;
+            if (isLoadAware()) {
+                weight += theta2 * balancer.relativeWriteLoad(node)
+                    + theta3 * balancer.relativeSearchLoad(node)
+                    + theta4 * balancer.relativeDiskUsage(node);
+            }
+            return weight;
+        }
+
+        /**
+         * Returns the amount by which the weight of a node changes, with respect to the shard's index, when the given shard is added to
+         * or removed from it. Moving the shard from a node to one with a lower weight only improves the balance if this is less than
+         * the delta between the weights of the two nodes.
+         */
+        float shardWeight(Balancer balancer, ShardRouting shard) {
+            float weight = theta0 + theta1;
+            if (isLoadAware()) {
+                weight += theta2 * balancer.relativeWriteLoad(shard)
+                    + theta3 * balancer.relativeSearchLoad(shard)
+                    + theta4 * balancer.relativeDiskUsage(shard);
+            }
+            return weight;
         }
     }
 
@@ -242,7 +356,13 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final float threshold;
         private final Metadata metadata;
         private final float avgShardsPerNode;
+        // the cluster info from which the model nodes track the loads of their shards, or null if the weights ignore the loads
+        private final ClusterInfo loadInfo;
+        private final NodeLoads avgLoadsPerNode;
+        private final NodeLoads avgLoadsPerShard;
         private final NodeSorter sorter;
+        // set whenever a shard moves on the model while balancing, after which the index deltas computed up front are stale
+        private boolean modelChanged;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
             this.logger = logger;
@@ -252,7 +372,19 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             this.routingNodes = allocation.routingNodes();
             this.metadata = allocation.metadata();
             avgShardsPerNode = ((float) metadata.getTotalNumberOfShards()) / routingNodes.size();
+            loadInfo = weight.isLoadAware() ? allocation.clusterInfo() : null;
             nodes = Collections.unmodifiableMap(buildModelFromAssigned());
+            // the loads come from the cluster info last collected by the elected master. The averages are taken over the shards that
+            // are assigned when the allocation starts: relocations only move loads between nodes, but shards allocated by this balancer
+            // add the last known load of their shard id, or their size, to their node without updating the averages.
+            final NodeLoads totalLoads = new NodeLoads();
+            int totalShards = 0;
+            for (ModelNode node : nodes.values()) {
+                totalLoads.add(node.loads);
+                totalShards += node.numShards();
+            }
+            avgLoadsPerNode = totalLoads.dividedBy(nodes.size());
+            avgLoadsPerShard = totalLoads.dividedBy(totalShards);
             sorter = newNodeSorter();
         }
 
@@ -277,6 +409,40 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return avgShardsPerNode;
         }
 
+        /**
+         * Returns the write load of the given node relative to the average, in multiples of the average write load of a shard.
+         */
+        float relativeWriteLoad(ModelNode node) {
+            return relativeLoad(node.loads.writeLoad, avgLoadsPerNode.writeLoad, avgLoadsPerShard.writeLoad);
+        }
+
+        float relativeSearchLoad(ModelNode node) {
+            return relativeLoad(node.loads.searchLoad, avgLoadsPerNode.searchLoad, avgLoadsPerShard.searchLoad);
+        }
+
+        float relativeDiskUsage(ModelNode node) {
+            return relativeLoad(node.loads.diskUsage, avgLoadsPerNode.diskUsage, avgLoadsPerShard.diskUsage);
+        }
+
+        /**
+         * Returns the write load of the given shard in multiples of the average write load of a shard.
+         */
+        float relativeWriteLoad(ShardRouting shard) {
+            return relativeLoad(NodeLoads.writeLoad(loadInfo, shard), 0.0d, avgLoadsPerShard.writeLoad);
+        }
+
+        float relativeSearchLoad(ShardRouting shard) {
+            return relativeLoad(NodeLoads.searchLoad(loadInfo, shard), 0.0d, avgLoadsPerShard.searchLoad);
+        }
+
+        float relativeDiskUsage(ShardRouting shard) {
+            return relativeLoad(NodeLoads.diskUsage(loadInfo, shard), 0.0d, avgLoadsPerShard.diskUsage);
+        }
+
+        private static float relativeLoad(double load, double avgLoad, double avgLoadPerShard) {
+            return avgLoadPerShard > 0.0d ? (float) ((load - avgLoad) / avgLoadPerShard) : 0.0f;
+        }
+
         /**
          * Returns a new {@link NodeSorter} that sorts the nodes based on their
          * current weight with respect to the index passed to the sorter. The
@@ -396,7 +562,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                     boolean deltaAboveThreshold = lessThan(currentDelta, threshold) == false;
                     // calculate the delta of the weights of the two nodes if we were to add the shard to the
                     // node in question and move it away from the node that currently holds it.
-                    boolean betterWeightWithShardAdded = nodeWeight + 1.0f < currentWeight;
+                    boolean betterWeightWithShardAdded = nodeWeight + weight.shardWeight(this, shard) < currentWeight;
                     rebalanceConditionsMet = deltaAboveThreshold && betterWeightWithShardAdded;
                     // if the simulated weight delta with the shard moved away is better than the weight delta
                     // with the shard remaining on the current node, and we are allowed to allocate to the
@@ -464,7 +630,20 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final AllocationDeciders deciders = allocation.deciders();
             final ModelNode[] modelNodes = sorter.modelNodes;
             final float[] weights = sorter.weights;
-            for (String index : buildWeightOrderedIndices()) {
+            final String[] indices = buildWeightOrderedIndices();
+            modelChanged = false;
+            for (String index : indices) {
+                // the nodes considered below are a subset of all nodes, so if the weights of all nodes are within the threshold of each
+                // other then no relocation of a shard of this index can improve the balance and we can skip asking the deciders
+                if (lessThan(maxWeightDelta(index), threshold)) {
+                    if (modelChanged == false) {
+                        // the indices are ordered by descending delta which is still accurate since no shard moved, so the remaining
+                        // indices are balanced too
+                        break;
+                    }
+                    continue;
+                }
+
                 IndexMetadata indexMetadata = metadata.index(index);
 
                 // find nodes that have a shard of this index or where shards of this index are allowed to be allocated to,
@@ -521,7 +700,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                             logger.trace("Balancing from node [{}] weight: [{}] to node [{}] weight: [{}]  delta: [{}]",
                                     maxNode.getNodeId(), weights[highIdx], minNode.getNodeId(), weights[lowIdx], delta);
                         }
-                        if (delta <= 1.0f) {
+                        if (delta <= 1.0f && weight.isLoadAware() == false) {
                             /*
                              * prevent relocations that only swap the weights of the two nodes. a relocation must bring us closer to the
                              * balance if we only achieve the same delta the relocation is useless
@@ -532,7 +711,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                              */
                             logger.trace("Couldn't find shard to relocate from node [{}] to node [{}]",
                                 maxNode.getNodeId(), minNode.getNodeId());
-                        } else if (tryRelocateShard(minNode, maxNode, index)) {
+                        } else if (tryRelocateShard(minNode, maxNode, index, delta)) {
                             /*
                              * TODO we could be a bit smarter here, we don't need to fully sort necessarily
                              * we could just find the place to insert linearly but the win might be minor
@@ -583,8 +762,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = maxWeightDelta(indices[i]);
             }
             new IntroSorter() {
 
@@ -619,6 +797,21 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             return indices;
         }
 
+        /**
+         * Returns the difference between the highest and the lowest weight of any node with respect to the given index. Unlike sorting
+         * the nodes this is linear in the number of nodes, which matters since it is computed for every index on every reroute.
+         */
+        private float maxWeightDelta(String index) {
+            float minWeight = Float.POSITIVE_INFINITY;
+            float maxWeight = Float.NEGATIVE_INFINITY;
+            for (ModelNode node : sorter.modelNodes) {
+                final float nodeWeight = weight.weight(this, node, index);
+                minWeight = Math.min(minWeight, nodeWeight);
+                maxWeight = Math.max(maxWeight, nodeWeight);
+            }
+            return maxWeight - minWeight;
+        }
+
         /**
          * Move started shards that can not be allocated to a node anymore
          *
@@ -731,7 +924,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private Map<String, ModelNode> buildModelFromAssigned() {
             Map<String, ModelNode> nodes = new HashMap<>();
             for (RoutingNode rn : routingNodes) {
-                ModelNode node = new ModelNode(rn);
+                ModelNode node = new ModelNode(rn, loadInfo);
                 nodes.put(rn.nodeId(), node);
                 for (ShardRouting shard : rn) {
                     assert rn.nodeId().equals(shard.currentNodeId());
@@ -967,9 +1160,11 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         /**
          * Tries to find a relocation from the max node to the minimal node for an arbitrary shard of the given index on the
          * balance model. Iff this method returns a <code>true</code> the relocation has already been executed on the
-         * simulation model as well as on the cluster.
+         * simulation model as well as on the cluster. If the weights depend on the loads of the shards then only shards whose weight is
+         * less than the given delta between the weights of the two nodes are considered, since moving a heavier shard would just swap
+         * the roles of the two nodes and move it back on a later reroute.
          */
-        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx) {
+        private boolean tryRelocateShard(ModelNode minNode, ModelNode maxNode, String idx, float delta) {
             final ModelIndex index = maxNode.getIndex(idx);
             if (index != null) {
                 logger.trace("Try relocating shard of [{}] from [{}] to [{}]", idx, maxNode.getNodeId(), minNode.getNodeId());
@@ -981,6 +1176,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
                 final AllocationDeciders deciders = allocation.deciders();
                 for (ShardRouting shard : shardRoutings) {
+                    if (weight.isLoadAware() && weight.shardWeight(this, shard) >= delta) {
+                        continue;
+                    }
                     final Decision rebalanceDecision = deciders.canRebalance(shard, allocation);
                     if (rebalanceDecision.type() == Type.NO) {
                         continue;
@@ -992,6 +1190,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
                     final Decision decision = new Decision.Multi().add(allocationDecision).add(rebalanceDecision);
 
+                    modelChanged = true;
                     maxNode.removeShard(shard);
                     long shardSize = allocation.clusterInfo().getShardSize(shard, ShardRouting.UNAVAILABLE_EXPECTED_SHARD_SIZE);
 
@@ -1019,9 +1218,15 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final Map<String, ModelIndex> indices = new HashMap<>();
         private int numShards = 0;
         private final RoutingNode routingNode;
+        private final ClusterInfo loadInfo;
+        private final NodeLoads loads = new NodeLoads();
 
-        ModelNode(RoutingNode routingNode) {
+        /**
+         * @param loadInfo the cluster info to look up the loads of the shards on the node, or {@code null} if not tracking loads
+         */
+        ModelNode(RoutingNode routingNode, ClusterInfo loadInfo) {
             this.routingNode = routingNode;
+            this.loadInfo = loadInfo;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -1061,6 +1266,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             }
             index.addShard(shard);
             numShards++;
+            if (loadInfo != null) {
+                loads.add(shard, loadInfo);
+            }
         }
 
         public void removeShard(ShardRouting shard) {
@@ -1072,6 +1280,9 @@ public class BalancedShardsAllocator implements ShardsAllocator {
                 }
             }
             numShards--;
+            if (loadInfo != null) {
+                loads.remove(shard, loadInfo);
+            }
         }
 
         @Override
@@ -1093,6 +1304,56 @@ public class BalancedShardsAllocator implements ShardsAllocator {
 
     }
 
+    /**
+     * The sums of the write loads, search loads and sizes of some shards, see {@link ClusterInfo#getShardWriteLoad},
+     * {@link ClusterInfo#getShardSearchLoad} and {@link ClusterInfo#getShardSize}. Shards without stats count as having no load.
+     */
+    static final class NodeLoads {
+        private double writeLoad;
+        private double searchLoad;
+        private double diskUsage;
+
+        void add(ShardRouting shard, ClusterInfo clusterInfo) {
+            writeLoad += writeLoad(clusterInfo, shard);
+            searchLoad += searchLoad(clusterInfo, shard);
+            diskUsage += diskUsage(clusterInfo, shard);
+        }
+
+        void remove(ShardRouting shard, ClusterInfo clusterInfo) {
+            writeLoad -= writeLoad(clusterInfo, shard);
+            searchLoad -= searchLoad(clusterInfo, shard);
+            diskUsage -= diskUsage(clusterInfo, shard);
+        }
+
+        void add(NodeLoads other) {
+            writeLoad += other.writeLoad;
+            searchLoad += other.searchLoad;
+            diskUsage += other.diskUsage;
+        }
+
+        NodeLoads dividedBy(int count) {
+            final NodeLoads result = new NodeLoads();
+            if (count > 0) {
+                result.writeLoad = writeLoad / count;
+                result.searchLoad = searchLoad / count;
+                result.diskUsage = diskUsage / count;
+            }
+            return result;
+        }
+
+        static double writeLoad(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo == null ? 0.0d : clusterInfo.getShardWriteLoad(shard.shardId(), 0.0d);
+        }
+
+        static double searchLoad(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo == null ? 0.0d : clusterInfo.getShardSearchLoad(shard.shardId(), 0.0d);
+        }
+
+        static double diskUsage(ClusterInfo clusterInfo, ShardRouting shard) {
+            return clusterInfo == null ? 0.0d : clusterInfo.getShardSize(shard, 0L);
+        }
+    }
+
     static final class ModelIndex implements Iterable<ShardRouting> {
         private final String id;
         private final Set<ShardRouting> shards = new HashSet<>(4); // expect few shards of same index to be allocated on same node
@@ -1206,9 +1467,5 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         protected int comparePivot(int j) {
             return Float.compare(pivotWeight, weights[j]);
         }
-
-        public float delta() {
-            return weights[weights.length - 1] - weights[0];
-        }
     }
 }
@@ -37,7 +37,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (allocation.debugDecision() == false) {
@@ -59,7 +61,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -89,7 +93,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -112,7 +118,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canAllocate(indexMetadata, node, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (allocation.debugDecision() == false) {
@@ -131,7 +139,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision shouldAutoExpandToNode(IndexMetadata indexMetadata, DiscoveryNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.shouldAutoExpandToNode(indexMetadata, node, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (allocation.debugDecision() == false) {
@@ -150,7 +160,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (allocation.debugDecision() == false) {
@@ -169,7 +181,9 @@ public class AllocationDeciders extends AllocationDecider {
     public Decision canRebalance(RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider allocationDecider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = allocationDecider.canRebalance(allocation);
+            stopTiming(allocationDecider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (allocation.debugDecision() == false) {
@@ -193,7 +207,9 @@ public class AllocationDeciders extends AllocationDecider {
         }
         Decision.Multi ret = new Decision.Multi();
         for (AllocationDecider decider : allocations) {
+            final long startTimeNanos = startTiming(allocation);
             Decision decision = decider.canForceAllocatePrimary(shardRouting, node, allocation);
+            stopTiming(decider, allocation, startTimeNanos);
             // short track if a NO is returned.
             if (decision.type() == Decision.Type.NO) {
                 if (logger.isTraceEnabled()) {
@@ -212,6 +228,16 @@ public class AllocationDeciders extends AllocationDecider {
         return ret;
     }
 
+    private static long startTiming(RoutingAllocation allocation) {
+        return allocation.isDeciderTimingEnabled() ? System.nanoTime() : 0L;
+    }
+
+    private static void stopTiming(AllocationDecider decider, RoutingAllocation allocation, long startTimeNanos) {
+        if (allocation.isDeciderTimingEnabled()) {
+            allocation.addDeciderTime(decider, System.nanoTime() - startTimeNanos);
+        }
+    }
+
     private void addDecision(Decision.Multi ret, Decision decision, RoutingAllocation allocation) {
         // We never add ALWAYS decisions and only add YES decisions when requested by debug mode (since Multi default is YES).
         if (decision != Decision.ALWAYS
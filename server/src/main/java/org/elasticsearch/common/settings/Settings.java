@@ -523,7 +523,8 @@ public final class Settings implements ToXContentFragment {
         int numberOfSettings = in.readVInt();
         if (in.getVersion().onOrAfter(Version.V_6_1_0)) {
             for (int i = 0; i < numberOfSettings; i++) {
-                String key = in.readString();
+                // the same keys occur in the settings of every index, intern them so that all indices share a single copy
+                String key = in.readString().intern();
                 Object value = in.readGenericValue();
                 if (value == null) {
                     builder.putNull(key);
@@ -530,9 +530,12 @@ public final class IndexSettings {
 
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING, mergePolicyConfig::setNoCFSRatio);
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING,
-            mergePolicyConfig::setDeletesPctAllowed);
+            mergePolicyConfig::setDeletesPctAllowed,
+            value -> mergePolicyConfig.validateTieredOnlySettingUpdate(MergePolicyConfig.INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING));
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_EXPUNGE_DELETES_ALLOWED_SETTING,
-            mergePolicyConfig::setExpungeDeletesAllowed);
+            mergePolicyConfig::setExpungeDeletesAllowed,
+            value -> mergePolicyConfig.validateTieredOnlySettingUpdate(
+                MergePolicyConfig.INDEX_MERGE_POLICY_EXPUNGE_DELETES_ALLOWED_SETTING));
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING,
             mergePolicyConfig::setFloorSegmentSetting);
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGE_AT_ONCE_SETTING,
@@ -543,6 +546,8 @@ public final class IndexSettings {
             mergePolicyConfig::setMaxMergedSegment);
         scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING,
             mergePolicyConfig::setSegmentsPerTier);
+        scopedSettings.addSettingsUpdateConsumer(MergePolicyConfig.INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING,
+            mergePolicyConfig::setMergeFactor);
 
         scopedSettings.addSettingsUpdateConsumer(MergeSchedulerConfig.MAX_THREAD_COUNT_SETTING,
             MergeSchedulerConfig.MAX_MERGE_COUNT_SETTING, mergeSchedulerConfig::setMaxThreadAndMergeCount);
@@ -968,7 +973,15 @@ public final class IndexSettings {
      * Returns the merge policy that should be used for this index.
      */
     public MergePolicy getMergePolicy() {
-        return mergePolicyConfig.getMergePolicy();
+        return getMergePolicy(false);
+    }
+
+    /**
+     * Returns the merge policy that should be used for this index.
+     * @param isTimeBasedIndex whether this index holds append-only time-based data, like a data stream backing index
+     */
+    public MergePolicy getMergePolicy(boolean isTimeBasedIndex) {
+        return mergePolicyConfig.getMergePolicy(isTimeBasedIndex);
     }
 
     public <T> T getValue(Setting<T> setting) {
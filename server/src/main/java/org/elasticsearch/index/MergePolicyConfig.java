@@ -9,6 +9,7 @@
 package org.elasticsearch.index;
 
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.MergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.TieredMergePolicy;
@@ -18,6 +19,12 @@ import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
 /**
  * A shard in elasticsearch is a Lucene index, and a Lucene index is broken
  * down into segments. Segments are internal storage elements in the index
@@ -103,12 +110,35 @@ import org.elasticsearch.common.unit.ByteSizeValue;
  * indices segments API to see the segments that an index has, and
  * possibly either increase the <code>max_merged_segment</code> or issue an optimize
  * call for the index (try and aim to issue it on a low traffic time).
+ *
+ * <p>
+ * Indices that hold time-based data, like the backing indices of a data stream, are
+ * merged with a policy that only ever merges adjacent segments instead. Since documents
+ * are appended roughly in <code>@timestamp</code> order, adjacent segments cover adjacent
+ * time ranges, so merged segments keep tight min/max timestamps and range queries can
+ * skip them based on their point values. The policy can be chosen explicitly through the
+ * static <code>index.merge.policy.type</code> setting which accepts <code>unset</code> (the
+ * default), <code>tiered</code> or <code>time_based</code>. The <code>time_based</code> policy honours
+ * <code>floor_segment</code>, <code>max_merged_segment</code> and the following setting, but not
+ * <code>deletes_pct_allowed</code> nor <code>expunge_deletes_allowed</code>. These are rejected on indices whose
+ * type is <code>time_based</code>, and a warning is logged if they are set on an index for which <code>unset</code>
+ * picks the <code>time_based</code> policy:
+ *
+ * <ul>
+ * <li><code>index.merge.policy.merge_factor</code>:
+ *
+ *     Number of adjacent segments of a similar size that are merged at once. Default
+ *     is <code>16</code>.
+ * </ul>
  */
 
 public final class MergePolicyConfig {
-    private final EsTieredMergePolicy mergePolicy = new EsTieredMergePolicy();
+    private final EsTieredMergePolicy tieredMergePolicy = new EsTieredMergePolicy();
+    private final LogByteSizeMergePolicy logByteSizeMergePolicy = new LogByteSizeMergePolicy();
     private final Logger logger;
+    private final IndexSettings indexSettings;
     private final boolean mergesEnabled;
+    private final Type mergePolicyType;
 
     public static final double          DEFAULT_EXPUNGE_DELETES_ALLOWED     = 10d;
     public static final ByteSizeValue   DEFAULT_FLOOR_SEGMENT               = new ByteSizeValue(2, ByteSizeUnit.MB);
@@ -117,6 +147,7 @@ public final class MergePolicyConfig {
     public static final ByteSizeValue   DEFAULT_MAX_MERGED_SEGMENT          = new ByteSizeValue(5, ByteSizeUnit.GB);
     public static final double          DEFAULT_SEGMENTS_PER_TIER           = 10.0d;
     public static final double          DEFAULT_DELETES_PCT_ALLOWED         = 33.0d;
+    public static final int             DEFAULT_MERGE_FACTOR                = 16;
     public static final Setting<Double> INDEX_COMPOUND_FORMAT_SETTING       =
         new Setting<>("index.compound_format", Double.toString(TieredMergePolicy.DEFAULT_NO_CFS_RATIO),
             MergePolicyConfig::parseNoCFSRatio, Property.Dynamic, Property.IndexScope);
@@ -142,11 +173,78 @@ public final class MergePolicyConfig {
     public static final Setting<Double> INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING =
         Setting.doubleSetting("index.merge.policy.deletes_pct_allowed", DEFAULT_DELETES_PCT_ALLOWED, 20.0d, 50.0d,
             Property.Dynamic, Property.IndexScope);
+    public static final Setting<Integer> INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING =
+        Setting.intSetting("index.merge.policy.merge_factor", DEFAULT_MERGE_FACTOR, 2,
+            Property.Dynamic, Property.IndexScope);
+    public static final Setting<Type> INDEX_MERGE_POLICY_TYPE_SETTING =
+        new Setting<>("index.merge.policy.type", Type.UNSET.name().toLowerCase(Locale.ROOT), Type::fromString, Property.IndexScope);
     // don't convert to Setting<> and register... we only set this in tests and register via a plugin
     public static final String INDEX_MERGE_ENABLED = "index.merge.enabled";
 
+    /**
+     * The settings that only the {@link Type#TIERED} merge policy honours.
+     */
+    static final List<Setting<Double>> TIERED_ONLY_SETTINGS = Collections.unmodifiableList(Arrays.asList(
+        INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING, INDEX_MERGE_POLICY_EXPUNGE_DELETES_ALLOWED_SETTING));
+
+    /**
+     * The merge policy to use for an index.
+     */
+    public enum Type {
+        /**
+         * Picks {@link #TIME_BASED} for time-based indices, such as data stream backing indices, and {@link #TIERED} otherwise.
+         */
+        UNSET {
+            @Override
+            MergePolicy getMergePolicy(MergePolicyConfig config, boolean isTimeBasedIndex) {
+                return isTimeBasedIndex ? TIME_BASED.getMergePolicy(config, true) : TIERED.getMergePolicy(config, false);
+            }
+        },
+        /**
+         * Merges segments of approximately equal size regardless of their position in the index.
+         */
+        TIERED {
+            @Override
+            MergePolicy getMergePolicy(MergePolicyConfig config, boolean isTimeBasedIndex) {
+                return config.tieredMergePolicy;
+            }
+        },
+        /**
+         * Only merges adjacent segments, which preserves the time locality of append-only time-based data.
+         */
+        TIME_BASED {
+            @Override
+            MergePolicy getMergePolicy(MergePolicyConfig config, boolean isTimeBasedIndex) {
+                return config.logByteSizeMergePolicy;
+            }
+        };
+
+        abstract MergePolicy getMergePolicy(MergePolicyConfig config, boolean isTimeBasedIndex);
+
+        static Type fromString(String type) {
+            switch (type) {
+                case "unset":
+                    return UNSET;
+                case "tiered":
+                    return TIERED;
+                case "time_based":
+                    return TIME_BASED;
+                default:
+                    throw new IllegalArgumentException(
+                        "unknown merge policy type [" + type + "], must be one of [unset, tiered, time_based]");
+            }
+        }
+    }
+
     MergePolicyConfig(Logger logger, IndexSettings indexSettings) {
         this.logger = logger;
+        this.indexSettings = indexSettings;
+        this.mergePolicyType = indexSettings.getValue(INDEX_MERGE_POLICY_TYPE_SETTING);
+        if (mergePolicyType == Type.TIME_BASED) {
+            for (Setting<Double> setting : TIERED_ONLY_SETTINGS) {
+                ensureHonouredByTimeBasedPolicy(setting, setting.exists(indexSettings.getSettings()));
+            }
+        }
         double forceMergeDeletesPctAllowed = indexSettings.getValue(INDEX_MERGE_POLICY_EXPUNGE_DELETES_ALLOWED_SETTING); // percentage
         ByteSizeValue floorSegment = indexSettings.getValue(INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING);
         int maxMergeAtOnce = indexSettings.getValue(INDEX_MERGE_POLICY_MAX_MERGE_AT_ONCE_SETTING);
@@ -156,59 +254,72 @@ public final class MergePolicyConfig {
         ByteSizeValue maxMergedSegment = indexSettings.getValue(INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING);
         double segmentsPerTier = indexSettings.getValue(INDEX_MERGE_POLICY_SEGMENTS_PER_TIER_SETTING);
         double deletesPctAllowed = indexSettings.getValue(INDEX_MERGE_POLICY_DELETES_PCT_ALLOWED_SETTING);
+        int mergeFactor = indexSettings.getValue(INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING);
         this.mergesEnabled = indexSettings.getSettings().getAsBoolean(INDEX_MERGE_ENABLED, true);
         if (mergesEnabled == false) {
             logger.warn("[{}] is set to false, this should only be used in tests and can cause serious problems in production" +
                 " environments", INDEX_MERGE_ENABLED);
         }
         maxMergeAtOnce = adjustMaxMergeAtOnceIfNeeded(maxMergeAtOnce, segmentsPerTier);
-        mergePolicy.setNoCFSRatio(indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING));
-        mergePolicy.setForceMergeDeletesPctAllowed(forceMergeDeletesPctAllowed);
-        mergePolicy.setFloorSegmentMB(floorSegment.getMbFrac());
-        mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
-        mergePolicy.setMaxMergeAtOnceExplicit(maxMergeAtOnceExplicit);
-        mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
-        mergePolicy.setSegmentsPerTier(segmentsPerTier);
-        mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+        double noCFSRatio = indexSettings.getValue(INDEX_COMPOUND_FORMAT_SETTING);
+        tieredMergePolicy.setNoCFSRatio(noCFSRatio);
+        tieredMergePolicy.setForceMergeDeletesPctAllowed(forceMergeDeletesPctAllowed);
+        tieredMergePolicy.setFloorSegmentMB(floorSegment.getMbFrac());
+        tieredMergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        tieredMergePolicy.setMaxMergeAtOnceExplicit(maxMergeAtOnceExplicit);
+        tieredMergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        tieredMergePolicy.setSegmentsPerTier(segmentsPerTier);
+        tieredMergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+        logByteSizeMergePolicy.setNoCFSRatio(noCFSRatio);
+        logByteSizeMergePolicy.setMinMergeMB(floorSegment.getMbFrac());
+        logByteSizeMergePolicy.setMaxMergeMB(maxMergedSegment.getMbFrac());
+        logByteSizeMergePolicy.setMergeFactor(mergeFactor);
         if (logger.isTraceEnabled()) {
-            logger.trace("using [tiered] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}]," +
+            logger.trace("using [{}] merge mergePolicy with expunge_deletes_allowed[{}], floor_segment[{}]," +
                     " max_merge_at_once[{}], max_merge_at_once_explicit[{}], max_merged_segment[{}], segments_per_tier[{}]," +
-                    " deletes_pct_allowed[{}]",
-                forceMergeDeletesPctAllowed, floorSegment, maxMergeAtOnce, maxMergeAtOnceExplicit, maxMergedSegment, segmentsPerTier,
-                deletesPctAllowed);
+                    " deletes_pct_allowed[{}], merge_factor[{}]",
+                mergePolicyType.name().toLowerCase(Locale.ROOT), forceMergeDeletesPctAllowed, floorSegment, maxMergeAtOnce,
+                maxMergeAtOnceExplicit, maxMergedSegment, segmentsPerTier, deletesPctAllowed, mergeFactor);
         }
     }
 
     void setSegmentsPerTier(Double segmentsPerTier) {
-        mergePolicy.setSegmentsPerTier(segmentsPerTier);
+        tieredMergePolicy.setSegmentsPerTier(segmentsPerTier);
     }
 
     void setMaxMergedSegment(ByteSizeValue maxMergedSegment) {
-        mergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        tieredMergePolicy.setMaxMergedSegmentMB(maxMergedSegment.getMbFrac());
+        logByteSizeMergePolicy.setMaxMergeMB(maxMergedSegment.getMbFrac());
     }
 
     void setMaxMergesAtOnceExplicit(Integer maxMergeAtOnceExplicit) {
-        mergePolicy.setMaxMergeAtOnceExplicit(maxMergeAtOnceExplicit);
+        tieredMergePolicy.setMaxMergeAtOnceExplicit(maxMergeAtOnceExplicit);
     }
 
     void setMaxMergesAtOnce(Integer maxMergeAtOnce) {
-        mergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
+        tieredMergePolicy.setMaxMergeAtOnce(maxMergeAtOnce);
     }
 
     void setFloorSegmentSetting(ByteSizeValue floorSegementSetting) {
-        mergePolicy.setFloorSegmentMB(floorSegementSetting.getMbFrac());
+        tieredMergePolicy.setFloorSegmentMB(floorSegementSetting.getMbFrac());
+        logByteSizeMergePolicy.setMinMergeMB(floorSegementSetting.getMbFrac());
     }
 
     void setExpungeDeletesAllowed(Double value) {
-        mergePolicy.setForceMergeDeletesPctAllowed(value);
+        tieredMergePolicy.setForceMergeDeletesPctAllowed(value);
     }
 
     void setNoCFSRatio(Double noCFSRatio) {
-        mergePolicy.setNoCFSRatio(noCFSRatio);
+        tieredMergePolicy.setNoCFSRatio(noCFSRatio);
+        logByteSizeMergePolicy.setNoCFSRatio(noCFSRatio);
     }
 
     void setDeletesPctAllowed(Double deletesPctAllowed) {
-        mergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+        tieredMergePolicy.setDeletesPctAllowed(deletesPctAllowed);
+    }
+
+    void setMergeFactor(Integer mergeFactor) {
+        logByteSizeMergePolicy.setMergeFactor(mergeFactor);
     }
 
     private int adjustMaxMergeAtOnceIfNeeded(int maxMergeAtOnce, double segmentsPerTier) {
@@ -227,9 +338,46 @@ public final class MergePolicyConfig {
         return maxMergeAtOnce;
     }
 
+    /**
+     * Rejects an update of a setting that the merge policy of the index ignores since its type is {@link Type#TIME_BASED}.
+     */
+    void validateTieredOnlySettingUpdate(Setting<Double> setting) {
+        if (mergePolicyType == Type.TIME_BASED) {
+            ensureHonouredByTimeBasedPolicy(setting, true);
+        }
+    }
+
+    private static void ensureHonouredByTimeBasedPolicy(Setting<Double> setting, boolean isSet) {
+        if (isSet) {
+            throw new IllegalArgumentException("[" + setting.getKey() + "] is only supported by the [tiered] merge policy, but ["
+                + INDEX_MERGE_POLICY_TYPE_SETTING.getKey() + "] is [time_based]");
+        }
+    }
+
+    /**
+     * Returns the keys of the settings of the index that the merge policy picked for it ignores.
+     */
+    List<String> ignoredSettings(boolean isTimeBasedIndex) {
+        if (mergesEnabled == false || mergePolicyType.getMergePolicy(this, isTimeBasedIndex) != logByteSizeMergePolicy) {
+            return Collections.emptyList();
+        }
+        final List<String> ignored = new ArrayList<>();
+        for (Setting<Double> setting : TIERED_ONLY_SETTINGS) {
+            if (setting.exists(indexSettings.getSettings())) {
+                ignored.add(setting.getKey());
+            }
+        }
+        return ignored;
+    }
+
     @SuppressForbidden(reason="we always use an appropriate merge scheduler alongside this policy so NoMergePolic#INSTANCE is ok")
-    MergePolicy getMergePolicy() {
-        return mergesEnabled ? mergePolicy : NoMergePolicy.INSTANCE;
+    MergePolicy getMergePolicy(boolean isTimeBasedIndex) {
+        final List<String> ignoredSettings = ignoredSettings(isTimeBasedIndex);
+        if (ignoredSettings.isEmpty() == false) {
+            logger.warn("{} are ignored since this index holds time-based data and is merged with the [time_based] merge policy, set ["
+                + INDEX_MERGE_POLICY_TYPE_SETTING.getKey() + "] to [tiered] to use them", ignoredSettings);
+        }
+        return mergesEnabled ? mergePolicyType.getMergePolicy(this, isTimeBasedIndex) : NoMergePolicy.INSTANCE;
     }
 
     private static double parseNoCFSRatio(String noCFSRatio) {
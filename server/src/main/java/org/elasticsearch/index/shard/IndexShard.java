@@ -2990,13 +2990,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndicesCl
                 this.warmer.warm(reader);
             }
         };
+        final boolean isTimeBasedIndex = mapperService != null && mapperService.mappingLookup().isDataStreamTimestampFieldEnabled();
         return new EngineConfig(
                 shardId,
                 threadPool,
                 indexSettings,
                 warmer,
                 store,
-                indexSettings.getMergePolicy(),
+                indexSettings.getMergePolicy(isTimeBasedIndex),
                 buildIndexAnalyzer(mapperService),
                 similarityService.similarity(mapperService == null ? null : mapperService::fieldType),
                 codecService,
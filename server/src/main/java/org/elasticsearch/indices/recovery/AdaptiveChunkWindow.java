@@ -0,0 +1,139 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+/**
+ * Sizes the window of outstanding chunk requests of a {@link MultiChunkTransfer}.
+ * <p>
+ * The window starts at {@code minSize} and is re-evaluated once per round, i.e. every time as many chunk requests as the current window
+ * size have completed. If the completion rate of a round improved noticeably over the previous round then the transfer is latency-bound
+ * and the window doubles, up to {@code maxSize}. If the average round-trip time of a round is well above the lowest round-trip time
+ * seen so far then requests queue up somewhere between the sender and the receiver, and the window shrinks by one, down to
+ * {@code minSize}. A window with {@code minSize == maxSize} has a fixed size.
+ * <p>
+ * Instances are not thread-safe, {@link MultiChunkTransfer} only accesses them while processing responses which happens on one thread at
+ * a time.
+ */
+final class AdaptiveChunkWindow {
+
+    /**
+     * The upper bound for the window size when adapting the window is enabled.
+     */
+    static final int MAX_ADAPTIVE_WINDOW_SIZE = 32;
+
+    // a round must complete this much faster than the previous one to justify a larger window
+    private static final double MIN_RATE_IMPROVEMENT = 1.1d;
+    // shrink the window if the average round-trip time of a round exceeds the minimum by this factor
+    private static final long MAX_RTT_INFLATION = 2L;
+
+    private final int minSize;
+    private final int maxSize;
+    private int size;
+
+    private long minRttNanos = Long.MAX_VALUE;
+    private long roundStartNanos = -1L;
+    private int roundCompletions;
+    private long roundRttNanos;
+    private double lastRoundRate;
+
+    private int maxSizeReached;
+    private long stallStartNanos = -1L;
+    private long stalledNanos;
+
+    AdaptiveChunkWindow(int minSize, int maxSize) {
+        if (minSize < 1 || maxSize < minSize) {
+            throw new IllegalArgumentException("invalid window bounds [" + minSize + ", " + maxSize + "]");
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.size = minSize;
+        this.maxSizeReached = minSize;
+    }
+
+    /**
+     * @return the number of chunk requests that may currently be in flight
+     */
+    int size() {
+        return size;
+    }
+
+    int maxSize() {
+        return maxSize;
+    }
+
+    boolean isFixed() {
+        return minSize == maxSize;
+    }
+
+    /**
+     * Called when a chunk request is about to be sent.
+     */
+    void onRequestSent(long nowNanos) {
+        if (roundStartNanos < 0L) {
+            roundStartNanos = nowNanos;
+        }
+    }
+
+    /**
+     * Called when the response to a chunk request was received.
+     *
+     * @param rttNanos the time between sending the request and receiving its response
+     */
+    void onRequestCompleted(long nowNanos, long rttNanos) {
+        if (stallStartNanos >= 0L) {
+            stalledNanos += Math.max(0L, nowNanos - stallStartNanos);
+            stallStartNanos = -1L;
+        }
+        if (isFixed()) {
+            return;
+        }
+        minRttNanos = Math.min(minRttNanos, Math.max(1L, rttNanos));
+        roundRttNanos += rttNanos;
+        roundCompletions++;
+        if (roundCompletions < size) {
+            return;
+        }
+        final long roundNanos = Math.max(1L, nowNanos - roundStartNanos);
+        final double roundRate = (double) roundCompletions / roundNanos;
+        final long averageRttNanos = roundRttNanos / roundCompletions;
+        if (averageRttNanos > MAX_RTT_INFLATION * minRttNanos) {
+            size = Math.max(minSize, size - 1);
+        } else if (roundRate > lastRoundRate * MIN_RATE_IMPROVEMENT) {
+            size = Math.min(maxSize, size * 2);
+        }
+        maxSizeReached = Math.max(maxSizeReached, size);
+        lastRoundRate = roundRate;
+        roundStartNanos = nowNanos;
+        roundCompletions = 0;
+        roundRttNanos = 0L;
+    }
+
+    /**
+     * Called when the sender cannot send another chunk request because the window is full.
+     */
+    void onStalled(long nowNanos) {
+        if (stallStartNanos < 0L) {
+            stallStartNanos = nowNanos;
+        }
+    }
+
+    /**
+     * @return the largest window size used so far
+     */
+    int maxSizeReached() {
+        return maxSizeReached;
+    }
+
+    /**
+     * @return the total time the sender waited for responses because the window was full
+     */
+    long stalledNanos() {
+        return stalledNanos;
+    }
+}
@@ -44,6 +44,9 @@ import static org.elasticsearch.index.seqno.SequenceNumbers.UNASSIGNED_SEQ_NO;
  * greater than {@code maxConcurrentFileChunks}), the sending/requesting thread will abort its execution. That process will be resumed by
  * one of the networking threads which receive/handle the responses of the current pending file chunk requests. This process will continue
  * until all chunk requests are sent/responded.
+ * <p>
+ * The limit can optionally adapt to the observed round-trip times and completion rates of the chunk requests, see
+ * {@link AdaptiveChunkWindow}. In that case {@code maxConcurrentChunks} is the lower bound of the limit.
  */
 public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTransfer.ChunkRequest> implements Closeable {
     private Status status = Status.PROCESSING;
@@ -51,17 +54,23 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
     private final ActionListener<Void> listener;
     private final LocalCheckpointTracker requestSeqIdTracker = new LocalCheckpointTracker(NO_OPS_PERFORMED, NO_OPS_PERFORMED);
     private final AsyncIOProcessor<FileChunkResponseItem<Source>> processor;
-    private final int maxConcurrentChunks;
+    private final AdaptiveChunkWindow window;
     private Source currentSource = null;
     private final Iterator<Source> remainingSources;
     private Tuple<Source, Request> readAheadRequest = null;
 
     protected MultiChunkTransfer(Logger logger, ThreadContext threadContext, ActionListener<Void> listener,
                                  int maxConcurrentChunks, List<Source> sources) {
+        this(logger, threadContext, listener, maxConcurrentChunks, false, sources);
+    }
+
+    protected MultiChunkTransfer(Logger logger, ThreadContext threadContext, ActionListener<Void> listener,
+                                 int maxConcurrentChunks, boolean adaptive, List<Source> sources) {
         this.logger = logger;
-        this.maxConcurrentChunks = maxConcurrentChunks;
+        this.window = new AdaptiveChunkWindow(maxConcurrentChunks,
+            adaptive ? Math.max(maxConcurrentChunks, AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE) : maxConcurrentChunks);
         this.listener = listener;
-        this.processor = new AsyncIOProcessor<FileChunkResponseItem<Source>>(logger, maxConcurrentChunks, threadContext) {
+        this.processor = new AsyncIOProcessor<FileChunkResponseItem<Source>>(logger, window.maxSize(), threadContext) {
             @Override
             protected void write(List<Tuple<FileChunkResponseItem<Source>, Consumer<Exception>>> items) throws IOException {
                 handleItems(items);
@@ -75,7 +84,11 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
     }
 
     private void addItem(long requestSeqId, Source resource, Exception failure) {
-        processor.put(new FileChunkResponseItem<>(requestSeqId, resource, failure), e -> { assert e == null : e; });
+        addItem(requestSeqId, resource, failure, 0L);
+    }
+
+    private void addItem(long requestSeqId, Source resource, Exception failure, long rttNanos) {
+        processor.put(new FileChunkResponseItem<>(requestSeqId, resource, failure, rttNanos), e -> { assert e == null : e; });
     }
 
     private void handleItems(List<Tuple<FileChunkResponseItem<Source>, Consumer<Exception>>> items) {
@@ -97,8 +110,9 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
                     handleError(resp.source, resp.failure);
                     throw resp.failure;
                 }
+                window.onRequestCompleted(System.nanoTime(), resp.rttNanos);
             }
-            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < maxConcurrentChunks) {
+            while (requestSeqIdTracker.getMaxSeqNo() - requestSeqIdTracker.getProcessedCheckpoint() < window.size()) {
                 final Tuple<Source, Request> request = readAheadRequest != null ? readAheadRequest : getNextRequest();
                 readAheadRequest = null;
                 if (request == null) {
@@ -109,10 +123,13 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
                     return;
                 }
                 final long requestSeqId = requestSeqIdTracker.generateSeqNo();
+                final long sentNanos = System.nanoTime();
+                window.onRequestSent(sentNanos);
                 executeChunkRequest(request.v2(), ActionListener.wrap(
-                    r -> addItem(requestSeqId, request.v1(), null),
+                    r -> addItem(requestSeqId, request.v1(), null, System.nanoTime() - sentNanos),
                     e -> addItem(requestSeqId, request.v1(), e)));
             }
+            window.onStalled(System.nanoTime());
             // While we are waiting for the responses, we can prepare the next request in advance
             // so we can send it immediately when the responses arrive to reduce the transfer time.
             if (readAheadRequest == null) {
@@ -127,6 +144,20 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
         return true;
     }
 
+    /**
+     * @return the largest number of chunk requests that were allowed to be in flight at once
+     */
+    protected final int maxWindowSizeReached() {
+        return window.maxSizeReached();
+    }
+
+    /**
+     * @return the total time in nanoseconds this transfer waited for responses because too many chunk requests were in flight
+     */
+    protected final long stalledTimeInNanos() {
+        return window.stalledNanos();
+    }
+
     private void onCompleted(Exception failure) {
         if (Assertions.ENABLED && status != Status.PROCESSING) {
             throw new AssertionError("invalid status: expected [" + Status.PROCESSING + "] actual [" + status + "]", failure);
@@ -182,11 +213,13 @@ public abstract class MultiChunkTransfer<Source, Request extends MultiChunkTrans
         final long requestSeqId;
         final Source source;
         final Exception failure;
+        final long rttNanos;
 
-        FileChunkResponseItem(long requestSeqId, Source source, Exception failure) {
+        FileChunkResponseItem(long requestSeqId, Source source, Exception failure, long rttNanos) {
             this.requestSeqId = requestSeqId;
             this.source = source;
             this.failure = failure;
+            this.rttNanos = rttNanos;
         }
     }
 
@@ -26,6 +26,7 @@ import org.elasticsearch.monitor.os.OsProbe;
 import org.elasticsearch.node.NodeRoleSettings;
 
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 public class RecoverySettings {
@@ -84,6 +85,13 @@ public class RecoverySettings {
     public static final Setting<Integer> INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING =
         Setting.intSetting("indices.recovery.max_concurrent_file_chunks", 2, 1, 8, Property.Dynamic, Property.NodeScope);
 
+    /**
+     * Controls whether the number of concurrent file chunk requests adapts to the observed round-trip time and throughput. If enabled,
+     * {@code indices.recovery.max_concurrent_file_chunks} is the initial and minimum number of concurrent file chunk requests.
+     */
+    public static final Setting<Boolean> INDICES_RECOVERY_ADAPTIVE_FILE_CHUNKS_SETTING =
+        Setting.boolSetting("indices.recovery.adaptive_file_chunks", false, Property.Dynamic, Property.NodeScope);
+
     /**
      * Controls the maximum number of operation chunk requests that can be sent concurrently from the source node to the target node.
      */
@@ -147,10 +155,24 @@ public class RecoverySettings {
             Property.NodeScope
         );
 
+    /**
+     * Maximum number of bytes that the shard restores of a node may download ahead of the byte ranges they are writing, when their
+     * repository enables {@code restore_read_ahead}.
+     */
+    public static final Setting<ByteSizeValue> INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING =
+        Setting.byteSizeSetting("indices.recovery.max_restore_read_ahead_bytes",
+            new ByteSizeValue(64, ByteSizeUnit.MB),
+            ByteSizeValue.ZERO,
+            new ByteSizeValue(Long.MAX_VALUE),
+            Property.Dynamic,
+            Property.NodeScope
+        );
+
     public static final ByteSizeValue DEFAULT_CHUNK_SIZE = new ByteSizeValue(512, ByteSizeUnit.KB);
 
     private volatile ByteSizeValue maxBytesPerSec;
     private volatile int maxConcurrentFileChunks;
+    private volatile boolean adaptiveFileChunks;
     private volatile int maxConcurrentOperations;
     private volatile SimpleRateLimiter rateLimiter;
     private volatile TimeValue retryDelayStateSync;
@@ -161,12 +183,15 @@ public class RecoverySettings {
     private volatile TimeValue internalActionLongTimeout;
     private volatile boolean useSnapshotsDuringRecovery;
     private volatile int maxConcurrentSnapshotFileDownloads;
+    private volatile ByteSizeValue maxRestoreReadAheadBytes;
+    private final AtomicLong restoreReadAheadBytes = new AtomicLong();
 
     private volatile ByteSizeValue chunkSize = DEFAULT_CHUNK_SIZE;
 
     public RecoverySettings(Settings settings, ClusterSettings clusterSettings) {
         this.retryDelayStateSync = INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING.get(settings);
         this.maxConcurrentFileChunks = INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING.get(settings);
+        this.adaptiveFileChunks = INDICES_RECOVERY_ADAPTIVE_FILE_CHUNKS_SETTING.get(settings);
         this.maxConcurrentOperations = INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING.get(settings);
         // doesn't have to be fast as nodes are reconnected every 10s by default (see InternalClusterService.ReconnectToNodes)
         // and we want to give the master time to remove a faulty node
@@ -185,11 +210,13 @@ public class RecoverySettings {
         }
         this.useSnapshotsDuringRecovery = INDICES_RECOVERY_USE_SNAPSHOTS_SETTING.get(settings);
         this.maxConcurrentSnapshotFileDownloads = INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS.get(settings);
+        this.maxRestoreReadAheadBytes = INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING.get(settings);
 
         logger.debug("using max_bytes_per_sec[{}]", maxBytesPerSec);
 
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_BYTES_PER_SEC_SETTING, this::setMaxBytesPerSec);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_FILE_CHUNKS_SETTING, this::setMaxConcurrentFileChunks);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_ADAPTIVE_FILE_CHUNKS_SETTING, this::setAdaptiveFileChunks);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_OPERATIONS_SETTING,
             this::setMaxConcurrentOperations);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_RETRY_DELAY_STATE_SYNC_SETTING, this::setRetryDelayStateSync);
@@ -201,6 +228,8 @@ public class RecoverySettings {
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_USE_SNAPSHOTS_SETTING, this::setUseSnapshotsDuringRecovery);
         clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_CONCURRENT_SNAPSHOT_FILE_DOWNLOADS,
             this::setMaxConcurrentSnapshotFileDownloads);
+        clusterSettings.addSettingsUpdateConsumer(INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING,
+            this::setMaxRestoreReadAheadBytes);
     }
 
     public RateLimiter rateLimiter() {
@@ -279,6 +308,14 @@ public class RecoverySettings {
         this.maxConcurrentFileChunks = maxConcurrentFileChunks;
     }
 
+    public boolean getAdaptiveFileChunks() {
+        return adaptiveFileChunks;
+    }
+
+    private void setAdaptiveFileChunks(boolean adaptiveFileChunks) {
+        this.adaptiveFileChunks = adaptiveFileChunks;
+    }
+
     public int getMaxConcurrentOperations() {
         return maxConcurrentOperations;
     }
@@ -302,4 +339,32 @@ public class RecoverySettings {
     public void setMaxConcurrentSnapshotFileDownloads(int maxConcurrentSnapshotFileDownloads) {
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
     }
+
+    private void setMaxRestoreReadAheadBytes(ByteSizeValue maxRestoreReadAheadBytes) {
+        this.maxRestoreReadAheadBytes = maxRestoreReadAheadBytes;
+    }
+
+    /**
+     * Reserves the given number of bytes for a byte range that a shard restore downloads ahead of the range it is writing.
+     *
+     * @return whether the bytes fit into {@link #INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING}, they must be released with
+     *         {@link #releaseRestoreReadAheadBytes(long)} if so
+     */
+    public boolean tryAcquireRestoreReadAheadBytes(long bytes) {
+        if (restoreReadAheadBytes.addAndGet(bytes) <= maxRestoreReadAheadBytes.getBytes()) {
+            return true;
+        }
+        restoreReadAheadBytes.addAndGet(-bytes);
+        return false;
+    }
+
+    public void releaseRestoreReadAheadBytes(long bytes) {
+        final long remaining = restoreReadAheadBytes.addAndGet(-bytes);
+        assert remaining >= 0 : "released more restore read-ahead bytes than acquired: " + remaining;
+    }
+
+    // exposed for tests
+    public long getRestoreReadAheadBytes() {
+        return restoreReadAheadBytes.get();
+    }
 }
@@ -52,6 +52,7 @@ import org.elasticsearch.index.seqno.RetentionLease;
 import org.elasticsearch.index.seqno.RetentionLeaseNotFoundException;
 import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardClosedException;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
@@ -87,6 +88,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.util.function.IntSupplier;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.common.util.CollectionUtils.concatLists;
@@ -113,6 +115,7 @@ public class RecoverySourceHandler {
     private final int chunkSizeInBytes;
     private final RecoveryTargetHandler recoveryTarget;
     private final int maxConcurrentFileChunks;
+    private final boolean adaptiveFileChunks;
     private final int maxConcurrentOperations;
     private final int maxConcurrentSnapshotFileDownloads;
     private final boolean useSnapshots;
@@ -126,6 +129,14 @@ public class RecoverySourceHandler {
                                  StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
                                  int maxConcurrentOperations, int maxConcurrentSnapshotFileDownloads, boolean useSnapshots,
                                  RecoveryPlannerService recoveryPlannerService) {
+        this(shard, recoveryTarget, threadPool, request, fileChunkSizeInBytes, maxConcurrentFileChunks, false, maxConcurrentOperations,
+            maxConcurrentSnapshotFileDownloads, useSnapshots, recoveryPlannerService);
+    }
+
+    public RecoverySourceHandler(IndexShard shard, RecoveryTargetHandler recoveryTarget, ThreadPool threadPool,
+                                 StartRecoveryRequest request, int fileChunkSizeInBytes, int maxConcurrentFileChunks,
+                                 boolean adaptiveFileChunks, int maxConcurrentOperations, int maxConcurrentSnapshotFileDownloads,
+                                 boolean useSnapshots, RecoveryPlannerService recoveryPlannerService) {
         this.shard = shard;
         this.recoveryTarget = recoveryTarget;
         this.threadPool = threadPool;
@@ -136,6 +147,7 @@ public class RecoverySourceHandler {
         this.chunkSizeInBytes = fileChunkSizeInBytes;
         // if the target is on an old version, it won't be able to handle out-of-order file chunks.
         this.maxConcurrentFileChunks = request.targetNode().getVersion().onOrAfter(Version.V_6_7_0) ? maxConcurrentFileChunks : 1;
+        this.adaptiveFileChunks = adaptiveFileChunks && request.targetNode().getVersion().onOrAfter(Version.V_6_7_0);
         this.maxConcurrentOperations = maxConcurrentOperations;
         this.maxConcurrentSnapshotFileDownloads = maxConcurrentSnapshotFileDownloads;
         this.useSnapshots = useSnapshots;
@@ -199,17 +211,24 @@ public class RecoverySourceHandler {
             final Closeable retentionLock = shard.acquireHistoryRetentionLock(historySource);
             resources.add(retentionLock);
             final long startingSeqNo;
-            final boolean isSequenceNumberBasedRecovery
+            final boolean hasCompleteHistory
                 = request.startingSeqNo() != SequenceNumbers.UNASSIGNED_SEQ_NO
                 && isTargetSameHistory()
-                && shard.hasCompleteHistoryOperations("peer-recovery", historySource, request.startingSeqNo())
-                && (historySource == Engine.HistorySource.TRANSLOG ||
-                   (retentionLeaseRef.get() != null && retentionLeaseRef.get().retainingSequenceNumber() <= request.startingSeqNo()));
+                && shard.hasCompleteHistoryOperations("peer-recovery", historySource, request.startingSeqNo());
+            final boolean isSequenceNumberBasedRecovery
+                = hasCompleteHistory
+                && (historySource == Engine.HistorySource.TRANSLOG
+                    || (retentionLeaseRef.get() != null && retentionLeaseRef.get().retainingSequenceNumber() <= request.startingSeqNo())
+                    || (retentionLeaseRef.get() == null && isHistoryReplayCheaperThanFileCopy(historySource)));
             // NB check hasCompleteHistoryOperations when computing isSequenceNumberBasedRecovery, even if there is a retention lease,
             // because when doing a rolling upgrade from earlier than 7.4 we may create some leases that are initially unsatisfied. It's
             // possible there are other cases where we cannot satisfy all leases, because that's not a property we currently expect to hold.
             // Also it's pretty cheap when soft deletes are enabled, and it'd be a disaster if we tried a sequence-number-based recovery
             // without having a complete history.
+            //
+            // If the target has no retention lease (e.g. it expired while the target was offline) but the retention lock shows that we
+            // still have the complete history then we replay it rather than copying files if that is expected to send fewer bytes. The
+            // target's lease is then re-created by cloning the primary's lease just like when recovering from the translog.
 
             if (isSequenceNumberBasedRecovery && softDeletesEnabled && retentionLeaseRef.get() != null) {
                 // all the history we need is retained by an existing retention lease, so we do not need a separate retention lock
@@ -357,6 +376,36 @@ public class RecoverySourceHandler {
         }
     }
 
+    /**
+     * Estimates whether replaying the missing history to the target sends fewer bytes than copying the files of a safe commit that the
+     * target does not have yet. Files that have merged differently on the two copies are counted in full, which is what a file-based
+     * recovery would send.
+     */
+    boolean isHistoryReplayCheaperThanFileCopy(Engine.HistorySource historySource) throws IOException {
+        final int estimatedNumOps = shard.estimateNumberOfHistoryOperations("peer-recovery", historySource, request.startingSeqNo());
+        final DocsStats docsStats = shard.docStats();
+        final long estimatedHistoryBytes = estimateHistoryBytes(estimatedNumOps, docsStats.getTotalSizeInBytes(),
+            docsStats.getCount() + docsStats.getDeleted());
+        final long fileCopyBytes;
+        try (Engine.IndexCommitRef safeCommitRef = acquireSafeCommit(shard); Releasable ignored = acquireStore(shard.store())) {
+            final Store.MetadataSnapshot sourceMetadata = shard.store().getMetadata(safeCommitRef.getIndexCommit());
+            final Store.RecoveryDiff diff = sourceMetadata.recoveryDiff(request.metadataSnapshot());
+            fileCopyBytes = Stream.concat(diff.different.stream(), diff.missing.stream()).mapToLong(StoreFileMetadata::length).sum();
+        }
+        logger.trace("estimated [{}] bytes for replaying [{}] operations and [{}] bytes for copying files",
+            estimatedHistoryBytes, estimatedNumOps, fileCopyBytes);
+        return estimatedHistoryBytes < fileCopyBytes;
+    }
+
+    /**
+     * Estimates the number of bytes needed to replay the given number of operations, assuming that operations are about as large as the
+     * documents of the shard.
+     */
+    static long estimateHistoryBytes(int numOps, long totalDocsSizeInBytes, long numDocs) {
+        final long bytesPerDoc = numDocs > 0 ? Math.max(1L, totalDocsSizeInBytes / numDocs) : 1L;
+        return numOps > Long.MAX_VALUE / bytesPerDoc ? Long.MAX_VALUE : numOps * bytesPerDoc;
+    }
+
     private boolean isTargetSameHistory() {
         final String targetHistoryUUID = request.metadataSnapshot().getHistoryUUID();
         assert targetHistoryUUID != null || shard.indexSettings().getIndexVersionCreated().before(Version.V_6_0_0_rc1) :
@@ -1108,7 +1157,7 @@ public class RecoverySourceHandler {
         try {
             final Releasable storeRef = temporaryStoreRef;
             final MultiChunkTransfer<StoreFileMetadata, FileChunk>multiFileSender = new MultiChunkTransfer<StoreFileMetadata, FileChunk>(
-                logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, Arrays.asList(files)) {
+                logger, threadPool.getThreadContext(), listener, maxConcurrentFileChunks, adaptiveFileChunks, Arrays.asList(files)) {
 
                     final Deque<byte[]> buffers = new ConcurrentLinkedDeque<>();
                     final AtomicInteger liveBufferCount = new AtomicInteger(); // only used in assertions to verify proper recycling
@@ -1164,6 +1213,8 @@ public class RecoverySourceHandler {
 
                     @Override
                     public void close() throws IOException {
+                        logger.trace("sent [{}] files with up to [{}] concurrent file chunks, stalled for [{}]",
+                            files.length, maxWindowSizeReached(), TimeValue.timeValueNanos(stalledTimeInNanos()));
                         IOUtils.close(currentInput, storeRef);
                     }
 
@@ -21,6 +21,7 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.IndexOutput;
 import org.apache.lucene.store.RateLimiter;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.BytesRefIterator;
 import org.apache.lucene.util.SetOnce;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
@@ -57,6 +58,7 @@ import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.compress.NotXContentException;
 import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.metrics.CounterMetric;
@@ -77,7 +79,9 @@ import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.core.Releasable;
+import org.elasticsearch.core.Releasables;
 import org.elasticsearch.core.Tuple;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.snapshots.IndexShardRestoreFailedException;
 import org.elasticsearch.index.snapshots.IndexShardSnapshotFailedException;
@@ -119,14 +123,17 @@ import org.elasticsearch.snapshots.SnapshotsService;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.EOFException;
 import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -256,6 +263,31 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     public static final Setting<Boolean> USE_FOR_PEER_RECOVERY_SETTING = Setting.boolSetting("use_for_peer_recovery", false);
 
+    /**
+     * Setting that defines how many byte ranges of a file are downloaded ahead of the range that is being written to disk when restoring
+     * a shard. If greater than zero then files larger than {@link #RESTORE_RANGE_SIZE_SETTING} are downloaded in ranges of that size, of
+     * which up to {@code restore_read_ahead + 1} are fetched concurrently, so that downloading overlaps with writing. Defaults to {@code 0}
+     * which downloads each file in a single sequential read.
+     */
+    public static final Setting<Integer> RESTORE_READ_AHEAD_SETTING = Setting.intSetting(
+        "restore_read_ahead",
+        0,
+        0,
+        8,
+        Setting.Property.NodeScope
+    );
+
+    /**
+     * Size of the byte ranges in which files are downloaded when restoring a shard with {@link #RESTORE_READ_AHEAD_SETTING} enabled.
+     */
+    public static final Setting<ByteSizeValue> RESTORE_RANGE_SIZE_SETTING = Setting.byteSizeSetting(
+        "restore_range_size",
+        ByteSizeValue.parseBytesSizeValue("8mb", "restore_range_size"),
+        ByteSizeValue.parseBytesSizeValue("1kb", "restore_range_size"),
+        ByteSizeValue.parseBytesSizeValue("16mb", "restore_range_size"),
+        Setting.Property.NodeScope
+    );
+
     protected final boolean supportURLRepo;
 
     private final boolean compress;
@@ -378,6 +410,21 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
      */
     private final int maxSnapshotCount;
 
+    /**
+     * Number of byte ranges of a file to download ahead of the one being written when restoring a shard, {@code 0} to disable ranged reads.
+     */
+    private final int restoreReadAhead;
+
+    /**
+     * Size of the byte ranges in which files are downloaded when restoring a shard.
+     */
+    private final int restoreRangeSize;
+
+    /**
+     * Set once the underlying blob store rejected a ranged read, after which files are restored sequentially.
+     */
+    private volatile boolean rangedRestoreUnsupported;
+
     /**
      * Constructs new BlobStoreRepository
      * @param metadata   The metadata for this repository including name and settings
@@ -405,6 +452,8 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
         cacheRepositoryData = CACHE_REPOSITORY_DATA.get(metadata.settings());
         bufferSize = Math.toIntExact(BUFFER_SIZE_SETTING.get(metadata.settings()).getBytes());
         this.maxSnapshotCount = MAX_SNAPSHOTS_SETTING.get(metadata.settings());
+        this.restoreReadAhead = RESTORE_READ_AHEAD_SETTING.get(metadata.settings());
+        this.restoreRangeSize = Math.toIntExact(RESTORE_RANGE_SIZE_SETTING.get(metadata.settings()).getBytes());
     }
 
     @Override
@@ -2966,10 +3015,7 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                         listener.onResponse(null);
                     } else {
                         // Start as many workers as fit into the snapshot pool at once at the most
-                        final int workers = Math.min(
-                            threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(),
-                            snapshotFiles.indexFiles().size()
-                        );
+                        final int workers = Math.min(threadPool.info(ThreadPool.Names.SNAPSHOT).getMax(), filesToRecover.size());
                         final BlockingQueue<BlobStoreIndexShardSnapshot.FileInfo> files = new LinkedBlockingQueue<>(filesToRecover);
                         final ActionListener<Void> allFilesListener = fileQueueListener(files, workers, listener.map(v -> null));
                         // restore the files from the snapshot to the Lucene store
@@ -2993,62 +3039,341 @@ public abstract class BlobStoreRepository extends AbstractLifecycleComponent imp
                     } else {
                         executor.execute(ActionRunnable.wrap(allFilesListener, filesListener -> {
                             store.incRef();
-                            try {
-                                restoreFile(fileToRecover, store);
-                            } finally {
-                                store.decRef();
-                            }
-                            executeOneFileRestore(files, filesListener);
+                            restoreFile(
+                                fileToRecover,
+                                store,
+                                ActionListener.runBefore(
+                                    ActionListener.wrap(v -> executeOneFileRestore(files, filesListener), filesListener::onFailure),
+                                    store::decRef
+                                )
+                            );
                         }));
                     }
                 }
 
-                private void restoreFile(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store) throws IOException {
-                    ensureNotClosing(store);
+                private void restoreFile(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store, ActionListener<Void> listener) {
+                    try {
+                        ensureNotClosing(store);
+                    } catch (Exception e) {
+                        listener.onFailure(e);
+                        return;
+                    }
                     logger.trace(() -> new ParameterizedMessage("[{}] restoring [{}] to [{}]", metadata.name(), fileInfo, store));
-                    boolean success = false;
-                    try (
-                        IndexOutput indexOutput = store.createVerifyingOutput(
-                            fileInfo.physicalName(),
-                            fileInfo.metadata(),
-                            IOContext.DEFAULT
-                        )
-                    ) {
+                    IndexOutput indexOutput = null;
+                    try {
+                        indexOutput = store.createVerifyingOutput(fileInfo.physicalName(), fileInfo.metadata(), IOContext.DEFAULT);
                         if (fileInfo.name().startsWith(VIRTUAL_DATA_BLOB_PREFIX)) {
                             final BytesRef hash = fileInfo.metadata().hash();
                             indexOutput.writeBytes(hash.bytes, hash.offset, hash.length);
                             recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), hash.length);
-                        } else {
-                            try (InputStream stream = maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
+                        } else if (restoreReadAhead > 0 && fileInfo.length() > restoreRangeSize && rangedRestoreUnsupported == false) {
+                            final IndexOutput output = indexOutput;
+                            new RangedFileRestore(fileInfo, store, output, new ActionListener<Boolean>() {
                                 @Override
-                                protected InputStream openSlice(int slice) throws IOException {
-                                    ensureNotClosing(store);
-                                    return container.readBlob(fileInfo.partName(slice));
+                                public void onResponse(Boolean restoredInRanges) {
+                                    try {
+                                        if (restoredInRanges == false) {
+                                            restoreFileSequentially(fileInfo, store, output);
+                                        }
+                                        completeFileRestore(fileInfo, store, output);
+                                    } catch (Exception e) {
+                                        onFailure(e);
+                                        return;
+                                    }
+                                    listener.onResponse(null);
                                 }
-                            })) {
-                                final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
-                                int length;
-                                while ((length = stream.read(buffer)) > 0) {
-                                    ensureNotClosing(store);
-                                    indexOutput.writeBytes(buffer, 0, length);
-                                    recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
+
+                                @Override
+                                public void onFailure(Exception e) {
+                                    failFileRestore(fileInfo, store, output, e, listener);
                                 }
-                            }
+                            }).run();
+                            return;
+                        } else {
+                            restoreFileSequentially(fileInfo, store, indexOutput);
                         }
-                        Store.verify(indexOutput);
-                        indexOutput.close();
-                        store.directory().sync(Collections.singleton(fileInfo.physicalName()));
-                        success = true;
-                    } catch (CorruptIndexException | IndexFormatTooOldException | IndexFormatTooNewException ex) {
+                        completeFileRestore(fileInfo, store, indexOutput);
+                    } catch (Exception e) {
+                        failFileRestore(fileInfo, store, indexOutput, e, listener);
+                        return;
+                    }
+                    listener.onResponse(null);
+                }
+
+                private void completeFileRestore(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store, IndexOutput indexOutput)
+                    throws IOException {
+                    Store.verify(indexOutput);
+                    indexOutput.close();
+                    store.directory().sync(Collections.singleton(fileInfo.physicalName()));
+                }
+
+                private void failFileRestore(
+                    BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                    Store store,
+                    @Nullable IndexOutput indexOutput,
+                    Exception failure,
+                    ActionListener<Void> listener
+                ) {
+                    IOUtils.closeWhileHandlingException(indexOutput);
+                    if (failure instanceof CorruptIndexException
+                        || failure instanceof IndexFormatTooOldException
+                        || failure instanceof IndexFormatTooNewException) {
                         try {
-                            store.markStoreCorrupted(ex);
+                            store.markStoreCorrupted((IOException) failure);
                         } catch (IOException e) {
                             logger.warn("store cannot be marked as corrupted", e);
                         }
-                        throw ex;
-                    } finally {
-                        if (success == false) {
-                            store.deleteQuiet(fileInfo.physicalName());
+                    }
+                    store.deleteQuiet(fileInfo.physicalName());
+                    listener.onFailure(failure);
+                }
+
+                private void restoreFileSequentially(BlobStoreIndexShardSnapshot.FileInfo fileInfo, Store store, IndexOutput indexOutput)
+                    throws IOException {
+                    try (InputStream stream = maybeRateLimitRestores(new SlicedInputStream(fileInfo.numberOfParts()) {
+                        @Override
+                        protected InputStream openSlice(int slice) throws IOException {
+                            ensureNotClosing(store);
+                            return container.readBlob(fileInfo.partName(slice));
+                        }
+                    })) {
+                        final byte[] buffer = new byte[Math.toIntExact(Math.min(bufferSize, fileInfo.length()))];
+                        int length;
+                        while ((length = stream.read(buffer)) > 0) {
+                            ensureNotClosing(store);
+                            indexOutput.writeBytes(buffer, 0, length);
+                            recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), length);
+                        }
+                    }
+                }
+
+                /**
+                 * Downloads a file in byte ranges of {@code restore_range_size} on the snapshot pool, keeping up to
+                 * {@code restore_read_ahead} ranges in flight ahead of the range that is written, so that fetching from the repository
+                 * overlaps with writing to disk. No thread waits for a download: ranges are written in order by the thread that completes
+                 * the download of the range at the head, so the checksum is still verified on the fly by the verifying output.
+                 *
+                 * Downloaded ranges are buffered in recycled pages that are accounted on the request circuit breaker. The ranges that are
+                 * downloaded ahead must also fit into the read-ahead bytes of the node, otherwise the file is downloaded one range at a
+                 * time until some of them are released, see {@link RecoverySettings#INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING}.
+                 */
+                private final class RangedFileRestore {
+
+                    private final BlobStoreIndexShardSnapshot.FileInfo fileInfo;
+                    private final Store store;
+                    private final IndexOutput indexOutput;
+                    // completed with false, without anything being written, if the repository does not support ranged reads
+                    private final ActionListener<Boolean> listener;
+
+                    // the ranges that are downloading or downloaded but not written yet, in file order
+                    private final Deque<Range> pendingRanges = new ArrayDeque<>();
+                    private int part = 0;
+                    private long partPosition = 0L;
+                    private boolean writing = false;
+                    private boolean written = false;
+                    private boolean done = false;
+
+                    RangedFileRestore(
+                        BlobStoreIndexShardSnapshot.FileInfo fileInfo,
+                        Store store,
+                        IndexOutput indexOutput,
+                        ActionListener<Boolean> listener
+                    ) {
+                        this.fileInfo = fileInfo;
+                        this.store = store;
+                        this.indexOutput = indexOutput;
+                        this.listener = listener;
+                    }
+
+                    void run() {
+                        fetchRanges();
+                    }
+
+                    private void fetchRanges() {
+                        final List<Range> ranges = new ArrayList<>();
+                        synchronized (this) {
+                            while (done == false && part < fileInfo.numberOfParts() && pendingRanges.size() <= restoreReadAhead) {
+                                final int length = Math.toIntExact(Math.min(restoreRangeSize, fileInfo.partBytes(part) - partPosition));
+                                // the range at the head is always downloaded so that the restore makes progress
+                                final boolean readAhead = pendingRanges.isEmpty() == false;
+                                if (readAhead && recoverySettings.tryAcquireRestoreReadAheadBytes(length) == false) {
+                                    break;
+                                }
+                                final Range range = new Range(fileInfo.partName(part), partPosition, length, readAhead);
+                                partPosition += length;
+                                if (partPosition == fileInfo.partBytes(part)) {
+                                    part++;
+                                    partPosition = 0L;
+                                }
+                                pendingRanges.add(range);
+                                ranges.add(range);
+                            }
+                        }
+                        for (Range range : ranges) {
+                            executor.execute(ActionRunnable.supply(new ActionListener<ReleasableBytesStreamOutput>() {
+                                @Override
+                                public void onResponse(ReleasableBytesStreamOutput bytes) {
+                                    onRangeFetched(range, bytes, null);
+                                }
+
+                                @Override
+                                public void onFailure(Exception e) {
+                                    onRangeFetched(range, null, e);
+                                }
+                            }, range::fetch));
+                        }
+                    }
+
+                    private void onRangeFetched(Range range, @Nullable ReleasableBytesStreamOutput bytes, @Nullable Exception failure) {
+                        synchronized (this) {
+                            range.bytes = bytes;
+                            range.failure = failure;
+                            range.fetched = true;
+                            if (done) {
+                                range.release();
+                                return;
+                            }
+                        }
+                        writeRanges();
+                    }
+
+                    private void writeRanges() {
+                        while (true) {
+                            final Range range;
+                            synchronized (this) {
+                                range = pendingRanges.peek();
+                                if (writing || done || range == null || range.fetched == false) {
+                                    return;
+                                }
+                                writing = true;
+                            }
+                            try {
+                                if (range.failure != null) {
+                                    throw range.failure;
+                                }
+                                ensureNotClosing(store);
+                                range.writeTo(indexOutput);
+                                recoveryState.getIndex().addRecoveredBytesToFile(fileInfo.physicalName(), range.length);
+                            } catch (Exception e) {
+                                abort(e);
+                                return;
+                            }
+                            final boolean completed;
+                            synchronized (this) {
+                                pendingRanges.poll();
+                                range.release();
+                                written = true;
+                                writing = false;
+                                completed = pendingRanges.isEmpty() && part == fileInfo.numberOfParts();
+                                done = completed;
+                            }
+                            if (completed) {
+                                listener.onResponse(true);
+                                return;
+                            }
+                            fetchRanges();
+                        }
+                    }
+
+                    private void abort(Exception failure) {
+                        final boolean unsupported;
+                        synchronized (this) {
+                            done = true;
+                            // the ranges that are still downloading release themselves once downloaded
+                            for (Range range : pendingRanges) {
+                                if (range.fetched) {
+                                    range.release();
+                                }
+                            }
+                            pendingRanges.clear();
+                            unsupported = written == false && failure instanceof UnsupportedOperationException;
+                        }
+                        if (unsupported) {
+                            logger.debug(
+                                () -> new ParameterizedMessage(
+                                    "[{}] ranged reads are not supported, restoring files sequentially",
+                                    metadata.name()
+                                ),
+                                failure
+                            );
+                            rangedRestoreUnsupported = true;
+                            listener.onResponse(false);
+                        } else {
+                            listener.onFailure(failure);
+                        }
+                    }
+
+                    private final class Range {
+
+                        private final String blobName;
+                        private final long position;
+                        private final int length;
+                        // whether the length of the range is reserved on the read-ahead bytes of the node
+                        private final boolean readAhead;
+
+                        // guarded by the enclosing RangedFileRestore
+                        private boolean fetched;
+                        private ReleasableBytesStreamOutput bytes;
+                        private Exception failure;
+
+                        Range(String blobName, long position, int length, boolean readAhead) {
+                            this.blobName = blobName;
+                            this.position = position;
+                            this.length = length;
+                            this.readAhead = readAhead;
+                        }
+
+                        ReleasableBytesStreamOutput fetch() throws IOException {
+                            if (lifecycle.started() == false) {
+                                throw new AlreadyClosedException("repository [" + metadata.name() + "] closed");
+                            }
+                            final ReleasableBytesStreamOutput output = new ReleasableBytesStreamOutput(
+                                length,
+                                bigArrays.withCircuitBreaking()
+                            );
+                            boolean success = false;
+                            try (InputStream stream = maybeRateLimitRestores(container.readBlob(blobName, position, length))) {
+                                final byte[] buffer = new byte[Math.min(bufferSize, length)];
+                                int read;
+                                while ((read = stream.read(buffer)) > 0) {
+                                    output.writeBytes(buffer, 0, read);
+                                }
+                                if (output.size() != length) {
+                                    throw new EOFException(
+                                        "expected ["
+                                            + length
+                                            + "] bytes at position ["
+                                            + position
+                                            + "] of blob ["
+                                            + blobName
+                                            + "] but read ["
+                                            + output.size()
+                                            + "]"
+                                    );
+                                }
+                                success = true;
+                                return output;
+                            } finally {
+                                if (success == false) {
+                                    output.close();
+                                }
+                            }
+                        }
+
+                        void writeTo(IndexOutput indexOutput) throws IOException {
+                            final BytesRefIterator iterator = bytes.bytes().iterator();
+                            BytesRef ref;
+                            while ((ref = iterator.next()) != null) {
+                                indexOutput.writeBytes(ref.bytes, ref.offset, ref.length);
+                            }
+                        }
+
+                        void release() {
+                            Releasables.close(bytes);
+                            bytes = null;
+                            if (readAhead) {
+                                recoverySettings.releaseRestoreReadAheadBytes(length);
+                            }
                         }
                     }
                 }
@@ -113,6 +113,14 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         return this.cancellable.isEnabled();
     }
 
+    /**
+     * Runs the {@link Runnable}s that check for query cancellation or timeout, for long running work that neither accesses documents
+     * through the DirectoryReader nor collects them, such as building a data structure while the query is rewritten.
+     */
+    public void checkCancelled() {
+        this.cancellable.checkCancelled();
+    }
+
     public void setAggregatedDfs(AggregatedDfs aggregatedDfs) {
         this.aggregatedDfs = aggregatedDfs;
     }
@@ -14,13 +14,22 @@ import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.admin.cluster.node.stats.NodesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
 import org.elasticsearch.action.admin.indices.stats.IndicesStatsRequest;
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.action.support.DefaultShardOperationFailedException;
 import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
 import org.elasticsearch.cluster.coordination.MockSinglePrioritizingExecutor;
 import org.elasticsearch.cluster.coordination.NoMasterBlockService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RecoverySource;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingHelper;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.service.ClusterApplier;
 import org.elasticsearch.cluster.service.ClusterApplierService;
 import org.elasticsearch.cluster.service.ClusterService;
@@ -30,16 +39,24 @@ import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 import org.elasticsearch.core.Set;
+import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
 import org.elasticsearch.node.Node;
 import org.elasticsearch.test.ClusterServiceUtils;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.client.NoOpClient;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.nio.file.Path;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.cluster.InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class InternalClusterInfoServiceSchedulingTests extends ESTestCase {
 
@@ -115,6 +132,79 @@ public class InternalClusterInfoServiceSchedulingTests extends ESTestCase {
         assertFalse(deterministicTaskQueue.hasDeferredTasks());
     }
 
+    public void testForgetsShardLoadsOnLosingMastership() {
+        final DiscoveryNode discoveryNode = new DiscoveryNode("test", buildNewFakeTransportAddress(), Version.CURRENT);
+        final DiscoveryNodes noMaster = DiscoveryNodes.builder().add(discoveryNode).localNodeId(discoveryNode.getId()).build();
+        final DiscoveryNodes localMaster = DiscoveryNodes.builder(noMaster).masterNodeId(discoveryNode.getId()).build();
+        final ClusterState noMasterState = ClusterState.builder(new ClusterName("cluster")).nodes(noMaster).build();
+        final ClusterState localMasterState = ClusterState.builder(new ClusterName("cluster")).nodes(localMaster).build();
+
+        final Settings settings = Settings.builder()
+            .put(Node.NODE_NAME_SETTING.getKey(), discoveryNode.getName())
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f)
+            .build();
+        final ClusterSettings clusterSettings = new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS);
+        final DeterministicTaskQueue deterministicTaskQueue = new DeterministicTaskQueue();
+        final ThreadPool threadPool = deterministicTaskQueue.getThreadPool();
+        final ClusterService clusterService = new ClusterService(settings, clusterSettings, threadPool);
+
+        final ShardRouting shard = ShardRoutingHelper.moveToStarted(ShardRoutingHelper.initialize(ShardRouting.newUnassigned(
+            new ShardId("test", "_na_", 0), true, RecoverySource.EmptyStoreRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo")), discoveryNode.getId()));
+        final Path shardPath = createTempDir().resolve("indices").resolve("_na_").resolve("0");
+        final AtomicLong indexTimeMillis = new AtomicLong();
+        final NoOpClient client = new NoOpClient(threadPool) {
+            @Override
+            @SuppressWarnings("unchecked")
+            protected <Request extends ActionRequest, Response extends ActionResponse> void doExecute(ActionType<Response> action,
+                                                                                                      Request request,
+                                                                                                      ActionListener<Response> listener) {
+                if (request instanceof IndicesStatsRequest) {
+                    final CommonStats commonStats = new CommonStats();
+                    commonStats.indexing = new IndexingStats(
+                        new IndexingStats.Stats(0L, indexTimeMillis.get(), 0L, 0L, 0L, 0L, 0L, 0L, false, 0L), null);
+                    final IndicesStatsResponse response = mock(IndicesStatsResponse.class);
+                    when(response.getShardFailures()).thenReturn(new DefaultShardOperationFailedException[0]);
+                    final ShardPath path = new ShardPath(false, shardPath, shardPath, shard.shardId());
+                    when(response.getShards()).thenReturn(new ShardStats[] { new ShardStats(shard, path, commonStats, null, null, null) });
+                    listener.onResponse((Response) response);
+                } else if (request instanceof NodesStatsRequest) {
+                    listener.onFailure(new ClusterBlockException(Set.of(NoMasterBlockService.NO_MASTER_BLOCK_ALL)));
+                } else {
+                    fail("unexpected action: " + action.name());
+                }
+            }
+        };
+
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(settings, clusterService, threadPool, client);
+        clusterInfoService.addListener(ignored -> {});
+
+        clusterInfoService.clusterChanged(new ClusterChangedEvent("become master 1", localMasterState, noMasterState));
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat("a shard needs two samples", clusterInfoService.getClusterInfo().getShardWriteLoad(shard.shardId(), -1.0d),
+            equalTo(-1.0d));
+
+        indexTimeMillis.set(2_000L);
+        deterministicTaskQueue.advanceTime(); // to the next scheduled refresh
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(clusterInfoService.getClusterInfo().getShardWriteLoad(shard.shardId(), -1.0d), greaterThan(0.0d));
+
+        clusterInfoService.clusterChanged(new ClusterChangedEvent("fail master", noMasterState, localMasterState));
+        deterministicTaskQueue.advanceTime(); // the scheduled refresh is skipped since this node is no longer the master
+        deterministicTaskQueue.runAllRunnableTasks();
+
+        // the sample of the previous term is forgotten, so the first refresh of the new term cannot derive a load from it
+        indexTimeMillis.set(4_000L);
+        clusterInfoService.clusterChanged(new ClusterChangedEvent("become master 2", localMasterState, noMasterState));
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(clusterInfoService.getClusterInfo().getShardWriteLoad(shard.shardId(), -1.0d), equalTo(-1.0d));
+
+        indexTimeMillis.set(6_000L);
+        deterministicTaskQueue.advanceTime();
+        deterministicTaskQueue.runAllRunnableTasks();
+        assertThat(clusterInfoService.getClusterInfo().getShardWriteLoad(shard.shardId(), -1.0d), greaterThan(0.0d));
+    }
+
     private static void runFor(DeterministicTaskQueue deterministicTaskQueue, long duration) {
         final long endTime = deterministicTaskQueue.getCurrentTimeMillis() + duration;
         while (deterministicTaskQueue.getCurrentTimeMillis() < endTime
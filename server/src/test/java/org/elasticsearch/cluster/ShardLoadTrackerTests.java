@@ -0,0 +1,99 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.action.admin.indices.stats.CommonStats;
+import org.elasticsearch.action.admin.indices.stats.ShardStats;
+import org.elasticsearch.cluster.routing.RecoverySource.PeerRecoverySource;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingHelper;
+import org.elasticsearch.cluster.routing.UnassignedInfo;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.index.search.stats.SearchStats;
+import org.elasticsearch.index.shard.IndexingStats;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.index.shard.ShardPath;
+import org.elasticsearch.test.ESTestCase;
+
+import java.nio.file.Path;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class ShardLoadTrackerTests extends ESTestCase {
+
+    private final Index index = new Index("test", "0xdeadbeef");
+
+    public void testLoadsAreAveragedOverCopies() {
+        final ShardRouting primary = startedShard(0, true, "node1");
+        final ShardRouting replica = startedShard(0, false, "node2");
+        final ShardLoadTracker tracker = new ShardLoadTracker();
+
+        tracker.update(new ShardStats[] { stats(primary, 0L, 0L), stats(replica, 0L, 0L) }, 0L, 0.0d);
+        assertThat("a copy needs two samples", tracker.getWriteLoads().get(primary.shardId()), nullValue());
+
+        tracker.update(new ShardStats[] { stats(primary, 2_000L, 1_000L), stats(replica, 1_000L, 3_000L) }, 1_000L, 0.0d);
+        assertThat(tracker.getWriteLoads().get(primary.shardId()), closeTo(1.5d, 0.0001d));
+        assertThat(tracker.getSearchLoads().get(primary.shardId()), closeTo(2.0d, 0.0001d));
+    }
+
+    public void testDampingAndRelocation() {
+        final ShardRouting shard = startedShard(0, true, "node1");
+        final ShardLoadTracker tracker = new ShardLoadTracker();
+
+        tracker.update(new ShardStats[] { stats(shard, 0L, 0L) }, 0L, 0.5d);
+        tracker.update(new ShardStats[] { stats(shard, 4_000L, 0L) }, 1_000L, 0.5d);
+        assertThat(tracker.getWriteLoads().get(shard.shardId()), closeTo(4.0d, 0.0001d));
+
+        tracker.update(new ShardStats[] { stats(shard, 4_000L, 0L) }, 2_000L, 0.5d);
+        assertThat("an idle interval halves the load", tracker.getWriteLoads().get(shard.shardId()), closeTo(2.0d, 0.0001d));
+
+        // the relocated copy has a new allocation id and restarts its stats, the shard keeps its last known load meanwhile
+        final ShardRouting relocated = startedShard(0, true, "node2");
+        tracker.update(new ShardStats[] { stats(relocated, 0L, 0L) }, 3_000L, 0.5d);
+        assertThat(tracker.getWriteLoads().get(shard.shardId()), closeTo(2.0d, 0.0001d));
+
+        tracker.update(new ShardStats[] { stats(relocated, 2_000L, 0L) }, 4_000L, 0.5d);
+        assertThat(tracker.getWriteLoads().get(shard.shardId()), closeTo(2.0d, 0.0001d));
+
+        tracker.update(new ShardStats[0], 5_000L, 0.5d);
+        assertThat("loads of deleted shards are forgotten", tracker.getWriteLoads().get(shard.shardId()), nullValue());
+    }
+
+    public void testMissingStatsCountAsIdle() {
+        final ShardRouting shard = startedShard(0, true, "node1");
+        final ShardLoadTracker tracker = new ShardLoadTracker();
+
+        // only the indexing stats are requested while the search load is not weighed
+        tracker.update(new ShardStats[] { withoutSearchStats(stats(shard, 0L, 0L)) }, 0L, 0.0d);
+        tracker.update(new ShardStats[] { withoutSearchStats(stats(shard, 3_000L, 5_000L)) }, 1_000L, 0.0d);
+        assertThat(tracker.getWriteLoads().get(shard.shardId()), closeTo(3.0d, 0.0001d));
+        assertThat(tracker.getSearchLoads().get(shard.shardId()), closeTo(0.0d, 0.0001d));
+    }
+
+    private static ShardStats withoutSearchStats(ShardStats stats) {
+        stats.getStats().search = null;
+        return stats;
+    }
+
+    private ShardRouting startedShard(int id, boolean primary, String nodeId) {
+        ShardRouting shard = ShardRouting.newUnassigned(new ShardId(index, id), primary, PeerRecoverySource.INSTANCE,
+            new UnassignedInfo(UnassignedInfo.Reason.INDEX_CREATED, "foo"));
+        shard = ShardRoutingHelper.initialize(shard, nodeId);
+        return ShardRoutingHelper.moveToStarted(shard);
+    }
+
+    private ShardStats stats(ShardRouting shard, long indexTimeMillis, long queryTimeMillis) {
+        final CommonStats commonStats = new CommonStats();
+        commonStats.indexing = new IndexingStats(new IndexingStats.Stats(0L, indexTimeMillis, 0L, 0L, 0L, 0L, 0L, 0L, false, 0L), null);
+        commonStats.search = new SearchStats(new SearchStats.Stats(0L, queryTimeMillis, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L), 0L, null);
+        final Path path = createTempDir().resolve("indices").resolve(index.getUUID()).resolve(Integer.toString(shard.id()));
+        return new ShardStats(shard, new ShardPath(false, path, path, shard.shardId()), commonStats, null, null, null);
+    }
+}
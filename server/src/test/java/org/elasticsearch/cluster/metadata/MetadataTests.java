@@ -59,6 +59,7 @@ import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 
 public class MetadataTests extends ESTestCase {
@@ -1534,6 +1535,50 @@ public class MetadataTests extends ESTestCase {
         assertThat(metadata.dataStreamAliases().get("logs-postgres").getDataStreams(), containsInAnyOrder("logs-postgres-replicated"));
     }
 
+    public void testEqualMappingsAreShared() throws IOException {
+        final String mapping = "{\"_doc\":{\"properties\":{\"message\":{\"type\":\"text\"}}}}";
+        Metadata.Builder mdBuilder = Metadata.builder();
+        for (int i = 0; i < 3; i++) {
+            mdBuilder.put(IndexMetadata.builder("index-" + i).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+                .putMapping("_doc", mapping));
+        }
+        mdBuilder.put(IndexMetadata.builder("other").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+            .putMapping("_doc", "{\"_doc\":{\"properties\":{\"message\":{\"type\":\"keyword\"}}}}"));
+        final Metadata metadata = mdBuilder.build();
+        assertThat(metadata.getDistinctMappingsCount(), equalTo(2));
+        final MappingMetadata shared = metadata.index("index-0").mapping();
+        for (int i = 1; i < 3; i++) {
+            assertThat(metadata.index("index-" + i).mapping(), sameInstance(shared));
+        }
+
+        // the indices read from the wire share their mappings too
+        final BytesStreamOutput out = new BytesStreamOutput();
+        metadata.writeTo(out);
+        final NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+        final Metadata fromStream = Metadata.readFrom(
+            new NamedWriteableAwareStreamInput(out.bytes().streamInput(), namedWriteableRegistry));
+        assertThat(fromStream.getDistinctMappingsCount(), equalTo(2));
+        assertThat(fromStream.getDistinctMappingsSizeInBytes(), equalTo(metadata.getDistinctMappingsSizeInBytes()));
+        assertThat(fromStream.index("index-1").mapping(), sameInstance(fromStream.index("index-0").mapping()));
+
+        // a new index with an equal mapping adopts the existing instance and leaves the existing indices untouched
+        final Metadata withNewIndex = Metadata.builder(metadata)
+            .put(IndexMetadata.builder("index-3").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0)
+                .putMapping("_doc", mapping))
+            .build();
+        assertThat(withNewIndex.index("index-0"), sameInstance(metadata.index("index-0")));
+        assertThat(withNewIndex.index("index-3").mapping(), sameInstance(shared));
+
+        // and so does an index that is added by applying a diff received from the wire
+        final BytesStreamOutput diffOut = new BytesStreamOutput();
+        withNewIndex.diff(metadata).writeTo(diffOut);
+        final Metadata applied = Metadata.readDiffFrom(
+            new NamedWriteableAwareStreamInput(diffOut.bytes().streamInput(), namedWriteableRegistry)).apply(metadata);
+        assertThat(applied.index("index-0"), sameInstance(metadata.index("index-0")));
+        assertThat(applied.index("index-3").mapping(), sameInstance(shared));
+        assertThat(applied.getDistinctMappingsCount(), equalTo(2));
+    }
+
     public static Metadata randomMetadata() {
         return randomMetadata(1);
     }
@@ -13,6 +13,8 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ESAllocationTestCase;
 import org.elasticsearch.cluster.EmptyClusterInfoService;
@@ -27,13 +29,20 @@ import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocator;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.snapshots.EmptySnapshotsInfoService;
 import org.elasticsearch.test.gateway.TestGatewayAllocator;
 import org.hamcrest.Matchers;
 
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
@@ -259,6 +268,113 @@ public class BalanceConfigurationTests extends ESAllocationTestCase {
         assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
         assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
         assertThat(allocator.getThreshold(), Matchers.equalTo(3.0f));
+
+        settings = Settings.builder();
+        settings.put(BalancedShardsAllocator.INDEX_BALANCE_FACTOR_SETTING.getKey(), 0.5);
+        settings.put(BalancedShardsAllocator.SHARD_BALANCE_FACTOR_SETTING.getKey(), 0.1);
+        settings.put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.4);
+        settings.put(BalancedShardsAllocator.SEARCH_LOAD_BALANCE_FACTOR_SETTING.getKey(), 0.2);
+        settings.put(BalancedShardsAllocator.DISK_USAGE_BALANCE_FACTOR_SETTING.getKey(), 0.1);
+        service.applySettings(settings.build());
+        assertThat(allocator.getIndexBalance(), Matchers.equalTo(0.5f));
+        assertThat(allocator.getShardBalance(), Matchers.equalTo(0.1f));
+        assertThat(allocator.getWriteLoadBalance(), Matchers.equalTo(0.4f));
+        assertThat(allocator.getSearchLoadBalance(), Matchers.equalTo(0.2f));
+        assertThat(allocator.getDiskUsageBalance(), Matchers.equalTo(0.1f));
+    }
+
+    public void testBalancedClusterSkipsDecidersWhenRebalancing() {
+        Settings settings = Settings.builder()
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString())
+            .build();
+        AllocationService strategy = createAllocationService(settings, new TestGatewayAllocator());
+
+        Metadata.Builder metadataBuilder = Metadata.builder();
+        for (int i = 0; i < 4; i++) {
+            metadataBuilder.put(IndexMetadata.builder("test" + i).settings(settings(Version.CURRENT)).numberOfShards(4)
+                .numberOfReplicas(0));
+        }
+        Metadata metadata = metadataBuilder.build();
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
+            routingTableBuilder.addAsNew(cursor.value);
+        }
+        DiscoveryNodes.Builder nodes = DiscoveryNodes.builder();
+        for (int i = 0; i < 4; i++) {
+            nodes.add(newNode("node" + i));
+        }
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(nodes).metadata(metadata).routingTable(routingTableBuilder.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertThat(clusterState.getRoutingNodes().shardsWithState(STARTED).size(), Matchers.equalTo(16));
+
+        // a cluster that is balanced with respect to the weights of all nodes must not ask for index level decisions at all
+        final AtomicInteger indexDecisions = new AtomicInteger();
+        final AllocationService countingStrategy = new AllocationService(
+            new AllocationDeciders(Collections.singletonList(new AllocationDecider() {
+                @Override
+                public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                    indexDecisions.incrementAndGet();
+                    return Decision.YES;
+                }
+            })),
+            new TestGatewayAllocator(),
+            new BalancedShardsAllocator(settings),
+            EmptyClusterInfoService.INSTANCE,
+            EmptySnapshotsInfoService.INSTANCE
+        );
+        final ClusterState reroutedState = countingStrategy.reroute(clusterState, "reroute");
+        assertThat(reroutedState, Matchers.sameInstance(clusterState));
+        assertThat(indexDecisions.get(), Matchers.equalTo(0));
+    }
+
+    public void testWriteLoadAwareBalancing() {
+        Settings settings = Settings.builder()
+            .put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE_SETTING.getKey(),
+                ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString())
+            .put(BalancedShardsAllocator.WRITE_LOAD_BALANCE_FACTOR_SETTING.getKey(), 1.0f)
+            .build();
+
+        final String[] indices = new String[] { "hot-1", "hot-2", "cold-1", "cold-2" };
+        Metadata.Builder metadataBuilder = Metadata.builder();
+        for (String index : indices) {
+            metadataBuilder.put(IndexMetadata.builder(index).settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0));
+        }
+        Metadata metadata = metadataBuilder.build();
+        final ImmutableOpenMap.Builder<ShardId, Double> writeLoads = ImmutableOpenMap.builder();
+        for (String index : indices) {
+            writeLoads.put(new ShardId(metadata.index(index).getIndex(), 0), index.startsWith("hot") ? 1.0d : 0.0d);
+        }
+        final ClusterInfo clusterInfo = new ClusterInfo(ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(),
+            ImmutableOpenMap.of(), ImmutableOpenMap.of(), ImmutableOpenMap.of(), writeLoads.build(), ImmutableOpenMap.of());
+        final ClusterInfoService clusterInfoService = () -> clusterInfo;
+        AllocationService strategy = createAllocationService(settings, clusterInfoService);
+
+        RoutingTable.Builder routingTableBuilder = RoutingTable.builder();
+        for (ObjectCursor<IndexMetadata> cursor : metadata.indices().values()) {
+            routingTableBuilder.addAsNew(cursor.value);
+        }
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.CLUSTER_NAME_SETTING
+            .getDefault(Settings.EMPTY)).nodes(DiscoveryNodes.builder().add(newNode("node1"))).metadata(metadata)
+            .routingTable(routingTableBuilder.build()).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+        assertThat(clusterState.getRoutingNodes().node("node1").size(), Matchers.equalTo(4));
+
+        clusterState = ClusterState.builder(clusterState)
+            .nodes(DiscoveryNodes.builder(clusterState.nodes()).add(newNode("node2"))).build();
+        clusterState = strategy.reroute(clusterState, "reroute");
+        clusterState = applyStartedShardsUntilNoChange(clusterState, strategy);
+
+        // the load is spread evenly even though the shard counts need not be
+        for (RoutingNode node : clusterState.getRoutingNodes()) {
+            assertThat(node.toString(), node.shardsWithState(STARTED).stream()
+                .filter(shard -> shard.getIndexName().startsWith("hot")).count(), Matchers.equalTo(1L));
+        }
+        // and the shards do not move back and forth
+        assertThat(strategy.reroute(clusterState, "reroute"), Matchers.sameInstance(clusterState));
     }
 
     public void testNoRebalanceOnPrimaryOverload() {
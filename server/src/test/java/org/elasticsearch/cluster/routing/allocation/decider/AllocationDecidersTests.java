@@ -26,6 +26,8 @@ import org.hamcrest.Matchers;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 public class AllocationDecidersTests extends ESTestCase {
 
@@ -233,4 +235,59 @@ public class AllocationDecidersTests extends ESTestCase {
         assertEquals(expectedDebugDecision, allocationDeciders.canRebalance(allocation));
         assertEquals(expectedDebugDecision, allocationDeciders.canForceAllocatePrimary(shardRouting, routingNode, allocation));
     }
+
+    public void testDeciderTiming() {
+        final AllocationDecider decider = new AllocationDecider() {
+            @Override
+            public Decision canAllocate(IndexMetadata indexMetadata, RoutingNode node, RoutingAllocation allocation) {
+                return Decision.YES;
+            }
+        };
+        final AllocationDeciders allocationDeciders = new AllocationDeciders(Collections.singleton(decider));
+        final ClusterState clusterState = ClusterState.builder(new ClusterName("test")).build();
+        final RoutingAllocation allocation = new RoutingAllocation(allocationDeciders,
+            clusterState.getRoutingNodes(), clusterState, null, null, 0L);
+        final IndexMetadata indexMetadata =
+            IndexMetadata.builder("idx").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0).build();
+        final RoutingNode routingNode = new RoutingNode("testNode", null);
+
+        allocationDeciders.canAllocate(indexMetadata, routingNode, allocation);
+        assertFalse(allocation.isDeciderTimingEnabled());
+        assertThat(allocation.getDeciderTimesInNanos().entrySet(), Matchers.empty());
+
+        allocation.enableDeciderTiming();
+        allocationDeciders.canAllocate(indexMetadata, routingNode, allocation);
+        allocationDeciders.canRebalance(allocation);
+        assertTrue(allocation.isDeciderTimingEnabled());
+        assertThat(allocation.getDeciderTimesInNanos().keySet(), Matchers.contains(decider.getClass().getSimpleName()));
+        assertThat(allocation.getDeciderTimesInNanos().get(decider.getClass().getSimpleName()), Matchers.greaterThanOrEqualTo(0L));
+    }
+
+    public void testCachedDecision() {
+        final ClusterState clusterState = ClusterState.builder(new ClusterName("test")).build();
+        final RoutingAllocation allocation = new RoutingAllocation(new AllocationDeciders(Collections.emptyList()),
+            clusterState.getRoutingNodes(), clusterState, null, null, 0L);
+        final IndexMetadata indexMetadata =
+            IndexMetadata.builder("idx").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(0).build();
+        final AtomicInteger computations = new AtomicInteger();
+        final Supplier<Decision> decisionSupplier = () -> {
+            computations.incrementAndGet();
+            return Decision.NO;
+        };
+
+        assertSame(Decision.NO, allocation.cachedDecision("label", indexMetadata, "attributes", decisionSupplier));
+        assertSame(Decision.NO, allocation.cachedDecision("label", indexMetadata, "attributes", decisionSupplier));
+        assertThat(computations.get(), Matchers.equalTo(1));
+
+        allocation.cachedDecision("other_label", indexMetadata, "attributes", decisionSupplier);
+        allocation.cachedDecision("label", indexMetadata, "other_attributes", decisionSupplier);
+        allocation.cachedDecision("label", IndexMetadata.builder(indexMetadata).settingsVersion(indexMetadata.getSettingsVersion() + 1)
+            .build(), "attributes", decisionSupplier);
+        assertThat(computations.get(), Matchers.equalTo(4));
+
+        // decisions carry explanations in debug mode so they are never cached
+        allocation.debugDecision(true);
+        allocation.cachedDecision("label", indexMetadata, "attributes", decisionSupplier);
+        assertThat(computations.get(), Matchers.equalTo(5));
+    }
 }
@@ -7,7 +7,9 @@
  */
 package org.elasticsearch.index;
 
+import org.apache.lucene.index.LogByteSizeMergePolicy;
 import org.apache.lucene.index.NoMergePolicy;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
@@ -18,29 +20,32 @@ import java.io.IOException;
 
 import static org.elasticsearch.common.settings.Settings.Builder.EMPTY_SETTINGS;
 import static org.elasticsearch.index.IndexSettingsTests.newIndexMeta;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
 
 public class MergePolicySettingsTests extends ESTestCase {
     protected final ShardId shardId = new ShardId("index", "_na_", 1);
 
     public void testCompoundFileSettings() throws IOException {
-        assertThat(new MergePolicyConfig(logger, indexSettings(Settings.EMPTY)).getMergePolicy().getNoCFSRatio(), equalTo(0.1));
-        assertThat(new MergePolicyConfig(logger, indexSettings(build(true))).getMergePolicy().getNoCFSRatio(), equalTo(1.0));
-        assertThat(new MergePolicyConfig(logger, indexSettings(build(0.5))).getMergePolicy().getNoCFSRatio(), equalTo(0.5));
-        assertThat(new MergePolicyConfig(logger, indexSettings(build(1.0))).getMergePolicy().getNoCFSRatio(), equalTo(1.0));
+        assertThat(new MergePolicyConfig(logger, indexSettings(Settings.EMPTY)).getMergePolicy(false).getNoCFSRatio(), equalTo(0.1));
+        assertThat(new MergePolicyConfig(logger, indexSettings(build(true))).getMergePolicy(false).getNoCFSRatio(), equalTo(1.0));
+        assertThat(new MergePolicyConfig(logger, indexSettings(build(0.5))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.5));
+        assertThat(new MergePolicyConfig(logger, indexSettings(build(1.0))).getMergePolicy(false).getNoCFSRatio(), equalTo(1.0));
         assertThat(new MergePolicyConfig(logger,
-            indexSettings(build("true"))).getMergePolicy().getNoCFSRatio(), equalTo(1.0));
+            indexSettings(build("true"))).getMergePolicy(false).getNoCFSRatio(), equalTo(1.0));
         assertThat(new MergePolicyConfig(logger,
-            indexSettings(build("True"))).getMergePolicy().getNoCFSRatio(), equalTo(1.0));
+            indexSettings(build("True"))).getMergePolicy(false).getNoCFSRatio(), equalTo(1.0));
         assertThat(new MergePolicyConfig(logger,
-            indexSettings(build("False"))).getMergePolicy().getNoCFSRatio(), equalTo(0.0));
+            indexSettings(build("False"))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.0));
         assertThat(new MergePolicyConfig(logger,
-            indexSettings(build("false"))).getMergePolicy().getNoCFSRatio(), equalTo(0.0));
+            indexSettings(build("false"))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.0));
         assertThat(new MergePolicyConfig(logger,
-            indexSettings(build(false))).getMergePolicy().getNoCFSRatio(), equalTo(0.0));
-        assertThat(new MergePolicyConfig(logger, indexSettings(build(0))).getMergePolicy().getNoCFSRatio(), equalTo(0.0));
-        assertThat(new MergePolicyConfig(logger, indexSettings(build(0.0))).getMergePolicy().getNoCFSRatio(), equalTo(0.0));
+            indexSettings(build(false))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.0));
+        assertThat(new MergePolicyConfig(logger, indexSettings(build(0))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.0));
+        assertThat(new MergePolicyConfig(logger, indexSettings(build(0.0))).getMergePolicy(false).getNoCFSRatio(), equalTo(0.0));
     }
 
     private static IndexSettings indexSettings(Settings settings) {
@@ -50,7 +55,7 @@ public class MergePolicySettingsTests extends ESTestCase {
     public void testNoMerges() {
         MergePolicyConfig mp = new MergePolicyConfig(logger,
             indexSettings(Settings.builder().put(MergePolicyConfig.INDEX_MERGE_ENABLED, false).build()));
-        assertTrue(mp.getMergePolicy() instanceof NoMergePolicy);
+        assertTrue(mp.getMergePolicy(randomBoolean()) instanceof NoMergePolicy);
     }
 
     public void testUpdateSettings() throws IOException {
@@ -148,6 +153,94 @@ public class MergePolicySettingsTests extends ESTestCase {
             MergePolicyConfig.DEFAULT_DELETES_PCT_ALLOWED, 0);
     }
 
+    public void testMergePolicyType() {
+        IndexSettings indexSettings = indexSettings(Settings.EMPTY);
+        assertThat(indexSettings.getMergePolicy(false), instanceOf(EsTieredMergePolicy.class));
+        assertThat(indexSettings.getMergePolicy(true), instanceOf(LogByteSizeMergePolicy.class));
+
+        indexSettings = indexSettings(Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "tiered").build());
+        assertThat(indexSettings.getMergePolicy(randomBoolean()), instanceOf(EsTieredMergePolicy.class));
+
+        indexSettings = indexSettings(Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "time_based")
+            .build());
+        assertThat(indexSettings.getMergePolicy(randomBoolean()), instanceOf(LogByteSizeMergePolicy.class));
+
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> indexSettings(Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "log_doc").build()));
+        assertThat(e.getMessage(), containsString("unknown merge policy type [log_doc], must be one of [unset, tiered, time_based]"));
+
+        indexSettings = indexSettings(Settings.builder().put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "unset").build());
+        assertThat(indexSettings.getMergePolicy(false), instanceOf(EsTieredMergePolicy.class));
+        assertThat(indexSettings.getMergePolicy(true), instanceOf(LogByteSizeMergePolicy.class));
+    }
+
+    public void testTimeBasedMergePolicySettingsUpdate() {
+        IndexSettings indexSettings = indexSettings(Settings.EMPTY);
+        LogByteSizeMergePolicy mergePolicy = (LogByteSizeMergePolicy) indexSettings.getMergePolicy(true);
+        assertEquals(MergePolicyConfig.DEFAULT_MERGE_FACTOR, mergePolicy.getMergeFactor());
+        assertEquals(MergePolicyConfig.DEFAULT_FLOOR_SEGMENT.getMbFrac(), mergePolicy.getMinMergeMB(), 0.0001);
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGED_SEGMENT.getMbFrac(), mergePolicy.getMaxMergeMB(), 0.0001);
+
+        indexSettings.updateIndexMetadata(newIndexMeta("index", Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MERGE_FACTOR_SETTING.getKey(), MergePolicyConfig.DEFAULT_MERGE_FACTOR + 1)
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_FLOOR_SEGMENT_SETTING.getKey(), new ByteSizeValue(4, ByteSizeUnit.MB))
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_MAX_MERGED_SEGMENT_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.GB))
+            .build()));
+        assertEquals(MergePolicyConfig.DEFAULT_MERGE_FACTOR + 1, mergePolicy.getMergeFactor());
+        assertEquals(4, mergePolicy.getMinMergeMB(), 0.0001);
+        assertEquals(1024, mergePolicy.getMaxMergeMB(), 0.0001);
+
+        indexSettings.updateIndexMetadata(newIndexMeta("index", EMPTY_SETTINGS)); // see if defaults are restored
+        assertEquals(MergePolicyConfig.DEFAULT_MERGE_FACTOR, mergePolicy.getMergeFactor());
+        assertEquals(MergePolicyConfig.DEFAULT_FLOOR_SEGMENT.getMbFrac(), mergePolicy.getMinMergeMB(), 0.0001);
+        assertEquals(MergePolicyConfig.DEFAULT_MAX_MERGED_SEGMENT.getMbFrac(), mergePolicy.getMaxMergeMB(), 0.0001);
+    }
+
+    public void testTieredOnlySettingsRejectedByTimeBasedMergePolicy() {
+        for (Setting<Double> setting : MergePolicyConfig.TIERED_ONLY_SETTINGS) {
+            IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> indexSettings(Settings.builder()
+                .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "time_based")
+                .put(setting.getKey(), 20.0)
+                .build()));
+            assertThat(e.getMessage(), equalTo("[" + setting.getKey() + "] is only supported by the [tiered] merge policy, but ["
+                + MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey() + "] is [time_based]"));
+
+            IndexSettings indexSettings = indexSettings(Settings.builder()
+                .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "time_based").build());
+            e = expectThrows(IllegalArgumentException.class, () -> indexSettings.updateIndexMetadata(newIndexMeta("index",
+                Settings.builder()
+                    .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "time_based")
+                    .put(setting.getKey(), 20.0)
+                    .build())));
+            assertThat(e.getMessage(), containsString("illegal value can't update [" + setting.getKey() + "]"));
+            assertThat(e.getCause().getMessage(),
+                containsString("[" + setting.getKey() + "] is only supported by the [tiered] merge policy"));
+
+            String type = randomFrom("unset", "tiered");
+            IndexSettings tieredSettings = indexSettings(Settings.builder()
+                .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), type).build());
+            tieredSettings.updateIndexMetadata(newIndexMeta("index", Settings.builder()
+                .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), type)
+                .put(setting.getKey(), 20.0)
+                .build()));
+        }
+    }
+
+    public void testTieredOnlySettingsIgnoredByTimeBasedIndex() {
+        Setting<Double> setting = randomFrom(MergePolicyConfig.TIERED_ONLY_SETTINGS);
+        IndexSettings indexSettings = indexSettings(Settings.builder().put(setting.getKey(), 20.0).build());
+        MergePolicyConfig mergePolicyConfig = new MergePolicyConfig(logger, indexSettings);
+        assertThat(mergePolicyConfig.ignoredSettings(false), empty());
+        assertThat(mergePolicyConfig.ignoredSettings(true), contains(setting.getKey()));
+        assertThat(indexSettings.getMergePolicy(true), instanceOf(LogByteSizeMergePolicy.class));
+
+        indexSettings = indexSettings(Settings.builder()
+            .put(MergePolicyConfig.INDEX_MERGE_POLICY_TYPE_SETTING.getKey(), "tiered")
+            .put(setting.getKey(), 20.0)
+            .build());
+        assertThat(new MergePolicyConfig(logger, indexSettings).ignoredSettings(randomBoolean()), empty());
+    }
+
     public Settings build(String value) {
         return Settings.builder().put(MergePolicyConfig.INDEX_COMPOUND_FORMAT_SETTING.getKey(), value).build();
     }
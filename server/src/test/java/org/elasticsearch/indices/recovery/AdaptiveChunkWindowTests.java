@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0 and the Server Side Public License, v 1; you may not use this file except
+ * in compliance with, at your election, the Elastic License 2.0 or the Server
+ * Side Public License, v 1.
+ */
+
+package org.elasticsearch.indices.recovery;
+
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class AdaptiveChunkWindowTests extends ESTestCase {
+
+    public void testFixedWindowNeverChanges() {
+        final int size = between(1, 8);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(size, size);
+        long now = 0L;
+        for (int i = 0; i < 100; i++) {
+            window.onRequestSent(now);
+            now += between(1, 1000);
+            window.onRequestCompleted(now, between(1, 1000));
+            assertThat(window.size(), equalTo(size));
+        }
+        assertThat(window.maxSizeReached(), equalTo(size));
+    }
+
+    public void testGrowsWhileLatencyBound() {
+        final int minSize = between(1, 4);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(minSize, AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE);
+        final long rtt = 1000L;
+        long now = 0L;
+        // every round takes one round-trip regardless of the window size, so a larger window always completes more chunks per unit of time
+        for (int round = 0; round < 100; round++) {
+            final int size = window.size();
+            window.onRequestSent(now);
+            now += rtt;
+            for (int i = 0; i < size; i++) {
+                window.onRequestCompleted(now, rtt);
+            }
+        }
+        assertThat(window.size(), equalTo(AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE));
+        assertThat(window.maxSizeReached(), equalTo(AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE));
+    }
+
+    public void testShrinksWhenRequestsQueueUp() {
+        final int minSize = between(1, 4);
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(minSize, AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE);
+        long now = 0L;
+        for (int round = 0; round < 10; round++) {
+            final int size = window.size();
+            now += 1000L;
+            for (int i = 0; i < size; i++) {
+                window.onRequestCompleted(now, 1000L);
+            }
+        }
+        final int grownSize = window.size();
+        assertThat(grownSize, greaterThan(minSize));
+        // the round-trip time is now proportional to the window size, i.e. the link is saturated and requests queue up
+        for (int round = 0; round < 100; round++) {
+            final int size = window.size();
+            now += 1000L * (size + 2);
+            for (int i = 0; i < size; i++) {
+                window.onRequestCompleted(now, 1000L * (size + 2));
+            }
+        }
+        assertThat(window.size(), equalTo(minSize));
+        assertThat(window.maxSizeReached(), equalTo(grownSize));
+    }
+
+    public void testTracksStalledTime() {
+        final AdaptiveChunkWindow window = new AdaptiveChunkWindow(1, randomBoolean() ? 1 : AdaptiveChunkWindow.MAX_ADAPTIVE_WINDOW_SIZE);
+        window.onRequestSent(0L);
+        window.onStalled(10L);
+        window.onStalled(20L); // still stalled since the first call
+        window.onRequestCompleted(110L, 110L);
+        assertThat(window.stalledNanos(), equalTo(100L));
+        window.onRequestCompleted(200L, 90L); // not stalled
+        assertThat(window.stalledNanos(), equalTo(100L));
+    }
+
+    public void testRejectsInvalidBounds() {
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(0, 1));
+        expectThrows(IllegalArgumentException.class, () -> new AdaptiveChunkWindow(4, 3));
+    }
+}
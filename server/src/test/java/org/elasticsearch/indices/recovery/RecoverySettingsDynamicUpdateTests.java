@@ -25,6 +25,13 @@ public class RecoverySettingsDynamicUpdateTests extends ESTestCase {
         assertEquals(null, recoverySettings.rateLimiter());
     }
 
+    public void testAdaptiveFileChunks() {
+        assertFalse(recoverySettings.getAdaptiveFileChunks());
+        clusterSettings.applySettings(Settings.builder().put(
+                RecoverySettings.INDICES_RECOVERY_ADAPTIVE_FILE_CHUNKS_SETTING.getKey(), true).build());
+        assertTrue(recoverySettings.getAdaptiveFileChunks());
+    }
+
     public void testRetryDelayStateSync() {
         long duration = between(1, 1000);
         TimeUnit timeUnit = randomFrom(TimeUnit.MILLISECONDS, TimeUnit.SECONDS, TimeUnit.MINUTES, TimeUnit.HOURS);
@@ -64,6 +64,7 @@ import org.elasticsearch.index.seqno.RetentionLease;
 import org.elasticsearch.index.seqno.RetentionLeases;
 import org.elasticsearch.index.seqno.SeqNoStats;
 import org.elasticsearch.index.seqno.SequenceNumbers;
+import org.elasticsearch.index.shard.DocsStats;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardRelocatedException;
 import org.elasticsearch.index.shard.IndexShardState;
@@ -125,6 +126,7 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
@@ -395,6 +397,74 @@ public class RecoverySourceHandlerTests extends ESTestCase {
         return new Engine.Index(new Term("_id", Uid.encodeId(doc.id())), randomNonNegativeLong(), doc);
     }
 
+    public void testEstimateHistoryBytes() {
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(0, randomNonNegativeLong(), randomNonNegativeLong()), equalTo(0L));
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(10, 0L, 0L), equalTo(10L));
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(10, 1000L, 10L), equalTo(1000L));
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(10, 1000L, 100L), equalTo(100L));
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(10, 5L, 100L), equalTo(10L));
+        assertThat(RecoverySourceHandler.estimateHistoryBytes(Integer.MAX_VALUE, Long.MAX_VALUE, 1L), equalTo(Long.MAX_VALUE));
+    }
+
+    public void testIsHistoryReplayCheaperThanFileCopy() throws Exception {
+        final Store store = newStore(createTempDir());
+        final int numDocs = randomIntBetween(10, 100);
+        try (RandomIndexWriter writer = new RandomIndexWriter(random(), store.directory(), newIndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                document.add(new StringField("id", Integer.toString(i), Field.Store.YES));
+                document.add(newField("field", randomUnicodeOfCodepointLengthBetween(1, 10), TextField.TYPE_STORED));
+                writer.addDocument(document);
+            }
+            writer.commit();
+        }
+        final List<IndexCommit> commits = DirectoryReader.listCommits(store.directory());
+        final IndexCommit safeCommit = commits.get(commits.size() - 1);
+        final Store.MetadataSnapshot sourceMetadata = store.getMetadata(safeCommit);
+        long commitSizeInBytes = 0L;
+        for (StoreFileMetadata md : sourceMetadata) {
+            commitSizeInBytes += md.length();
+        }
+
+        final IndexShard shard = mock(IndexShard.class);
+        when(shard.store()).thenReturn(store);
+        when(shard.acquireSafeIndexCommit()).thenAnswer(invocation -> new Engine.IndexCommitRef(safeCommit, () -> {}));
+        // the documents are as large as the files of the commit, so each operation is estimated at commitSizeInBytes / numDocs
+        when(shard.docStats()).thenReturn(new DocsStats(numDocs, 0L, commitSizeInBytes));
+
+        // the target misses all files: replaying fewer operations than the commit holds is cheaper than copying it
+        RecoverySourceHandler handler = newHandler(shard, Store.MetadataSnapshot.EMPTY);
+        final int fewOps = randomIntBetween(0, numDocs / 2);
+        when(shard.estimateNumberOfHistoryOperations(anyString(), any(), anyLong())).thenReturn(fewOps);
+        assertTrue(handler.isHistoryReplayCheaperThanFileCopy(Engine.HistorySource.INDEX));
+
+        // replaying far more operations than the commit holds, e.g. after many updates to the same documents, costs more
+        final int manyOps = randomIntBetween(numDocs * 2, numDocs * 10);
+        when(shard.estimateNumberOfHistoryOperations(anyString(), any(), anyLong())).thenReturn(manyOps);
+        assertFalse(handler.isHistoryReplayCheaperThanFileCopy(Engine.HistorySource.INDEX));
+
+        // the target already has all files of the commit, so there is nothing to copy
+        handler = newHandler(shard, sourceMetadata);
+        when(shard.estimateNumberOfHistoryOperations(anyString(), any(), anyLong())).thenReturn(fewOps);
+        assertFalse(handler.isHistoryReplayCheaperThanFileCopy(Engine.HistorySource.INDEX));
+
+        IOUtils.close(store);
+    }
+
+    private RecoverySourceHandler newHandler(IndexShard shard, Store.MetadataSnapshot targetMetadata) {
+        final StartRecoveryRequest request = new StartRecoveryRequest(
+            shardId,
+            null,
+            new DiscoveryNode("b", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT),
+            new DiscoveryNode("b", buildNewFakeTransportAddress(), emptyMap(), emptySet(), Version.CURRENT),
+            targetMetadata,
+            false,
+            randomNonNegativeLong(),
+            randomNonNegativeLong());
+        return new RecoverySourceHandler(shard, new TestRecoveryTargetHandler(), threadPool, request, between(1, 16), between(1, 4),
+            between(1, 4), between(1, 4), false, recoveryPlannerService);
+    }
+
     public void testHandleCorruptedIndexOnSendSendFiles() throws Throwable {
         Settings settings = Settings.builder().put("indices.recovery.concurrent_streams", 1).
             put("indices.recovery.concurrent_small_file_streams", 1).build();
@@ -21,6 +21,8 @@ import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.MockBigArrays;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.internal.io.IOUtils;
@@ -69,6 +71,30 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
      * some files already exist in the shard's store.
      */
     public void testRestoreSnapshotWithExistingFiles() throws IOException {
+        doTestRestoreSnapshotWithExistingFiles(Settings.EMPTY, Settings.EMPTY);
+    }
+
+    /**
+     * Same as {@link #testRestoreSnapshotWithExistingFiles()} but downloading files in byte ranges with read-ahead, across part
+     * boundaries if the files are split into parts, and with the read-ahead bytes of the node possibly running out.
+     */
+    public void testRestoreSnapshotInRanges() throws IOException {
+        final Settings.Builder repositorySettings = Settings.builder()
+            .put(BlobStoreRepository.RESTORE_READ_AHEAD_SETTING.getKey(), randomIntBetween(1, 8))
+            .put(BlobStoreRepository.RESTORE_RANGE_SIZE_SETTING.getKey(), new ByteSizeValue(randomIntBetween(1, 16), ByteSizeUnit.KB));
+        if (randomBoolean()) {
+            repositorySettings.put("chunk_size", new ByteSizeValue(randomIntBetween(1, 64), ByteSizeUnit.KB));
+        }
+        final Settings nodeSettings = Settings.builder()
+            .put(
+                RecoverySettings.INDICES_RECOVERY_MAX_RESTORE_READ_AHEAD_BYTES_SETTING.getKey(),
+                new ByteSizeValue(randomIntBetween(0, 256), ByteSizeUnit.KB)
+            )
+            .build();
+        doTestRestoreSnapshotWithExistingFiles(repositorySettings.build(), nodeSettings);
+    }
+
+    private void doTestRestoreSnapshotWithExistingFiles(Settings repositorySettings, Settings nodeSettings) throws IOException {
         final IndexId indexId = new IndexId(randomAlphaOfLength(10), UUIDs.randomBase64UUID());
         final ShardId shardId = new ShardId(indexId.getName(), indexId.getId(), 0);
 
@@ -86,7 +112,11 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
             assertDocCount(shard, numDocs);
 
             // snapshot the shard
-            final Repository repository = createRepository();
+            final RecoverySettings recoverySettings = new RecoverySettings(
+                nodeSettings,
+                new ClusterSettings(nodeSettings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+            );
+            final Repository repository = createRepository(repositorySettings, recoverySettings);
             final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
             snapshotShard(shard, snapshot, repository);
 
@@ -135,6 +165,9 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
                 assertTrue("File [" + fileName + "] does not exist in store directory", directoryFiles.contains(fileName));
                 assertEquals(storeFile.length(), shard.store().directory().fileLength(fileName));
             }
+
+            // check that the ranges downloaded ahead have been released
+            assertEquals(0L, recoverySettings.getRestoreReadAheadBytes());
         } finally {
             if (shard != null && shard.state() != IndexShardState.CLOSED) {
                 try {
@@ -164,7 +197,7 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
             assertDocCount(shard, numDocs);
 
             // snapshot the shard
-            final Repository repository = createRepository();
+            final Repository repository = createRepository(repositorySettings);
             final Snapshot snapshot = new Snapshot(repository.getMetadata().name(), new SnapshotId(randomAlphaOfLength(10), "_uuid"));
             final ShardGeneration shardGen = snapshotShard(shard, snapshot, repository);
             assertNotNull(shardGen);
@@ -216,7 +249,20 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
 
     /** Create a {@link Repository} with a random name **/
     private Repository createRepository() {
-        Settings settings = Settings.builder().put("location", randomAlphaOfLength(10)).build();
+        return createRepository(Settings.EMPTY);
+    }
+
+    /** Create a {@link Repository} with a random name and the given settings **/
+    private Repository createRepository(Settings repositorySettings) {
+        return createRepository(
+            repositorySettings,
+            new RecoverySettings(Settings.EMPTY, new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS))
+        );
+    }
+
+    /** Create a {@link Repository} with a random name, the given settings and the given recovery settings **/
+    private Repository createRepository(Settings repositorySettings, RecoverySettings recoverySettings) {
+        Settings settings = Settings.builder().put(repositorySettings).put("location", randomAlphaOfLength(10)).build();
         RepositoryMetadata repositoryMetadata = new RepositoryMetadata(randomAlphaOfLength(10), FsRepository.TYPE, settings);
         final ClusterService clusterService = BlobStoreTestUtil.mockClusterService(repositoryMetadata);
         final FsRepository repository = new FsRepository(
@@ -225,7 +271,7 @@ public class BlobStoreRepositoryRestoreTests extends IndexShardTestCase {
             xContentRegistry(),
             clusterService,
             MockBigArrays.NON_RECYCLING_INSTANCE,
-            new RecoverySettings(Settings.EMPTY, new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS))
+            recoverySettings
         ) {
             @Override
             protected void assertSnapshotOrGenericThread() {
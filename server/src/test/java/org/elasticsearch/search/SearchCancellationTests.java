@@ -90,6 +90,19 @@ public class SearchCancellationTests extends ESTestCase {
         assertEquals("Cancellation runnable already added", iae.getMessage());
     }
 
+    public void testCheckCancelled() throws IOException {
+        ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true);
+        searcher.checkCancelled();
+
+        Runnable cancellation = () -> { throw new TaskCancelledException("cancelled"); };
+        searcher.addQueryCancellation(cancellation);
+        expectThrows(TaskCancelledException.class, searcher::checkCancelled);
+
+        searcher.removeQueryCancellation(cancellation);
+        searcher.checkCancelled();
+    }
+
     public void testCancellableCollector() throws IOException {
         TotalHitCountCollector collector1 = new TotalHitCountCollector();
         Runnable cancellation = () -> { throw new TaskCancelledException("cancelled"); };
@@ -175,7 +175,14 @@ public class DataTierAllocationDecider extends AllocationDecider {
     }
 
     public Decision shouldFilter(IndexMetadata indexMd, Set<DiscoveryNodeRole> roles, RoutingAllocation allocation) {
-        return shouldFilter(indexMd, roles, DataTierAllocationDecider::preferredAvailableTier, allocation);
+        // finding the preferred available tier looks at every node in the cluster, but the outcome only depends on the index settings and
+        // the roles of the node so we compute it once per index and set of roles in each allocation
+        return allocation.cachedDecision(
+            NAME,
+            indexMd,
+            roles,
+            () -> shouldFilter(indexMd, roles, DataTierAllocationDecider::preferredAvailableTier, allocation)
+        );
     }
 
     public interface PreferredTierFunction {
@@ -20,6 +20,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -34,6 +35,7 @@ import java.util.concurrent.atomic.AtomicReference;
  *
  * In a nutshell this is a 2 cycle engine: 1st it sends a query, 2nd it indexes documents based on the response, sends the next query,
  * indexes, queries, indexes, ... until a condition lets the engine pause until the source provides new input.
+ * Implementations can let the query for the next page run while a page gets indexed, see {@link #pipelineNextSearch()}.
  *
  * @param <JobPosition> Type that defines a job position to be defined by the implementation.
  */
@@ -246,6 +248,19 @@ public abstract class AsyncTwoPhaseIndexer<JobPosition, JobStats extends Indexer
         return (stats.getNumPages() > 0 && stats.getNumPages() % 50 == 0);
     }
 
+    /**
+     * Checks if the search for the next page can be executed while the documents of the current page get indexed. Inherited
+     * classes can override this if their searches do not depend on the outcome of the previous bulk request.
+     *
+     * Searches are only pipelined if neither state persistence nor throttling is due. The next page gets processed once both,
+     * the bulk request and the search, completed, so at most 1 bulk request is in flight.
+     *
+     * @return true if the next search can run concurrently with indexing, false if not.
+     */
+    protected boolean pipelineNextSearch() {
+        return false;
+    }
+
     /**
      * Re-schedules the search request if necessary, this method can be called to apply a change
      * in maximumRequestsPerSecond immediately
@@ -457,6 +472,10 @@ public abstract class AsyncTwoPhaseIndexer<JobPosition, JobStats extends Indexer
 
     private void onSearchResponse(SearchResponse searchResponse) {
         stats.markEndSearch();
+        processSearchResponse(searchResponse);
+    }
+
+    private void processSearchResponse(SearchResponse searchResponse) {
         try {
             if (checkState(getState()) == false) {
                 return;
@@ -492,6 +511,10 @@ public abstract class AsyncTwoPhaseIndexer<JobPosition, JobStats extends Indexer
             // an iteration result might return an empty set of documents to be indexed
             if (bulkRequest.numberOfActions() > 0) {
                 stats.markStartIndexing();
+                if (canPipelineNextSearch()) {
+                    indexAndSearchNextPage(bulkRequest, iterationResult.getPosition());
+                    return;
+                }
                 doNextBulk(bulkRequest, ActionListener.wrap(bulkResponse -> {
                     // TODO we should check items in the response and move after accordingly to
                     // resume the failing buckets ?
@@ -547,6 +570,35 @@ public abstract class AsyncTwoPhaseIndexer<JobPosition, JobStats extends Indexer
         }
     }
 
+    private boolean canPipelineNextSearch() {
+        if (pipelineNextSearch() == false || triggerSaveState()) {
+            return false;
+        }
+
+        currentMaxDocsPerSecond = getMaxDocsPerSecond();
+        return calculateThrottlingDelay(currentMaxDocsPerSecond, lastDocCount, lastSearchStartTimeNanos, getTimeNanos()).duration() == 0;
+    }
+
+    private void indexAndSearchNextPage(BulkRequest bulkRequest, JobPosition newPosition) {
+        final PipelinedPage page = new PipelinedPage(position.get());
+
+        // the next search starts from the new position, which gets reverted if the bulk request fails
+        position.set(newPosition);
+        try {
+            doNextBulk(bulkRequest, ActionListener.wrap(page::onBulkResponse, page::onBulkFailure));
+        } catch (Exception e) {
+            page.onBulkFailure(e);
+        }
+
+        stats.markStartSearch();
+        lastSearchStartTimeNanos = getTimeNanos();
+        try {
+            doNextSearch(0L, ActionListener.wrap(page::onSearchResponse, page::onSearchFailure));
+        } catch (Exception e) {
+            page.onSearchFailure(e);
+        }
+    }
+
     protected void nextSearch() {
         currentMaxDocsPerSecond = getMaxDocsPerSecond();
         if (currentMaxDocsPerSecond > 0 && lastDocCount > 0) {
@@ -646,6 +698,69 @@ public abstract class AsyncTwoPhaseIndexer<JobPosition, JobStats extends Indexer
         }
     }
 
+    /**
+     * Joins the bulk request for a page with the search for the next page if both run concurrently.
+     */
+    private class PipelinedPage {
+        private final JobPosition previousPosition;
+        private final AtomicInteger pendingPhases = new AtomicInteger(2);
+
+        private volatile BulkResponse bulkResponse;
+        private volatile Exception bulkFailure;
+        private volatile SearchResponse searchResponse;
+        private volatile Exception searchFailure;
+
+        PipelinedPage(JobPosition previousPosition) {
+            this.previousPosition = previousPosition;
+        }
+
+        void onBulkResponse(BulkResponse response) {
+            stats.markEndIndexing();
+            bulkResponse = response;
+            onPhaseCompleted();
+        }
+
+        void onBulkFailure(Exception e) {
+            bulkFailure = e;
+            onPhaseCompleted();
+        }
+
+        void onSearchResponse(SearchResponse response) {
+            stats.markEndSearch();
+            searchResponse = response;
+            onPhaseCompleted();
+        }
+
+        void onSearchFailure(Exception e) {
+            searchFailure = e;
+            onPhaseCompleted();
+        }
+
+        private void onPhaseCompleted() {
+            if (pendingPhases.decrementAndGet() > 0) {
+                return;
+            }
+
+            if (bulkFailure != null) {
+                // the page has not been indexed, it must be searched again when the job resumes
+                position.set(previousPosition);
+                finishWithIndexingFailure(bulkFailure);
+                return;
+            }
+
+            if (bulkResponse.hasFailures()) {
+                logger.warn("Error while attempting to bulk index documents: {}", bulkResponse.buildFailureMessage());
+            }
+            stats.incrementNumOutputDocuments(bulkResponse.getItems().length);
+
+            if (searchFailure != null) {
+                finishWithSearchFailure(searchFailure);
+            } else {
+                processSearchResponse(searchResponse);
+            }
+        }
+    }
+
     static TimeValue calculateThrottlingDelay(float docsPerSecond, long docCount, long startTimeNanos, long now) {
         if (docsPerSecond <= 0) {
             return TimeValue.ZERO;
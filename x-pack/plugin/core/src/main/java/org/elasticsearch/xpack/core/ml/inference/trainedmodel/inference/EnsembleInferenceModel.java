@@ -142,6 +142,11 @@ public class EnsembleInferenceModel implements InferenceModel {
         int i = 0;
         NullInferenceConfig subModelInferenceConfig = new NullInferenceConfig(config.requestingImportance());
         for (InferenceModel model : models) {
+            // Trees are walked directly when their feature importance is not needed, saving a result per tree
+            if (model instanceof TreeInferenceModel && config.requestingImportance() == false) {
+                inferenceResults[i++] = ((TreeInferenceModel) model).predict(features);
+                continue;
+            }
             InferenceResults result = model.infer(features, subModelInferenceConfig);
             assert result instanceof RawInferenceResults;
             RawInferenceResults inferenceResult = (RawInferenceResults) result;
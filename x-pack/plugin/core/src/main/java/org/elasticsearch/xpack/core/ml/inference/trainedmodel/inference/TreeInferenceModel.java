@@ -39,6 +39,7 @@ import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static org.apache.lucene.util.RamUsageEstimator.shallowSizeOf;
 import static org.apache.lucene.util.RamUsageEstimator.shallowSizeOfInstance;
 import static org.apache.lucene.util.RamUsageEstimator.sizeOf;
 import static org.apache.lucene.util.RamUsageEstimator.sizeOfCollection;
@@ -92,6 +93,14 @@ public class TreeInferenceModel implements InferenceModel {
     private final double highOrderCategory;
     private final int maxDepth;
     private final int leafSize;
+    // The nodes compiled into flat arrays for inference, see compile()
+    private int root;
+    private int[] splitFeatures;
+    private double[] thresholds;
+    private int[] leftChildren;
+    private int[] rightChildren;
+    private boolean[] defaultLeft;
+    private double[][] leafValues;
     private volatile boolean preparedForInference = false;
 
     TreeInferenceModel(List<String> featureNames,
@@ -214,12 +223,29 @@ public class TreeInferenceModel implements InferenceModel {
         return list;
     }
 
+    /**
+     * @return The value of the leaf the features lead to, without building any result. The model must be prepared for inference.
+     */
+    double[] predict(double[] features) {
+        assert preparedForInference : "model is not prepared for inference";
+        return getLeaf(features);
+    }
+
     private double[] getLeaf(double[] features) {
-        Node node = nodes[0];
-        while(node.isLeaf() == false) {
-            node = nodes[node.compare(features)];
+        final int[] splitFeatures = this.splitFeatures;
+        final double[] thresholds = this.thresholds;
+        final int[] leftChildren = this.leftChildren;
+        final int[] rightChildren = this.rightChildren;
+        int node = root;
+        while (node >= 0) {
+            double feature = features[splitFeatures[node]];
+            if (InnerNode.isMissing(feature)) {
+                node = defaultLeft[node] ? leftChildren[node] : rightChildren[node];
+            } else {
+                node = Double.compare(feature, thresholds[node]) <= 0 ? leftChildren[node] : rightChildren[node];
+            }
         }
-        return ((LeafNode)node).leafValue;
+        return leafValues[-node - 1];
     }
 
     public double[][] featureImportance(double[] fieldValues) {
@@ -306,24 +332,99 @@ public class TreeInferenceModel implements InferenceModel {
         if (preparedForInference) {
             return;
         }
-        preparedForInference = true;
-        if (newFeatureIndexMapping == null || newFeatureIndexMapping.isEmpty()) {
-            return;
+        if (newFeatureIndexMapping != null && newFeatureIndexMapping.isEmpty() == false) {
+            for (Node node : nodes) {
+                if (node.isLeaf()) {
+                    continue;
+                }
+                InnerNode treeNode = (InnerNode)node;
+                Integer newSplitFeatureIndex = newFeatureIndexMapping.get(featureNames[treeNode.splitFeature]);
+                if (newSplitFeatureIndex == null) {
+                    throw new IllegalArgumentException("[tree] failed to optimize for inference");
+                }
+                treeNode.splitFeature = newSplitFeatureIndex;
+            }
+            this.featureNames = new String[0];
+            // Since we are not top level, we no longer need local classification labels
+            this.classificationLabels = null;
         }
-        for (Node node : nodes) {
-            if (node.isLeaf()) {
+        compile();
+        preparedForInference = true;
+    }
+
+    /**
+     * Compiles the nodes into the flat arrays walked by {@link #getLeaf(double[])}.
+     *
+     * Inner nodes and leaves are numbered separately, a leaf being referenced by the negative value {@code -ordinal - 1}.
+     * Every decision is rewritten as {@code Double.compare(feature, threshold) <= 0}: the children of the nodes testing for
+     * greater values are swapped and the thresholds of the strict comparisons are moved to the previous double.
+     */
+    private void compile() {
+        int[] ordinals = new int[nodes.length];
+        int numInnerNodes = 0;
+        int numLeaves = 0;
+        for (int i = 0; i < nodes.length; i++) {
+            ordinals[i] = nodes[i].isLeaf() ? -(++numLeaves) : numInnerNodes++;
+        }
+        int[] splitFeatures = new int[numInnerNodes];
+        double[] thresholds = new double[numInnerNodes];
+        int[] leftChildren = new int[numInnerNodes];
+        int[] rightChildren = new int[numInnerNodes];
+        boolean[] defaultLeft = new boolean[numInnerNodes];
+        double[][] leafValues = new double[numLeaves][];
+        for (int i = 0; i < nodes.length; i++) {
+            int ordinal = ordinals[i];
+            if (ordinal < 0) {
+                leafValues[-ordinal - 1] = ((LeafNode) nodes[i]).leafValue;
                 continue;
             }
-            InnerNode treeNode = (InnerNode)node;
-            Integer newSplitFeatureIndex = newFeatureIndexMapping.get(featureNames[treeNode.splitFeature]);
-            if (newSplitFeatureIndex == null) {
-                throw new IllegalArgumentException("[tree] failed to optimize for inference");
+            InnerNode node = (InnerNode) nodes[i];
+            final boolean swapChildren;
+            switch (node.operator) {
+                case LTE:
+                    thresholds[ordinal] = node.threshold;
+                    swapChildren = false;
+                    break;
+                case LT:
+                    thresholds[ordinal] = previous(node.threshold);
+                    swapChildren = false;
+                    break;
+                case GT:
+                    thresholds[ordinal] = node.threshold;
+                    swapChildren = true;
+                    break;
+                case GTE:
+                    thresholds[ordinal] = previous(node.threshold);
+                    swapChildren = true;
+                    break;
+                default:
+                    throw new UnsupportedOperationException("unsupported operator [" + node.operator + "] for inference on tree model");
             }
-            treeNode.splitFeature = newSplitFeatureIndex;
+            splitFeatures[ordinal] = node.splitFeature;
+            leftChildren[ordinal] = ordinals[swapChildren ? node.rightChild : node.leftChild];
+            rightChildren[ordinal] = ordinals[swapChildren ? node.leftChild : node.rightChild];
+            defaultLeft[ordinal] = node.defaultLeft != swapChildren;
+        }
+        this.root = ordinals[0];
+        this.splitFeatures = splitFeatures;
+        this.thresholds = thresholds;
+        this.leftChildren = leftChildren;
+        this.rightChildren = rightChildren;
+        this.defaultLeft = defaultLeft;
+        this.leafValues = leafValues;
+    }
+
+    /**
+     * @return The greatest double lower than the given one, in the order of {@link Double#compare(double, double)}
+     */
+    private static double previous(double value) {
+        if (Double.isNaN(value)) {
+            return Double.POSITIVE_INFINITY;
         }
-        this.featureNames = new String[0];
-        // Since we are not top level, we no longer need local classification labels
-        this.classificationLabels = null;
+        if (Double.doubleToRawLongBits(value) == 0L) {
+            return -0.0;
+        }
+        return Math.nextDown(value);
     }
 
     @Override
@@ -332,6 +433,15 @@ public class TreeInferenceModel implements InferenceModel {
         size += sizeOfCollection(classificationLabels);
         size += sizeOf(featureNames);
         size += sizeOf(nodes);
+        if (leafValues != null) {
+            size += sizeOf(splitFeatures);
+            size += sizeOf(thresholds);
+            size += sizeOf(leftChildren);
+            size += sizeOf(rightChildren);
+            size += sizeOf(defaultLeft);
+            // the leaf values are shared with the leaf nodes
+            size += shallowSizeOf(leafValues);
+        }
         return size;
     }
 
@@ -13,6 +13,10 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.IndexReaderContext;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.ReaderUtil;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
@@ -21,7 +25,9 @@ import org.apache.lucene.search.Scorer;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.cache.Cache;
 import org.elasticsearch.common.cache.CacheBuilder;
@@ -41,6 +47,7 @@ import java.io.Closeable;
 import java.util.Arrays;
 import java.util.Collections;
 import java.io.IOException;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -77,6 +84,10 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  * BitSets that are not longer needed, so we set the TTL on this cache to be 2 hours ({@link #CACHE_TTL_SETTING}). This time has been
  * chosen so that it will retain BitSets that are in active use during a user's session, but not be an ongoing drain on memory.
  *
+ * BitSets are cached per segment, so a refresh only computes BitSets for the new segments. Queries are reduced to a canonical form
+ * before they are used as a key, so that the slightly different queries that templated role queries and the combination of the queries
+ * of several roles produce share the same BitSet. BitSets in which few documents are set are stored as a {@link SparseFixedBitSet}.
+ *
  * @see org.elasticsearch.index.cache.bitset.BitsetFilterCache
  */
 public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListener, Closeable, Accountable {
@@ -114,6 +125,8 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
     private final Cache<BitsetCacheKey, BitSet> bitsetCache;
     private final Map<IndexReader.CacheKey, Set<BitsetCacheKey>> keysByIndex;
     private final AtomicLong cacheFullWarningTime;
+    private final AtomicLong buildCount = new AtomicLong();
+    private final AtomicLong buildTimeNanos = new AtomicLong();
 
     public DocumentSubsetBitsetCache(Settings settings, ThreadPool threadPool) {
         this(settings, threadPool.executor(ThreadPool.Names.GENERIC));
@@ -225,7 +238,8 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
         }
         coreCacheHelper.addClosedListener(this);
         final IndexReader.CacheKey indexKey = coreCacheHelper.getKey();
-        final BitsetCacheKey cacheKey = new BitsetCacheKey(indexKey, query);
+        final Query canonicalQuery = canonicalQuery(query);
+        final BitsetCacheKey cacheKey = new BitsetCacheKey(indexKey, canonicalQuery);
 
         try (ReleasableLock ignored = cacheModificationLock.acquire()) {
             final BitSet bitSet = bitsetCache.computeIfAbsent(cacheKey, ignore1 -> {
@@ -237,7 +251,10 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
                     set.add(cacheKey);
                     return set;
                 });
-                final BitSet result = computeBitSet(query, context);
+                final long startTimeNanos = System.nanoTime();
+                final BitSet result = computeBitSet(canonicalQuery, context);
+                buildCount.incrementAndGet();
+                buildTimeNanos.addAndGet(System.nanoTime() - startTimeNanos);
                 if (result == null) {
                     // A cache loader is not allowed to return null, return a marker object instead.
                     return NULL_MARKER;
@@ -275,6 +292,43 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
         }
     }
 
+    /**
+     * Reduces the given query to a canonical form that matches the same documents, ignoring scores: constant score and boost wrappers are
+     * removed, required clauses become filters, duplicate clauses are removed where that does not change the matching documents and
+     * boolean queries with a single positive clause are replaced by that clause.
+     */
+    static Query canonicalQuery(Query query) {
+        if (query instanceof ConstantScoreQuery) {
+            return canonicalQuery(((ConstantScoreQuery) query).getQuery());
+        } else if (query instanceof BoostQuery) {
+            return canonicalQuery(((BoostQuery) query).getQuery());
+        } else if (query instanceof BooleanQuery) {
+            final BooleanQuery booleanQuery = (BooleanQuery) query;
+            final int minimumNumberShouldMatch = booleanQuery.getMinimumNumberShouldMatch();
+            if (minimumNumberShouldMatch > 1) {
+                // duplicate should clauses count towards the minimum
+                return query;
+            }
+            final Set<BooleanClause> clauses = new LinkedHashSet<>();
+            for (BooleanClause clause : booleanQuery.clauses()) {
+                final BooleanClause.Occur occur =
+                    clause.getOccur() == BooleanClause.Occur.MUST ? BooleanClause.Occur.FILTER : clause.getOccur();
+                clauses.add(new BooleanClause(canonicalQuery(clause.getQuery()), occur));
+            }
+            if (clauses.size() == 1) {
+                final BooleanClause clause = clauses.iterator().next();
+                if (clause.isProhibited() == false) {
+                    return clause.getQuery();
+                }
+            }
+            final BooleanQuery.Builder builder = new BooleanQuery.Builder();
+            builder.setMinimumNumberShouldMatch(minimumNumberShouldMatch);
+            clauses.forEach(builder::add);
+            return builder.build();
+        }
+        return query;
+    }
+
     private void maybeLogCacheFullWarning() {
         final long nextLogTime = cacheFullWarningTime.get();
         final long now = System.currentTimeMillis();
@@ -298,6 +352,9 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
         return new MapBuilder<String, Object>().put("count", entryCount())
             .put("memory", ram.toString())
             .put("memory_in_bytes", ram.getBytes())
+            .put("build_count", buildCount.get())
+            .put("build_time", TimeValue.timeValueNanos(buildTimeNanos.get()).toString())
+            .put("build_time_in_millis", TimeUnit.NANOSECONDS.toMillis(buildTimeNanos.get()))
             .immutableMap();
     }
 
@@ -359,8 +416,14 @@ public final class DocumentSubsetBitsetCache implements IndexReader.ClosedListen
 
     static BitSet bitSetFromDocIterator(DocIdSetIterator iter, int maxDoc) throws IOException {
         final BitSet set = BitSet.of(iter, maxDoc);
-        if (set.cardinality() == maxDoc) {
+        final int cardinality = set.cardinality();
+        if (cardinality == maxDoc) {
             return new MatchAllRoleBitSet(maxDoc);
+        } else if (set instanceof FixedBitSet && cardinality < maxDoc >>> 7) {
+            // the cost of the iterator was overestimated, store the few matching documents sparsely if that is smaller
+            final SparseFixedBitSet sparseSet = new SparseFixedBitSet(maxDoc);
+            sparseSet.or(new BitSetIterator(set, cardinality));
+            return sparseSet.ramBytesUsed() < set.ramBytesUsed() ? sparseSet : set;
         } else {
             return set;
         }
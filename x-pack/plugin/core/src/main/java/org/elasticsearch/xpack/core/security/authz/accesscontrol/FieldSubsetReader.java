@@ -28,22 +28,22 @@ import org.apache.lucene.util.FilterIterator;
 import org.apache.lucene.util.automaton.CharacterRunAutomaton;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
-import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
-import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
 import org.elasticsearch.index.mapper.SourceFieldMapper;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+
+import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
 
 /**
  * A {@link FilterLeafReader} that exposes only a subset
@@ -119,6 +119,8 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
     private final CharacterRunAutomaton filter;
     /** {@link Terms} cache with filtered stats for the {@link FieldNamesFieldMapper} field. */
     private final Terms fieldNamesFilterTerms;
+    /** Whether all fields of the segment are allowed, in which case fields, doc values and term vectors need no filtering. */
+    private final boolean allFieldsAllowed;
 
     /**
      * Wrap a single segment, exposing a subset of its fields.
@@ -132,6 +134,7 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
             }
         }
         fieldInfos = new FieldInfos(filteredInfos.toArray(new FieldInfo[filteredInfos.size()]));
+        this.allFieldsAllowed = filteredInfos.size() == in.getFieldInfos().size();
         this.filter = filter;
         final Terms fieldNameTerms = super.terms(FieldNamesFieldMapper.NAME);
         this.fieldNamesFilterTerms = fieldNameTerms == null ? null : new FieldNamesTerms(fieldNameTerms);
@@ -150,79 +153,140 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
     @Override
     public Fields getTermVectors(int docID) throws IOException {
         Fields f = super.getTermVectors(docID);
-        if (f == null) {
-            return null;
+        if (f == null || allFieldsAllowed) {
+            return f;
         }
         f = new FieldFilterFields(f);
         // we need to check for emptyness, so we can return null:
         return f.iterator().hasNext() ? f : null;
     }
 
-    /** Filter a map by a {@link CharacterRunAutomaton} that defines the fields to retain. */
-    @SuppressWarnings("unchecked")
-    static Map<String, Object> filter(Map<String, ?> map, CharacterRunAutomaton includeAutomaton, int initialState) {
-        Map<String, Object> filtered = new HashMap<>();
-        for (Map.Entry<String, ?> entry : map.entrySet()) {
-            String key = entry.getKey();
+    /**
+     * Filter the provided source by a {@link CharacterRunAutomaton} that defines the fields to retain. The retained tokens are copied
+     * straight from a parser of the source to a builder of the same content type, so that neither a map of the source nor its values
+     * are built, and the order of the fields is kept. Objects and arrays that retain nothing are dropped, except for objects within
+     * arrays which are kept empty.
+     */
+    static BytesReference filter(BytesReference source, CharacterRunAutomaton includeAutomaton) throws IOException {
+        try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                DeprecationHandler.THROW_UNSUPPORTED_OPERATION, source)) {
+            ensureExpectedToken(XContentParser.Token.START_OBJECT, parser.nextToken(), parser);
+            final XContentBuilder builder = XContentBuilder.builder(parser.contentType().xContent());
+            builder.startObject();
+            filterObject(parser, builder, new Structure(null, null, false, true), includeAutomaton, 0);
+            builder.endObject();
+            return BytesReference.bytes(builder);
+        }
+    }
+
+    private static void filterObject(XContentParser parser, XContentBuilder builder, Structure object,
+                                     CharacterRunAutomaton includeAutomaton, int initialState) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_OBJECT) {
+            ensureExpectedToken(XContentParser.Token.FIELD_NAME, token, parser);
+            final String key = parser.currentName();
+            token = parser.nextToken();
 
             int state = step(includeAutomaton, key, initialState);
             if (state == -1) {
+                parser.skipChildren();
                 continue;
             }
 
-            Object value = entry.getValue();
-
-            if (value instanceof Map) {
+            if (token == XContentParser.Token.START_OBJECT) {
                 state = includeAutomaton.step(state, '.');
                 if (state == -1) {
+                    parser.skipChildren();
                     continue;
                 }
-
-                Map<String, ?> mapValue = (Map<String, ?>) value;
-                Map<String, Object> filteredValue = filter(mapValue, includeAutomaton, state);
-                if (filteredValue.isEmpty() == false) {
-                    filtered.put(key, filteredValue);
-                }
-            } else if (value instanceof Iterable) {
-                Iterable<?> iterableValue = (Iterable<?>) value;
-                List<Object> filteredValue = filter(iterableValue, includeAutomaton, state);
-                if (filteredValue.isEmpty() == false) {
-                    filtered.put(key, filteredValue);
-                }
+                final Structure value = new Structure(object, key, false, false);
+                filterObject(parser, builder, value, includeAutomaton, state);
+                value.end(builder);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                final Structure value = new Structure(object, key, true, false);
+                filterArray(parser, builder, value, includeAutomaton, state);
+                value.end(builder);
             } else if (includeAutomaton.isAccept(state)) {
-                filtered.put(key, value);
+                object.write(builder);
+                builder.field(key);
+                builder.copyCurrentStructure(parser);
             }
         }
-        return filtered;
     }
 
-    /** Filter a list by a {@link CharacterRunAutomaton} that defines the fields to retain. */
-    @SuppressWarnings("unchecked")
-    private static List<Object> filter(Iterable<?> iterable, CharacterRunAutomaton includeAutomaton, int initialState) {
-        List<Object> filtered = new ArrayList<>();
-        for (Object value : iterable) {
-            if (value instanceof Map) {
-                int state = includeAutomaton.step(initialState, '.');
+    private static void filterArray(XContentParser parser, XContentBuilder builder, Structure array,
+                                    CharacterRunAutomaton includeAutomaton, int initialState) throws IOException {
+        XContentParser.Token token;
+        while ((token = parser.nextToken()) != XContentParser.Token.END_ARRAY) {
+            if (token == XContentParser.Token.START_OBJECT) {
+                final int state = includeAutomaton.step(initialState, '.');
                 if (state == -1) {
+                    parser.skipChildren();
                     continue;
                 }
-                Map<String, Object> filteredValue = filter((Map<String, ?>)value, includeAutomaton, state);
-                filtered.add(filteredValue);
-            } else if (value instanceof Iterable) {
-                List<Object> filteredValue = filter((Iterable<?>) value, includeAutomaton, initialState);
-                if (filteredValue.isEmpty() == false) {
-                    filtered.add(filteredValue);
-                }
+                // objects within arrays are retained even if none of their fields are
+                final Structure value = new Structure(array, null, false, false);
+                value.write(builder);
+                filterObject(parser, builder, value, includeAutomaton, state);
+                value.end(builder);
+            } else if (token == XContentParser.Token.START_ARRAY) {
+                final Structure value = new Structure(array, null, true, false);
+                filterArray(parser, builder, value, includeAutomaton, initialState);
+                value.end(builder);
             } else if (includeAutomaton.isAccept(initialState)) {
-                filtered.add(value);
+                array.write(builder);
+                builder.copyCurrentStructure(parser);
+            }
+        }
+    }
+
+    /**
+     * An object or array of the filtered source, which is only written once a value is retained in it, since objects and arrays that
+     * end up empty are removed.
+     */
+    private static final class Structure {
+        final Structure parent;
+        /** The name of the field that holds the object or array, or {@code null} within an array. */
+        final String fieldName;
+        final boolean array;
+        boolean written;
+
+        Structure(Structure parent, String fieldName, boolean array, boolean written) {
+            this.parent = parent;
+            this.fieldName = fieldName;
+            this.array = array;
+            this.written = written;
+        }
+
+        void write(XContentBuilder builder) throws IOException {
+            if (written == false) {
+                parent.write(builder);
+                if (fieldName != null) {
+                    builder.field(fieldName);
+                }
+                if (array) {
+                    builder.startArray();
+                } else {
+                    builder.startObject();
+                }
+                written = true;
+            }
+        }
+
+        void end(XContentBuilder builder) throws IOException {
+            if (written) {
+                if (array) {
+                    builder.endArray();
+                } else {
+                    builder.endObject();
+                }
             }
         }
-        return filtered;
     }
 
     /** Step through all characters of the provided string, and return the
      *  resulting state, or -1 if that did not lead to a valid state. */
-    private static int step(CharacterRunAutomaton automaton, String key, int state) {
+    static int step(CharacterRunAutomaton automaton, String key, int state) {
         for (int i = 0; state != -1 && i < key.length(); ++i) {
             state = automaton.step(state, key.charAt(i));
         }
@@ -246,32 +310,32 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
 
     @Override
     public NumericDocValues getNumericDocValues(String field) throws IOException {
-        return hasField(field) ? super.getNumericDocValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getNumericDocValues(field) : null;
     }
 
     @Override
     public BinaryDocValues getBinaryDocValues(String field) throws IOException {
-        return hasField(field) ? super.getBinaryDocValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getBinaryDocValues(field) : null;
     }
 
     @Override
     public SortedDocValues getSortedDocValues(String field) throws IOException {
-        return hasField(field) ? super.getSortedDocValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getSortedDocValues(field) : null;
     }
 
     @Override
     public SortedNumericDocValues getSortedNumericDocValues(String field) throws IOException {
-        return hasField(field) ? super.getSortedNumericDocValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getSortedNumericDocValues(field) : null;
     }
 
     @Override
     public SortedSetDocValues getSortedSetDocValues(String field) throws IOException {
-        return hasField(field) ? super.getSortedSetDocValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getSortedSetDocValues(field) : null;
     }
 
     @Override
     public NumericDocValues getNormValues(String field) throws IOException {
-        return hasField(field) ? super.getNormValues(field) : null;
+        return allFieldsAllowed || hasField(field) ? super.getNormValues(field) : null;
     }
 
     // we share core cache keys (for e.g. fielddata)
@@ -340,12 +404,9 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
         @Override
         public void binaryField(FieldInfo fieldInfo, byte[] value) throws IOException {
             if (SourceFieldMapper.NAME.equals(fieldInfo.name)) {
-                // for _source, parse, filter out the fields we care about, and serialize back downstream
-                BytesReference bytes = new BytesArray(value);
-                Tuple<XContentType, Map<String, Object>> result = XContentHelper.convertToMap(bytes, true);
-                Map<String, Object> transformedSource = filter(result.v2(), filter, 0);
-                XContentBuilder xContentBuilder = XContentBuilder.builder(result.v1().xContent()).map(transformedSource);
-                visitor.binaryField(fieldInfo, BytesReference.toBytes(BytesReference.bytes(xContentBuilder)));
+                // for _source, stream the fields we care about downstream
+                BytesReference filtered = filter(new BytesArray(value), filter);
+                visitor.binaryField(fieldInfo, BytesReference.toBytes(filtered));
             } else {
                 visitor.binaryField(fieldInfo, value);
             }
@@ -378,7 +439,7 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
 
         @Override
         public StoredFieldVisitor.Status needsField(FieldInfo fieldInfo) throws IOException {
-            return hasField(fieldInfo.name) ? visitor.needsField(fieldInfo) : StoredFieldVisitor.Status.NO;
+            return allFieldsAllowed || hasField(fieldInfo.name) ? visitor.needsField(fieldInfo) : StoredFieldVisitor.Status.NO;
         }
     }
 
@@ -538,7 +599,7 @@ public final class FieldSubsetReader extends SequentialStoredFieldsLeafReader {
 
     @Override
     public PointValues getPointValues(String fieldName) throws IOException {
-        if (hasField(fieldName)) {
+        if (allFieldsAllowed || hasField(fieldName)) {
             return super.getPointValues(fieldName);
         } else {
             return null;
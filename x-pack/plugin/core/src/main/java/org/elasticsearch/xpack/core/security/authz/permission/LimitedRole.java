@@ -36,6 +36,21 @@ public final class LimitedRole extends Role {
         this.limitedBy = limitedBy;
     }
 
+    /**
+     * @return the role that limits the permissions of this role
+     */
+    public Role limitedBy() {
+        return limitedBy;
+    }
+
+    /**
+     * @return the indices permission of this role before it is limited by {@link #limitedBy()}, which is shared by all the limited roles
+     * that are created from the same role
+     */
+    public IndicesPermission baseIndices() {
+        return super.indices();
+    }
+
     @Override
     public ClusterPermission cluster() {
         throw new UnsupportedOperationException("cannot retrieve cluster permission on limited role");
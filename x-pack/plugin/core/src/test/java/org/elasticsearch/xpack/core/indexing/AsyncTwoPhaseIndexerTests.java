@@ -481,6 +481,60 @@ public class AsyncTwoPhaseIndexerTests extends ESTestCase {
         }
     }
 
+    public void testFiveRunsPipelined() throws Exception {
+        AtomicReference<IndexerState> state = new AtomicReference<>(IndexerState.STOPPED);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            MockIndexerFiveRuns indexer = new MockIndexerFiveRuns(threadPool, state, 2, -1, null) {
+                @Override
+                protected boolean pipelineNextSearch() {
+                    return true;
+                }
+            };
+            indexer.start();
+            assertTrue(indexer.maybeTriggerAsyncJob(System.currentTimeMillis()));
+            assertBusy(() -> assertTrue(isFinished.get()));
+            indexer.assertCounters();
+            assertThat(indexer.getPosition(), equalTo(5));
+            assertThat(indexer.getStats().getNumPages(), equalTo(5L));
+        } finally {
+            ThreadPool.terminate(threadPool, 30, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testPipelinedBulkFailure() throws Exception {
+        AtomicReference<IndexerState> state = new AtomicReference<>(IndexerState.STOPPED);
+        final ThreadPool threadPool = new TestThreadPool(getTestName());
+        try {
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            MockIndexerFiveRuns indexer = new MockIndexerFiveRuns(threadPool, state, 2, -1, null) {
+                @Override
+                protected boolean pipelineNextSearch() {
+                    return true;
+                }
+
+                @Override
+                protected void doNextBulk(BulkRequest request, ActionListener<BulkResponse> nextPhase) {
+                    nextPhase.onFailure(new IllegalStateException("bulk failure"));
+                }
+
+                @Override
+                protected void onFailure(Exception exc) {
+                    failure.set(exc);
+                }
+            };
+            indexer.start();
+            assertTrue(indexer.maybeTriggerAsyncJob(System.currentTimeMillis()));
+            assertBusy(() -> assertThat(indexer.getState(), equalTo(IndexerState.STARTED)));
+            assertThat(failure.get().getMessage(), equalTo("bulk failure"));
+            assertThat(indexer.getStats().getIndexFailures(), equalTo(1L));
+            // the page could not be indexed, so the next run has to start from where it was searched
+            assertThat(indexer.getPosition(), equalTo(2));
+        } finally {
+            ThreadPool.terminate(threadPool, 30, TimeUnit.SECONDS);
+        }
+    }
+
     public void testFiveRunsRethrottle0_100() throws Exception {
         doTestFiveRunsRethrottle(-1, 100, timeValueCollectionFromMilliseconds(9950L));
     }
@@ -268,6 +268,40 @@ public class TreeInferenceModelTests extends ESTestCase {
         assertThat(featureImportance[1][0], closeTo(2.5, eps));
     }
 
+    public void testCompiledNodesMatchNodes() {
+        // few distinct values so that features often equal the thresholds, signed zeros included
+        Double[] values = new Double[] { -1.0, -0.0, 0.0, 0.5, 1.0 };
+        for (int run = 0; run < NUMBER_OF_TEST_RUNS; ++run) {
+            int numInnerNodes = (1 << randomIntBetween(0, 6)) - 1;
+            List<TreeInferenceModel.NodeBuilder> nodes = new ArrayList<>();
+            for (int i = 0; i < numInnerNodes; i++) {
+                nodes.add(new TreeInferenceModel.NodeBuilder().setOperator(randomFrom(Operator.values()))
+                    .setThreshold(randomBoolean() ? randomFrom(values) : randomDouble())
+                    .setSplitFeature(randomIntBetween(0, 2))
+                    .setDefaultLeft(randomBoolean())
+                    .setLeftChild(2 * i + 1)
+                    .setRightChild(2 * i + 2));
+            }
+            for (int i = 0; i <= numInnerNodes; i++) {
+                nodes.add(new TreeInferenceModel.NodeBuilder().setLeafValue(new double[] { numInnerNodes + i }));
+            }
+            TreeInferenceModel tree = new TreeInferenceModel(Arrays.asList("foo", "bar", "baz"), nodes, TargetType.REGRESSION, null);
+            tree.rewriteFeatureIndices(Collections.emptyMap());
+
+            for (int i = 0; i < 100; i++) {
+                double[] features = new double[3];
+                for (int j = 0; j < features.length; j++) {
+                    features[j] = randomBoolean() ? randomFrom(values) : randomFrom(Double.NaN, Double.NEGATIVE_INFINITY, randomDouble());
+                }
+                TreeInferenceModel.Node node = tree.getNodes()[0];
+                while (node.isLeaf() == false) {
+                    node = tree.getNodes()[node.compare(features)];
+                }
+                assertThat(tree.predict(features), equalTo(((TreeInferenceModel.LeafNode) node).getLeafValue()));
+            }
+        }
+    }
+
     private static Map<String, Object> zipObjMap(List<String> keys, List<? extends Object> values) {
         return IntStream.range(0, keys.size()).boxed().collect(Collectors.toMap(keys::get, values::get));
     }
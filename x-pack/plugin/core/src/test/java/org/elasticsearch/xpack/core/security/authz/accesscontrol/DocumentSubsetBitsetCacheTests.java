@@ -19,13 +19,20 @@ import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BitSet;
 import org.apache.lucene.util.BitSetIterator;
 import org.apache.lucene.util.FixedBitSet;
+import org.apache.lucene.util.SparseFixedBitSet;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.CheckedBiConsumer;
 import org.elasticsearch.core.CheckedConsumer;
@@ -106,6 +113,53 @@ public class DocumentSubsetBitsetCacheTests extends ESTestCase {
         });
     }
 
+    public void testSameBitSetIsReturnedForEquivalentQueries() throws Exception {
+        final DocumentSubsetBitsetCache cache = newCache(Settings.EMPTY);
+        runTestOnIndex((searchExecutionContext, leafContext) -> {
+            final Query query1 = QueryBuilders.termQuery("field-1", "value-1").toQuery(searchExecutionContext);
+            final BitSet bitSet1 = cache.getBitSet(query1, leafContext);
+            assertThat(bitSet1, notNullValue());
+
+            // the combined query of two roles with the same templated query
+            final Query query2 = new ConstantScoreQuery(new BooleanQuery.Builder()
+                .add(QueryBuilders.termQuery("field-1", "value-1").toQuery(searchExecutionContext), BooleanClause.Occur.SHOULD)
+                .add(QueryBuilders.termQuery("field-1", "value-1").toQuery(searchExecutionContext), BooleanClause.Occur.SHOULD)
+                .build());
+            assertThat(cache.getBitSet(query2, leafContext), sameInstance(bitSet1));
+            assertThat(cache.entryCount(), equalTo(1));
+            assertThat(cache.usageStats().get("build_count"), equalTo(1L));
+        });
+    }
+
+    public void testCanonicalQuery() {
+        final Query term1 = new TermQuery(new Term("field", "value-1"));
+        final Query term2 = new TermQuery(new Term("field", "value-2"));
+        assertThat(DocumentSubsetBitsetCache.canonicalQuery(term1), sameInstance(term1));
+        assertThat(DocumentSubsetBitsetCache.canonicalQuery(new BoostQuery(new ConstantScoreQuery(term1), 2f)), sameInstance(term1));
+
+        final Query must = new BooleanQuery.Builder()
+            .add(term1, BooleanClause.Occur.MUST)
+            .add(term2, BooleanClause.Occur.MUST_NOT)
+            .build();
+        final Query filter = new BooleanQuery.Builder()
+            .add(term1, BooleanClause.Occur.FILTER)
+            .add(term2, BooleanClause.Occur.MUST_NOT)
+            .build();
+        assertThat(DocumentSubsetBitsetCache.canonicalQuery(must), equalTo(filter));
+
+        final Query onlyMustNot = new BooleanQuery.Builder().add(term1, BooleanClause.Occur.MUST_NOT).build();
+        assertThat(DocumentSubsetBitsetCache.canonicalQuery(onlyMustNot), equalTo(onlyMustNot));
+
+        // duplicate clauses count towards the minimum number of should clauses
+        final Query minimumShouldMatch = new BooleanQuery.Builder()
+            .add(term1, BooleanClause.Occur.SHOULD)
+            .add(term1, BooleanClause.Occur.SHOULD)
+            .add(term2, BooleanClause.Occur.SHOULD)
+            .setMinimumNumberShouldMatch(2)
+            .build();
+        assertThat(DocumentSubsetBitsetCache.canonicalQuery(minimumShouldMatch), sameInstance(minimumShouldMatch));
+    }
+
     public void testNullBitSetIsReturnedForNonMatchingQuery() throws Exception {
         final DocumentSubsetBitsetCache cache = newCache(Settings.EMPTY);
         runTestOnIndex((searchExecutionContext, leafContext) -> {
@@ -495,6 +549,23 @@ public class DocumentSubsetBitsetCacheTests extends ESTestCase {
         }
     }
 
+    public void testSparseRoleBitSet() throws Exception {
+        final int maxDocs = randomIntBetween(1 << 14, 1 << 16);
+        final FixedBitSet matches = new FixedBitSet(maxDocs);
+        final int numDocs = randomIntBetween(1, 10);
+        for (int i = 0; i < numDocs; i++) {
+            matches.set(randomIntBetween(0, maxDocs - 1));
+        }
+        // an iterator that overestimates its cost, like a disjunction
+        final DocIdSetIterator it = new BitSetIterator(matches, maxDocs);
+        final BitSet bitSet = DocumentSubsetBitsetCache.bitSetFromDocIterator(it, maxDocs);
+        assertThat(bitSet, instanceOf(SparseFixedBitSet.class));
+        assertThat(bitSet.cardinality(), equalTo(matches.cardinality()));
+        for (int i = 0; i < maxDocs; i++) {
+            assertThat(bitSet.get(i), equalTo(matches.get(i)));
+        }
+    }
+
     public void testMatchAllRoleBitSet() throws Exception {
         int maxDocs = randomIntBetween(1, 128);
         FixedBitSet matches = new FixedBitSet(maxDocs);
@@ -53,9 +53,11 @@ import org.elasticsearch.cluster.metadata.IndexMetadata;
 import org.elasticsearch.cluster.metadata.MappingMetadata;
 import org.elasticsearch.cluster.metadata.Metadata;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
 import org.elasticsearch.common.lucene.index.SequentialStoredFieldsLeafReader;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.mapper.FieldNamesFieldMapper;
@@ -596,14 +598,14 @@ public class FieldSubsetReaderTests extends ESTestCase {
         IOUtils.close(ir, iw, dir);
     }
 
-    public void testSourceFiltering() {
+    public void testSourceFiltering() throws IOException {
         // include on top-level value
         Map<String, Object> map = new HashMap<>();
         map.put("foo", 3);
         map.put("bar", "baz");
 
         CharacterRunAutomaton include = new CharacterRunAutomaton(Automata.makeString("foo"));
-        Map<String, Object> filtered = FieldSubsetReader.filter(map, include, 0);
+        Map<String, Object> filtered = filterSource(map, include);
         Map<String, Object> expected = new HashMap<>();
         expected.put("foo", 3);
 
@@ -618,7 +620,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         map.put("bar", "baz");
 
         include = new CharacterRunAutomaton(Automatons.patterns("foo.*"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         expected.put("foo", subMap);
 
@@ -626,7 +628,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
 
         // include on leading wildcard
         include = new CharacterRunAutomaton(Automatons.patterns("*.bar"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         subMap = new HashMap<>();
         subMap.put("bar", 42);
@@ -636,7 +638,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
 
         // include on inner value
         include = new CharacterRunAutomaton(Automatons.patterns("foo.bar"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
 
         assertEquals(expected, filtered);
 
@@ -644,7 +646,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         include = new CharacterRunAutomaton(Operations.minus(
                 Automata.makeAnyString(), Automatons.patterns("foo.bar"),
                 Operations.DEFAULT_MAX_DETERMINIZED_STATES));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         expected.put("bar", "baz");
         expected.put("foo", Collections.singletonMap("baz", 6));
@@ -655,7 +657,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         include = new CharacterRunAutomaton(Operations.minus(
                 Automata.makeAnyString(), Automatons.patterns("foo.*"),
                 Operations.DEFAULT_MAX_DETERMINIZED_STATES));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = Collections.singletonMap("bar", "baz");
 
         assertEquals(expected, filtered);
@@ -671,7 +673,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         map.put("foo", subArray);
 
         include = new CharacterRunAutomaton(Automatons.patterns("foo.bar"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         subArray = new ArrayList<>();
         subMap = new HashMap<>();
@@ -683,7 +685,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
 
         // include on inner array 2
         include = new CharacterRunAutomaton(Automatons.patterns("foo"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         subArray = new ArrayList<>();
         subArray.add(12);
@@ -695,7 +697,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         include = new CharacterRunAutomaton(Operations.minus(
                 Automata.makeAnyString(), Automatons.patterns("foo.baz"),
                 Operations.DEFAULT_MAX_DETERMINIZED_STATES));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         subArray = new ArrayList<>();
         subMap = new HashMap<>();
@@ -710,7 +712,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
         include = new CharacterRunAutomaton(Operations.minus(
                 Automata.makeAnyString(), Automatons.patterns("foo"),
                 Operations.DEFAULT_MAX_DETERMINIZED_STATES));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
         expected = new HashMap<>();
         subArray = new ArrayList<>();
         subMap = new HashMap<>();
@@ -731,13 +733,124 @@ public class FieldSubsetReaderTests extends ESTestCase {
         map.put("bar", values);
 
         include = new CharacterRunAutomaton(Automatons.patterns("bar.baz"));
-        filtered = FieldSubsetReader.filter(map, include, 0);
+        filtered = filterSource(map, include);
 
         expected = new HashMap<>();
         expected.put("bar", Arrays.asList(new HashMap<>(), Collections.singletonMap("baz", "2")));
         assertEquals(expected, filtered);
     }
 
+    private static Map<String, Object> filterSource(Map<String, Object> source, CharacterRunAutomaton include) throws IOException {
+        final BytesReference bytes = BytesReference.bytes(XContentBuilder.builder(XContentType.JSON.xContent()).map(source));
+        return XContentHelper.convertToMap(FieldSubsetReader.filter(bytes, include), false).v2();
+    }
+
+    /**
+     * test that filtering the source while streaming it retains the same fields as filtering its map.
+     */
+    public void testStreamingSourceFilteringDuelWithMapFiltering() throws IOException {
+        final List<String> patterns = Arrays.asList("a", "b", "a.*", "*.b", "a.b", "b.c.*", "c*", "a.b.c", "*");
+        for (int i = 0; i < 100; i++) {
+            final Map<String, Object> source = randomSource(0);
+            final CharacterRunAutomaton include = new CharacterRunAutomaton(Automatons.patterns(randomSubsetOf(patterns)));
+            final XContentType xContentType = randomFrom(XContentType.values());
+            final BytesReference bytes = BytesReference.bytes(XContentBuilder.builder(xContentType.xContent()).map(source));
+
+            final Map<String, Object> expected = filterMap(XContentHelper.convertToMap(bytes, false).v2(), include, 0);
+            final BytesReference filtered = FieldSubsetReader.filter(bytes, include);
+            assertThat(XContentHelper.xContentType(filtered), equalTo(xContentType));
+            assertEquals(expected, XContentHelper.convertToMap(filtered, false).v2());
+        }
+    }
+
+    /** Filters a map like {@link FieldSubsetReader#filter(BytesReference, CharacterRunAutomaton)} filters a source, for reference. */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> filterMap(Map<String, ?> map, CharacterRunAutomaton includeAutomaton, int initialState) {
+        Map<String, Object> filtered = new HashMap<>();
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            String key = entry.getKey();
+
+            int state = FieldSubsetReader.step(includeAutomaton, key, initialState);
+            if (state == -1) {
+                continue;
+            }
+
+            Object value = entry.getValue();
+
+            if (value instanceof Map) {
+                state = includeAutomaton.step(state, '.');
+                if (state == -1) {
+                    continue;
+                }
+
+                Map<String, ?> mapValue = (Map<String, ?>) value;
+                Map<String, Object> filteredValue = filterMap(mapValue, includeAutomaton, state);
+                if (filteredValue.isEmpty() == false) {
+                    filtered.put(key, filteredValue);
+                }
+            } else if (value instanceof Iterable) {
+                Iterable<?> iterableValue = (Iterable<?>) value;
+                List<Object> filteredValue = filterMap(iterableValue, includeAutomaton, state);
+                if (filteredValue.isEmpty() == false) {
+                    filtered.put(key, filteredValue);
+                }
+            } else if (includeAutomaton.isAccept(state)) {
+                filtered.put(key, value);
+            }
+        }
+        return filtered;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> filterMap(Iterable<?> iterable, CharacterRunAutomaton includeAutomaton, int initialState) {
+        List<Object> filtered = new ArrayList<>();
+        for (Object value : iterable) {
+            if (value instanceof Map) {
+                int state = includeAutomaton.step(initialState, '.');
+                if (state == -1) {
+                    continue;
+                }
+                Map<String, Object> filteredValue = filterMap((Map<String, ?>)value, includeAutomaton, state);
+                filtered.add(filteredValue);
+            } else if (value instanceof Iterable) {
+                List<Object> filteredValue = filterMap((Iterable<?>) value, includeAutomaton, initialState);
+                if (filteredValue.isEmpty() == false) {
+                    filtered.add(filteredValue);
+                }
+            } else if (includeAutomaton.isAccept(initialState)) {
+                filtered.add(value);
+            }
+        }
+        return filtered;
+    }
+
+    private static Map<String, Object> randomSource(int depth) {
+        final Map<String, Object> map = new HashMap<>();
+        final int numFields = randomIntBetween(0, 3);
+        for (int i = 0; i < numFields; i++) {
+            map.put(randomFrom("a", "b", "c", "cd"), randomSourceValue(depth));
+        }
+        return map;
+    }
+
+    private static Object randomSourceValue(int depth) {
+        switch (depth < 3 ? randomIntBetween(0, 4) : randomIntBetween(0, 1)) {
+            case 0:
+                return randomAlphaOfLength(3);
+            case 1:
+                return randomBoolean() ? randomInt() : null;
+            case 2:
+                return randomSource(depth + 1);
+            default:
+                final List<Object> list = new ArrayList<>();
+                final int numValues = randomIntBetween(0, 3);
+                for (int i = 0; i < numValues; i++) {
+                    list.add(randomSourceValue(depth + 1));
+                }
+                return list;
+        }
+    }
+
     /**
      * test special handling for _field_names field.
      */
@@ -1036,7 +1149,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
             Automaton automaton = FieldPermissions.initializePermittedFieldsAutomaton(definition);
             CharacterRunAutomaton include = new CharacterRunAutomaton(automaton);
             Map<String, Object> stringObjectMap = XContentHelper.convertToMap(XContentType.JSON.xContent(), DOC_TEST_ITEM, false);
-            Map<String, Object> filtered = FieldSubsetReader.filter(stringObjectMap, include, 0);
+            Map<String, Object> filtered = filterSource(stringObjectMap, include);
             assertEquals(2, filtered.size());
             Map<String, Object> object = (Map<String, Object>)filtered.get("object");
             assertEquals(1, object.size());
@@ -1077,7 +1190,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
             Automaton automaton = FieldPermissions.initializePermittedFieldsAutomaton(definition);
             CharacterRunAutomaton include = new CharacterRunAutomaton(automaton);
             Map<String, Object> stringObjectMap = XContentHelper.convertToMap(XContentType.JSON.xContent(), DOC_TEST_ITEM, false);
-            Map<String, Object> filtered = FieldSubsetReader.filter(stringObjectMap, include, 0);
+            Map<String, Object> filtered = filterSource(stringObjectMap, include);
             assertEquals(1, filtered.size());
             Map<String, Object> object = (Map<String, Object>)filtered.get("object");
             assertEquals(2, object.size());
@@ -1102,7 +1215,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
             Automaton automaton = FieldPermissions.initializePermittedFieldsAutomaton(definition);
             CharacterRunAutomaton include = new CharacterRunAutomaton(automaton);
             Map<String, Object> stringObjectMap = XContentHelper.convertToMap(XContentType.JSON.xContent(), DOC_TEST_ITEM, false);
-            Map<String, Object> filtered = FieldSubsetReader.filter(stringObjectMap, include, 0);
+            Map<String, Object> filtered = filterSource(stringObjectMap, include);
             //TODO FLS filters out empty objects from source, although they are granted access.
             //When filtering mappings though we keep them.
             assertEquals(0, filtered.size());
@@ -1130,7 +1243,7 @@ public class FieldSubsetReaderTests extends ESTestCase {
             Automaton automaton = FieldPermissions.initializePermittedFieldsAutomaton(definition);
             CharacterRunAutomaton include = new CharacterRunAutomaton(automaton);
             Map<String, Object> stringObjectMap = XContentHelper.convertToMap(XContentType.JSON.xContent(), DOC_TEST_ITEM, false);
-            Map<String, Object> filtered = FieldSubsetReader.filter(stringObjectMap, include, 0);
+            Map<String, Object> filtered = filterSource(stringObjectMap, include);
             assertEquals(1, filtered.size());
             List<Map<String, Object>> nested = (List<Map<String, Object>>)filtered.get("nested");
             assertEquals(2, nested.size());
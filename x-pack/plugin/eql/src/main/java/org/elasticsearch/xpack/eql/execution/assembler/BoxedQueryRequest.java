@@ -125,10 +125,10 @@ public class BoxedQueryRequest implements QueryRequest {
                     }
                 }
 
-                // too many unique terms, don't filter on the keys
+                // too many unique terms, don't filter on this key
+                // the filters on the other keys still apply as each of them has to be matched
                 if (keyValues.size() > BoxedQueryRequest.MAX_TERMS) {
-                    newFilters = emptyList();
-                    break;
+                    continue;
                 }
 
                 QueryBuilder query = null;
@@ -44,7 +44,8 @@ import static org.elasticsearch.xpack.ql.util.ActionListeners.map;
 // search and multi-search hence the code repetition
 public class PITAwareQueryClient extends BasicQueryClient {
 
-    private String pitId;
+    // updated by the responses, which can arrive concurrently (see TumblingWindow)
+    private volatile String pitId;
     private final TimeValue keepAlive;
 
     public PITAwareQueryClient(EqlSession eqlSession) {
@@ -30,6 +30,7 @@ public class SequenceMatcher {
 
     private static final String CB_INFLIGHT_LABEL = "sequence_inflight";
     private static final String CB_COMPLETED_LABEL = "sequence_completed";
+    private static final String CB_PAGE_LABEL = "sequence_page";
 
     private final Logger log = LogManager.getLogger(SequenceMatcher.class);
 
@@ -315,6 +316,18 @@ public class SequenceMatcher {
         circuitBreaker.addEstimateBytesAndMaybeBreak(bytes, label);
     }
 
+    /**
+     * Accounts for a page of hits held outside of the matcher until it gets matched, such as a prefetched page.
+     * Unlike the memory of the matcher, it is released by the holder of the page, possibly from another thread.
+     */
+    void addPageMemory(long bytes) {
+        circuitBreaker.addEstimateBytesAndMaybeBreak(bytes, CB_PAGE_LABEL);
+    }
+
+    void releasePageMemory(long bytes) {
+        circuitBreaker.addWithoutBreaking(-bytes);
+    }
+
     private void clearCircuitBreaker() {
         circuitBreaker.addWithoutBreaking(-totalRamBytesUsed);
         totalRamBytesUsed = 0;
@@ -9,7 +9,9 @@ package org.elasticsearch.xpack.eql.execution.sequence;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.StepListener;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.TimeValue;
@@ -55,6 +57,7 @@ import static org.elasticsearch.xpack.eql.util.SearchHitUtils.qualifiedIndex;
 public class TumblingWindow implements Executable {
 
     private static final int CACHE_MAX_SIZE = 64;
+    private static final long SEARCH_HIT_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(SearchHit.class);
 
     private final Logger log = LogManager.getLogger(TumblingWindow.class);
 
@@ -85,6 +88,9 @@ public class TumblingWindow implements Executable {
     // the window needs to restart (since the DESC query still has results)
     private boolean restartWindowFromTailQuery;
 
+    // the next page of the base query, requested while the other stages of the current window are queried
+    private StepListener<SearchResponse> nextBasePage;
+
     private long startTime;
 
     private static class WindowInfo {
@@ -120,7 +126,10 @@ public class TumblingWindow implements Executable {
     public void execute(ActionListener<Payload> listener) {
         log.trace("Starting sequence window w/ fetch size [{}]", windowSize);
         startTime = System.currentTimeMillis();
-        tumbleWindow(0, listener);
+        tumbleWindow(0, listener.delegateResponse((l, e) -> {
+            discardNextBasePage();
+            l.onFailure(e);
+        }));
     }
 
     /**
@@ -170,6 +179,17 @@ public class TumblingWindow implements Executable {
     }
 
     private void advance(int stage, ActionListener<Payload> listener) {
+        if (stage == 0 && nextBasePage != null) {
+            StepListener<SearchResponse> page = nextBasePage;
+            nextBasePage = null;
+            log.trace("Using prefetched base stage [0]");
+            page.whenComplete(p -> {
+                matcher.releasePageMemory(ramBytesUsed(p));
+                baseCriterion(stage, p, listener);
+            }, listener::onFailure);
+            return;
+        }
+
         // initialize
         Criterion<BoxedQueryRequest> base = criteria.get(stage);
         // remove any potential upper limit (if a criteria has been promoted)
@@ -247,6 +267,13 @@ public class TumblingWindow implements Executable {
             boolean descendingQuery = base.descending();
             Runnable next = null;
 
+            // the first stage of ASC sequences is not constrained by the other ones, so its next page (which is the next
+            // base once the window has been consumed) can be fetched while the other stages of the window run
+            if (baseStage == 0 && descendingQuery == false && windowCompleted == false) {
+                log.trace("Prefetching base stage [0] {}", base.queryRequest());
+                nextBasePage = prefetch(base.queryRequest());
+            }
+
             // if there are results, setup the next stage
             if (info != null) {
                 if (descendingQuery) {
@@ -558,11 +585,65 @@ public class TumblingWindow implements Executable {
         }));
     }
 
+    /**
+     * Queries the next page of the base stage, which is accounted for on the circuit breaker until it gets matched.
+     */
+    private StepListener<SearchResponse> prefetch(BoxedQueryRequest request) {
+        StepListener<SearchResponse> page = new StepListener<>();
+        client.query(request, page.delegateFailure((l, r) -> {
+            try {
+                matcher.addPageMemory(ramBytesUsed(r));
+            } catch (Exception e) {
+                l.onFailure(e);
+                return;
+            }
+            l.onResponse(r);
+        }));
+        return page;
+    }
+
+    /**
+     * Releases the prefetched page of the base stage, if any, once it completes.
+     */
+    private void discardNextBasePage() {
+        StepListener<SearchResponse> pending = nextBasePage;
+        nextBasePage = null;
+        if (pending != null) {
+            pending.whenComplete(r -> matcher.releasePageMemory(ramBytesUsed(r)), e -> {});
+        }
+    }
+
     private void close(ActionListener<Payload> listener) {
+        StepListener<SearchResponse> pending = nextBasePage;
+        nextBasePage = null;
+        if (pending != null) {
+            // the limit was reached before the prefetched page got used, wait for it to avoid closing the client under it
+            pending.whenComplete(r -> {
+                matcher.releasePageMemory(ramBytesUsed(r));
+                doClose(listener);
+            }, e -> doClose(listener));
+        } else {
+            doClose(listener);
+        }
+    }
+
+    private void doClose(ActionListener<Payload> listener) {
         matcher.clear();
         client.close(listener.delegateFailure((l, r) -> {}));
     }
 
+    /**
+     * Estimates the memory of a page of hits from their ids and sort values, which the sequence queries fetch.
+     */
+    private static long ramBytesUsed(SearchResponse response) {
+        long bytes = 0;
+        for (SearchHit hit : response.getHits().getHits()) {
+            bytes += SEARCH_HIT_SHALLOW_SIZE + RamUsageEstimator.sizeOf(hit.getId())
+                + RamUsageEstimator.sizeOfObject(hit.getRawSortValues());
+        }
+        return bytes;
+    }
+
     private TimeValue timeTook() {
         return new TimeValue(System.currentTimeMillis() - startTime);
     }
@@ -0,0 +1,63 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.eql.execution.assembler;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermsQueryBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.hamcrest.Matchers.instanceOf;
+
+public class BoxedQueryRequestTests extends ESTestCase {
+
+    public void testKeyFilters() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(matchAllQuery());
+        BoxedQueryRequest request = new BoxedQueryRequest(() -> source, "@timestamp", asList("host", "user"));
+
+        request.keys(asList(asList("h1", "u1"), asList("h2", "u2")));
+        assertEquals(2, keyFilters(source).size());
+
+        request.keys(null);
+        assertEquals(0, keyFilters(source).size());
+    }
+
+    public void testKeyWithTooManyTermsIsNotFiltered() {
+        SearchSourceBuilder source = new SearchSourceBuilder().query(matchAllQuery());
+        BoxedQueryRequest request = new BoxedQueryRequest(() -> source, "@timestamp", asList("host", "user"));
+
+        // many users on a few hosts
+        List<List<Object>> keys = new ArrayList<>();
+        for (int i = 0; i <= BoxedQueryRequest.MAX_TERMS; i++) {
+            keys.add(asList("h" + (i % 3), "u" + i));
+        }
+        request.keys(keys);
+
+        List<QueryBuilder> filters = keyFilters(source);
+        assertEquals(1, filters.size());
+        assertThat(filters.get(0), instanceOf(TermsQueryBuilder.class));
+        TermsQueryBuilder hosts = (TermsQueryBuilder) filters.get(0);
+        assertEquals("host", hosts.fieldName());
+        assertEquals(3, hosts.values().size());
+    }
+
+    private static List<QueryBuilder> keyFilters(SearchSourceBuilder source) {
+        assertThat(source.query(), instanceOf(BoolQueryBuilder.class));
+        List<QueryBuilder> filters = new ArrayList<>(((BoolQueryBuilder) source.query()).filter());
+        // the original query and the timestamp range
+        filters.removeIf(f -> f instanceof RangeQueryBuilder || f.equals(matchAllQuery()));
+        return filters;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.eql.execution.sequence;
+
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.TotalHits.Relation;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchResponse.Clusters;
+import org.elasticsearch.action.search.SearchResponseSections;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchSortValues;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.eql.execution.assembler.BoxedQueryRequest;
+import org.elasticsearch.xpack.eql.execution.assembler.Criterion;
+import org.elasticsearch.xpack.eql.execution.search.HitReference;
+import org.elasticsearch.xpack.eql.execution.search.Limit;
+import org.elasticsearch.xpack.eql.execution.search.Ordinal;
+import org.elasticsearch.xpack.eql.execution.search.QueryClient;
+import org.elasticsearch.xpack.eql.execution.search.QueryRequest;
+import org.elasticsearch.xpack.eql.execution.search.extractor.ImplicitTiebreakerHitExtractor;
+import org.elasticsearch.xpack.eql.session.Payload;
+import org.elasticsearch.xpack.ql.execution.search.extractor.HitExtractor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Collections.emptyList;
+import static org.elasticsearch.action.ActionListener.wrap;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+
+public class TumblingWindowTests extends ESTestCase {
+
+    private static final int WINDOW_SIZE = 2;
+
+    /**
+     * Client returning the events of each stage, identified by its terminate_after, after the search_after of the request and
+     * within its upper boundary. The next pages of the base stage can be held back until {@link #releasePrefetch()} is called.
+     */
+    private static class TestQueryClient implements QueryClient {
+
+        private final long[][] timestamps;
+        private final boolean holdPrefetch;
+        // the search_after of each query of the base stage, in the order they were sent
+        private final List<Object[]> baseRequests = new ArrayList<>();
+        private final List<Runnable> pendingPrefetches = new ArrayList<>();
+        private boolean closed = false;
+
+        TestQueryClient(boolean holdPrefetch, long[]... timestamps) {
+            this.holdPrefetch = holdPrefetch;
+            this.timestamps = timestamps;
+        }
+
+        @Override
+        public void query(QueryRequest r, ActionListener<SearchResponse> l) {
+            assertFalse("query on a closed client", closed);
+            BoxedQueryRequest request = (BoxedQueryRequest) r;
+            int stage = r.searchSource().terminateAfter();
+            Object[] after = r.searchSource().searchAfter();
+            long from = after == null ? Long.MIN_VALUE : ((Number) after[0]).longValue();
+            long to = request.to() == null ? Long.MAX_VALUE : request.to().timestamp();
+
+            List<SearchHit> hits = new ArrayList<>();
+            for (long timestamp : timestamps[stage]) {
+                if (timestamp > from && timestamp <= to && hits.size() < WINDOW_SIZE) {
+                    SearchHit hit = new SearchHit((int) timestamp, stage + "-" + timestamp, new Text("_doc"), null, null);
+                    hit.sortValues(new SearchSortValues(new Long[] { timestamp, timestamp },
+                        new DocValueFormat[] { DocValueFormat.RAW, DocValueFormat.RAW }));
+                    hits.add(hit);
+                }
+            }
+            SearchHits searchHits = new SearchHits(hits.toArray(new SearchHit[0]), new TotalHits(hits.size(), Relation.EQUAL_TO), 0.0f);
+            SearchResponseSections internal = new SearchResponseSections(searchHits, null, null, false, false, null, 0);
+            SearchResponse response = new SearchResponse(internal, null, 0, 1, 0, 0, null, Clusters.EMPTY);
+
+            if (stage == 0) {
+                baseRequests.add(after == null ? null : after.clone());
+                if (holdPrefetch && after != null) {
+                    pendingPrefetches.add(() -> l.onResponse(response));
+                    return;
+                }
+            }
+            l.onResponse(response);
+        }
+
+        @Override
+        public void fetchHits(Iterable<List<HitReference>> refs, ActionListener<List<List<SearchHit>>> listener) {
+            List<List<SearchHit>> searchHits = new ArrayList<>();
+            for (List<HitReference> ref : refs) {
+                List<SearchHit> hits = new ArrayList<>(ref.size());
+                for (HitReference hitRef : ref) {
+                    hits.add(new SearchHit(-1, hitRef.id(), new Text("_doc"), null, null));
+                }
+                searchHits.add(hits);
+            }
+            listener.onResponse(searchHits);
+        }
+
+        @Override
+        public void close(ActionListener<Boolean> closed) {
+            assertTrue("close with a pending prefetch", pendingPrefetches.isEmpty());
+            this.closed = true;
+            closed.onResponse(true);
+        }
+
+        void releasePrefetch() {
+            List<Runnable> pending = new ArrayList<>(pendingPrefetches);
+            pendingPrefetches.clear();
+            pending.forEach(Runnable::run);
+        }
+    }
+
+    public void testPrefetchedBasePageIsConsumed() {
+        // the base stage spans three pages, the second stage has no events so every window tumbles back to the base
+        TestQueryClient client = new TestQueryClient(false, new long[] { 1, 2, 3, 4, 5 }, new long[0]);
+        TestCircuitBreaker breaker = new TestCircuitBreaker();
+        TumblingWindow window = new TumblingWindow(client, criteria(2), null,
+            new SequenceMatcher(2, false, TimeValue.MINUS_ONE, null, breaker));
+
+        AtomicReference<Payload> payload = new AtomicReference<>();
+        window.execute(wrap(payload::set, ex -> fail(ex.getMessage())));
+
+        assertNotNull(payload.get());
+        assertEquals(0, payload.get().values().size());
+        // each page is queried once: the second and third pages are prefetched while the window of the previous one runs,
+        // and the last page, which is not full, does not prefetch any other
+        assertEquals(3, client.baseRequests.size());
+        assertNull(client.baseRequests.get(0));
+        assertArrayEquals(new Object[] { 2L, 2L }, client.baseRequests.get(1));
+        assertArrayEquals(new Object[] { 4L, 4L }, client.baseRequests.get(2));
+        assertTrue(client.closed);
+        assertEquals(0, breaker.used);
+    }
+
+    public void testCloseWaitsForPrefetch() {
+        // the sequence of the first window reaches the limit while the next base page is in flight
+        TestQueryClient client = new TestQueryClient(true, new long[] { 1, 2, 3, 4, 5 }, new long[] { 2 });
+        TestCircuitBreaker breaker = new TestCircuitBreaker();
+        TumblingWindow window = new TumblingWindow(client, criteria(2), null,
+            new SequenceMatcher(2, false, TimeValue.MINUS_ONE, new Limit(1, 0), breaker));
+
+        AtomicReference<Payload> payload = new AtomicReference<>();
+        window.execute(wrap(payload::set, ex -> fail(ex.getMessage())));
+
+        assertNotNull(payload.get());
+        assertEquals(1, payload.get().values().size());
+        assertEquals(2, client.baseRequests.size());
+        assertFalse(client.closed);
+
+        client.releasePrefetch();
+        assertTrue(client.closed);
+        assertEquals(0, breaker.used);
+    }
+
+    public void testPrefetchedBasePageIsAccounted() {
+        TestQueryClient client = new TestQueryClient(true, new long[] { 1, 2, 3, 4, 5 }, new long[0]);
+        TestCircuitBreaker breaker = new TestCircuitBreaker();
+        TumblingWindow window = new TumblingWindow(client, criteria(2), null,
+            new SequenceMatcher(2, false, TimeValue.MINUS_ONE, null, breaker));
+
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        window.execute(wrap(p -> fail("unexpected payload"), failure::set));
+        assertEquals(2, client.baseRequests.size());
+
+        // the prefetched page trips the breaker when it arrives and fails the window when it tumbles back to it
+        breaker.limit = breaker.used;
+        client.releasePrefetch();
+        assertNotNull(failure.get());
+        assertEquals(CircuitBreakingException.class, failure.get().getClass());
+    }
+
+    private static List<Criterion<BoxedQueryRequest>> criteria(int stages) {
+        List<Criterion<BoxedQueryRequest>> criteria = new ArrayList<>(stages);
+        for (int i = 0; i < stages; i++) {
+            final int stage = i;
+            criteria.add(new Criterion<>(i,
+                new BoxedQueryRequest(() -> SearchSourceBuilder.searchSource()
+                    .size(WINDOW_SIZE)
+                    .query(matchAllQuery())
+                    .terminateAfter(stage), "@timestamp", emptyList()),
+                emptyList(),
+                TimestampExtractor.INSTANCE,
+                null,
+                ImplicitTiebreakerHitExtractor.INSTANCE,
+                false));
+        }
+        return criteria;
+    }
+
+    private static class TestCircuitBreaker extends NoopCircuitBreaker {
+
+        private long limit = Long.MAX_VALUE;
+        private long used = 0;
+
+        TestCircuitBreaker() {
+            super("eql_test");
+        }
+
+        @Override
+        public void addEstimateBytesAndMaybeBreak(long bytes, String label) throws CircuitBreakingException {
+            if (bytes > 0 && used + bytes > limit) {
+                throw new CircuitBreakingException(label, getDurability());
+            }
+            used += bytes;
+        }
+
+        @Override
+        public void addWithoutBreaking(long bytes) {
+            used += bytes;
+        }
+    }
+
+    private static class TimestampExtractor implements HitExtractor {
+
+        static final TimestampExtractor INSTANCE = new TimestampExtractor();
+
+        @Override
+        public String getWriteableName() {
+            return null;
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {}
+
+        @Override
+        public String hitName() {
+            return null;
+        }
+
+        @Override
+        public Long extract(SearchHit hit) {
+            return (long) hit.docId();
+        }
+    }
+}
@@ -72,6 +72,11 @@ public class TreeSizeInfo implements Accountable, ToXContentObject {
         // This handles the values within the leaf value array
         int numLeafVals = numClasses <= 2 ? 1 : numClasses;
         size += sizeOfDoubleArray(numLeafVals) * numLeaves;
+        // The flat arrays the nodes are compiled to for inference, the leaf values being shared with the leaf nodes
+        size += 3 * alignObjectSize(NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * numNodes);
+        size += sizeOfDoubleArray(numNodes);
+        size += alignObjectSize(NUM_BYTES_ARRAY_HEADER + (long) numNodes);
+        size += alignObjectSize(NUM_BYTES_ARRAY_HEADER + (long) NUM_BYTES_OBJECT_REF * numLeaves);
         return alignObjectSize(size);
     }
 
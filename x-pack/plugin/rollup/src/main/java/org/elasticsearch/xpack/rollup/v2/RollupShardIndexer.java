@@ -9,6 +9,10 @@ package org.elasticsearch.xpack.rollup.v2;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.FieldInfo;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.PointValues;
 import org.apache.lucene.search.CollectionTerminatedException;
@@ -18,6 +22,8 @@ import org.apache.lucene.search.LeafCollector;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorable;
 import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FilterDirectory;
 import org.apache.lucene.store.IOContext;
@@ -38,6 +44,7 @@ import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.CheckedConsumer;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.index.IndexService;
@@ -77,7 +84,8 @@ import java.util.stream.Collectors;
 
 /**
  * An indexer for rollup that sorts the buckets from the provided source shard on disk and send them
- * to the target rollup index.
+ * to the target rollup index. The sort is skipped if the index sort of the shard visits the documents
+ * grouped by bucket already.
  */
 class RollupShardIndexer {
     private static final Logger logger = LogManager.getLogger(RollupShardIndexer.class);
@@ -98,6 +106,8 @@ class RollupShardIndexer {
     private final List<FieldValueFetcher> metricsFieldFetchers;
 
     private final CompressingOfflineSorter sorter;
+    // true if the documents of a bucket are collected in the order of their bucket key
+    final boolean groupedByIndexSort;
 
     private final BulkProcessor bulkProcessor;
     private final AtomicLong numSent = new AtomicLong();
@@ -112,7 +122,7 @@ class RollupShardIndexer {
                        ShardId shardId,
                        RollupActionConfig config,
                        String tmpIndex,
-                       int ramBufferSizeMB) {
+                       int ramBufferSizeMB) throws IOException {
         this.client = client;
         this.indexShard = indexService.getShard(shardId.id());
         this.config = config;
@@ -174,6 +184,7 @@ class RollupShardIndexer {
             }
 
             this.sorter = new CompressingOfflineSorter(dir, "rollup-", keyComparator(), ramBufferSizeMB);
+            this.groupedByIndexSort = isGroupedByIndexSort(searcher.getIndexReader(), groupFieldFetchers);
             toClose = null;
         } finally {
             IOUtils.closeWhileHandlingException(toClose);
@@ -182,6 +193,55 @@ class RollupShardIndexer {
         this.bulkProcessor = createBulkProcessor();
     }
 
+    /**
+     * Checks if the documents of a bucket are collected with identical bucket keys one after the other, so they can be
+     * aggregated right away without sorting them first. This is the case if only the timestamp is grouped on, or if
+     * the shard consists of a single segment that is sorted on all the group fields first, each of them having a
+     * single value per document.
+     */
+    static boolean isGroupedByIndexSort(IndexReader reader, List<FieldValueFetcher> groupFieldFetchers) throws IOException {
+        if (groupFieldFetchers.isEmpty()) {
+            return true;
+        }
+        if (reader.leaves().size() != 1) {
+            return false;
+        }
+        LeafReader leaf = reader.leaves().get(0).reader();
+        Sort indexSort = leaf.getMetaData().getSort();
+        if (indexSort == null || indexSort.getSort().length < groupFieldFetchers.size()) {
+            return false;
+        }
+        Set<String> leadingSortFields = new HashSet<>();
+        for (SortField sortField : Arrays.asList(indexSort.getSort()).subList(0, groupFieldFetchers.size())) {
+            leadingSortFields.add(sortField.getField());
+        }
+        for (FieldValueFetcher fetcher : groupFieldFetchers) {
+            if (leadingSortFields.contains(fetcher.name) == false || isSingleValued(leaf, fetcher.name) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSingleValued(LeafReader reader, String field) throws IOException {
+        FieldInfo fieldInfo = reader.getFieldInfos().fieldInfo(field);
+        if (fieldInfo == null) {
+            // no document of the segment has a value
+            return true;
+        }
+        switch (fieldInfo.getDocValuesType()) {
+            case NUMERIC:
+            case SORTED:
+                return true;
+            case SORTED_NUMERIC:
+                return DocValues.unwrapSingleton(reader.getSortedNumericDocValues(field)) != null;
+            case SORTED_SET:
+                return DocValues.unwrapSingleton(reader.getSortedSetDocValues(field)) != null;
+            default:
+                return false;
+        }
+    }
+
     private void verifyTimestampField(MappedFieldType fieldType) {
         if (fieldType == null) {
             throw new IllegalArgumentException("fieldType is null");
@@ -292,46 +352,24 @@ class RollupShardIndexer {
             return null;
         }
         long nextRoundingLastValue = rounding.nextRoundingValue(nextRounding) - 1;
-        try (XExternalRefSorter externalSorter = new XExternalRefSorter(sorter)) {
-            Query rangeQuery = LongPoint.newRangeQuery(timestampField.name(), nextRounding, nextRoundingLastValue);
-            searcher.search(rangeQuery, new BucketCollector(nextRounding, externalSorter));
-
-            BytesRefIterator it = externalSorter.iterator();
-            BytesRef next = it.next();
-
-            List<FieldMetricsProducer> fieldsMetrics = FieldMetricsProducer.buildMetrics(config.getMetricsConfig());
-            BucketKey lastKey = null;
-            int docCount = 0;
-            while (next != null) {
-                try (StreamInput in = new ByteBufferStreamInput(ByteBuffer.wrap(next.bytes, next.offset, next.length))) {
-                    // skip key size
-                    in.readInt();
-                    BucketKey key = decodeKey(in, groupFieldFetchers.size());
-                    if (lastKey != null && lastKey.equals(key) == false) {
-                        indexBucket(lastKey, fieldsMetrics, docCount);
-                        docCount = 0;
-                        for (FieldMetricsProducer producer : fieldsMetrics) {
-                            producer.reset();
-                        }
-                    }
-                    for (FieldMetricsProducer field : fieldsMetrics) {
-                        int size = in.readVInt();
-                        for (int i = 0; i < size; i++) {
-                            double value = in.readDouble();
-                            for (FieldMetricsProducer.Metric metric : field.metrics) {
-                                metric.collect(value);
-                            }
-                        }
-                    }
-                    ++ docCount;
-                    lastKey = key;
+        Query rangeQuery = LongPoint.newRangeQuery(timestampField.name(), nextRounding, nextRoundingLastValue);
+        BucketMerger merger = new BucketMerger(FieldMetricsProducer.buildMetrics(config.getMetricsConfig()));
+        if (groupedByIndexSort) {
+            searcher.search(rangeQuery, new BucketCollector(nextRounding, merger::add));
+        } else {
+            // Entries hold variable-length group values and the metric values of a document, so they are sorted as bytes rather
+            // than as fixed-width primitives. The partitions are sorted on the calling thread: this runs on the rollup task pool,
+            // and handing them to a pool that the indexer may then block on could exhaust it.
+            try (XExternalRefSorter externalSorter = new XExternalRefSorter(sorter)) {
+                searcher.search(rangeQuery, new BucketCollector(nextRounding, externalSorter::add));
+
+                BytesRefIterator it = externalSorter.iterator();
+                for (BytesRef next = it.next(); next != null; next = it.next()) {
+                    merger.add(next);
                 }
-                next = it.next();
-            }
-            if (lastKey != null) {
-                indexBucket(lastKey, fieldsMetrics, docCount);
             }
         }
+        merger.flush();
         return nextRoundingLastValue;
     }
 
@@ -391,6 +429,53 @@ class RollupShardIndexer {
             | (bytes[offset + 3] & 0xFF);
     }
 
+    /**
+     * Aggregates the metrics of consecutive entries with the same bucket key and indexes a document per bucket.
+     */
+    private class BucketMerger {
+        private final List<FieldMetricsProducer> fieldsMetrics;
+        private BucketKey lastKey;
+        private int docCount;
+
+        BucketMerger(List<FieldMetricsProducer> fieldsMetrics) {
+            this.fieldsMetrics = fieldsMetrics;
+        }
+
+        void add(BytesRef entry) throws IOException {
+            try (StreamInput in = new ByteBufferStreamInput(ByteBuffer.wrap(entry.bytes, entry.offset, entry.length))) {
+                // skip key size
+                in.readInt();
+                BucketKey key = decodeKey(in, groupFieldFetchers.size());
+                if (lastKey != null && lastKey.equals(key) == false) {
+                    flush();
+                }
+                for (FieldMetricsProducer field : fieldsMetrics) {
+                    int size = in.readVInt();
+                    for (int i = 0; i < size; i++) {
+                        double value = in.readDouble();
+                        for (FieldMetricsProducer.Metric metric : field.metrics) {
+                            metric.collect(value);
+                        }
+                    }
+                }
+                ++ docCount;
+                lastKey = key;
+            }
+        }
+
+        void flush() {
+            if (lastKey == null) {
+                return;
+            }
+            indexBucket(lastKey, fieldsMetrics, docCount);
+            lastKey = null;
+            docCount = 0;
+            for (FieldMetricsProducer producer : fieldsMetrics) {
+                producer.reset();
+            }
+        }
+    }
+
     private static class BucketKey {
         private final long timestamp;
         private final List<Object> groupFields;
@@ -425,11 +510,11 @@ class RollupShardIndexer {
 
     private class BucketCollector implements Collector {
         private final long timestamp;
-        private final XExternalRefSorter externalSorter;
+        private final CheckedConsumer<BytesRef, IOException> consumer;
 
         private BucketCollector(long timestamp,
-                                XExternalRefSorter externalSorter) {
-            this.externalSorter = externalSorter;
+                                CheckedConsumer<BytesRef, IOException> consumer) {
+            this.consumer = consumer;
             this.timestamp = timestamp;
         }
 
@@ -481,7 +566,7 @@ class RollupShardIndexer {
                             out.writeInt(keyBytes.length);
                             out.writeBytes(keyBytes.bytes, keyBytes.offset, keyBytes.length);
                             out.writeBytes(valueBytes.bytes, valueBytes.offset, valueBytes.length);
-                            externalSorter.add(out.bytes().toBytesRef());
+                            consumer.accept(out.bytes().toBytesRef());
                         }
                     }
                 }
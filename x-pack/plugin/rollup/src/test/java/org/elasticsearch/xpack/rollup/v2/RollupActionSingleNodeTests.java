@@ -223,6 +223,41 @@ public class RollupActionSingleNodeTests extends ESSingleNodeTestCase {
         assertRollupIndex(config, index, rollupIndex);
     }
 
+    public void testTermsGroupingOnSortedIndex() throws IOException {
+        String sortedIndex = randomAlphaOfLength(7).toLowerCase(Locale.ROOT);
+        client().admin().indices().prepareCreate(sortedIndex)
+            .setSettings(Settings.builder()
+                .put("index.number_of_shards", 1)
+                .put("index.sort.field", "categorical_1")
+                .build())
+            .addMapping("_doc",
+                "date_1", "type=date",
+                "numeric_1", "type=double",
+                "categorical_1", "type=keyword").get();
+        RollupActionDateHistogramGroupConfig dateHistogramGroupConfig = randomRollupActionDateHistogramGroupConfig("date_1");
+        SourceSupplier sourceSupplier = () -> XContentFactory.jsonBuilder().startObject()
+            .field("date_1", randomDateForInterval(dateHistogramGroupConfig.getInterval()))
+            .field("categorical_1", randomAlphaOfLength(1))
+            .field("numeric_1", randomDouble())
+            .endObject();
+        RollupActionConfig config = new RollupActionConfig(
+            new RollupActionGroupConfig(dateHistogramGroupConfig, null, new TermsGroupConfig("categorical_1")),
+            Collections.singletonList(new MetricConfig("numeric_1", Collections.singletonList("max"))));
+        bulkIndex(sortedIndex, sourceSupplier);
+        client().admin().indices().prepareForceMerge(sortedIndex).setMaxNumSegments(1).get();
+        rollup(sortedIndex, rollupIndex, config);
+        assertRollupIndex(config, sortedIndex, rollupIndex);
+
+        IndexService indexService = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex(sortedIndex));
+        IndexShard shard = indexService.getShard(0);
+        // re-use source index as temp index for test
+        RollupShardIndexer indexer = new RollupShardIndexer(client(), indexService, shard.shardId(), config, sortedIndex, 2);
+        assertTrue(indexer.groupedByIndexSort);
+        indexer.execute();
+        // the offline sort has been skipped
+        assertThat(indexer.tmpFiles, equalTo(Collections.emptySet()));
+    }
+
     public void testHistogramGrouping() throws IOException {
         long interval = randomLongBetween(1, 1000);
         RollupActionDateHistogramGroupConfig dateHistogramGroupConfig = randomRollupActionDateHistogramGroupConfig("date_1");
@@ -36,6 +36,7 @@ import static org.hamcrest.Matchers.containsInAnyOrder;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class NodesCachesStatsIntegTests extends BaseFrozenSearchableSnapshotsIntegTestCase {
 
@@ -105,6 +106,10 @@ public class NodesCachesStatsIntegTests extends BaseFrozenSearchableSnapshotsInt
             assertThat(nodeCachesStats.getReads(), equalTo(0L));
             assertThat(nodeCachesStats.getBytesRead(), equalTo(0L));
             assertThat(nodeCachesStats.getEvictions(), equalTo(0L));
+            assertThat(nodeCachesStats.getHits(), equalTo(0L));
+            assertThat(nodeCachesStats.getMisses(), equalTo(0L));
+            assertThat(nodeCachesStats.getPrefetches(), equalTo(0L));
+            assertThat(nodeCachesStats.getPrefetchHits(), equalTo(0L));
         }
 
         for (int i = 0; i < 20; i++) {
@@ -158,12 +163,16 @@ public class NodesCachesStatsIntegTests extends BaseFrozenSearchableSnapshotsInt
                 assertThat(nodeCachesStats.getReads(), greaterThan(0L));
                 assertThat(nodeCachesStats.getBytesRead(), greaterThan(0L));
                 assertThat(nodeCachesStats.getEvictions(), greaterThan(0L));
+                assertThat(nodeCachesStats.getMisses(), greaterThan(0L));
+                assertThat(nodeCachesStats.getPrefetchHits(), lessThanOrEqualTo(nodeCachesStats.getPrefetches()));
             } else {
                 assertThat(nodeCachesStats.getWrites(), equalTo(0L));
                 assertThat(nodeCachesStats.getBytesWritten(), equalTo(0L));
                 assertThat(nodeCachesStats.getReads(), equalTo(0L));
                 assertThat(nodeCachesStats.getBytesRead(), equalTo(0L));
                 assertThat(nodeCachesStats.getEvictions(), equalTo(0L));
+                assertThat(nodeCachesStats.getHits(), equalTo(0L));
+                assertThat(nodeCachesStats.getMisses(), equalTo(0L));
             }
         }
     }
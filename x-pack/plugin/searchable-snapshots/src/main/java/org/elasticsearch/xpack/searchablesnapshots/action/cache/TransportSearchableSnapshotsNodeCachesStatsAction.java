@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.searchablesnapshots.action.cache;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionType;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.ActionFilters;
@@ -131,7 +132,11 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             frozenCacheStats.getWriteBytes(),
             frozenCacheStats.getReadCount(),
             frozenCacheStats.getReadBytes(),
-            frozenCacheStats.getEvictCount()
+            frozenCacheStats.getEvictCount(),
+            frozenCacheStats.getHitCount(),
+            frozenCacheStats.getMissCount(),
+            frozenCacheStats.getPrefetchCount(),
+            frozenCacheStats.getPrefetchHitCount()
         );
     }
 
@@ -175,6 +180,10 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
         private final long reads;
         private final long bytesRead;
         private final long evictions;
+        private final long hits;
+        private final long misses;
+        private final long prefetches;
+        private final long prefetchHits;
 
         public NodeCachesStatsResponse(
             DiscoveryNode node,
@@ -185,7 +194,11 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             long bytesWritten,
             long reads,
             long bytesRead,
-            long evictions
+            long evictions,
+            long hits,
+            long misses,
+            long prefetches,
+            long prefetchHits
         ) {
             super(node);
             this.numRegions = numRegions;
@@ -196,6 +209,10 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             this.reads = reads;
             this.bytesRead = bytesRead;
             this.evictions = evictions;
+            this.hits = hits;
+            this.misses = misses;
+            this.prefetches = prefetches;
+            this.prefetchHits = prefetchHits;
         }
 
         public NodeCachesStatsResponse(StreamInput in) throws IOException {
@@ -208,6 +225,17 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             this.reads = in.readVLong();
             this.bytesRead = in.readVLong();
             this.evictions = in.readVLong();
+            if (in.getVersion().onOrAfter(Version.V_7_15_3)) {
+                this.hits = in.readVLong();
+                this.misses = in.readVLong();
+                this.prefetches = in.readVLong();
+                this.prefetchHits = in.readVLong();
+            } else {
+                this.hits = 0L;
+                this.misses = 0L;
+                this.prefetches = 0L;
+                this.prefetchHits = 0L;
+            }
         }
 
         @Override
@@ -221,6 +249,12 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
             out.writeVLong(reads);
             out.writeVLong(bytesRead);
             out.writeVLong(evictions);
+            if (out.getVersion().onOrAfter(Version.V_7_15_3)) {
+                out.writeVLong(hits);
+                out.writeVLong(misses);
+                out.writeVLong(prefetches);
+                out.writeVLong(prefetchHits);
+            }
         }
 
         @Override
@@ -234,6 +268,10 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
                     builder.field("writes", writes);
                     builder.humanReadableField("bytes_written_in_bytes", "bytes_written", ByteSizeValue.ofBytes(bytesWritten));
                     builder.field("evictions", evictions);
+                    builder.field("hits", hits);
+                    builder.field("misses", misses);
+                    builder.field("prefetches", prefetches);
+                    builder.field("prefetch_hits", prefetchHits);
                     builder.field("num_regions", numRegions);
                     builder.humanReadableField("size_in_bytes", "size", ByteSizeValue.ofBytes(size));
                     builder.humanReadableField("region_size_in_bytes", "region_size", ByteSizeValue.ofBytes(regionSize));
@@ -275,6 +313,22 @@ public class TransportSearchableSnapshotsNodeCachesStatsAction extends Transport
         public long getEvictions() {
             return evictions;
         }
+
+        public long getHits() {
+            return hits;
+        }
+
+        public long getMisses() {
+            return misses;
+        }
+
+        public long getPrefetches() {
+            return prefetches;
+        }
+
+        public long getPrefetchHits() {
+            return prefetchHits;
+        }
     }
 
     public static class NodesCachesStatsResponse extends BaseNodesResponse<NodeCachesStatsResponse> implements ToXContentObject {
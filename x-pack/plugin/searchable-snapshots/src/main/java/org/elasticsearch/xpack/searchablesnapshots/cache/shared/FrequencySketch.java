@@ -0,0 +1,89 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.searchablesnapshots.cache.shared;
+
+/**
+ * A count-min sketch that estimates how often a region was accessed, including regions that are no longer in the cache, in the spirit
+ * of TinyLFU. Each item is counted in one small counter per row, and its estimated frequency is the minimum of its counters, which can
+ * only overestimate the true frequency because of hash collisions. Counters saturate at {@link #MAX_COUNT} and are halved once as many
+ * increments as {@code 10} times the expected number of items were recorded, so that the estimates favour recent accesses.
+ * <p>
+ * Instances are not thread-safe, the {@link FrozenCacheService} only accesses its sketch while holding its own lock.
+ */
+final class FrequencySketch {
+
+    static final int MAX_COUNT = 15;
+
+    private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+    private static final int MAX_WIDTH = 1 << 24;
+
+    private final byte[][] rows;
+    private final int mask;
+    private final long sampleSize;
+    private long additions;
+
+    FrequencySketch(int expectedItems) {
+        final int width = Math.min(MAX_WIDTH, Integer.highestOneBit(Math.max(64, expectedItems) * 2 - 1));
+        this.rows = new byte[SEEDS.length][width];
+        this.mask = width - 1;
+        this.sampleSize = 10L * Math.max(1, expectedItems);
+    }
+
+    /**
+     * Returns the estimated number of times the item with the given hash was recorded, between {@code 0} and {@link #MAX_COUNT}.
+     */
+    int frequency(int hash) {
+        final int spread = spread(hash);
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < rows.length; row++) {
+            frequency = Math.min(frequency, rows[row][index(spread, row)]);
+        }
+        return frequency;
+    }
+
+    /**
+     * Records an access to the item with the given hash.
+     */
+    void increment(int hash) {
+        final int spread = spread(hash);
+        final int frequency = frequency(hash);
+        if (frequency < MAX_COUNT) {
+            // conservative update: only the counters that determine the estimate are incremented, which reduces overestimation
+            for (int row = 0; row < rows.length; row++) {
+                final int index = index(spread, row);
+                if (rows[row][index] == frequency) {
+                    rows[row][index]++;
+                }
+            }
+        }
+        if (++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (byte[] row : rows) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = (byte) (row[i] >>> 1);
+            }
+        }
+        additions /= 2;
+    }
+
+    private int index(int spread, int row) {
+        long hash = (spread + SEEDS[row]) * SEEDS[row];
+        hash += hash >>> 32;
+        return (int) hash & mask;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -243,6 +243,12 @@ public class FrozenCacheService implements Releasable {
         Setting.Property.NodeScope
     );
 
+    public static final Setting<Boolean> SHARED_CACHE_PREFETCH_SETTING = Setting.boolSetting(
+        SHARED_CACHE_SETTINGS_PREFIX + "prefetch",
+        true,
+        Setting.Property.NodeScope
+    );
+
     private static final Logger logger = LogManager.getLogger(FrozenCacheService.class);
     private static final DeprecationLogger deprecationLogger = DeprecationLogger.getLogger(FrozenCacheService.class);
 
@@ -263,6 +269,8 @@ public class FrozenCacheService implements Releasable {
     private final Entry<CacheFileRegion>[] freqs;
     private final int maxFreq;
     private final long minTimeDelta;
+    private final FrequencySketch frequencySketch;
+    private final boolean prefetchEnabled;
 
     private final AtomicReference<CacheFileRegion>[] regionOwners; // to assert exclusive access of regions
 
@@ -276,6 +284,11 @@ public class FrozenCacheService implements Releasable {
 
     private final LongAdder evictCount = new LongAdder();
 
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder prefetchCount = new LongAdder();
+    private final LongAdder prefetchHitCount = new LongAdder();
+
     @SuppressWarnings({ "unchecked", "rawtypes" })
     public FrozenCacheService(NodeEnvironment environment, Settings settings, ThreadPool threadPool) {
         this.currentTimeSupplier = threadPool::relativeTimeInMillis;
@@ -305,6 +318,8 @@ public class FrozenCacheService implements Releasable {
         this.maxFreq = SNAPSHOT_CACHE_MAX_FREQ_SETTING.get(settings);
         this.minTimeDelta = SNAPSHOT_CACHE_MIN_TIME_DELTA_SETTING.get(settings).millis();
         freqs = new Entry[maxFreq];
+        this.frequencySketch = new FrequencySketch(numRegions);
+        this.prefetchEnabled = SHARED_CACHE_PREFETCH_SETTING.get(settings);
         try {
             sharedBytes = new SharedBytes(numRegions, regionSize, environment, writeBytes::add, readBytes::add);
         } catch (IOException e) {
@@ -387,6 +402,17 @@ public class FrozenCacheService implements Releasable {
     }
 
     public CacheFileRegion get(CacheKey cacheKey, long fileLength, int region) {
+        final CacheFileRegion fileRegion = get(cacheKey, fileLength, region, false);
+        assert fileRegion != null;
+        return fileRegion;
+    }
+
+    /**
+     * Returns the region of the file, allocating it in the cache if needed. Regions that are allocated for prefetching are neither
+     * promoted nor recorded as accessed, and may only take the place of free regions or of regions that were never promoted: if there
+     * are none then {@code null} is returned.
+     */
+    private CacheFileRegion get(CacheKey cacheKey, long fileLength, int region, boolean prefetch) {
         final long regionSize = getRegionSize(fileLength, region);
         try (Releasable ignore = keyedLock.acquire(cacheKey)) {
             final RegionKey regionKey = new RegionKey(cacheKey, region);
@@ -400,40 +426,51 @@ public class FrozenCacheService implements Releasable {
                 assert entry.freq == 0;
                 assert entry.prev == null;
                 assert entry.next == null;
-                final Integer freeSlot = freeRegions.poll();
-                if (freeSlot != null) {
-                    // no need to evict an item, just add
-                    entry.chunk.sharedBytesPos = freeSlot;
-                    assert regionOwners[freeSlot].compareAndSet(null, entry.chunk);
-                    synchronized (this) {
-                        pushEntryToBack(entry);
-                    }
-                } else {
+                Integer freeSlot = freeRegions.poll();
+                if (freeSlot == null) {
                     // need to evict something
                     synchronized (this) {
-                        maybeEvict();
+                        maybeEvict(prefetch ? 1 : maxFreq);
                     }
-                    final Integer freeSlotRetry = freeRegions.poll();
-                    if (freeSlotRetry != null) {
-                        entry.chunk.sharedBytesPos = freeSlotRetry;
-                        assert regionOwners[freeSlotRetry].compareAndSet(null, entry.chunk);
-                        synchronized (this) {
-                            pushEntryToBack(entry);
-                        }
-                    } else {
-                        boolean removed = keyMapping.remove(regionKey, entry);
-                        assert removed;
-                        throw new AlreadyClosedException("no free region found");
+                    freeSlot = freeRegions.poll();
+                }
+                if (freeSlot == null) {
+                    boolean removed = keyMapping.remove(regionKey, entry);
+                    assert removed;
+                    if (prefetch) {
+                        return null;
                     }
+                    throw new AlreadyClosedException("no free region found");
+                }
+                entry.chunk.sharedBytesPos = freeSlot;
+                assert regionOwners[freeSlot].compareAndSet(null, entry.chunk);
+                if (prefetch) {
+                    entry.chunk.prefetched = true;
+                    prefetchCount.increment();
+                } else {
+                    missCount.increment();
+                }
+                synchronized (this) {
+                    admit(entry, prefetch == false);
+                }
+            } else if (prefetch == false) {
+                hitCount.increment();
+                final boolean firstAccess = entry.chunk.prefetched;
+                if (firstAccess) {
+                    entry.chunk.prefetched = false;
+                    prefetchHitCount.increment();
                 }
-            } else {
                 // check if we need to promote item
                 synchronized (this) {
+                    if (firstAccess) {
+                        frequencySketch.increment(regionKey.hashCode());
+                    }
                     if (now - entry.lastAccessed >= minTimeDelta && entry.freq + 1 < maxFreq) {
                         unlink(entry);
                         entry.freq++;
                         entry.lastAccessed = now;
                         pushEntryToBack(entry);
+                        frequencySketch.increment(regionKey.hashCode());
                     }
                 }
             }
@@ -441,6 +478,20 @@ public class FrozenCacheService implements Releasable {
         }
     }
 
+    /**
+     * Adds a newly allocated region to the frequency lists. The region starts with the frequency that the sketch estimated for it, so
+     * that a region that was frequently accessed before being evicted is not treated like the regions read once by a scan of the file.
+     */
+    private void admit(final Entry<CacheFileRegion> entry, boolean accessed) {
+        assert Thread.holdsLock(this);
+        final int hash = entry.chunk.regionKey.hashCode();
+        entry.freq = Math.min(frequencySketch.frequency(hash), maxFreq - 1);
+        if (accessed) {
+            frequencySketch.increment(hash);
+        }
+        pushEntryToBack(entry);
+    }
+
     public void onClose(CacheFileRegion chunk) {
         assert regionOwners[chunk.sharedBytesPos].compareAndSet(chunk, null);
         freeRegions.add(chunk.sharedBytesPos);
@@ -460,7 +511,11 @@ public class FrozenCacheService implements Releasable {
             writeCount.sum(),
             writeBytes.sum(),
             readCount.sum(),
-            readBytes.sum()
+            readBytes.sum(),
+            hitCount.sum(),
+            missCount.sum(),
+            prefetchCount.sum(),
+            prefetchHitCount.sum()
         );
     }
 
@@ -493,9 +548,9 @@ public class FrozenCacheService implements Releasable {
         return true;
     }
 
-    private void maybeEvict() {
+    private void maybeEvict(int maxFreqToEvict) {
         assert Thread.holdsLock(this);
-        for (int i = 0; i < maxFreq; i++) {
+        for (int i = 0; i < maxFreqToEvict; i++) {
             for (Entry<CacheFileRegion> entry = freqs[i]; entry != null; entry = entry.next) {
                 boolean evicted = entry.chunk.tryEvict();
                 if (evicted) {
@@ -691,6 +746,8 @@ public class FrozenCacheService implements Releasable {
         final RegionKey regionKey;
         final SparseFileTracker tracker;
         volatile int sharedBytesPos = -1;
+        // true if this region was allocated by a prefetch and not read since, only accessed under the keyed lock of its file
+        boolean prefetched;
 
         CacheFileRegion(RegionKey regionKey, long regionSize) {
             super("CacheFileRegion");
@@ -879,6 +936,30 @@ public class FrozenCacheService implements Releasable {
             final RangeAvailableHandler reader,
             final RangeMissingHandler writer,
             final Executor executor
+        ) {
+            return populateAndRead(rangeToWrite, rangeToRead, reader, writer, executor, false);
+        }
+
+        /**
+         * Populates the given range of the file ahead of the reads that are expected to need it. The listener completes once the regions
+         * that could be allocated for the range are populated, or immediately if prefetching is disabled.
+         */
+        public StepListener<Integer> prefetch(final ByteRange range, final RangeMissingHandler writer, final Executor executor) {
+            if (prefetchEnabled == false || range.length() == 0L) {
+                final StepListener<Integer> stepListener = new StepListener<>();
+                stepListener.onResponse(0);
+                return stepListener;
+            }
+            return populateAndRead(range, range, (channel, channelPos, relativePos, length) -> toIntBytes(length), writer, executor, true);
+        }
+
+        private StepListener<Integer> populateAndRead(
+            final ByteRange rangeToWrite,
+            final ByteRange rangeToRead,
+            final RangeAvailableHandler reader,
+            final RangeMissingHandler writer,
+            final Executor executor,
+            final boolean prefetch
         ) {
             StepListener<Integer> stepListener = null;
             final long writeStart = rangeToWrite.start();
@@ -894,7 +975,12 @@ public class FrozenCacheService implements Releasable {
                     }
                     continue;
                 }
-                final CacheFileRegion fileRegion = get(cacheKey, length, region);
+                final CacheFileRegion fileRegion = get(cacheKey, length, region, prefetch);
+                if (fileRegion == null) {
+                    // no region can be used for prefetching without evicting more valuable ones, stop here
+                    assert prefetch;
+                    break;
+                }
                 final long regionStart = getRegionStart(region);
                 final long writeOffset = writeStart - regionStart;
                 final long readOffset = readStart - regionStart;
@@ -921,6 +1007,10 @@ public class FrozenCacheService implements Releasable {
                 }
 
             }
+            if (stepListener == null) {
+                stepListener = new StepListener<>();
+                stepListener.onResponse(0);
+            }
             return stepListener;
         }
 
@@ -949,7 +1039,7 @@ public class FrozenCacheService implements Releasable {
 
     public static class Stats {
 
-        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
+        public static final Stats EMPTY = new Stats(0, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L, 0L);
 
         private final int numberOfRegions;
         private final long size;
@@ -959,6 +1049,10 @@ public class FrozenCacheService implements Releasable {
         private final long writeBytes;
         private final long readCount;
         private final long readBytes;
+        private final long hitCount;
+        private final long missCount;
+        private final long prefetchCount;
+        private final long prefetchHitCount;
 
         private Stats(
             int numberOfRegions,
@@ -968,7 +1062,11 @@ public class FrozenCacheService implements Releasable {
             long writeCount,
             long writeBytes,
             long readCount,
-            long readBytes
+            long readBytes,
+            long hitCount,
+            long missCount,
+            long prefetchCount,
+            long prefetchHitCount
         ) {
             this.numberOfRegions = numberOfRegions;
             this.size = size;
@@ -978,6 +1076,10 @@ public class FrozenCacheService implements Releasable {
             this.writeBytes = writeBytes;
             this.readCount = readCount;
             this.readBytes = readBytes;
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.prefetchCount = prefetchCount;
+            this.prefetchHitCount = prefetchHitCount;
         }
 
         public int getNumberOfRegions() {
@@ -1011,5 +1113,33 @@ public class FrozenCacheService implements Releasable {
         public long getReadBytes() {
             return readBytes;
         }
+
+        /**
+         * The number of times a region of a file was found in the cache when reading it.
+         */
+        public long getHitCount() {
+            return hitCount;
+        }
+
+        /**
+         * The number of times a region of a file had to be allocated in the cache when reading it.
+         */
+        public long getMissCount() {
+            return missCount;
+        }
+
+        /**
+         * The number of regions that were allocated in the cache by prefetching.
+         */
+        public long getPrefetchCount() {
+            return prefetchCount;
+        }
+
+        /**
+         * The number of regions allocated by prefetching that were later read.
+         */
+        public long getPrefetchHitCount() {
+            return prefetchHitCount;
+        }
     }
 }
@@ -40,6 +40,11 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
 
     private final FrozenCacheFile frozenCacheFile;
 
+    // tracks the current run of sequential reads of this input, and how far it was prefetched
+    private long sequentialReadStart = -1L;
+    private long sequentialReadEnd = -1L;
+    private long prefetchedUpTo = -1L;
+
     public FrozenIndexInput(
         String name,
         SearchableSnapshotDirectory directory,
@@ -164,6 +169,7 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
                 },
                 directory.cacheFetchAsyncExecutor()
             );
+            maybePrefetch(position, length, rangeToWrite);
 
             final int bytesRead = populateCacheFuture.asFuture().get();
             assert bytesRead == length : bytesRead + " vs " + length;
@@ -176,6 +182,36 @@ public class FrozenIndexInput extends MetadataCachingIndexInput {
         }
     }
 
+    /**
+     * Detects reads that scan through the file sequentially and, once such a scan has covered half a range, asynchronously populates
+     * the range that follows the current one so that the next reads of the scan find their bytes in the cache.
+     */
+    private void maybePrefetch(long position, int length, ByteRange rangeToWrite) {
+        if (position != sequentialReadEnd) {
+            sequentialReadStart = position;
+        }
+        sequentialReadEnd = position + length;
+        if (directory.isRecoveryFinalized() == false
+            || sequentialReadEnd - sequentialReadStart < defaultRangeSize / 2
+            || rangeToWrite.end() >= fileInfo.length()
+            || rangeToWrite.end() < prefetchedUpTo) {
+            return;
+        }
+        final ByteRange rangeToPrefetch = computeRange(rangeToWrite.end());
+        prefetchedUpTo = rangeToPrefetch.end();
+        logger.trace("prefetching [{}] of [{}] after sequential reads of [{}-{}]", rangeToPrefetch, this, sequentialReadStart, position);
+        frozenCacheFile.prefetch(rangeToPrefetch, (channel, channelPos, relativePos, len, progressUpdater) -> {
+            final long startTimeNanos = stats.currentTimeNanos();
+            try (InputStream input = openInputStreamFromBlobStore(rangeToPrefetch.start() + relativePos, len)) {
+                writeCacheFile(channel, input, channelPos, relativePos, len, progressUpdater, startTimeNanos);
+            }
+        }, directory.cacheFetchAsyncExecutor())
+            .whenComplete(
+                bytesPrefetched -> {},
+                e -> logger.trace(() -> new ParameterizedMessage("failed to prefetch [{}] of [{}]", rangeToPrefetch, this), e)
+            );
+    }
+
     private static int positionalWrite(SharedBytes.IO fc, long start, ByteBuffer byteBuffer) throws IOException {
         assert assertCurrentThreadMayWriteCacheFile();
         byteBuffer.flip();
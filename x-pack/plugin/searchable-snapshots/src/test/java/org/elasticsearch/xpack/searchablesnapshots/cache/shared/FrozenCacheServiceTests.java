@@ -18,6 +18,7 @@ import org.elasticsearch.common.util.concurrent.DeterministicTaskQueue;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.core.List;
 import org.elasticsearch.core.Set;
+import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.env.Environment;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.env.TestEnvironment;
@@ -35,6 +36,7 @@ import java.util.stream.Collectors;
 
 import static org.elasticsearch.node.Node.NODE_NAME_SETTING;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
@@ -208,6 +210,76 @@ public class FrozenCacheServiceTests extends ESTestCase {
         }
     }
 
+    public void testFrequentlyUsedRegionReadmittedWithHigherFrequency() throws IOException {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(200)).getStringRep())
+            .put(FrozenCacheService.SNAPSHOT_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put(FrozenCacheService.SNAPSHOT_CACHE_MIN_TIME_DELTA_SETTING.getKey(), TimeValue.ZERO)
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey hotCacheKey = generateCacheKey();
+            final CacheFileRegion hotRegion = cacheService.get(hotCacheKey, size(250), 0);
+            assertEquals(0, cacheService.getFreq(hotRegion));
+            cacheService.get(hotCacheKey, size(250), 0);
+            cacheService.get(hotCacheKey, size(250), 0);
+            assertEquals(2, cacheService.getFreq(hotRegion));
+
+            cacheService.removeFromCache(hotCacheKey);
+            assertTrue(hotRegion.isEvicted());
+            assertEquals(2, cacheService.freeRegionCount());
+
+            // a region that is read for the first time starts with the lowest frequency
+            final CacheFileRegion scanRegion = cacheService.get(generateCacheKey(), size(250), 0);
+            assertEquals(0, cacheService.getFreq(scanRegion));
+
+            // the frequency of the hot region is remembered across its eviction
+            final CacheFileRegion hotRegionAgain = cacheService.get(hotCacheKey, size(250), 0);
+            assertNotSame(hotRegion, hotRegionAgain);
+            assertThat(cacheService.getFreq(hotRegionAgain), greaterThan(cacheService.getFreq(scanRegion)));
+        }
+    }
+
+    public void testHitMissAndPrefetchStats() throws Exception {
+        Settings settings = Settings.builder()
+            .put(NODE_NAME_SETTING.getKey(), "node")
+            .put(FrozenCacheService.SNAPSHOT_CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(size(300)).getStringRep())
+            .put(FrozenCacheService.SNAPSHOT_CACHE_REGION_SIZE_SETTING.getKey(), new ByteSizeValue(size(100)).getStringRep())
+            .put("path.home", createTempDir())
+            .build();
+        final DeterministicTaskQueue taskQueue = new DeterministicTaskQueue();
+        try (
+            NodeEnvironment environment = new NodeEnvironment(settings, TestEnvironment.newEnvironment(settings));
+            FrozenCacheService cacheService = new FrozenCacheService(environment, settings, taskQueue.getThreadPool())
+        ) {
+            final CacheKey cacheKey = generateCacheKey();
+            cacheService.get(cacheKey, size(250), 0);
+            cacheService.get(cacheKey, size(250), 0);
+
+            final FrozenCacheService.FrozenCacheFile frozenCacheFile = cacheService.getFrozenCacheFile(cacheKey, size(250));
+            final int prefetched = frozenCacheFile.prefetch(
+                ByteRange.of(size(100), size(250)),
+                (channel, channelPos, relativePos, length, progressUpdater) -> progressUpdater.accept(length),
+                Runnable::run
+            ).asFuture().get();
+            assertEquals(size(150), prefetched);
+            assertEquals(0, cacheService.freeRegionCount());
+
+            cacheService.get(cacheKey, size(250), 1);
+
+            final FrozenCacheService.Stats stats = cacheService.getStats();
+            assertEquals(2L, stats.getHitCount());
+            assertEquals(1L, stats.getMissCount());
+            assertEquals(2L, stats.getPrefetchCount());
+            assertEquals(1L, stats.getPrefetchHitCount());
+        }
+    }
+
     public void testCacheSizeDeprecatedOnNonFrozenNodes() {
         String cacheSize = randomBoolean() ? new ByteSizeValue(size(500)).getStringRep() : new RatioValue(between(1, 100)).toString();
         final Settings settings = Settings.builder()
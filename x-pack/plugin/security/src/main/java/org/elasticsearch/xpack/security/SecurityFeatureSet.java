@@ -18,6 +18,7 @@ import org.elasticsearch.xpack.core.XPackSettings;
 import org.elasticsearch.xpack.core.security.SecurityFeatureSetUsage;
 import org.elasticsearch.xpack.core.security.user.AnonymousUser;
 import org.elasticsearch.xpack.security.audit.logfile.LoggingAuditTrail;
+import org.elasticsearch.xpack.security.authc.ApiKeyService;
 import org.elasticsearch.xpack.security.authc.Realms;
 import org.elasticsearch.xpack.security.authc.support.mapper.NativeRoleMappingStore;
 import org.elasticsearch.xpack.security.authz.store.CompositeRolesStore;
@@ -52,18 +53,21 @@ public class SecurityFeatureSet implements XPackFeatureSet {
     private final NativeRoleMappingStore roleMappingStore;
     @Nullable
     private final IPFilter ipFilter;
+    @Nullable
+    private final ApiKeyService apiKeyService;
 
     @Inject
     public SecurityFeatureSet(Settings settings, @Nullable XPackLicenseState licenseState,
                               @Nullable Realms realms, @Nullable CompositeRolesStore rolesStore,
                               @Nullable NativeRoleMappingStore roleMappingStore,
-                              @Nullable IPFilter ipFilter) {
+                              @Nullable IPFilter ipFilter, @Nullable ApiKeyService apiKeyService) {
         this.licenseState = licenseState;
         this.realms = realms;
         this.rolesStore = rolesStore;
         this.roleMappingStore = roleMappingStore;
         this.settings = settings;
         this.ipFilter = ipFilter;
+        this.apiKeyService = apiKeyService;
     }
 
     @Override
@@ -90,7 +94,7 @@ public class SecurityFeatureSet implements XPackFeatureSet {
     public void usage(ActionListener<XPackFeatureSet.Usage> listener) {
         Map<String, Object> sslUsage = sslUsage(settings);
         Map<String, Object> tokenServiceUsage = tokenServiceUsage(settings);
-        Map<String, Object> apiKeyServiceUsage = apiKeyServiceUsage(settings);
+        Map<String, Object> apiKeyServiceUsage = apiKeyServiceUsage(settings, apiKeyService);
         Map<String, Object> auditUsage = auditUsage(settings);
         Map<String, Object> ipFilterUsage = ipFilterUsage(ipFilter);
         Map<String, Object> anonymousUsage = singletonMap("enabled", AnonymousUser.isAnonymousEnabled(settings));
@@ -169,8 +173,15 @@ public class SecurityFeatureSet implements XPackFeatureSet {
         return singletonMap("enabled", TOKEN_SERVICE_ENABLED_SETTING.get(settings));
     }
 
-    static Map<String, Object> apiKeyServiceUsage(Settings settings) {
-        return singletonMap("enabled", API_KEY_SERVICE_ENABLED_SETTING.get(settings));
+    static Map<String, Object> apiKeyServiceUsage(Settings settings, @Nullable ApiKeyService apiKeyService) {
+        final boolean enabled = API_KEY_SERVICE_ENABLED_SETTING.get(settings);
+        if (enabled == false || apiKeyService == null) {
+            return singletonMap("enabled", enabled);
+        }
+        final Map<String, Object> map = new HashMap<>(2);
+        map.put("enabled", true);
+        map.put("cache", apiKeyService.cacheUsageStats());
+        return map;
     }
 
     static Map<String, Object> auditUsage(Settings settings) {
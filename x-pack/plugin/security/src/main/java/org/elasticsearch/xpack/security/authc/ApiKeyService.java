@@ -209,6 +209,8 @@ public class ApiKeyService {
     private final TimeValue deleteInterval;
     private final Cache<String, ListenableFuture<CachedApiKeyHashResult>> apiKeyAuthCache;
     private final Hasher cacheHasher;
+    // whether the cached hash of a verified key is cheap enough to check without forking from the calling thread
+    private final boolean fastCacheHasher;
     private final ThreadPool threadPool;
     private final ApiKeyDocCache apiKeyDocCache;
 
@@ -234,6 +236,7 @@ public class ApiKeyService {
         this.expiredApiKeysRemover = new ExpiredApiKeysRemover(settings, client);
         this.threadPool = threadPool;
         this.cacheHasher = Hasher.resolve(CACHE_HASH_ALGO_SETTING.get(settings));
+        this.fastCacheHasher = cacheHasher == Hasher.SSHA256 || cacheHasher == Hasher.SHA256 || cacheHasher == Hasher.NOOP;
         final TimeValue ttl = CACHE_TTL_SETTING.get(settings);
         final int maximumWeight = CACHE_MAX_KEYS_SETTING.get(settings);
         if (ttl.getNanos() > 0) {
@@ -674,7 +677,7 @@ public class ApiKeyService {
                 }
 
                 if (valueAlreadyInCache.get()) {
-                    listenableCacheEntry.addListener(ActionListener.wrap(result -> {
+                    final ActionListener<CachedApiKeyHashResult> cachedResultListener = ActionListener.wrap(result -> {
                             if (result.success) {
                                 if (result.verify(credentials.getKey())) {
                                     // move on
@@ -688,8 +691,20 @@ public class ApiKeyService {
                                 apiKeyAuthCache.invalidate(credentials.getId(), listenableCacheEntry);
                                 validateApiKeyCredentials(docId, apiKeyDoc, credentials, clock, listener);
                             }
-                        }, listener::onFailure),
-                        threadPool.generic(), threadPool.getThreadContext());
+                        }, listener::onFailure);
+                    if (fastCacheHasher && listenableCacheEntry.isDone()) {
+                        // the key was verified before and checking it against the cached hash is cheap, so there is no need to fork
+                        final CachedApiKeyHashResult result;
+                        try {
+                            result = FutureUtils.get(listenableCacheEntry, 0L, TimeUnit.MILLISECONDS);
+                        } catch (Exception e) {
+                            listener.onFailure(e);
+                            return;
+                        }
+                        cachedResultListener.onResponse(result);
+                    } else {
+                        listenableCacheEntry.addListener(cachedResultListener, threadPool.generic(), threadPool.getThreadContext());
+                    }
                 } else {
                     verifyKeyAgainstHash(apiKeyDoc.hash, credentials, ActionListener.wrap(
                         verified -> {
@@ -1243,6 +1258,33 @@ public class ApiKeyService {
         };
     }
 
+    /**
+     * Returns the statistics of the authentication and document caches of API keys, which are reported with the security usage.
+     */
+    public Map<String, Object> cacheUsageStats() {
+        if (apiKeyAuthCache == null) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Object> usage = new HashMap<>();
+        usage.put("auth_cache", cacheStats(apiKeyAuthCache));
+        if (apiKeyDocCache != null) {
+            usage.put("doc_cache", cacheStats(apiKeyDocCache.docCache));
+        }
+        return usage;
+    }
+
+    private static Map<String, Object> cacheStats(Cache<?, ?> cache) {
+        final Cache.CacheStats stats = cache.stats();
+        final long lookups = stats.getHits() + stats.getMisses();
+        final Map<String, Object> usage = new HashMap<>();
+        usage.put("count", cache.count());
+        usage.put("hits", stats.getHits());
+        usage.put("misses", stats.getMisses());
+        usage.put("evictions", stats.getEvictions());
+        usage.put("hit_ratio", lookups == 0 ? 0.0d : (double) stats.getHits() / lookups);
+        return usage;
+    }
+
     // package private for test
     LongAdder getEvictionCounter() {
         return evictionCounter;
@@ -432,9 +432,11 @@ public final class TokenService {
 
     /**
      * Gets the {@link UserToken} with the given {@code userTokenId} and {@code tokenVersion} by fetching and parsing the corresponding
-     * token document.
+     * token document. If {@code checkInvalidated} is set, the listener is failed if the token document says that the access token has
+     * been invalidated, which saves fetching the document a second time to validate the token.
      */
-    private void getUserTokenFromId(String userTokenId, Version tokenVersion, ActionListener<UserToken> listener) {
+    private void getUserTokenFromId(String userTokenId, Version tokenVersion, boolean checkInvalidated,
+                                    ActionListener<UserToken> listener) {
         final SecurityIndexManager tokensIndex = getTokensIndexForVersion(tokenVersion);
         final SecurityIndexManager frozenTokensIndex = tokensIndex.freeze();
         if (frozenTokensIndex.isAvailable() == false) {
@@ -458,6 +460,10 @@ public final class TokenService {
                                 } else if (accessTokenSource.containsKey("user_token") == false) {
                                     onFailure.accept(new IllegalStateException(
                                         "token document is missing the user_token field"));
+                                } else if (checkInvalidated && accessTokenSource.get("invalidated") == null) {
+                                    onFailure.accept(new IllegalStateException("token document is missing invalidated field"));
+                                } else if (checkInvalidated && (Boolean) accessTokenSource.get("invalidated")) {
+                                    onFailure.accept(expiredTokenException());
                                 } else {
                                     @SuppressWarnings("unchecked")
                                     Map<String, Object> userTokenSource =
@@ -487,11 +493,13 @@ public final class TokenService {
 
     private void decodeAndValidateToken(SecureString tokenString, ActionListener<UserToken> listener) {
         ensureEnabled();
-        decodeToken(tokenString.toString(), ActionListener.wrap(userToken -> {
-            if (userToken != null) {
-                checkIfTokenIsValid(userToken, listener);
-            } else {
+        decodeToken(tokenString.toString(), true, ActionListener.wrap(userToken -> {
+            if (userToken == null) {
                 listener.onResponse(null);
+            } else if (clock.instant().isAfter(userToken.getExpirationTime())) {
+                listener.onFailure(traceLog("validate token", userToken.getId(), expiredTokenException()));
+            } else {
+                listener.onResponse(userToken);
             }
         }, e -> {
             if (isShardNotAvailableException(e)) {
@@ -511,6 +519,10 @@ public final class TokenService {
      *
      */
     void decodeToken(String token, ActionListener<UserToken> listener) {
+        decodeToken(token, false, listener);
+    }
+
+    private void decodeToken(String token, boolean checkInvalidated, ActionListener<UserToken> listener) {
         final byte[] bytes = token.getBytes(StandardCharsets.UTF_8);
         try (StreamInput in = new InputStreamStreamInput(Base64.getDecoder().wrap(new ByteArrayInputStream(bytes)), bytes.length)) {
             final Version version = Version.readVersion(in);
@@ -526,9 +538,9 @@ public final class TokenService {
                 // TODO Remove this conditional after backporting to 7.x
                 if (version.onOrAfter(VERSION_HASHED_TOKENS)) {
                     final String userTokenId = hashTokenString(accessToken);
-                    getUserTokenFromId(userTokenId, version, listener);
+                    getUserTokenFromId(userTokenId, version, checkInvalidated, listener);
                 } else {
-                    getUserTokenFromId(accessToken, version, listener);
+                    getUserTokenFromId(accessToken, version, checkInvalidated, listener);
                 }
             } else {
                 // The token was created in a < VERSION_ACCESS_TOKENS_UUIDS cluster so we need to decrypt it to get the tokenId
@@ -550,7 +562,7 @@ public final class TokenService {
                             try {
                                 final Cipher cipher = getDecryptionCipher(iv, decodeKey, version, decodedSalt);
                                 final String tokenId = decryptTokenId(encryptedTokenId, cipher, version);
-                                getUserTokenFromId(tokenId, version, listener);
+                                getUserTokenFromId(tokenId, version, checkInvalidated, listener);
                             } catch (IOException | GeneralSecurityException e) {
                                 // could happen with a token that is not ours
                                 logger.warn("invalid token", e);
@@ -1573,10 +1585,6 @@ public final class TokenService {
         return new Tuple<>(userToken, hashedRefreshToken);
     }
 
-    private static String getTokenDocumentId(UserToken userToken) {
-        return getTokenDocumentId(userToken.getId());
-    }
-
     private static String getTokenDocumentId(String id) {
         return TOKEN_DOC_ID_PREFIX + id;
     }
@@ -1619,71 +1627,6 @@ public final class TokenService {
         }
     }
 
-    /**
-     * Checks if the access token has been explicitly invalidated
-     */
-    private void checkIfTokenIsValid(UserToken userToken, ActionListener<UserToken> listener) {
-        if (clock.instant().isAfter(userToken.getExpirationTime())) {
-            listener.onFailure(traceLog("validate token", userToken.getId(), expiredTokenException()));
-            return;
-        }
-        final SecurityIndexManager tokensIndex = getTokensIndexForVersion(userToken.getVersion());
-        if (tokensIndex.indexExists() == false) {
-            // index doesn't exist so the token is considered invalid as we cannot verify its validity
-            logger.warn("failed to validate access token because the index [" + tokensIndex.aliasName() + "] doesn't exist");
-            listener.onResponse(null);
-        } else {
-            final GetRequest getRequest = client
-                    .prepareGet(tokensIndex.aliasName(), SINGLE_MAPPING_NAME, getTokenDocumentId(userToken)).request();
-            Consumer<Exception> onFailure = ex -> listener.onFailure(traceLog("check token state", userToken.getId(), ex));
-            tokensIndex.checkIndexVersionThenExecute(listener::onFailure, () -> {
-                executeAsyncWithOrigin(client.threadPool().getThreadContext(), SECURITY_ORIGIN, getRequest,
-                    ActionListener.<GetResponse>wrap(response -> {
-                        if (response.isExists()) {
-                            Map<String, Object> source = response.getSource();
-                            @SuppressWarnings("unchecked")
-                            Map<String, Object> accessTokenSource = (Map<String, Object>) source.get("access_token");
-                            if (accessTokenSource == null) {
-                                onFailure.accept(new IllegalStateException("token document is missing access_token field"));
-                            } else {
-                                Boolean invalidated = (Boolean) accessTokenSource.get("invalidated");
-                                if (invalidated == null) {
-                                    onFailure.accept(new IllegalStateException("token document is missing invalidated field"));
-                                } else if (invalidated) {
-                                    onFailure.accept(expiredTokenException());
-                                } else {
-                                    listener.onResponse(userToken);
-                                }
-                            }
-                        } else {
-                            // This shouldn't happen (if we have a valid `UserToken` object, then should mean that we loaded it from the
-                            // index in a prior operation (e.g. #getUserTokenFromId), however this error can happen if either:
-                            // 1. The document was deleted just after we read it
-                            // 2. This Get used a different replica to the previous one, and they were out of sync.
-                            logger.warn(
-                                "Could not find token document (index=[{}] id=[{}]) in order to validate user token [{}] for [{}]",
-                                response.getIndex(),
-                                response.getId(),
-                                userToken.getId(),
-                                userToken.getAuthentication().getUser().principal());
-                            onFailure.accept(traceLog("validate token", userToken.getId(),
-                                new IllegalStateException("token document is missing and must be present")));
-                        }
-                    }, e -> {
-                        // if the index or the shard is not there / available we assume that
-                        // the token is not valid
-                        if (isShardNotAvailableException(e)) {
-                            logger.warn("failed to get access token because index is not available");
-                            listener.onResponse(null);
-                        } else {
-                            logger.error(new ParameterizedMessage("failed to get token [{}]", userToken.getId()), e);
-                            listener.onFailure(e);
-                        }
-                    }), client::get);
-            });
-        }
-    }
-
     public TimeValue getExpirationDelay() {
         return expirationDelay;
     }
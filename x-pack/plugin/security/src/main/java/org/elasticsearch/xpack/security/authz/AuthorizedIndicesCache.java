@@ -0,0 +1,340 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.security.authz;
+
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.cluster.metadata.IndexAbstraction;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.xpack.core.security.authz.permission.LimitedRole;
+import org.elasticsearch.xpack.core.security.authz.permission.Role;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static org.elasticsearch.xpack.core.security.SecurityField.setting;
+
+/**
+ * Caches the names of the indices, aliases and data streams that a {@link Role} is authorized for with an action, which would otherwise
+ * be resolved by matching every index abstraction of the cluster against the index patterns of the role on each request. The authorized
+ * names are kept as a bitmap over the sorted names of the indices lookup of the cluster metadata, so that an entry is small and its
+ * {@link Set} view answers {@link Set#contains} with a binary search and a bit lookup.
+ * <p>
+ * Entries are keyed by the identity of the indices permissions that the index matcher of a role is built from. These are cached per set
+ * of role names by the {@link org.elasticsearch.xpack.security.authz.store.CompositeRolesStore}, so changing the definition of a role,
+ * which builds a new {@link Role}, never hits a stale entry. The {@link LimitedRole} of an API key is created anew on each request but
+ * from cached roles, so it is identified by the indices permissions of both the role it limits and its limiting role.
+ * <p>
+ * A new indices lookup is built whenever the metadata changes, but usually with few index abstractions added or removed. The names of a
+ * new lookup are therefore mapped to their positions in the previous lookup once, and an entry computed against the previous lookup is
+ * updated by copying the bits of the unchanged index abstractions and only matching the added ones against the role.
+ */
+public final class AuthorizedIndicesCache {
+
+    /**
+     * The maximum memory used by the cached entries, which hold two bitmaps of one bit per index abstraction each, {@code 0} disables the
+     * cache.
+     */
+    public static final Setting<ByteSizeValue> CACHE_SIZE_SETTING = Setting.byteSizeSetting(
+        setting("authz.store.roles.authorized_indices.cache.max_size"),
+        new ByteSizeValue(10, ByteSizeUnit.MB),
+        ByteSizeValue.ZERO,
+        new ByteSizeValue(Long.MAX_VALUE),
+        Property.NodeScope
+    );
+
+    @Nullable
+    private final Cache<Key, AuthorizedIndices> cache;
+
+    // the snapshots of the latest two indices lookups, requests that started before a metadata change may still use the older one
+    private volatile Snapshot latest;
+    private volatile Snapshot previous;
+
+    AuthorizedIndicesCache(Settings settings) {
+        final long cacheSize = CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.cache = cacheSize == 0 ? null : CacheBuilder.<Key, AuthorizedIndices>builder()
+            .setMaximumWeight(cacheSize)
+            .weigher((key, authorizedIndices) -> authorizedIndices.ramBytesUsed())
+            .build();
+    }
+
+    /**
+     * Returns the names of the indices, aliases and data streams of the given lookup that the given role is authorized for with the given
+     * action, with the same semantics as {@link RBACEngine#resolveAuthorizedIndicesFromRole}.
+     */
+    Set<String> get(Role role, String action, boolean includeDataStreams, Map<String, IndexAbstraction> lookup) {
+        if (cache == null) {
+            return RBACEngine.resolveAuthorizedIndicesFromRole(role, action, includeDataStreams, lookup);
+        }
+        final Snapshot snapshot = snapshot(lookup);
+        final Key key = new Key(permissionKey(role), action, includeDataStreams);
+        final AuthorizedIndices cached = cache.get(key);
+        if (cached != null && cached.indexNames == snapshot.indexNames) {
+            return cached;
+        }
+        final AuthorizedIndices authorizedIndices = compute(role, action, includeDataStreams, snapshot, cached);
+        cache.put(key, authorizedIndices);
+        return authorizedIndices;
+    }
+
+    int count() {
+        return cache == null ? 0 : cache.count();
+    }
+
+    /**
+     * Returns what the index matcher of the given role is built from, compared by identity.
+     */
+    private static Object permissionKey(Role role) {
+        if (role instanceof LimitedRole) {
+            final LimitedRole limitedRole = (LimitedRole) role;
+            return Arrays.asList(limitedRole.baseIndices(), permissionKey(limitedRole.limitedBy()));
+        }
+        return role.indices();
+    }
+
+    private Snapshot snapshot(Map<String, IndexAbstraction> lookup) {
+        final Snapshot latest = this.latest;
+        if (latest != null && latest.lookup == lookup) {
+            return latest;
+        }
+        final Snapshot previous = this.previous;
+        if (previous != null && previous.lookup == lookup) {
+            return previous;
+        }
+        synchronized (this) {
+            if (this.latest != null && this.latest.lookup == lookup) {
+                return this.latest;
+            }
+            final Snapshot snapshot = new Snapshot(lookup, this.latest);
+            this.previous = this.latest;
+            this.latest = snapshot;
+            return snapshot;
+        }
+    }
+
+    private static AuthorizedIndices compute(Role role, String action, boolean includeDataStreams, Snapshot snapshot,
+                                             @Nullable AuthorizedIndices previous) {
+        final Predicate<IndexAbstraction> predicate = role.allowedIndicesMatcher(action);
+        final int[] previousPositions = previous != null && snapshot.previousGeneration == previous.indexNames.generation
+            ? snapshot.previousPositions : null;
+        final String[] names = snapshot.indexNames.names;
+        final BitSet matched = new BitSet(names.length);
+        for (int i = 0; i < names.length; i++) {
+            final int previousPosition = previousPositions == null ? -1 : previousPositions[i];
+            if (previousPosition >= 0 ? previous.matched.get(previousPosition) : predicate.test(snapshot.abstractions[i])) {
+                matched.set(i);
+            }
+        }
+
+        final BitSet authorized = (BitSet) matched.clone();
+        for (int dataStream : snapshot.dataStreams) {
+            if (matched.get(dataStream)) {
+                if (includeDataStreams) {
+                    // add the backing indices of any authorized data stream
+                    for (IndexMetadata indexMetadata : snapshot.abstractions[dataStream].getIndices()) {
+                        final int position = snapshot.indexNames.position(indexMetadata.getIndex().getName());
+                        if (position >= 0) {
+                            authorized.set(position);
+                        }
+                    }
+                } else {
+                    authorized.clear(dataStream);
+                }
+            }
+        }
+        return new AuthorizedIndices(snapshot.indexNames, matched, authorized);
+    }
+
+    /**
+     * The index abstractions of an indices lookup, sorted by name, and the positions of their names in the previous lookup.
+     */
+    private static final class Snapshot {
+        final Map<String, IndexAbstraction> lookup;
+        final IndexNames indexNames;
+        final IndexAbstraction[] abstractions;
+        final int[] dataStreams;
+        // the parts of an index abstraction besides its name that the index matcher of a role depends on
+        final byte[] shapes;
+        final long previousGeneration;
+        // the position of each index abstraction in the previous lookup, or -1 if it was added or its shape changed
+        final int[] previousPositions;
+
+        Snapshot(Map<String, IndexAbstraction> lookup, @Nullable Snapshot previous) {
+            this.lookup = lookup;
+            final String[] names = lookup.keySet().toArray(new String[0]);
+            Arrays.sort(names); // a no-op for the sorted lookup of the metadata
+            this.indexNames = new IndexNames(names, previous == null ? 0L : previous.indexNames.generation + 1);
+            this.abstractions = new IndexAbstraction[names.length];
+            this.shapes = new byte[names.length];
+            int dataStreamCount = 0;
+            for (int i = 0; i < names.length; i++) {
+                abstractions[i] = lookup.get(names[i]);
+                shapes[i] = shape(abstractions[i]);
+                if (abstractions[i].getType() == IndexAbstraction.Type.DATA_STREAM) {
+                    dataStreamCount++;
+                }
+            }
+            this.dataStreams = new int[dataStreamCount];
+            for (int i = 0, j = 0; i < names.length; i++) {
+                if (abstractions[i].getType() == IndexAbstraction.Type.DATA_STREAM) {
+                    dataStreams[j++] = i;
+                }
+            }
+
+            if (previous == null) {
+                this.previousGeneration = -1L;
+                this.previousPositions = null;
+            } else {
+                this.previousGeneration = previous.indexNames.generation;
+                this.previousPositions = new int[names.length];
+                final String[] previousNames = previous.indexNames.names;
+                int j = 0;
+                for (int i = 0; i < names.length; i++) {
+                    while (j < previousNames.length && previousNames[j].compareTo(names[i]) < 0) {
+                        j++;
+                    }
+                    final boolean unchanged = j < previousNames.length && previousNames[j].equals(names[i])
+                        && previous.shapes[j] == shapes[i];
+                    previousPositions[i] = unchanged ? j : -1;
+                }
+            }
+        }
+
+        private static byte shape(IndexAbstraction indexAbstraction) {
+            return (byte) (indexAbstraction.getType().ordinal() << 1 | (indexAbstraction.getParentDataStream() == null ? 0 : 1));
+        }
+    }
+
+    /**
+     * The sorted names of the index abstractions of an indices lookup, shared by all entries computed against the lookup.
+     */
+    private static final class IndexNames {
+        final String[] names;
+        final long generation;
+
+        IndexNames(String[] names, long generation) {
+            this.names = names;
+            this.generation = generation;
+        }
+
+        int position(String name) {
+            final int position = Arrays.binarySearch(names, name);
+            return position >= 0 ? position : -1;
+        }
+    }
+
+    /**
+     * The authorized names of an indices lookup as a read-only set.
+     */
+    private static final class AuthorizedIndices extends AbstractSet<String> {
+        private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(AuthorizedIndices.class);
+        private static final long BIT_SET_SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(BitSet.class);
+
+        final IndexNames indexNames;
+        // the index abstractions that the index matcher of the role matches, which are reused when the next lookup is resolved
+        final BitSet matched;
+        final BitSet authorized;
+        final int size;
+
+        AuthorizedIndices(IndexNames indexNames, BitSet matched, BitSet authorized) {
+            this.indexNames = indexNames;
+            this.matched = matched;
+            this.authorized = authorized;
+            this.size = authorized.cardinality();
+        }
+
+        // the index names are shared by all the entries computed against the same indices lookup
+        long ramBytesUsed() {
+            return SHALLOW_SIZE + sizeOf(matched) + sizeOf(authorized);
+        }
+
+        private static long sizeOf(BitSet bitSet) {
+            return BIT_SET_SHALLOW_SIZE
+                + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) bitSet.size() / Byte.SIZE);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (o instanceof String) {
+                final int position = indexNames.position((String) o);
+                return position >= 0 && authorized.get(position);
+            }
+            return false;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                int next = authorized.nextSetBit(0);
+
+                @Override
+                public boolean hasNext() {
+                    return next >= 0;
+                }
+
+                @Override
+                public String next() {
+                    if (next < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    final String name = indexNames.names[next];
+                    next = authorized.nextSetBit(next + 1);
+                    return name;
+                }
+            };
+        }
+    }
+
+    private static final class Key {
+        // the indices permissions of the role, which do not implement equals and are therefore compared by identity
+        final Object permission;
+        final String action;
+        final boolean includeDataStreams;
+
+        Key(Object permission, String action, boolean includeDataStreams) {
+            this.permission = permission;
+            this.action = action;
+            this.includeDataStreams = includeDataStreams;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return permission.equals(key.permission) && includeDataStreams == key.includeDataStreams && action.equals(key.action);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * permission.hashCode() + action.hashCode()) + Boolean.hashCode(includeDataStreams);
+        }
+    }
+}
@@ -108,10 +108,12 @@ public class RBACEngine implements AuthorizationEngine {
 
     private final CompositeRolesStore rolesStore;
     private final FieldPermissionsCache fieldPermissionsCache;
+    private final AuthorizedIndicesCache authorizedIndicesCache;
 
     public RBACEngine(Settings settings, CompositeRolesStore rolesStore) {
         this.rolesStore = rolesStore;
         this.fieldPermissionsCache = new FieldPermissionsCache(settings);
+        this.authorizedIndicesCache = new AuthorizedIndicesCache(settings);
     }
 
     @Override
@@ -361,7 +363,7 @@ public class RBACEngine implements AuthorizationEngine {
                                       Map<String, IndexAbstraction> indicesLookup, ActionListener<Set<String>> listener) {
         if (authorizationInfo instanceof RBACAuthorizationInfo) {
             final Role role = ((RBACAuthorizationInfo) authorizationInfo).getRole();
-            listener.onResponse(resolveAuthorizedIndicesFromRole(role, requestInfo, indicesLookup));
+            listener.onResponse(authorizedIndicesCache.get(role, requestInfo.getAction(), includeDataStreams(requestInfo), indicesLookup));
         } else {
             listener.onFailure(
                 new IllegalArgumentException("unsupported authorization info:" + authorizationInfo.getClass().getSimpleName()));
@@ -526,11 +528,12 @@ public class RBACEngine implements AuthorizationEngine {
     }
 
     static Set<String> resolveAuthorizedIndicesFromRole(Role role, RequestInfo requestInfo, Map<String, IndexAbstraction> lookup) {
-        Predicate<IndexAbstraction> predicate = role.allowedIndicesMatcher(requestInfo.getAction());
+        return resolveAuthorizedIndicesFromRole(role, requestInfo.getAction(), includeDataStreams(requestInfo), lookup);
+    }
 
-        // do not include data streams for actions that do not operate on data streams
-        TransportRequest request = requestInfo.getRequest();
-        final boolean includeDataStreams = (request instanceof IndicesRequest) && ((IndicesRequest) request).includeDataStreams();
+    static Set<String> resolveAuthorizedIndicesFromRole(Role role, String action, boolean includeDataStreams,
+                                                        Map<String, IndexAbstraction> lookup) {
+        Predicate<IndexAbstraction> predicate = role.allowedIndicesMatcher(action);
 
         Set<String> indicesAndAliases = new HashSet<>();
         // TODO: can this be done smarter? I think there are usually more indices/aliases in the cluster then indices defined a roles?
@@ -556,6 +559,12 @@ public class RBACEngine implements AuthorizationEngine {
         return Collections.unmodifiableSet(indicesAndAliases);
     }
 
+    private static boolean includeDataStreams(RequestInfo requestInfo) {
+        // do not include data streams for actions that do not operate on data streams
+        TransportRequest request = requestInfo.getRequest();
+        return (request instanceof IndicesRequest) && ((IndicesRequest) request).includeDataStreams();
+    }
+
     private IndexAuthorizationResult buildIndicesAccessControl(String action,
                                                                AuthorizationInfo authorizationInfo,
                                                                Set<String> indices,
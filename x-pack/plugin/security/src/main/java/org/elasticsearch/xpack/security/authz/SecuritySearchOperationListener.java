@@ -29,13 +29,17 @@ import static org.elasticsearch.xpack.core.security.authz.AuthorizationServiceFi
 import static org.elasticsearch.xpack.core.security.authz.AuthorizationServiceField.ORIGINATING_ACTION_KEY;
 
 /**
- * A {@link SearchOperationListener} that is used to provide authorization for scroll requests.
+ * A {@link SearchOperationListener} that is used to provide authorization for scroll and point in time requests.
  *
- * In order to identify the user associated with a scroll request, we replace the {@link ReaderContext}
+ * In order to identify the user associated with a scroll or point in time request, we replace the {@link ReaderContext}
  * on creation with a custom implementation that holds the {@link Authentication} object. When
  * this context is accessed again in {@link SearchOperationListener#onPreQueryPhase(SearchContext)}
  * the ScrollContext is inspected for the authentication, which is compared to the currently
  * authentication.
+ *
+ * A point in time is bound to its user the same way, see {@link #isPointInTime(ReaderContext)}. The user that opens it is stored
+ * if security is enabled at that time. A point in time opened while security was disabled has no user to compare with, and stays
+ * usable by anyone until it expires.
  */
 public final class SecuritySearchOperationListener implements SearchOperationListener {
 
@@ -49,6 +53,16 @@ public final class SecuritySearchOperationListener implements SearchOperationLis
         this.auditTrailService = auditTrail;
     }
 
+    /**
+     * Adds the {@link Authentication} to the {@link ReaderContext} of a point in time
+     */
+    @Override
+    public void onNewReaderContext(ReaderContext readerContext) {
+        if (licenseState.isSecurityEnabled() && isPointInTime(readerContext)) {
+            readerContext.putInContext(AuthenticationField.AUTHENTICATION_KEY, securityContext.getAuthentication());
+        }
+    }
+
     /**
      * Adds the {@link Authentication} to the {@link ScrollContext}
      */
@@ -67,7 +81,7 @@ public final class SecuritySearchOperationListener implements SearchOperationLis
 
     /**
      * Checks for the {@link ReaderContext} if it exists and compares the {@link Authentication}
-     * object from the scroll context with the current authentication context
+     * object from the scroll or point in time context with the current authentication context
      */
     @Override
     public void validateReaderContext(ReaderContext readerContext, TransportRequest request) {
@@ -88,10 +102,30 @@ public final class SecuritySearchOperationListener implements SearchOperationLis
                     securityContext.getThreadContext().putTransient(AuthorizationServiceField.INDICES_PERMISSIONS_KEY,
                             scrollIndicesAccessControl);
                 }
+            } else if (isPointInTime(readerContext)) {
+                final Authentication originalAuth = readerContext.getFromContext(AuthenticationField.AUTHENTICATION_KEY);
+                final Authentication current = securityContext.getAuthentication();
+                final ThreadContext threadContext = securityContext.getThreadContext();
+                final String action = threadContext.getTransient(ORIGINATING_ACTION_KEY);
+                // a point in time opened before security was enabled has no authentication to compare with
+                if (originalAuth != null) {
+                    ensureAuthenticatedUserIsSame(originalAuth, current, auditTrailService, readerContext.id(), action, request,
+                            AuditUtil.extractRequestId(threadContext), threadContext.getTransient(AUTHORIZATION_INFO_KEY));
+                }
             }
         }
     }
 
+    /**
+     * Returns whether the given {@link ReaderContext} belongs to a point in time. A point in time is the only kind of context that
+     * {@link org.elasticsearch.search.SearchService} keeps for several requests without a {@link ScrollContext}: regular searches
+     * use single session contexts, scrolls carry a scroll context. The check applies to every point in time, whether it was opened
+     * through the open point in time API or on behalf of SQL, EQL or transforms.
+     */
+    static boolean isPointInTime(ReaderContext readerContext) {
+        return readerContext.singleSession() == false && readerContext.scrollContext() == null;
+    }
+
     @Override
     public void onPreFetchPhase(SearchContext searchContext) {
         ensureIndicesAccessControlForScrollThreadContext(searchContext.readerContext());
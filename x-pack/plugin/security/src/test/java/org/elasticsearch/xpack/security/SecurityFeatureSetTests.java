@@ -68,19 +68,20 @@ public class SecurityFeatureSetTests extends ESTestCase {
     }
 
     public void testAvailable() {
-        SecurityFeatureSet featureSet = new SecurityFeatureSet(settings, licenseState, realms, rolesStore, roleMappingStore, ipFilter);
+        SecurityFeatureSet featureSet =
+            new SecurityFeatureSet(settings, licenseState, realms, rolesStore, roleMappingStore, ipFilter, null);
         assertThat(featureSet.available(), is(true));
     }
 
     public void testEnabled() {
         SecurityFeatureSet featureSet = new SecurityFeatureSet(settings, licenseState, realms,
-                rolesStore, roleMappingStore, ipFilter);
+                rolesStore, roleMappingStore, ipFilter, null);
         when(licenseState.isSecurityEnabled()).thenReturn(true);
         assertThat(featureSet.enabled(), is(true));
 
         when(licenseState.isSecurityEnabled()).thenReturn(false);
         featureSet = new SecurityFeatureSet(settings, licenseState, realms,
-                rolesStore, roleMappingStore, ipFilter);
+                rolesStore, roleMappingStore, ipFilter, null);
         assertThat(featureSet.enabled(), is(false));
     }
 
@@ -160,7 +161,7 @@ public class SecurityFeatureSetTests extends ESTestCase {
         }
 
         SecurityFeatureSet featureSet = new SecurityFeatureSet(settings.build(), licenseState,
-                realms, rolesStore, roleMappingStore, ipFilter);
+                realms, rolesStore, roleMappingStore, ipFilter, null);
         PlainActionFuture<XPackFeatureSet.Usage> future = new PlainActionFuture<>();
         featureSet.usage(future);
         XPackFeatureSet.Usage securityUsage = future.get();
@@ -283,7 +284,7 @@ public class SecurityFeatureSetTests extends ESTestCase {
         configureRealmsUsage(Collections.emptyMap());
 
         SecurityFeatureSet featureSet = new SecurityFeatureSet(settings.build(), licenseState,
-                realms, rolesStore, roleMappingStore, ipFilter);
+                realms, rolesStore, roleMappingStore, ipFilter, null);
         PlainActionFuture<XPackFeatureSet.Usage> future = new PlainActionFuture<>();
         featureSet.usage(future);
         XPackFeatureSet.Usage securityUsage = future.get();
@@ -123,6 +123,7 @@ import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -941,6 +942,32 @@ public class ApiKeyServiceTests extends ESTestCase {
         assertNull(service.getRoleDescriptorsBytesCache());
     }
 
+    @SuppressWarnings("unchecked")
+    public void testApiKeyCacheUsageStats() throws IOException {
+        final String apiKey = randomAlphaOfLength(16);
+        final char[] hash = getFastStoredHashAlgoForTests().hash(new SecureString(apiKey.toCharArray()));
+        final ApiKeyDoc apiKeyDoc = buildApiKeyDoc(hash, -1, false);
+        final ApiKeyService service = createApiKeyService(Settings.EMPTY);
+        final ApiKeyCredentials creds = new ApiKeyCredentials(randomAlphaOfLength(12), new SecureString(apiKey.toCharArray()));
+
+        final int authentications = randomIntBetween(1, 5);
+        for (int i = 0; i < authentications; i++) {
+            final PlainActionFuture<AuthenticationResult> future = new PlainActionFuture<>();
+            service.validateApiKeyCredentials(creds.getId(), apiKeyDoc, creds, Clock.systemUTC(), future);
+            assertThat(future.actionGet().isAuthenticated(), is(true));
+        }
+
+        final Map<String, Object> authCacheStats = (Map<String, Object>) service.cacheUsageStats().get("auth_cache");
+        assertThat(authCacheStats.get("count"), equalTo(1));
+        assertThat(authCacheStats.get("misses"), equalTo(1L));
+        assertThat(authCacheStats.get("hits"), equalTo((long) authentications - 1));
+        assertThat(authCacheStats.get("hit_ratio"), equalTo((double) (authentications - 1) / authentications));
+        assertThat(service.cacheUsageStats(), hasKey("doc_cache"));
+
+        final ApiKeyService disabled = createApiKeyService(Settings.builder().put(ApiKeyService.CACHE_TTL_SETTING.getKey(), "0s").build());
+        assertThat(disabled.cacheUsageStats(), anEmptyMap());
+    }
+
     public void testApiKeyDocCacheCanBeDisabledSeparately() throws IOException {
         final String apiKey = randomAlphaOfLength(16);
         Hasher hasher = getFastStoredHashAlgoForTests();
@@ -0,0 +1,163 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.security.authz;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.search.SearchAction;
+import org.elasticsearch.cluster.metadata.AliasMetadata;
+import org.elasticsearch.cluster.metadata.DataStream;
+import org.elasticsearch.cluster.metadata.IndexMetadata;
+import org.elasticsearch.cluster.metadata.Metadata;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.security.authz.permission.LimitedRole;
+import org.elasticsearch.xpack.core.security.authz.permission.Role;
+import org.elasticsearch.xpack.core.security.authz.privilege.IndexPrivilege;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.elasticsearch.cluster.metadata.DataStreamTestHelper.createTimestampField;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class AuthorizedIndicesCacheTests extends ESTestCase {
+
+    private final Settings indexSettings = Settings.builder().put("index.version.created", Version.CURRENT).build();
+
+    public void testCachedIndicesMatchResolvedIndices() {
+        final AuthorizedIndicesCache cache = new AuthorizedIndicesCache(Settings.EMPTY);
+        final Role role = Role.builder("role").add(IndexPrivilege.READ, "a*", "b", "logs-*").build();
+        final Metadata.Builder dataStreams = Metadata.builder();
+        final List<String> indices = new ArrayList<>();
+        final int numDataStreams = randomIntBetween(0, 3);
+        for (int i = 0; i < numDataStreams; i++) {
+            final String dataStream = randomFrom("logs-", "metrics-") + i;
+            final String backingIndex = DataStream.getDefaultBackingIndexName(dataStream, 1);
+            dataStreams.put(
+                IndexMetadata.builder(backingIndex).settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false);
+            dataStreams.put(new DataStream(dataStream, createTimestampField("@timestamp"),
+                org.elasticsearch.core.List.of(new Index(backingIndex, "_na_"))));
+        }
+        Metadata metadata = dataStreams.build();
+
+        for (int round = 0; round < 10; round++) {
+            final Metadata.Builder builder = Metadata.builder(metadata);
+            // add and remove some indices, and sometimes change nothing but the version
+            final int added = randomIntBetween(0, 10);
+            for (int i = 0; i < added; i++) {
+                final String index = randomFrom("a", "b", "c", "ab") + "-" + round + "-" + i;
+                final IndexMetadata.Builder indexMetadata =
+                    IndexMetadata.builder(index).settings(indexSettings).numberOfShards(1).numberOfReplicas(0);
+                if (randomBoolean()) {
+                    indexMetadata.putAlias(AliasMetadata.builder(randomFrom("a", "c") + "-alias-" + round + "-" + i));
+                }
+                builder.put(indexMetadata.build(), false);
+                indices.add(index);
+            }
+            final int removed = randomIntBetween(0, indices.size() / 2);
+            for (int i = 0; i < removed; i++) {
+                builder.remove(indices.remove(randomIntBetween(0, indices.size() - 1)));
+            }
+            builder.version(round);
+            metadata = builder.build();
+
+            for (boolean includeDataStreams : new boolean[] { true, false }) {
+                final Set<String> expected =
+                    RBACEngine.resolveAuthorizedIndicesFromRole(role, SearchAction.NAME, includeDataStreams, metadata.getIndicesLookup());
+                final Set<String> actual = cache.get(role, SearchAction.NAME, includeDataStreams, metadata.getIndicesLookup());
+                assertThat(actual, equalTo(expected));
+                assertThat(new HashSet<>(actual), equalTo(expected));
+                assertThat(actual.size(), equalTo(expected.size()));
+                for (String name : metadata.getIndicesLookup().keySet()) {
+                    assertThat(name, actual.contains(name), equalTo(expected.contains(name)));
+                }
+                assertFalse(actual.contains("missing"));
+                assertThat(cache.get(role, SearchAction.NAME, includeDataStreams, metadata.getIndicesLookup()), sameInstance(actual));
+            }
+        }
+        assertThat(cache.count(), equalTo(2));
+    }
+
+    public void testRolesAreComparedByIdentity() {
+        final AuthorizedIndicesCache cache = new AuthorizedIndicesCache(Settings.EMPTY);
+        final Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("a1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .put(IndexMetadata.builder("b1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .build();
+        final Role role = Role.builder("role").add(IndexPrivilege.READ, "a*").build();
+        assertThat(cache.get(role, SearchAction.NAME, false, metadata.getIndicesLookup()), equalTo(org.elasticsearch.core.Set.of("a1")));
+
+        // a changed role definition builds a new role with the same name
+        final Role changedRole = Role.builder("role").add(IndexPrivilege.READ, "b*").build();
+        assertThat(cache.get(changedRole, SearchAction.NAME, false, metadata.getIndicesLookup()),
+            equalTo(org.elasticsearch.core.Set.of("b1")));
+        assertThat(cache.count(), equalTo(2));
+    }
+
+    public void testLimitedRolesAreComparedByTheirRoles() {
+        final AuthorizedIndicesCache cache = new AuthorizedIndicesCache(Settings.EMPTY);
+        final Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("a1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .put(IndexMetadata.builder("a2").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .put(IndexMetadata.builder("b1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .build();
+        final Role apiKeyRole = Role.builder("api_key_role").add(IndexPrivilege.READ, "a*").build();
+        final Role ownerRole = Role.builder("owner_role").add(IndexPrivilege.READ, "a1", "b1").build();
+
+        // API keys create a new limited role from the cached roles on each request
+        final Set<String> authorized = cache.get(LimitedRole.createLimitedRole(apiKeyRole, ownerRole), SearchAction.NAME, false,
+            metadata.getIndicesLookup());
+        assertThat(authorized, equalTo(org.elasticsearch.core.Set.of("a1")));
+        assertThat(cache.get(LimitedRole.createLimitedRole(apiKeyRole, ownerRole), SearchAction.NAME, false, metadata.getIndicesLookup()),
+            sameInstance(authorized));
+        assertThat(cache.count(), equalTo(1));
+
+        // the roles that are limited by a changed role are not
+        final Role changedOwnerRole = Role.builder("owner_role").add(IndexPrivilege.READ, "a*").build();
+        assertThat(cache.get(LimitedRole.createLimitedRole(apiKeyRole, changedOwnerRole), SearchAction.NAME, false,
+            metadata.getIndicesLookup()), equalTo(org.elasticsearch.core.Set.of("a1", "a2")));
+        assertThat(cache.count(), equalTo(2));
+    }
+
+    public void testEntriesAreWeighedInBytes() {
+        final AuthorizedIndicesCache cache = new AuthorizedIndicesCache(
+            Settings.builder().put(AuthorizedIndicesCache.CACHE_SIZE_SETTING.getKey(), new ByteSizeValue(1, ByteSizeUnit.KB)).build());
+        final Metadata.Builder builder = Metadata.builder();
+        for (int i = 0; i < 100; i++) {
+            builder.put(IndexMetadata.builder("a" + i).settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false);
+        }
+        final Metadata metadata = builder.build();
+        final int numRoles = 50;
+        for (int i = 0; i < numRoles; i++) {
+            final Role role = Role.builder("role" + i).add(IndexPrivilege.READ, "a" + i).build();
+            assertThat(cache.get(role, SearchAction.NAME, false, metadata.getIndicesLookup()),
+                equalTo(org.elasticsearch.core.Set.of("a" + i)));
+        }
+        // each entry holds two bitmaps of 100 bits, which does not fit 50 times into 1kb
+        assertThat(cache.count(), greaterThan(0));
+        assertThat(cache.count(), lessThan(numRoles));
+    }
+
+    public void testDisabledCache() {
+        final AuthorizedIndicesCache cache =
+            new AuthorizedIndicesCache(Settings.builder().put(AuthorizedIndicesCache.CACHE_SIZE_SETTING.getKey(), 0).build());
+        final Metadata metadata = Metadata.builder()
+            .put(IndexMetadata.builder("a1").settings(indexSettings).numberOfShards(1).numberOfReplicas(0).build(), false)
+            .build();
+        final Role role = Role.builder("role").add(IndexPrivilege.READ, "a*").build();
+        assertThat(cache.get(role, SearchAction.NAME, false, metadata.getIndicesLookup()), equalTo(org.elasticsearch.core.Set.of("a1")));
+        assertThat(cache.count(), equalTo(0));
+    }
+}
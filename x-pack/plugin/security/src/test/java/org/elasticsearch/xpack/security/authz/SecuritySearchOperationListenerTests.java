@@ -0,0 +1,178 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.security.authz;
+
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ThreadContext;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.license.XPackLicenseState;
+import org.elasticsearch.license.XPackLicenseState.Feature;
+import org.elasticsearch.search.SearchContextMissingException;
+import org.elasticsearch.search.internal.InternalScrollSearchRequest;
+import org.elasticsearch.search.internal.ReaderContext;
+import org.elasticsearch.search.internal.ShardSearchContextId;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.xpack.core.security.SecurityContext;
+import org.elasticsearch.xpack.core.security.authc.Authentication;
+import org.elasticsearch.xpack.core.security.authc.Authentication.RealmRef;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationField;
+import org.elasticsearch.xpack.core.security.authc.AuthenticationTests;
+import org.elasticsearch.xpack.core.security.authz.AuthorizationEngine.AuthorizationInfo;
+import org.elasticsearch.xpack.core.security.user.User;
+import org.elasticsearch.xpack.security.audit.AuditTrail;
+import org.elasticsearch.xpack.security.audit.AuditTrailService;
+import org.elasticsearch.xpack.security.audit.AuditUtil;
+import org.junit.Before;
+
+import java.util.Collections;
+
+import static org.elasticsearch.xpack.core.security.authz.AuthorizationServiceField.AUTHORIZATION_INFO_KEY;
+import static org.elasticsearch.xpack.core.security.authz.AuthorizationServiceField.ORIGINATING_ACTION_KEY;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class SecuritySearchOperationListenerTests extends ESSingleNodeTestCase {
+
+    private IndexService indexService;
+    private IndexShard shard;
+    private XPackLicenseState licenseState;
+    private ThreadContext threadContext;
+    private AuditTrail auditTrail;
+    private SecuritySearchOperationListener listener;
+
+    @Before
+    public void setUpListener() {
+        indexService = createIndex("index");
+        shard = indexService.getShard(0);
+        licenseState = mock(XPackLicenseState.class);
+        when(licenseState.isSecurityEnabled()).thenReturn(true);
+        when(licenseState.checkFeature(Feature.SECURITY_AUDITING)).thenReturn(true);
+        threadContext = new ThreadContext(Settings.EMPTY);
+        auditTrail = mock(AuditTrail.class);
+        final AuditTrailService auditTrailService = new AuditTrailService(Collections.singletonList(auditTrail), licenseState);
+        listener = new SecuritySearchOperationListener(new SecurityContext(Settings.EMPTY, threadContext), licenseState,
+            auditTrailService);
+    }
+
+    public void testPointInTimeOwnerMatches() {
+        final Authentication owner = new Authentication(new User("test", "role"), new RealmRef("realm", "native", "node"), null);
+        try (ReaderContext pointInTime = openPointInTime(owner)) {
+            assertThat(pointInTime.getFromContext(AuthenticationField.AUTHENTICATION_KEY), sameInstance(owner));
+
+            // the roles and the node of the realm may differ between requests of the same user
+            validate(pointInTime, new Authentication(new User("test", "other_role"), new RealmRef("realm", "native", "other_node"), null));
+            verifyZeroInteractions(auditTrail);
+        }
+    }
+
+    public void testPointInTimeOwnerMismatch() {
+        final Authentication owner = new Authentication(new User("test", "role"), new RealmRef("realm", "native", "node"), null);
+        try (ReaderContext pointInTime = openPointInTime(owner)) {
+            final Authentication other = randomFrom(
+                new Authentication(new User("other", "role"), new RealmRef("realm", "native", "node"), null),
+                new Authentication(new User("test", "role"), new RealmRef("ldap1", "ldap", "node"), null));
+            assertAccessDenied(pointInTime, other);
+        }
+    }
+
+    public void testPointInTimeWithApiKeys() {
+        final User user = new User("test", "role");
+        final Authentication owner = AuthenticationTests.randomApiKeyAuthentication(user, "key_1");
+        try (ReaderContext pointInTime = openPointInTime(owner)) {
+            validate(pointInTime, AuthenticationTests.randomApiKeyAuthentication(user, "key_1"));
+            verifyZeroInteractions(auditTrail);
+
+            // another key of the same user, or the user itself, cannot use a point in time opened with the key
+            final Authentication other = randomFrom(
+                AuthenticationTests.randomApiKeyAuthentication(user, "key_2"),
+                new Authentication(user, new RealmRef("realm", "native", "node"), null));
+            assertAccessDenied(pointInTime, other);
+        }
+    }
+
+    public void testPointInTimeWithRunAs() {
+        final Authentication owner = new Authentication(new User(new User("bob", "role"), new User("admin", "superuser")),
+            new RealmRef("file", "file", "node"), new RealmRef("realm", "native", "node"));
+        try (ReaderContext pointInTime = openPointInTime(owner)) {
+            // the point in time belongs to the user that was run as
+            validate(pointInTime, new Authentication(new User("bob", "role"), new RealmRef("realm", "native", "node"), null));
+            verifyZeroInteractions(auditTrail);
+
+            assertAccessDenied(pointInTime, new Authentication(new User("admin", "superuser"), new RealmRef("file", "file", "node"), null));
+        }
+    }
+
+    public void testPointInTimeOpenedBeforeSecurityWasEnabled() {
+        when(licenseState.isSecurityEnabled()).thenReturn(false);
+        try (ReaderContext pointInTime = openPointInTime(null)) {
+            assertThat(pointInTime.getFromContext(AuthenticationField.AUTHENTICATION_KEY), nullValue());
+
+            // there is no owner to compare with, so any user can keep using it
+            when(licenseState.isSecurityEnabled()).thenReturn(true);
+            validate(pointInTime, new Authentication(new User("test", "role"), new RealmRef("realm", "native", "node"), null));
+            verifyZeroInteractions(auditTrail);
+        }
+    }
+
+    public void testSingleSessionContextIsNotBound() {
+        final Authentication owner = new Authentication(new User("test", "role"), new RealmRef("realm", "native", "node"), null);
+        try (ReaderContext readerContext = newReaderContext(true)) {
+            try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+                threadContext.putTransient(AuthenticationField.AUTHENTICATION_KEY, owner);
+                listener.onNewReaderContext(readerContext);
+            }
+            assertThat(SecuritySearchOperationListener.isPointInTime(readerContext), is(false));
+            assertThat(readerContext.getFromContext(AuthenticationField.AUTHENTICATION_KEY), nullValue());
+        }
+    }
+
+    private ReaderContext openPointInTime(Authentication owner) {
+        final ReaderContext readerContext = newReaderContext(false);
+        assertThat(SecuritySearchOperationListener.isPointInTime(readerContext), is(true));
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            if (owner != null) {
+                threadContext.putTransient(AuthenticationField.AUTHENTICATION_KEY, owner);
+            }
+            listener.onNewReaderContext(readerContext);
+        }
+        return readerContext;
+    }
+
+    private ReaderContext newReaderContext(boolean singleSession) {
+        return new ReaderContext(new ShardSearchContextId(UUIDs.randomBase64UUID(), randomNonNegativeLong()), indexService, shard,
+            shard.acquireSearcherSupplier(), Long.MAX_VALUE, singleSession);
+    }
+
+    private void validate(ReaderContext readerContext, Authentication current) {
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putTransient(AuthenticationField.AUTHENTICATION_KEY, current);
+            listener.validateReaderContext(readerContext, new InternalScrollSearchRequest());
+        }
+    }
+
+    private void assertAccessDenied(ReaderContext readerContext, Authentication current) {
+        final TransportRequest request = new InternalScrollSearchRequest();
+        final AuthorizationInfo authorizationInfo = mock(AuthorizationInfo.class);
+        try (ThreadContext.StoredContext ignored = threadContext.stashContext()) {
+            threadContext.putTransient(AuthenticationField.AUTHENTICATION_KEY, current);
+            threadContext.putTransient(ORIGINATING_ACTION_KEY, "action");
+            threadContext.putTransient(AUTHORIZATION_INFO_KEY, authorizationInfo);
+            final String requestId = AuditUtil.getOrGenerateRequestId(threadContext);
+            expectThrows(SearchContextMissingException.class, () -> listener.validateReaderContext(readerContext, request));
+            verify(auditTrail).accessDenied(eq(requestId), eq(current), eq("action"), eq(request), eq(authorizationInfo));
+        }
+    }
+}
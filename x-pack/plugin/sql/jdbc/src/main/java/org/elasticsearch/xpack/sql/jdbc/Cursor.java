@@ -6,6 +6,8 @@
  */
 package org.elasticsearch.xpack.sql.jdbc;
 
+import org.elasticsearch.xpack.sql.proto.ColumnVector;
+
 import java.sql.SQLException;
 import java.util.List;
 
@@ -21,6 +23,21 @@ interface Cursor {
 
     Object column(int column);
 
+    /**
+     * The values of the given column in the current batch, when they
+     * were received in the columnar format, {@code null} otherwise.
+     */
+    default ColumnVector columnVector(int column) {
+        return null;
+    }
+
+    /**
+     * Position of the current row in the current batch.
+     */
+    default int batchRow() {
+        return -1;
+    }
+
     /**
      * Number of rows that this cursor has pulled back from the
      * server in the current batch.
@@ -6,7 +6,8 @@
  */
 package org.elasticsearch.xpack.sql.jdbc;
 
-import org.elasticsearch.core.Tuple;
+import org.elasticsearch.xpack.sql.proto.ColumnVector;
+import org.elasticsearch.xpack.sql.proto.SqlQueryResponse;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -18,15 +19,22 @@ class DefaultCursor implements Cursor {
 
     private final List<JdbcColumnInfo> columnInfos;
     private List<List<Object>> rows;
+    // the values of each column, when the page was received in the columnar format
+    private List<ColumnVector> values;
     private int row = -1;
     private String cursor;
 
-    DefaultCursor(JdbcHttpClient client, String cursor, List<JdbcColumnInfo> columnInfos, List<List<Object>> rows, RequestMeta meta) {
+    DefaultCursor(JdbcHttpClient client, String cursor, List<JdbcColumnInfo> columnInfos, SqlQueryResponse page, RequestMeta meta) {
         this.client = client;
         this.meta = meta;
         this.cursor = cursor;
         this.columnInfos = columnInfos;
-        this.rows = rows;
+        setPage(page);
+    }
+
+    private void setPage(SqlQueryResponse page) {
+        this.rows = page.rows();
+        this.values = page.values();
     }
 
     @Override
@@ -42,9 +50,9 @@ class DefaultCursor implements Cursor {
         }
         else {
             if (cursor.isEmpty() == false) {
-                Tuple<String, List<List<Object>>> nextPage = client.nextPage(cursor, meta);
-                cursor = nextPage.v1();
-                rows = nextPage.v2();
+                SqlQueryResponse nextPage = client.nextPage(cursor, meta);
+                cursor = nextPage.cursor();
+                setPage(nextPage);
                 row = -1;
                 return next();
             }
@@ -54,7 +62,17 @@ class DefaultCursor implements Cursor {
 
     @Override
     public Object column(int column) {
-        return rows.get(row).get(column);
+        return values != null ? values.get(column).get(row) : rows.get(row).get(column);
+    }
+
+    @Override
+    public ColumnVector columnVector(int column) {
+        return values != null ? values.get(column) : null;
+    }
+
+    @Override
+    public int batchRow() {
+        return row;
     }
 
     @Override
@@ -6,7 +6,6 @@
  */
 package org.elasticsearch.xpack.sql.jdbc;
 
-import org.elasticsearch.core.Tuple;
 import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.xpack.sql.client.ClientVersion;
 import org.elasticsearch.xpack.sql.client.HttpClient;
@@ -63,7 +62,8 @@ class JdbcHttpClient {
                 TimeValue.timeValueMillis(meta.timeoutInMs()),
                 TimeValue.timeValueMillis(meta.queryTimeoutInMs()),
                 null,
-                Boolean.FALSE,
+                // the columnar format lets the driver keep the values of numeric and boolean columns unboxed
+                Boolean.TRUE,
                 null,
                 new RequestInfo(Mode.JDBC, ClientVersion.CURRENT),
                 conCfg.fieldMultiValueLeniency(),
@@ -71,18 +71,18 @@ class JdbcHttpClient {
                 conCfg.binaryCommunication(),
                 emptyMap());
         SqlQueryResponse response = httpClient.query(sqlRequest);
-        return new DefaultCursor(this, response.cursor(), toJdbcColumnInfo(response.columns()), response.rows(), meta);
+        return new DefaultCursor(this, response.cursor(), toJdbcColumnInfo(response.columns()), response, meta);
     }
 
     /**
-     * Read the next page of results and returning
-     * the scroll id to use to fetch the next page.
+     * Read the next page of results, the response
+     * holding the scroll id to use to fetch the next page.
      */
-    Tuple<String, List<List<Object>>> nextPage(String cursor, RequestMeta meta) throws SQLException {
+    SqlQueryResponse nextPage(String cursor, RequestMeta meta) throws SQLException {
         SqlQueryRequest sqlRequest = new SqlQueryRequest(cursor, TimeValue.timeValueMillis(meta.timeoutInMs()),
-                TimeValue.timeValueMillis(meta.queryTimeoutInMs()), new RequestInfo(Mode.JDBC), conCfg.binaryCommunication());
-        SqlQueryResponse response = httpClient.query(sqlRequest);
-        return new Tuple<>(response.cursor(), response.rows());
+                TimeValue.timeValueMillis(meta.queryTimeoutInMs()), new RequestInfo(Mode.JDBC), conCfg.binaryCommunication(),
+                Boolean.TRUE);
+        return httpClient.query(sqlRequest);
     }
 
     boolean queryClose(String cursor) throws SQLException {
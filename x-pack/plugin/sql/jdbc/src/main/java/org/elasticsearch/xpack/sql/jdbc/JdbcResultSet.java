@@ -27,12 +27,15 @@ import java.sql.Statement;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.util.Calendar;
+import java.util.EnumSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 import org.elasticsearch.core.SuppressForbidden;
+import org.elasticsearch.xpack.sql.proto.ColumnVector;
 
 import static java.lang.String.format;
 import static org.elasticsearch.xpack.sql.jdbc.EsType.DATE;
@@ -47,6 +50,11 @@ import static org.elasticsearch.xpack.sql.jdbc.JdbcDateUtils.timeAsTimestamp;
 
 class JdbcResultSet implements ResultSet, JdbcWrapper {
 
+    // the column types whose values are read straight from the primitives of a columnar page
+    private static final Set<EsType> BOOLEAN_TYPES = EnumSet.of(EsType.BOOLEAN);
+    private static final Set<EsType> INTEGRAL_TYPES = EnumSet.of(EsType.BYTE, EsType.SHORT, EsType.INTEGER, EsType.LONG);
+    private static final Set<EsType> RATIONAL_TYPES = EnumSet.of(EsType.HALF_FLOAT, EsType.FLOAT, EsType.SCALED_FLOAT, EsType.DOUBLE);
+
     // temporary calendar instance (per connection) used for normalizing the date and time
     // even though the cfg is already in UTC format, JDBC 3.0 requires java.sql.Time to have its date
     // removed (set to Jan 01 1970) and java.sql.Date to have its HH:mm:ss component removed
@@ -76,7 +84,7 @@ class JdbcResultSet implements ResultSet, JdbcWrapper {
         }
     }
 
-    private Object column(int columnIndex) throws SQLException {
+    private void checkColumn(int columnIndex) throws SQLException {
         checkOpen();
         if (columnIndex < 1 || columnIndex > cursor.columnSize()) {
             throw new SQLException("Invalid column index [" + columnIndex + "]");
@@ -84,6 +92,10 @@ class JdbcResultSet implements ResultSet, JdbcWrapper {
         if (wasLast || rowNumber < 1) {
             throw new SQLException("No row available");
         }
+    }
+
+    private Object column(int columnIndex) throws SQLException {
+        checkColumn(columnIndex);
         Object object = null;
         try {
             object = cursor.column(columnIndex - 1);
@@ -94,6 +106,21 @@ class JdbcResultSet implements ResultSet, JdbcWrapper {
         return object;
     }
 
+    /**
+     * The values of the column in the current batch when they are held as primitives of the given type, for
+     * a column of one of the given types, {@code null} if the value has to be converted from its object.
+     * Sets {@link #wasNull} as reading the value does.
+     */
+    private ColumnVector columnVector(int columnIndex, ColumnVector.Type type, Set<EsType> columnTypes) throws SQLException {
+        checkColumn(columnIndex);
+        ColumnVector vector = cursor.columnVector(columnIndex - 1);
+        if (vector == null || vector.type() != type || columnTypes.contains(columnType(columnIndex)) == false) {
+            return null;
+        }
+        wasNull = vector.isNull(cursor.batchRow());
+        return vector;
+    }
+
     private int column(String columnName) throws SQLException {
         checkOpen();
         Integer index = nameToIndex.get(columnName);
@@ -148,6 +175,10 @@ class JdbcResultSet implements ResultSet, JdbcWrapper {
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
+        ColumnVector vector = columnVector(columnIndex, ColumnVector.Type.BOOLEAN, BOOLEAN_TYPES);
+        if (vector != null) {
+            return wasNull == false && vector.getBoolean(cursor.batchRow());
+        }
         return column(columnIndex) != null ? getObject(columnIndex, Boolean.class) : false;
     }
 
@@ -163,21 +194,37 @@ class JdbcResultSet implements ResultSet, JdbcWrapper {
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
+        ColumnVector vector = columnVector(columnIndex, ColumnVector.Type.LONG, INTEGRAL_TYPES);
+        if (vector != null) {
+            return wasNull ? 0 : TypeConverter.safeToInt(vector.getLong(cursor.batchRow()));
+        }
         return column(columnIndex) != null ? getObject(columnIndex, Integer.class) : 0;
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
+        ColumnVector vector = columnVector(columnIndex, ColumnVector.Type.LONG, INTEGRAL_TYPES);
+        if (vector != null) {
+            return wasNull ? 0 : vector.getLong(cursor.batchRow());
+        }
         return column(columnIndex) != null ? getObject(columnIndex, Long.class) : 0;
     }
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
+        ColumnVector vector = columnVector(columnIndex, ColumnVector.Type.DOUBLE, RATIONAL_TYPES);
+        if (vector != null) {
+            return wasNull ? 0 : (float) vector.getDouble(cursor.batchRow());
+        }
         return column(columnIndex) != null ? getObject(columnIndex, Float.class) : 0;
     }
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
+        ColumnVector vector = columnVector(columnIndex, ColumnVector.Type.DOUBLE, RATIONAL_TYPES);
+        if (vector != null) {
+            return wasNull ? 0 : vector.getDouble(cursor.batchRow());
+        }
         return column(columnIndex) != null ? getObject(columnIndex, Double.class) : 0;
     }
 
@@ -597,7 +597,7 @@ final class TypeConverter {
         return (short) x;
     }
 
-    private static int safeToInt(long x) throws SQLException {
+    static int safeToInt(long x) throws SQLException {
         if (x > Integer.MAX_VALUE || x < Integer.MIN_VALUE) {
             throw new SQLException(format(Locale.ROOT, "Numeric %s out of range", Long.toString(x)));
         }
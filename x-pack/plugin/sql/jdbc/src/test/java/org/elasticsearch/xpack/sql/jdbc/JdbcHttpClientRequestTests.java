@@ -105,6 +105,7 @@ public class JdbcHttpClientRequestTests extends ESTestCase {
 
         assertTrue(((String) reqContent.get("mode")).equalsIgnoreCase("jdbc"));
         assertEquals(isBinary, reqContent.get("binary_format"));
+        assertEquals(true, reqContent.get("columnar"));
     }
 
     private void prepareMockResponse() {
@@ -289,7 +289,7 @@ public class RestSqlSecurityIT extends SqlSecurityTestCase {
 
         Map<String, Object> adminResponse = RestActions.runSql(
             null,
-            new StringEntity(query("SELECT * FROM test").mode(mode).fetchSize(1).toString(), ContentType.APPLICATION_JSON),
+            new StringEntity(query("SELECT * FROM test ORDER BY a").mode(mode).fetchSize(1).toString(), ContentType.APPLICATION_JSON),
             mode,
             false
         );
@@ -317,6 +317,43 @@ public class RestSqlSecurityIT extends SqlSecurityTestCase {
             .assertLogs();
     }
 
+    /**
+     * Test the hijacking the point in time that unordered queries are paged through fails, the same way
+     * hijacking a scroll does.
+     */
+    public void testHijackPointInTimeFails() throws Exception {
+        createUser("full_access", "rest_minimal");
+        final String mode = randomMode();
+
+        Map<String, Object> adminResponse = RestActions.runSql(
+            null,
+            new StringEntity(query("SELECT * FROM test").mode(mode).fetchSize(1).toString(), ContentType.APPLICATION_JSON),
+            mode,
+            false
+        );
+
+        String cursor = (String) adminResponse.remove("cursor");
+        assertNotNull(cursor);
+
+        ResponseException e = expectThrows(
+            ResponseException.class,
+            () -> RestActions.runSql(
+                "full_access",
+                new StringEntity(cursor(cursor).mode(mode).toString(), ContentType.APPLICATION_JSON),
+                mode,
+                false
+            )
+        );
+        assertThat(e.getMessage(), containsString("No search context found for id"));
+        assertEquals(404, e.getResponse().getStatusLine().getStatusCode());
+
+        createAuditLogAsserter().expectSqlCompositeActionFieldCaps("test_admin", "test")
+            .expect(true, SQL_ACTION_NAME, "full_access", empty())
+            // one point in time access denied per shard
+            .expect("access_denied", SQL_ACTION_NAME, "full_access", "default_native", empty(), "ShardSearchRequest")
+            .assertLogs();
+    }
+
     protected class RestAuditLogAsserter extends AuditLogAsserter {
         @Override
         public AuditLogAsserter expect(
@@ -0,0 +1,275 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.sql.proto;
+
+import org.elasticsearch.common.xcontent.XContentParser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The values of one column of a page of results received in a columnar format (see {@link Protocol#COLUMNAR_NAME}).
+ * The values are kept unboxed when all the non-null values of the column allow it: integral numbers as longs,
+ * decimal numbers as doubles and booleans, with the null values tracked in a bit set. Columns with values of any
+ * other or of mixed types keep them as objects, with the repeated strings sharing a single instance.
+ */
+public final class ColumnVector {
+
+    public enum Type {
+        LONG,
+        DOUBLE,
+        BOOLEAN,
+        OBJECT
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    // the number of distinct strings of a column after which they are no longer deduplicated
+    private static final int MAX_DICTIONARY_SIZE = 1024;
+
+    // null as long as the column only has null values
+    private Type type;
+    private int size;
+    private final BitSet nulls = new BitSet();
+
+    private long[] longs;
+    private double[] doubles;
+    private boolean[] booleans;
+    private Object[] objects;
+    private Map<String, String> dictionary;
+
+    /**
+     * Parses the values of a column, the parser being positioned on the start of its array.
+     */
+    public static ColumnVector parse(XContentParser parser) throws IOException {
+        ColumnVector vector = new ColumnVector();
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+            XContentParser.Token token = parser.currentToken();
+            if (token == XContentParser.Token.VALUE_NULL) {
+                vector.appendNull();
+            } else if (token == XContentParser.Token.VALUE_NUMBER) {
+                switch (parser.numberType()) {
+                    case INT:
+                    case LONG:
+                        vector.appendLong(parser.longValue());
+                        break;
+                    case FLOAT:
+                    case DOUBLE:
+                        vector.appendDouble(parser.doubleValue());
+                        break;
+                    default:
+                        vector.appendObject(parser.numberValue());
+                }
+            } else if (token == XContentParser.Token.VALUE_BOOLEAN) {
+                vector.appendBoolean(parser.booleanValue());
+            } else if (token == XContentParser.Token.VALUE_STRING) {
+                vector.appendString(parser.text());
+            } else if (token.isValue()) {
+                vector.appendObject(ProtoUtils.parseFieldsValue(parser));
+            } else {
+                throw new IllegalStateException("expected value but got [" + token + "]");
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * The type the values are stored as, {@link Type#OBJECT} for a column of null values only.
+     */
+    public Type type() {
+        return type == null ? Type.OBJECT : type;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isNull(int index) {
+        return nulls.get(index);
+    }
+
+    /**
+     * The value at the given position, boxed if it is stored as a primitive.
+     */
+    public Object get(int index) {
+        if (nulls.get(index)) {
+            return null;
+        }
+        switch (type) {
+            case LONG:
+                return longs[index];
+            case DOUBLE:
+                return doubles[index];
+            case BOOLEAN:
+                return booleans[index];
+            default:
+                return objects[index];
+        }
+    }
+
+    public long getLong(int index) {
+        assert type == Type.LONG : "not a column of longs but of " + type;
+        return longs[index];
+    }
+
+    public double getDouble(int index) {
+        assert type == Type.DOUBLE : "not a column of doubles but of " + type;
+        return doubles[index];
+    }
+
+    public boolean getBoolean(int index) {
+        assert type == Type.BOOLEAN : "not a column of booleans but of " + type;
+        return booleans[index];
+    }
+
+    void appendNull() {
+        nulls.set(size);
+        if (type != null) {
+            ensureCapacity();
+        }
+        size++;
+    }
+
+    void appendLong(long value) {
+        if (prepareAppend(Type.LONG)) {
+            longs[size++] = value;
+        } else {
+            objects[size++] = value;
+        }
+    }
+
+    void appendDouble(double value) {
+        if (prepareAppend(Type.DOUBLE)) {
+            doubles[size++] = value;
+        } else {
+            objects[size++] = value;
+        }
+    }
+
+    void appendBoolean(boolean value) {
+        if (prepareAppend(Type.BOOLEAN)) {
+            booleans[size++] = value;
+        } else {
+            objects[size++] = value;
+        }
+    }
+
+    void appendString(String value) {
+        prepareAppend(Type.OBJECT);
+        if (dictionary == null) {
+            dictionary = new HashMap<>();
+        }
+        String existing = dictionary.get(value);
+        if (existing != null) {
+            value = existing;
+        } else if (dictionary.size() < MAX_DICTIONARY_SIZE) {
+            dictionary.put(value, value);
+        }
+        objects[size++] = value;
+    }
+
+    void appendObject(Object value) {
+        prepareAppend(Type.OBJECT);
+        objects[size++] = value;
+    }
+
+    /**
+     * Makes room for a value of the given type, returning whether it can be stored unboxed.
+     */
+    private boolean prepareAppend(Type valueType) {
+        if (type == null) {
+            type = valueType;
+            allocate(Math.max(INITIAL_CAPACITY, size + 1));
+        } else if (type != valueType && type != Type.OBJECT) {
+            boxValues();
+        }
+        ensureCapacity();
+        return type == valueType && type != Type.OBJECT;
+    }
+
+    // switches to storing the values as objects, when the column has values of different types
+    private void boxValues() {
+        Object[] boxed = new Object[Math.max(INITIAL_CAPACITY, size + 1)];
+        for (int i = 0; i < size; i++) {
+            boxed[i] = get(i);
+        }
+        longs = null;
+        doubles = null;
+        booleans = null;
+        objects = boxed;
+        type = Type.OBJECT;
+    }
+
+    private void allocate(int capacity) {
+        switch (type) {
+            case LONG:
+                longs = new long[capacity];
+                break;
+            case DOUBLE:
+                doubles = new double[capacity];
+                break;
+            case BOOLEAN:
+                booleans = new boolean[capacity];
+                break;
+            default:
+                objects = new Object[capacity];
+        }
+    }
+
+    private void ensureCapacity() {
+        switch (type) {
+            case LONG:
+                if (size == longs.length) {
+                    longs = Arrays.copyOf(longs, size << 1);
+                }
+                break;
+            case DOUBLE:
+                if (size == doubles.length) {
+                    doubles = Arrays.copyOf(doubles, size << 1);
+                }
+                break;
+            case BOOLEAN:
+                if (size == booleans.length) {
+                    booleans = Arrays.copyOf(booleans, size << 1);
+                }
+                break;
+            default:
+                if (size == objects.length) {
+                    objects = Arrays.copyOf(objects, size << 1);
+                }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ColumnVector that = (ColumnVector) o;
+        if (size != that.size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            Object value = get(i);
+            if (value == null ? that.get(i) != null : value.equals(that.get(i)) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            Object value = get(i);
+            hash = 31 * hash + (value == null ? 0 : value.hashCode());
+        }
+        return hash;
+    }
+}
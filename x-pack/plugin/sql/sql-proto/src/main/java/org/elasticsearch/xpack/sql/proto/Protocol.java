@@ -46,6 +46,7 @@ public final class Protocol {
     // responses
     public static final String COLUMNS_NAME = "columns";
     public static final String ROWS_NAME = "rows";
+    public static final String VALUES_NAME = "values";
     // responses async
     public static final String ID_NAME = "id";
     public static final String IS_PARTIAL_NAME = "is_partial";
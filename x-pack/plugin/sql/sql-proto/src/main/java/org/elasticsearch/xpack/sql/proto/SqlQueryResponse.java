@@ -13,11 +13,11 @@ import org.elasticsearch.common.xcontent.ObjectParser.ValueType;
 import org.elasticsearch.common.xcontent.XContentParser;
 
 import java.io.IOException;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
 import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
 import static org.elasticsearch.xpack.sql.proto.Protocol.COLUMNS_NAME;
 import static org.elasticsearch.xpack.sql.proto.Protocol.CURSOR_NAME;
@@ -25,6 +25,7 @@ import static org.elasticsearch.xpack.sql.proto.Protocol.ID_NAME;
 import static org.elasticsearch.xpack.sql.proto.Protocol.IS_PARTIAL_NAME;
 import static org.elasticsearch.xpack.sql.proto.Protocol.IS_RUNNING_NAME;
 import static org.elasticsearch.xpack.sql.proto.Protocol.ROWS_NAME;
+import static org.elasticsearch.xpack.sql.proto.Protocol.VALUES_NAME;
 
 /**
  * Response to perform an sql query for JDBC/CLI client
@@ -39,7 +40,8 @@ public class SqlQueryResponse {
                     (List<List<Object>>) objects[2],
                     (String) objects[3],
                     objects[4] != null && (boolean) objects[4],
-                    objects[5] != null && (boolean) objects[5]));
+                    objects[5] != null && (boolean) objects[5],
+                    (List<ColumnVector>) objects[6]));
 
     public static final ParseField CURSOR = new ParseField(CURSOR_NAME);
     public static final ParseField COLUMNS = new ParseField(COLUMNS_NAME);
@@ -47,14 +49,16 @@ public class SqlQueryResponse {
     public static final ParseField ID = new ParseField(ID_NAME);
     public static final ParseField IS_PARTIAL = new ParseField(IS_PARTIAL_NAME);
     public static final ParseField IS_RUNNING = new ParseField(IS_RUNNING_NAME);
+    public static final ParseField VALUES = new ParseField(VALUES_NAME);
 
     static {
         PARSER.declareString(optionalConstructorArg(), CURSOR);
         PARSER.declareObjectArray(optionalConstructorArg(), (p, c) -> ColumnInfo.fromXContent(p), COLUMNS);
-        PARSER.declareField(constructorArg(), (p, c) -> parseRows(p), ROWS, ValueType.OBJECT_ARRAY);
+        PARSER.declareField(optionalConstructorArg(), (p, c) -> parseRows(p), ROWS, ValueType.OBJECT_ARRAY);
         PARSER.declareString(optionalConstructorArg(), ID);
         PARSER.declareBoolean(optionalConstructorArg(), IS_PARTIAL);
         PARSER.declareBoolean(optionalConstructorArg(), IS_RUNNING);
+        PARSER.declareField(optionalConstructorArg(), (p, c) -> parseValues(p), VALUES, ValueType.OBJECT_ARRAY);
     }
 
     // TODO: Simplify cursor handling
@@ -62,6 +66,8 @@ public class SqlQueryResponse {
     private final List<ColumnInfo> columns;
     // TODO investigate reusing Page here - it probably is much more efficient
     private final List<List<Object>> rows;
+    // the results of a columnar request, in place of the rows
+    private final @Nullable List<ColumnVector> values;
     // async
     private final @Nullable String asyncExecutionId;
     private final boolean isPartial;
@@ -73,9 +79,18 @@ public class SqlQueryResponse {
 
     public SqlQueryResponse(String cursor, @Nullable List<ColumnInfo> columns, List<List<Object>> rows, String asyncExecutionId,
                             boolean isPartial, boolean isRunning) {
+        this(cursor, columns, rows, asyncExecutionId, isPartial, isRunning, null);
+    }
+
+    public SqlQueryResponse(String cursor, @Nullable List<ColumnInfo> columns, @Nullable List<List<Object>> rows, String asyncExecutionId,
+                            boolean isPartial, boolean isRunning, @Nullable List<ColumnVector> values) {
+        if (rows == null && values == null) {
+            throw new IllegalArgumentException("Required one of fields [" + ROWS_NAME + ", " + VALUES_NAME + "], but none were specified.");
+        }
         this.cursor = cursor;
         this.columns = columns;
         this.rows = rows;
+        this.values = values;
         this.asyncExecutionId = asyncExecutionId;
         this.isPartial = isPartial;
         this.isRunning = isRunning;
@@ -90,15 +105,29 @@ public class SqlQueryResponse {
     }
 
     public long size() {
-        return rows.size();
+        return rows != null ? rows.size() : columnarSize(values);
     }
 
     public List<ColumnInfo> columns() {
         return columns;
     }
 
+    /**
+     * The rows of the results, as received or, for a columnar response, as a view over its {@link #values()}.
+     */
     public List<List<Object>> rows() {
-        return rows;
+        return rows != null ? rows : new ColumnarRows(values);
+    }
+
+    /**
+     * The values of each column of the results, {@code null} unless the server answered in the columnar format.
+     */
+    public @Nullable List<ColumnVector> values() {
+        return values;
+    }
+
+    public boolean isColumnar() {
+        return rows == null;
     }
 
     public String id() {
@@ -129,6 +158,18 @@ public class SqlQueryResponse {
         return list;
     }
 
+    public static List<ColumnVector> parseValues(XContentParser parser) throws IOException {
+        List<ColumnVector> list = new ArrayList<>();
+        while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
+            if (parser.currentToken() == XContentParser.Token.START_ARRAY) {
+                list.add(ColumnVector.parse(parser));
+            } else {
+                throw new IllegalStateException("expected start array but got [" + parser.currentToken() + "]");
+            }
+        }
+        return list;
+    }
+
     public static List<Object> parseRow(XContentParser parser) throws IOException {
         List<Object> list = new ArrayList<>();
         while (parser.nextToken() != XContentParser.Token.END_ARRAY) {
@@ -151,6 +192,7 @@ public class SqlQueryResponse {
         return Objects.equals(cursor, that.cursor) &&
                 Objects.equals(columns, that.columns) &&
                 Objects.equals(rows, that.rows) &&
+                Objects.equals(values, that.values) &&
                 Objects.equals(asyncExecutionId, that.asyncExecutionId) &&
                 isPartial == that.isPartial &&
                 isRunning == that.isRunning;
@@ -158,7 +200,47 @@ public class SqlQueryResponse {
 
     @Override
     public int hashCode() {
-        return Objects.hash(cursor, columns, rows, asyncExecutionId, isPartial, isRunning);
+        return Objects.hash(cursor, columns, rows, values, asyncExecutionId, isPartial, isRunning);
+    }
+
+    private static int columnarSize(List<ColumnVector> values) {
+        return values.isEmpty() ? 0 : values.get(0).size();
+    }
+
+    /**
+     * Row-oriented view over the columns of a columnar response, for the callers that consume the results row by row.
+     */
+    private static class ColumnarRows extends AbstractList<List<Object>> {
+        private final List<ColumnVector> values;
+        private final int size;
+
+        ColumnarRows(List<ColumnVector> values) {
+            this.values = values;
+            this.size = columnarSize(values);
+        }
+
+        @Override
+        public List<Object> get(int row) {
+            if (row < 0 || row >= size) {
+                throw new IndexOutOfBoundsException("Index: " + row + ", Size: " + size);
+            }
+            return new AbstractList<Object>() {
+                @Override
+                public Object get(int column) {
+                    return values.get(column).get(row);
+                }
+
+                @Override
+                public int size() {
+                    return values.size();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
     }
 
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.sql.proto;
+
+import org.elasticsearch.common.xcontent.DeprecationHandler;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+public class ColumnVectorTests extends ESTestCase {
+
+    public void testLongs() throws IOException {
+        ColumnVector vector = parse("[1, null, 3, 5000000000]");
+        assertEquals(ColumnVector.Type.LONG, vector.type());
+        assertEquals(4, vector.size());
+        assertEquals(1L, vector.getLong(0));
+        assertTrue(vector.isNull(1));
+        assertNull(vector.get(1));
+        assertEquals(5000000000L, vector.getLong(3));
+        assertEquals(3L, vector.get(2));
+    }
+
+    public void testDoubles() throws IOException {
+        ColumnVector vector = parse("[null, 1.5, -2.25]");
+        assertEquals(ColumnVector.Type.DOUBLE, vector.type());
+        assertTrue(vector.isNull(0));
+        assertEquals(1.5, vector.getDouble(1), 0d);
+        assertEquals(-2.25, vector.get(2));
+    }
+
+    public void testBooleans() throws IOException {
+        ColumnVector vector = parse("[true, false, null]");
+        assertEquals(ColumnVector.Type.BOOLEAN, vector.type());
+        assertTrue(vector.getBoolean(0));
+        assertFalse(vector.getBoolean(1));
+        assertTrue(vector.isNull(2));
+    }
+
+    public void testNullsOnly() throws IOException {
+        ColumnVector vector = parse("[null, null]");
+        assertEquals(ColumnVector.Type.OBJECT, vector.type());
+        assertEquals(2, vector.size());
+        assertNull(vector.get(0));
+        assertNull(vector.get(1));
+    }
+
+    public void testMixedTypesAreBoxed() throws IOException {
+        ColumnVector vector = parse("[1, null, 2.5, \"three\"]");
+        assertEquals(ColumnVector.Type.OBJECT, vector.type());
+        assertEquals(1L, vector.get(0));
+        assertNull(vector.get(1));
+        assertEquals(2.5, vector.get(2));
+        assertEquals("three", vector.get(3));
+    }
+
+    public void testRepeatedStringsAreShared() throws IOException {
+        ColumnVector vector = parse("[\"a\", \"b\", \"a\"]");
+        assertEquals(ColumnVector.Type.OBJECT, vector.type());
+        assertSame(vector.get(0), vector.get(2));
+        assertEquals("b", vector.get(1));
+    }
+
+    public void testGrowth() throws IOException {
+        int size = between(17, 500);
+        StringBuilder json = new StringBuilder("[");
+        Long[] expected = new Long[size];
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            if (randomBoolean()) {
+                json.append("null");
+            } else {
+                expected[i] = randomLong();
+                json.append(expected[i]);
+            }
+        }
+        ColumnVector vector = parse(json.append(']').toString());
+        assertEquals(size, vector.size());
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected[i], vector.get(i));
+        }
+    }
+
+    public void testColumnarResponse() throws IOException {
+        String json = "{\"columns\":[{\"name\":\"a\",\"type\":\"long\"},{\"name\":\"b\",\"type\":\"keyword\"}],"
+            + "\"values\":[[1, 2],[\"x\", null]],\"cursor\":\"c\"}";
+        try (XContentParser parser = parser(json)) {
+            SqlQueryResponse response = SqlQueryResponse.fromXContent(parser);
+            assertTrue(response.isColumnar());
+            assertEquals("c", response.cursor());
+            assertEquals(2, response.size());
+            assertEquals(2, response.values().size());
+            List<List<Object>> rows = response.rows();
+            assertEquals(2, rows.size());
+            assertEquals(Arrays.asList(1L, "x"), rows.get(0));
+            assertEquals(Arrays.asList(2L, null), rows.get(1));
+        }
+    }
+
+    private static ColumnVector parse(String json) throws IOException {
+        try (XContentParser parser = parser(json)) {
+            assertEquals(XContentParser.Token.START_ARRAY, parser.nextToken());
+            return ColumnVector.parse(parser);
+        }
+    }
+
+    private static XContentParser parser(String json) throws IOException {
+        return JsonXContent.jsonXContent.createParser(NamedXContentRegistry.EMPTY, DeprecationHandler.THROW_UNSUPPORTED_OPERATION, json);
+    }
+}
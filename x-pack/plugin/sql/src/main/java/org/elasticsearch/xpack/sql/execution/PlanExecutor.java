@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.sql.execution;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
@@ -31,6 +32,7 @@ import org.elasticsearch.xpack.sql.stats.Metrics;
 import org.elasticsearch.xpack.sql.stats.QueryMetric;
 
 import java.util.List;
+import java.util.function.Supplier;
 
 import static org.elasticsearch.action.ActionListener.wrap;
 
@@ -48,8 +50,16 @@ public class PlanExecutor {
 
     private final Metrics metrics;
 
+    private final Supplier<Version> minNodeVersion;
+
     public PlanExecutor(Client client, IndexResolver indexResolver, NamedWriteableRegistry writeableRegistry) {
+        this(client, indexResolver, writeableRegistry, () -> Version.CURRENT);
+    }
+
+    public PlanExecutor(Client client, IndexResolver indexResolver, NamedWriteableRegistry writeableRegistry,
+            Supplier<Version> minNodeVersion) {
         this.client = client;
+        this.minNodeVersion = minNodeVersion;
         this.writableRegistry = writeableRegistry;
 
         this.indexResolver = indexResolver;
@@ -63,6 +73,13 @@ public class PlanExecutor {
         this.planner = new Planner();
     }
 
+    /**
+     * The version of the oldest node of the cluster, which the searches have to be understood by.
+     */
+    public Version minNodeVersion() {
+        return minNodeVersion.get();
+    }
+
     private SqlSession newSession(SqlConfiguration cfg) {
         return new SqlSession(cfg, client, functionRegistry, indexResolver, preAnalyzer, verifier, optimizer, planner, this);
     }
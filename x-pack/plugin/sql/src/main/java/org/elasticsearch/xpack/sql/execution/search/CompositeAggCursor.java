@@ -245,7 +245,7 @@ public class CompositeAggCursor implements Cursor {
     /**
      * Deserializes the search source from a byte array.
      */
-    private static SearchSourceBuilder deserializeQuery(NamedWriteableRegistry registry, byte[] source) throws IOException {
+    static SearchSourceBuilder deserializeQuery(NamedWriteableRegistry registry, byte[] source) throws IOException {
         try (NamedWriteableAwareStreamInput in = new NamedWriteableAwareStreamInput(StreamInput.wrap(source), registry)) {
             return new SearchSourceBuilder(in);
         }
@@ -254,7 +254,7 @@ public class CompositeAggCursor implements Cursor {
     /**
      * Serializes the search source to a byte array.
      */
-    private static byte[] serializeQuery(SearchSourceBuilder source) throws IOException {
+    static byte[] serializeQuery(SearchSourceBuilder source) throws IOException {
         if (source == null) {
             return new byte[0];
         }
@@ -0,0 +1,335 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.sql.execution.search;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
+import org.elasticsearch.action.search.MultiSearchRequest;
+import org.elasticsearch.action.search.MultiSearchResponse;
+import org.elasticsearch.action.search.OpenPointInTimeAction;
+import org.elasticsearch.action.search.OpenPointInTimeRequest;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.client.Client;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.CollectionUtils;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.builder.PointInTimeBuilder;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.slice.SliceBuilder;
+import org.elasticsearch.search.sort.SortBuilder;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.xpack.ql.execution.search.extractor.HitExtractor;
+import org.elasticsearch.xpack.ql.type.Schema;
+import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
+import org.elasticsearch.xpack.sql.session.Cursor;
+import org.elasticsearch.xpack.sql.session.Rows;
+import org.elasticsearch.xpack.sql.session.SqlConfiguration;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BiFunction;
+
+import static org.elasticsearch.action.ActionListener.wrap;
+import static org.elasticsearch.xpack.ql.execution.search.QlSourceBuilder.SWITCH_TO_FIELDS_API_VERSION;
+import static org.elasticsearch.xpack.sql.execution.search.CompositeAggCursor.deserializeQuery;
+import static org.elasticsearch.xpack.sql.execution.search.CompositeAggCursor.serializeQuery;
+
+/**
+ * Cursor for non-grouped queries that return the documents in no particular order.
+ * Instead of scrolling, it searches a point in time of the indices in slices that are fetched in parallel,
+ * each slice resuming from its last hit through {@code search_after} on the {@code _shard_doc} order.
+ * A page holds the hits of all slices.
+ */
+public class PointInTimeCursor implements Cursor {
+
+    private static final Logger log = LogManager.getLogger(PointInTimeCursor.class);
+
+    public static final String NAME = "pit";
+
+    // points in time exist since 7.10, but can only be searched after their _shard_doc tiebreaker since 7.12
+    static final Version MIN_NODE_VERSION = Version.V_7_12_0;
+
+    // the maximum number of slices searched in parallel
+    static final int MAX_SLICES = 4;
+    // the minimum number of hits of a slice in a page, under which it is not worth slicing
+    static final int MIN_SLICE_SIZE = 250;
+
+    private static final Object[] NOT_STARTED = new Object[0];
+
+    private final String pitId;
+    private final byte[] query;
+    // the sort values to search each slice after, null once a slice has no more hits
+    private final Object[][] searchAfter;
+    private final List<HitExtractor> extractors;
+    private final BitSet mask;
+    private final int limit;
+
+    PointInTimeCursor(String pitId, byte[] query, Object[][] searchAfter, List<HitExtractor> extractors, BitSet mask, int limit) {
+        this.pitId = pitId;
+        this.query = query;
+        this.searchAfter = searchAfter;
+        this.extractors = extractors;
+        this.mask = mask;
+        this.limit = limit;
+    }
+
+    public PointInTimeCursor(StreamInput in) throws IOException {
+        pitId = in.readString();
+        query = in.readByteArray();
+        searchAfter = new Object[in.readVInt()][];
+        for (int i = 0; i < searchAfter.length; i++) {
+            searchAfter[i] = (Object[]) in.readGenericValue();
+        }
+        limit = in.readVInt();
+
+        extractors = in.readNamedWriteableList(HitExtractor.class);
+        mask = BitSet.valueOf(in.readByteArray());
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeString(pitId);
+        out.writeByteArray(query);
+        out.writeVInt(searchAfter.length);
+        for (Object[] values : searchAfter) {
+            out.writeGenericValue(values);
+        }
+        out.writeVInt(limit);
+
+        out.writeNamedWriteableList(extractors);
+        out.writeByteArray(mask.toByteArray());
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    String pitId() {
+        return pitId;
+    }
+
+    byte[] query() {
+        return query;
+    }
+
+    Object[][] searchAfter() {
+        return searchAfter;
+    }
+
+    BitSet mask() {
+        return mask;
+    }
+
+    List<HitExtractor> extractors() {
+        return extractors;
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    /**
+     * Whether the documents of the query can be returned in any order, hence searched in slices of a point in time.
+     */
+    static boolean isUnordered(SearchSourceBuilder source) {
+        List<SortBuilder<?>> sorts = source.sorts();
+        return source.aggregations() == null
+            && sorts != null
+            && sorts.size() == 1
+            && sorts.get(0).equals(SortBuilders.fieldSort("_doc"));
+    }
+
+    /**
+     * The number of slices to search a page of the given size in.
+     */
+    static int slices(int pageSize) {
+        return Math.max(1, Math.min(MAX_SLICES, pageSize / MIN_SLICE_SIZE));
+    }
+
+    /**
+     * Opens a point in time of the indices of the request, then searches the first page of its slices.
+     */
+    static void openAndSearch(Client client, SqlConfiguration cfg, SearchRequest search, List<HitExtractor> extractors, BitSet mask,
+            int limit, Schema schema, ActionListener<Page> listener) {
+        SearchSourceBuilder source = search.source();
+        // the point in time tiebreaker is the cheapest order to resume the searches from
+        source.sort(new ArrayList<>(Collections.singletonList(SortBuilders.pitTiebreaker())));
+        int slices = slices(source.size());
+        if (slices > 1) {
+            source.size((source.size() + slices - 1) / slices);
+        }
+
+        byte[] query;
+        try {
+            query = serializeQuery(source);
+        } catch (IOException ex) {
+            listener.onFailure(ex);
+            return;
+        }
+
+        OpenPointInTimeRequest request = new OpenPointInTimeRequest(search.indices())
+            .indicesOptions(search.indicesOptions())
+            .keepAlive(cfg.pageTimeout());
+        client.execute(OpenPointInTimeAction.INSTANCE, request, wrap(r -> {
+            Object[][] searchAfter = new Object[slices][];
+            Arrays.fill(searchAfter, NOT_STARTED);
+            PointInTimeCursor cursor = new PointInTimeCursor(r.getPointInTimeId(), query, searchAfter, extractors, mask, limit);
+            // the first searches keep the point in time alive for as long as it was opened for
+            cursor.search(client, source, null,
+                (hits, moreHits) -> new SchemaSearchHitRowSet(schema, extractors, mask, limit, hits, moreHits), schema, listener);
+        }, listener::onFailure));
+    }
+
+    @Override
+    public void nextPage(SqlConfiguration cfg, Client client, NamedWriteableRegistry registry, ActionListener<Page> listener) {
+        if (log.isTraceEnabled()) {
+            log.trace("About to execute point in time query {}", pitId);
+        }
+
+        SearchSourceBuilder source;
+        try {
+            source = deserializeQuery(registry, query);
+        } catch (Exception ex) {
+            listener.onFailure(ex);
+            return;
+        }
+
+        search(client, source, cfg.pageTimeout(),
+            (hits, moreHits) -> new SearchHitRowSet(extractors, mask, limit, hits, moreHits), Schema.EMPTY, listener);
+    }
+
+    private void search(Client client, SearchSourceBuilder source, @Nullable TimeValue keepAlive,
+            BiFunction<SearchHit[], Boolean, SearchHitRowSet> makeRowSet, Schema schema, ActionListener<Page> listener) {
+        MultiSearchRequest request = new MultiSearchRequest().maxConcurrentSearchRequests(searchAfter.length);
+        List<Integer> slices = new ArrayList<>(searchAfter.length);
+        for (int slice = 0; slice < searchAfter.length; slice++) {
+            if (searchAfter[slice] == null) {
+                continue;
+            }
+            SearchSourceBuilder sliceSource = source.shallowCopy()
+                .pointInTimeBuilder(new PointInTimeBuilder(pitId).setKeepAlive(keepAlive));
+            if (searchAfter.length > 1) {
+                sliceSource.slice(new SliceBuilder(slice, searchAfter.length));
+            }
+            if (searchAfter[slice].length > 0) {
+                sliceSource.searchAfter(searchAfter[slice]);
+            }
+            request.add(new SearchRequest(SWITCH_TO_FIELDS_API_VERSION).source(sliceSource).allowPartialSearchResults(false));
+            slices.add(slice);
+        }
+
+        client.multiSearch(request, wrap(response -> {
+            try {
+                handle(client, response, slices, source.size(), makeRowSet, schema, listener);
+            } catch (Exception ex) {
+                cleanup(client, pitId, ex, listener);
+            }
+        }, ex -> cleanup(client, pitId, ex, listener)));
+    }
+
+    private void handle(Client client, MultiSearchResponse response, List<Integer> slices, int sliceSize,
+            BiFunction<SearchHit[], Boolean, SearchHitRowSet> makeRowSet, Schema schema, ActionListener<Page> listener) throws Exception {
+        String nextPitId = pitId;
+        Object[][] nextSearchAfter = new Object[searchAfter.length][];
+        List<SearchHit> hits = new ArrayList<>();
+        boolean moreHits = false;
+
+        MultiSearchResponse.Item[] items = response.getResponses();
+        for (int i = 0; i < items.length; i++) {
+            if (items[i].isFailure()) {
+                throw items[i].getFailure();
+            }
+            SearchResponse sliceResponse = items[i].getResponse();
+            if (log.isTraceEnabled()) {
+                Querier.logSearchResponse(sliceResponse, log);
+            }
+            ShardSearchFailure[] failure = sliceResponse.getShardFailures();
+            if (CollectionUtils.isEmpty(failure) == false) {
+                throw new SqlIllegalArgumentException(failure[0].reason(), failure[0].getCause());
+            }
+            if (sliceResponse.pointInTimeId() != null) {
+                nextPitId = sliceResponse.pointInTimeId();
+            }
+
+            SearchHit[] sliceHits = sliceResponse.getHits().getHits();
+            Collections.addAll(hits, sliceHits);
+            // a slice that returns less hits than requested has no more
+            if (sliceHits.length == sliceSize) {
+                nextSearchAfter[slices.get(i)] = sliceHits[sliceHits.length - 1].getSortValues();
+                moreHits = true;
+            }
+        }
+
+        SearchHitRowSet rowSet = makeRowSet.apply(hits.toArray(new SearchHit[0]), moreHits);
+        if (rowSet.hasMoreData()) {
+            Cursor next = new PointInTimeCursor(nextPitId, query, nextSearchAfter, extractors, mask, rowSet.remainingLimit());
+            listener.onResponse(new Page(rowSet, next));
+        } else {
+            // no more data, let's close the point in time before continuing
+            Page last = hits.isEmpty() ? Page.last(Rows.empty(schema)) : Page.last(rowSet);
+            closePointInTime(client, nextPitId, wrap(success -> listener.onResponse(last), listener::onFailure));
+        }
+    }
+
+    @Override
+    public void clear(SqlConfiguration cfg, Client client, ActionListener<Boolean> listener) {
+        closePointInTime(client, pitId, listener);
+    }
+
+    // close the point in time in case of exception, reporting the initial exception
+    private static void cleanup(Client client, String pitId, Exception ex, ActionListener<Page> listener) {
+        closePointInTime(client, pitId, wrap(success -> listener.onFailure(ex), e -> {
+            ex.addSuppressed(e);
+            listener.onFailure(ex);
+        }));
+    }
+
+    static void closePointInTime(Client client, String pitId, ActionListener<Boolean> listener) {
+        client.execute(ClosePointInTimeAction.INSTANCE, new ClosePointInTimeRequest(pitId),
+            wrap(r -> listener.onResponse(r.isSucceeded()), listener::onFailure));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        PointInTimeCursor other = (PointInTimeCursor) obj;
+        return Objects.equals(pitId, other.pitId)
+                && Arrays.equals(query, other.query)
+                && Arrays.deepEquals(searchAfter, other.searchAfter)
+                && Objects.equals(extractors, other.extractors)
+                && Objects.equals(mask, other.mask)
+                && limit == other.limit;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(pitId, Arrays.hashCode(query), Arrays.deepHashCode(searchAfter), extractors, mask, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "cursor for point in time [" + pitId + "]";
+    }
+}
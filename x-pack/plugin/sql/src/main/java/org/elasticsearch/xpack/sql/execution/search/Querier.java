@@ -21,11 +21,15 @@ import org.elasticsearch.core.TimeValue;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.license.RemoteClusterLicenseChecker;
 import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
 import org.elasticsearch.search.aggregations.bucket.filter.Filters;
+import org.elasticsearch.search.aggregations.bucket.missing.Missing;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.builder.SearchSourceBuilder;
 import org.elasticsearch.tasks.TaskCancelledException;
 import org.elasticsearch.xpack.ql.execution.search.FieldExtraction;
@@ -40,6 +44,7 @@ import org.elasticsearch.xpack.ql.expression.gen.pipeline.HitExtractorInput;
 import org.elasticsearch.xpack.ql.expression.gen.pipeline.Pipe;
 import org.elasticsearch.xpack.ql.expression.gen.pipeline.ReferenceInput;
 import org.elasticsearch.xpack.ql.index.IndexResolver;
+import org.elasticsearch.xpack.ql.querydsl.container.Sort;
 import org.elasticsearch.xpack.ql.type.Schema;
 import org.elasticsearch.xpack.ql.util.StringUtils;
 import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
@@ -71,6 +76,7 @@ import org.elasticsearch.xpack.sql.session.SqlSession;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
@@ -81,10 +87,14 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 import static java.util.Collections.singletonList;
 import static org.elasticsearch.action.ActionListener.wrap;
+import static org.elasticsearch.index.query.QueryBuilders.boolQuery;
+import static org.elasticsearch.index.query.QueryBuilders.existsQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termsQuery;
 import static org.elasticsearch.xpack.ql.execution.search.QlSourceBuilder.SWITCH_TO_FIELDS_API_VERSION;
 
 // TODO: add retry/back-off
@@ -140,7 +150,7 @@ public class Querier {
             } else {
                 l = new CompositeActionListener(listener, client, cfg, output, query, search);
             }
-        } else {
+        } else if (usePointInTime(sourceBuilder, search) == false) {
             search.scroll(keepAlive);
             l = new ScrollActionListener(listener, client, cfg, output, query);
         }
@@ -149,7 +159,84 @@ public class Querier {
             listener.onFailure(new TaskCancelledException("cancelled"));
             return;
         }
-        client.search(search, l);
+        if (l instanceof CompositeActionListener && query.topGroupsAggId() != null) {
+            searchTopGroups(output, query, search, listener);
+        } else if (l != null) {
+            client.search(search, l);
+        } else {
+            // documents returned in no particular order are fetched in parallel slices of a point in time instead of a scroll
+            List<HitExtractor> exts;
+            try {
+                exts = ScrollActionListener.createExtractors(query, cfg);
+            } catch (Exception ex) {
+                listener.onFailure(ex);
+                return;
+            }
+            PointInTimeCursor.openAndSearch(client, cfg, search, exts, query.columnMask(output), query.limit(), Rows.schema(output),
+                listener);
+        }
+    }
+
+    /**
+     * Whether the documents of the search can be fetched through a point in time rather than a scroll: they have to be returned in
+     * no particular order, all the nodes have to support points in time and the indices have to be local, a point in time not being
+     * resumable across clusters.
+     */
+    private boolean usePointInTime(SearchSourceBuilder sourceBuilder, SearchRequest search) {
+        return PointInTimeCursor.isUnordered(sourceBuilder)
+            && planExecutor.minNodeVersion().onOrAfter(PointInTimeCursor.MIN_NODE_VERSION)
+            && RemoteClusterLicenseChecker.containsRemoteIndex(Arrays.asList(search.indices())) == false;
+    }
+
+    /**
+     * Determines the groups with the highest maxima (or lowest minima) first, through a terms aggregation, and then
+     * runs the aggregation of the query on these groups only, for them to be sorted locally.
+     */
+    private void searchTopGroups(List<Attribute> output, QueryContainer query, SearchRequest search, ActionListener<Page> listener) {
+        String aggId = query.topGroupsAggId();
+        Sort.Direction direction = query.sort().get(aggId).direction();
+        String field = query.aggs().groups().get(0).source().fieldName();
+
+        SearchSourceBuilder topGroupsSource = new SearchSourceBuilder()
+            .query(search.source().query())
+            .runtimeMappings(search.source().runtimeMappings())
+            .size(0)
+            .trackTotalHits(false);
+        for (AggregationBuilder agg : query.aggs().asTopGroupsAggBuilders(aggId, direction, query.limit())) {
+            topGroupsSource.aggregation(agg);
+        }
+        SearchRequest topGroupsSearch = prepareRequest(client, topGroupsSource, timeout, query.shouldIncludeFrozen(), search.indices());
+
+        // the top groups may exceed the limits of the cluster on buckets or terms, in which case all the groups are sorted locally
+        Consumer<Exception> fallback = ex -> {
+            if (ex instanceof TaskCancelledException) {
+                listener.onFailure(ex);
+                return;
+            }
+            log.debug("Cannot narrow the groups down to the top ones, falling back to sorting all the groups", ex);
+            client.search(search, new CompositeActionListener(listener, client, cfg, output, query, search));
+        };
+
+        client.search(topGroupsSearch, wrap(response -> {
+            Terms topGroups = response.getAggregations().get(Aggs.TOP_GROUPS_NAME);
+            List<String> keys = new ArrayList<>(topGroups.getBuckets().size());
+            for (Terms.Bucket bucket : topGroups.getBuckets()) {
+                // the keys are used as formatted by the field
+                keys.add(bucket.getKeyAsString());
+            }
+            QueryBuilder groupsFilter = termsQuery(field, keys);
+            Missing missing = response.getAggregations().get(Aggs.TOP_GROUPS_MISSING_NAME);
+            if (missing.getDocCount() > 0) {
+                groupsFilter = boolQuery().should(groupsFilter).should(boolQuery().mustNot(existsQuery(field)));
+            }
+
+            SearchSourceBuilder source = search.source().shallowCopy();
+            QueryBuilder q = source.query();
+            source.query(q == null ? boolQuery().filter(groupsFilter) : boolQuery().must(q).filter(groupsFilter));
+            SearchRequest groupsSearch = prepareRequest(client, source, timeout, query.shouldIncludeFrozen(), search.indices());
+            ActionListener<Page> groupsListener = listener.delegateResponse((l, ex) -> fallback.accept(ex));
+            client.search(groupsSearch, new CompositeActionListener(groupsListener, client, cfg, output, query, groupsSearch));
+        }, fallback::accept));
     }
 
     public static SearchRequest prepareRequest(Client client, SearchSourceBuilder source, TimeValue timeout, boolean includeFrozen,
@@ -464,32 +551,36 @@ public class Querier {
     static class ScrollActionListener extends BaseActionListener {
         private final QueryContainer query;
         private final BitSet mask;
-        private final boolean multiValueFieldLeniency;
 
         ScrollActionListener(ActionListener<Page> listener, Client client, SqlConfiguration cfg, List<Attribute> output,
                 QueryContainer query) {
             super(listener, client, cfg, output);
             this.query = query;
             this.mask = query.columnMask(output);
-            this.multiValueFieldLeniency = cfg.multiValueFieldLeniency();
         }
 
         @Override
         protected void handleResponse(SearchResponse response, ActionListener<Page> listener) {
             // create response extractors for the first time
+            List<HitExtractor> exts = createExtractors(query, cfg);
+
+            ScrollCursor.handle(response, () -> new SchemaSearchHitRowSet(schema, exts, mask, query.limit(), response),
+                    p -> listener.onResponse(p),
+                    p -> clear(response.getScrollId(), wrap(success -> listener.onResponse(p), listener::onFailure)), schema);
+        }
+
+        static List<HitExtractor> createExtractors(QueryContainer query, SqlConfiguration cfg) {
             List<Tuple<FieldExtraction, String>> refs = query.fields();
 
             List<HitExtractor> exts = new ArrayList<>(refs.size());
             for (Tuple<FieldExtraction, String> ref : refs) {
-                exts.add(createExtractor(ref.v1()));
+                exts.add(createExtractor(ref.v1(), cfg));
             }
-
-            ScrollCursor.handle(response, () -> new SchemaSearchHitRowSet(schema, exts, mask, query.limit(), response),
-                    p -> listener.onResponse(p),
-                    p -> clear(response.getScrollId(), wrap(success -> listener.onResponse(p), listener::onFailure)), schema);
+            return exts;
         }
 
-        private HitExtractor createExtractor(FieldExtraction ref) {
+        private static HitExtractor createExtractor(FieldExtraction ref, SqlConfiguration cfg) {
+            boolean multiValueFieldLeniency = cfg.multiValueFieldLeniency();
             if (ref instanceof SearchHitFieldRef) {
                 SearchHitFieldRef f = (SearchHitFieldRef) ref;
                 return new FieldHitExtractor(f.name(), f.getDataType(), cfg.zoneId(), f.hitName(), multiValueFieldLeniency);
@@ -505,7 +596,7 @@ public class Querier {
                 // collect hitNames
                 Set<String> hitNames = new LinkedHashSet<>();
                 proc = proc.transformDown(ReferenceInput.class, l -> {
-                    HitExtractor he = createExtractor(l.context());
+                    HitExtractor he = createExtractor(l.context(), cfg);
                     hitNames.add(he.hitName());
 
                     if (hitNames.size() > 1) {
@@ -7,6 +7,7 @@
 package org.elasticsearch.xpack.sql.execution.search;
 
 import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.xpack.ql.execution.search.extractor.HitExtractor;
 import org.elasticsearch.xpack.ql.type.Schema;
 import org.elasticsearch.xpack.sql.session.SchemaRowSet;
@@ -15,7 +16,7 @@ import java.util.BitSet;
 import java.util.List;
 
 /**
- * Initial results from a scroll search. Distinct from the following pages
+ * Initial results from a scroll or point in time search. Distinct from the following pages
  * because it has a {@link Schema} available. See {@link SearchHitRowSet}
  * for the next pages.
  */
@@ -27,6 +28,11 @@ class SchemaSearchHitRowSet extends SearchHitRowSet implements SchemaRowSet {
         this.schema = schema;
     }
 
+    SchemaSearchHitRowSet(Schema schema, List<HitExtractor> exts, BitSet mask, int limitHits, SearchHit[] hits, boolean moreHits) {
+        super(exts, mask, limitHits, hits, moreHits);
+        this.schema = schema;
+    }
+
     @Override
     public Schema schema() {
         return schema;
@@ -37,14 +37,30 @@ class SearchHitRowSet extends ResultRowSet<HitExtractor> {
 
     private final int size;
     private final int[] indexPerLevel;
-    private final Tuple<String, Integer> nextScrollData;
+    private final String scrollId;
+    private final int remainingLimit;
+    private final boolean hasMoreData;
 
     private int row = 0;
 
     SearchHitRowSet(List<HitExtractor> exts, BitSet mask, int limit, SearchResponse response) {
+        // SearchResponse can contain a null scroll when you start a scroll but all results fit in the first page
+        this(exts, mask, limit, response.getHits().getHits(), response.getScrollId(),
+            response.getScrollId() != null && scrollHasMoreHits(response));
+    }
+
+    /**
+     * Creates a row set out of hits that were not necessarily returned by a single search, such as the hits of all the slices of a
+     * point in time search. {@code moreHits} indicates whether the searches have more hits past the given ones.
+     */
+    SearchHitRowSet(List<HitExtractor> exts, BitSet mask, int limit, SearchHit[] hits, boolean moreHits) {
+        this(exts, mask, limit, hits, null, moreHits);
+    }
+
+    private SearchHitRowSet(List<HitExtractor> exts, BitSet mask, int limit, SearchHit[] hits, String scrollId, boolean moreHits) {
         super(exts, mask);
 
-        this.hits = response.getHits().getHits();
+        this.hits = hits;
 
          // Since the results might contain nested docs, the iteration is similar to that of Aggregation
          // namely it discovers the nested docs and then, for iteration, increments the deepest level first
@@ -85,30 +101,22 @@ class SearchHitRowSet extends ResultRowSet<HitExtractor> {
         indexPerLevel = new int[maxDepth + 1];
         this.innerHit = innerHit;
 
-        String scrollId = response.getScrollId();
-
-        if (scrollId == null) {
-            /* SearchResponse can contain a null scroll when you start a
-             * scroll but all results fit in the first page. */
-            nextScrollData = null;
-        } else {
-            TotalHits totalHits = response.getHits().getTotalHits();
-
-            // compute remaining limit (only if the limit is specified - that is, positive).
-            int remainingLimit = limit < 0 ? limit : limit - size;
-            // if the computed limit is zero, or the size is zero it means either there's nothing left or the limit has been reached
-            if (size == 0 || remainingLimit == 0
-                // or the scroll has ended
-                || totalHits != null && totalHits.value == hits.length) {
-                nextScrollData = null;
-            } else {
-                nextScrollData = new Tuple<>(scrollId, remainingLimit);
-            }
-        }
+        this.scrollId = scrollId;
+
+        // compute remaining limit (only if the limit is specified - that is, positive).
+        remainingLimit = limit < 0 ? limit : limit - size;
+        // if the computed limit is zero, or the size is zero it means either there's nothing left or the limit has been reached
+        hasMoreData = moreHits && size != 0 && remainingLimit != 0;
+    }
+
+    private static boolean scrollHasMoreHits(SearchResponse response) {
+        TotalHits totalHits = response.getHits().getTotalHits();
+        // the scroll has ended if all hits fit in the response
+        return totalHits == null || totalHits.value != response.getHits().getHits().length;
     }
 
     protected boolean isLimitReached() {
-        return nextScrollData == null;
+        return hasMoreData == false;
     }
 
     @Override
@@ -221,6 +229,20 @@ class SearchHitRowSet extends ResultRowSet<HitExtractor> {
     }
 
     Tuple<String, Integer> nextScrollData() {
-        return nextScrollData;
+        return hasMoreData && scrollId != null ? new Tuple<>(scrollId, remainingLimit) : null;
+    }
+
+    /**
+     * Whether there are more hits to fetch after this page, within the limit.
+     */
+    boolean hasMoreData() {
+        return hasMoreData;
+    }
+
+    /**
+     * The limit left for the next pages, or a negative value if there is no limit.
+     */
+    int remainingLimit() {
+        return remainingLimit;
     }
 }
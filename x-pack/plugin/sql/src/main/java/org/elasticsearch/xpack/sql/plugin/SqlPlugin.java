@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.sql.plugin;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionResponse;
 import org.elasticsearch.client.Client;
@@ -86,15 +87,18 @@ public class SqlPlugin extends Plugin implements ActionPlugin {
                                                IndexNameExpressionResolver expressionResolver,
                                                Supplier<RepositoriesService> repositoriesServiceSupplier) {
 
-        return createComponents(client, clusterService.getClusterName().value(), namedWriteableRegistry);
+        return createComponents(client, clusterService.getClusterName().value(),
+            () -> clusterService.state().nodes().getMinNodeVersion(), namedWriteableRegistry);
     }
 
     /**
      * Create components used by the sql plugin.
      */
-    Collection<Object> createComponents(Client client, String clusterName, NamedWriteableRegistry namedWriteableRegistry) {
+    Collection<Object> createComponents(Client client, String clusterName, Supplier<Version> minNodeVersion,
+                                        NamedWriteableRegistry namedWriteableRegistry) {
         IndexResolver indexResolver = new IndexResolver(client, clusterName, SqlDataTypeRegistry.INSTANCE);
-        return Arrays.asList(sqlLicenseChecker, indexResolver, new PlanExecutor(client, indexResolver, namedWriteableRegistry));
+        return Arrays.asList(sqlLicenseChecker, indexResolver,
+            new PlanExecutor(client, indexResolver, namedWriteableRegistry, minNodeVersion));
     }
 
     @Override
@@ -7,14 +7,18 @@
 package org.elasticsearch.xpack.sql.querydsl.agg;
 
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.bucket.composite.CompositeAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.composite.CompositeValuesSourceBuilder;
 import org.elasticsearch.search.aggregations.bucket.filter.FiltersAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.xpack.ql.querydsl.container.Sort.Direction;
 import org.elasticsearch.xpack.ql.util.StringUtils;
 import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
@@ -39,6 +43,8 @@ import static org.elasticsearch.xpack.ql.util.CollectionUtils.combine;
 public class Aggs {
 
     public static final String ROOT_GROUP_NAME = "groupby";
+    public static final String TOP_GROUPS_NAME = "top_groups";
+    public static final String TOP_GROUPS_MISSING_NAME = "top_groups_missing";
 
     public static final GroupByKey IMPLICIT_GROUP_KEY = new GroupByKey(ROOT_GROUP_NAME, AggSource.of(StringUtils.EMPTY), null) {
 
@@ -102,6 +108,39 @@ public class Aggs {
         return rootGroup;
     }
 
+    /**
+     * Translates the single group into a terms aggregation returning its top {@code size} keys, ordered on the given
+     * aggregate, along with a sibling aggregation counting the documents of the group of the missing key.
+     * The group has to be field based and the aggregate one of its aggs.
+     */
+    public List<AggregationBuilder> asTopGroupsAggBuilders(String aggId, Direction direction, int size) {
+        String field = groups.get(0).source().fieldName();
+        LeafAgg agg = findAgg(aggId);
+        if (field == null || agg == null) {
+            throw new SqlIllegalArgumentException("Cannot determine the top groups ordered by {}", aggId);
+        }
+        // the default shard size is never below the requested size, which is all the top groups on MIN/MAX need to be exact
+        AggregationBuilder topGroups = new TermsAggregationBuilder(TOP_GROUPS_NAME)
+            .field(field)
+            .size(size)
+            .order(BucketOrder.aggregation(aggId, direction == Direction.ASC))
+            .subAggregation(agg.toBuilder());
+        return Arrays.asList(topGroups, new MissingAggregationBuilder(TOP_GROUPS_MISSING_NAME).field(field));
+    }
+
+    public LeafAgg findAgg(String aggId) {
+        for (LeafAgg agg : simpleAggs) {
+            if (aggId.equals(agg.id())) {
+                return agg;
+            }
+        }
+        return null;
+    }
+
+    public boolean hasPipelineAggs() {
+        return pipelineAggs.isEmpty() == false;
+    }
+
     public boolean useImplicitGroupBy() {
         return groups.isEmpty();
     }
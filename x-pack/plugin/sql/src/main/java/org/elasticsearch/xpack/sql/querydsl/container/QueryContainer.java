@@ -8,10 +8,13 @@ package org.elasticsearch.xpack.sql.querydsl.container;
 
 import org.elasticsearch.core.Nullable;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
+import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
 import org.elasticsearch.xpack.ql.execution.search.FieldExtraction;
 import org.elasticsearch.xpack.ql.expression.Attribute;
 import org.elasticsearch.xpack.ql.expression.AttributeMap;
@@ -22,6 +25,8 @@ import org.elasticsearch.xpack.ql.expression.function.scalar.ScalarFunction;
 import org.elasticsearch.xpack.ql.expression.gen.pipeline.ConstantInput;
 import org.elasticsearch.xpack.ql.expression.gen.pipeline.Pipe;
 import org.elasticsearch.xpack.ql.querydsl.container.Sort;
+import org.elasticsearch.xpack.ql.querydsl.container.Sort.Direction;
+import org.elasticsearch.xpack.ql.querydsl.container.Sort.Missing;
 import org.elasticsearch.xpack.ql.querydsl.query.BoolQuery;
 import org.elasticsearch.xpack.ql.querydsl.query.MatchAll;
 import org.elasticsearch.xpack.ql.querydsl.query.NestedQuery;
@@ -33,7 +38,10 @@ import org.elasticsearch.xpack.sql.expression.function.Score;
 import org.elasticsearch.xpack.sql.expression.gen.pipeline.ScorePipe;
 import org.elasticsearch.xpack.sql.querydsl.agg.Aggs;
 import org.elasticsearch.xpack.sql.querydsl.agg.GroupByKey;
+import org.elasticsearch.xpack.sql.querydsl.agg.GroupByValue;
 import org.elasticsearch.xpack.sql.querydsl.agg.LeafAgg;
+import org.elasticsearch.xpack.sql.querydsl.agg.MaxAgg;
+import org.elasticsearch.xpack.sql.querydsl.agg.MinAgg;
 import org.elasticsearch.xpack.sql.type.SqlDataTypes;
 
 import java.io.IOException;
@@ -59,6 +67,11 @@ import static org.elasticsearch.xpack.ql.util.CollectionUtils.combine;
  */
 public class QueryContainer {
 
+    // the top groups go through a terms aggregation and then a terms query on their keys, bounded by default
+    // by search.max_buckets and index.max_terms_count respectively
+    static final int MAX_TOP_GROUPS = Math.min(MultiBucketConsumerService.DEFAULT_MAX_BUCKETS,
+        IndexSettings.MAX_TERMS_COUNT_SETTING.getDefault(Settings.EMPTY));
+
     private final Aggs aggs;
     private final Query query;
 
@@ -175,6 +188,40 @@ public class QueryContainer {
         return sortingColumns;
     }
 
+    /**
+     * The id of the MIN/MAX aggregate the groups are sorted on when only the first LIMIT groups, with the highest maxima
+     * or the lowest minima, are needed and can thus be determined upfront, {@code null} otherwise.
+     * As a group has its maximum on at least one shard, the groups with the highest maxima are all among the top ones
+     * of the shards, which does not hold for sums or averages.
+     * The filtered aggregation returns the LIMIT top groups and the group of the null key for single valued fields. On
+     * multi-valued fields, it also returns the other groups of the documents of these groups, with aggregates computed on
+     * these documents only: they rank no higher than the last top group and are sorted and truncated locally as before.
+     */
+    public String topGroupsAggId() {
+        if (limit <= 0 || limit >= MAX_TOP_GROUPS || sort.size() != 1 || aggs.groups().size() != 1 || aggs.hasPipelineAggs()) {
+            return null;
+        }
+        GroupByKey group = aggs.groups().get(0);
+        // the groups are later narrowed down through a query on their keys
+        if ((group instanceof GroupByValue) == false || group.source().fieldName() == null) {
+            return null;
+        }
+        if (fields.stream().anyMatch(f -> f.v1() instanceof PivotColumnRef)) {
+            return null;
+        }
+        Map.Entry<String, Sort> entry = sort.entrySet().iterator().next();
+        Sort s = entry.getValue();
+        // groups without a value for the aggregate come last within the terms aggregation
+        if ((s instanceof AggregateSort) == false || s.missing() != Missing.LAST) {
+            return null;
+        }
+        LeafAgg agg = aggs.findAgg(entry.getKey());
+        if ((agg instanceof MaxAgg && s.direction() == Direction.DESC) || (agg instanceof MinAgg && s.direction() == Direction.ASC)) {
+            return entry.getKey();
+        }
+        return null;
+    }
+
     /**
      * Since the container contains both the field extractors and the visible columns,
      * compact the information in the listener through a bitset that acts as a mask
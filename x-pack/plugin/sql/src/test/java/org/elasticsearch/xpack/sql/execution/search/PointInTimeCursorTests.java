@@ -0,0 +1,93 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+package org.elasticsearch.xpack.sql.execution.search;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.Writeable.Reader;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.xpack.ql.execution.search.extractor.HitExtractor;
+import org.elasticsearch.xpack.sql.AbstractSqlWireSerializingTestCase;
+import org.elasticsearch.xpack.sql.plugin.CursorTests;
+import org.elasticsearch.xpack.sql.session.Cursors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.elasticsearch.xpack.sql.execution.search.ScrollCursorTests.randomHitExtractor;
+
+public class PointInTimeCursorTests extends AbstractSqlWireSerializingTestCase<PointInTimeCursor> {
+    public static PointInTimeCursor randomPointInTimeCursor() {
+        int extractorsSize = between(1, 20);
+        List<HitExtractor> extractors = new ArrayList<>(extractorsSize);
+        for (int i = 0; i < extractorsSize; i++) {
+            extractors.add(randomHitExtractor(0));
+        }
+        return new PointInTimeCursor(randomAlphaOfLength(5), new byte[randomInt(256)], randomSearchAfter(),
+                extractors, CompositeAggregationCursorTests.randomBitSet(extractorsSize), randomIntBetween(10, 1024));
+    }
+
+    private static Object[][] randomSearchAfter() {
+        Object[][] searchAfter = new Object[between(1, PointInTimeCursor.MAX_SLICES)][];
+        for (int i = 0; i < searchAfter.length; i++) {
+            // exhausted slices have no sort values
+            searchAfter[i] = randomBoolean() ? null : new Object[] { randomNonNegativeLong() };
+        }
+        return searchAfter;
+    }
+
+    @Override
+    protected PointInTimeCursor mutateInstance(PointInTimeCursor instance) throws IOException {
+        return new PointInTimeCursor(instance.pitId(), instance.query(),
+                randomValueOtherThanMany(s -> Arrays.deepEquals(s, instance.searchAfter()), PointInTimeCursorTests::randomSearchAfter),
+                instance.extractors(), instance.mask(),
+                randomValueOtherThan(instance.limit(), () -> randomIntBetween(1, 1024)));
+    }
+
+    @Override
+    protected NamedWriteableRegistry getNamedWriteableRegistry() {
+        return new NamedWriteableRegistry(Cursors.getNamedWriteables());
+    }
+
+    @Override
+    protected PointInTimeCursor createTestInstance() {
+        return randomPointInTimeCursor();
+    }
+
+    @Override
+    protected Reader<PointInTimeCursor> instanceReader() {
+        return PointInTimeCursor::new;
+    }
+
+    @Override
+    protected PointInTimeCursor copyInstance(PointInTimeCursor instance, Version version) throws IOException {
+        /* Randomly choose between internal protocol round trip and String based
+         * round trips used to toXContent. */
+        if (randomBoolean()) {
+            return super.copyInstance(instance, version);
+        }
+        return (PointInTimeCursor) CursorTests.decodeFromString(Cursors.encodeToString(instance, randomZone()));
+    }
+
+    public void testIsUnordered() {
+        assertTrue(PointInTimeCursor.isUnordered(new SearchSourceBuilder().sort("_doc")));
+        assertFalse(PointInTimeCursor.isUnordered(new SearchSourceBuilder()));
+        assertFalse(PointInTimeCursor.isUnordered(new SearchSourceBuilder().sort("_doc", SortOrder.DESC)));
+        assertFalse(PointInTimeCursor.isUnordered(new SearchSourceBuilder().sort("a")));
+        assertFalse(PointInTimeCursor.isUnordered(new SearchSourceBuilder().sort("a").sort("_doc")));
+    }
+
+    public void testSlices() {
+        assertEquals(1, PointInTimeCursor.slices(1));
+        assertEquals(1, PointInTimeCursor.slices(PointInTimeCursor.MIN_SLICE_SIZE * 2 - 1));
+        assertEquals(2, PointInTimeCursor.slices(PointInTimeCursor.MIN_SLICE_SIZE * 2));
+        assertEquals(PointInTimeCursor.MAX_SLICES, PointInTimeCursor.slices(Integer.MAX_VALUE));
+    }
+}
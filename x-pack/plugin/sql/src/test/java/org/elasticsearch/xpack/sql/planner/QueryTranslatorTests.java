@@ -10,10 +10,14 @@ import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.query.ExistsQueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
+import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.bucket.filter.FilterAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.missing.MissingAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.AbstractPercentilesAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.AvgAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.CardinalityAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.MaxAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.PercentileRanksAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.PercentilesAggregationBuilder;
 import org.elasticsearch.search.aggregations.metrics.PercentilesConfig;
@@ -37,6 +41,7 @@ import org.elasticsearch.xpack.ql.plan.logical.Aggregate;
 import org.elasticsearch.xpack.ql.plan.logical.Filter;
 import org.elasticsearch.xpack.ql.plan.logical.LogicalPlan;
 import org.elasticsearch.xpack.ql.plan.logical.Project;
+import org.elasticsearch.xpack.ql.querydsl.container.Sort.Direction;
 import org.elasticsearch.xpack.ql.querydsl.query.BoolQuery;
 import org.elasticsearch.xpack.ql.querydsl.query.NotQuery;
 import org.elasticsearch.xpack.ql.querydsl.query.PrefixQuery;
@@ -74,6 +79,7 @@ import org.elasticsearch.xpack.sql.proto.SqlTypedParamValue;
 import org.elasticsearch.xpack.sql.querydsl.agg.AggFilter;
 import org.elasticsearch.xpack.sql.querydsl.agg.GroupByDateHistogram;
 import org.elasticsearch.xpack.sql.querydsl.container.MetricAggRef;
+import org.elasticsearch.xpack.sql.querydsl.container.QueryContainer;
 import org.elasticsearch.xpack.sql.session.SingletonExecutable;
 import org.elasticsearch.xpack.sql.stats.Metrics;
 import org.elasticsearch.xpack.sql.types.SqlTypesTests;
@@ -1314,4 +1320,45 @@ public class QueryTranslatorTests extends ESTestCase {
         assertEquals("i", le.executable().output().get(0).name());
         assertEquals("string", le.executable().output().get(1).name());
     }
+
+    public void testTopGroupsOnMinMaxWithLimit() {
+        PhysicalPlan p = optimizeAndPlan("SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) DESC NULLS LAST LIMIT 10");
+        assertEquals(EsQueryExec.class, p.getClass());
+        QueryContainer container = ((EsQueryExec) p).queryContainer();
+        String aggId = container.topGroupsAggId();
+        assertNotNull(aggId);
+
+        List<AggregationBuilder> aggs = container.aggs().asTopGroupsAggBuilders(aggId, Direction.DESC, container.limit());
+        assertEquals(2, aggs.size());
+        assertThat(aggs.get(0), instanceOf(TermsAggregationBuilder.class));
+        TermsAggregationBuilder topGroups = (TermsAggregationBuilder) aggs.get(0);
+        assertEquals("keyword", topGroups.field());
+        assertEquals(10, topGroups.size());
+        assertEquals(BucketOrder.compound(BucketOrder.aggregation(aggId, false)), topGroups.order());
+        assertThat(topGroups.getSubAggregations().iterator().next(), instanceOf(MaxAggregationBuilder.class));
+        assertThat(aggs.get(1), instanceOf(MissingAggregationBuilder.class));
+
+        p = optimizeAndPlan("SELECT keyword, MIN(int) FROM test GROUP BY keyword ORDER BY MIN(int) LIMIT 5");
+        assertNotNull(((EsQueryExec) p).queryContainer().topGroupsAggId());
+    }
+
+    public void testNoTopGroups() {
+        for (String sql : asList(
+            // groups without a maximum come first
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) DESC LIMIT 10",
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) NULLS LAST LIMIT 10",
+            "SELECT keyword, MIN(int) FROM test GROUP BY keyword ORDER BY MIN(int) DESC NULLS LAST LIMIT 10",
+            "SELECT keyword, AVG(int) FROM test GROUP BY keyword ORDER BY AVG(int) DESC NULLS LAST LIMIT 10",
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) DESC NULLS LAST",
+            // as many groups as search.max_buckets and index.max_terms_count allow by default
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) DESC NULLS LAST LIMIT 65536",
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY MAX(int) DESC NULLS LAST, keyword LIMIT 10",
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword HAVING MAX(int) > 10 ORDER BY MAX(int) DESC NULLS LAST LIMIT 10",
+            "SELECT keyword, int, MAX(date) FROM test GROUP BY keyword, int ORDER BY MAX(date) DESC NULLS LAST LIMIT 10",
+            "SELECT keyword, MAX(int) FROM test GROUP BY keyword ORDER BY keyword LIMIT 10")) {
+            PhysicalPlan p = optimizeAndPlan(sql);
+            assertEquals(sql, EsQueryExec.class, p.getClass());
+            assertNull(sql, ((EsQueryExec) p).queryContainer().topGroupsAggId());
+        }
+    }
 }
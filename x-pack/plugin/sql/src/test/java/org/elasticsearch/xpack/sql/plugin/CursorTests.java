@@ -9,6 +9,8 @@ package org.elasticsearch.xpack.sql.plugin;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.search.ClearScrollRequest;
+import org.elasticsearch.action.search.ClosePointInTimeAction;
+import org.elasticsearch.action.search.ClosePointInTimeRequest;
 import org.elasticsearch.action.support.PlainActionFuture;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.logging.LoggerMessageFormat;
@@ -17,6 +19,7 @@ import org.elasticsearch.xpack.sql.SqlIllegalArgumentException;
 import org.elasticsearch.xpack.sql.SqlTestUtils;
 import org.elasticsearch.xpack.sql.action.BasicFormatter;
 import org.elasticsearch.xpack.sql.action.SqlQueryResponse;
+import org.elasticsearch.xpack.sql.execution.search.PointInTimeCursorTests;
 import org.elasticsearch.xpack.sql.execution.search.ScrollCursor;
 import org.elasticsearch.xpack.sql.execution.search.ScrollCursorTests;
 import org.elasticsearch.xpack.sql.proto.ColumnInfo;
@@ -35,6 +38,7 @@ import java.util.function.Supplier;
 import static org.elasticsearch.action.support.PlainActionFuture.newFuture;
 import static org.elasticsearch.xpack.sql.proto.SqlVersion.DATE_NANOS_SUPPORT_VERSION;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -65,6 +69,20 @@ public class CursorTests extends ESTestCase {
         verifyZeroInteractions(listenerMock);
     }
 
+    @SuppressWarnings("unchecked")
+    public void testPointInTimeCursorClearCursor() {
+        Client clientMock = mock(Client.class);
+        ActionListener<Boolean> listenerMock = mock(ActionListener.class);
+        Cursor cursor = PointInTimeCursorTests.randomPointInTimeCursor();
+
+        cursor.clear(SqlTestUtils.TEST_CFG, clientMock, listenerMock);
+
+        ArgumentCaptor<ClosePointInTimeRequest> request = ArgumentCaptor.forClass(ClosePointInTimeRequest.class);
+        verify(clientMock).execute(eq(ClosePointInTimeAction.INSTANCE), request.capture(), any(ActionListener.class));
+        assertEquals("cursor for point in time [" + request.getValue().getId() + "]", cursor.toString());
+        verifyZeroInteractions(listenerMock);
+    }
+
     private static SqlQueryResponse createRandomSqlResponse() {
         int columnCount = between(1, 10);
 
@@ -82,6 +100,7 @@ public class CursorTests extends ESTestCase {
     static Cursor randomNonEmptyCursor() {
         Supplier<Cursor> cursorSupplier = randomFrom(
                 () -> ScrollCursorTests.randomScrollCursor(),
+                () -> PointInTimeCursorTests.randomPointInTimeCursor(),
                 () -> {
                     SqlQueryResponse response = createRandomSqlResponse();
                     if (response.columns() != null && response.rows() != null) {
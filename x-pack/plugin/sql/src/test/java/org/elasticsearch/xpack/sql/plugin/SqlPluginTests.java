@@ -6,6 +6,7 @@
  */
 package org.elasticsearch.xpack.sql.plugin;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -28,7 +29,9 @@ public class SqlPluginTests extends ESTestCase {
     public void testSqlDisabledIsNoOp() {
         Settings settings = Settings.builder().put("xpack.sql.enabled", false).build();
         SqlPlugin plugin = new SqlPlugin(settings);
-        assertThat(plugin.createComponents(mock(Client.class), "cluster", new NamedWriteableRegistry(Cursors.getNamedWriteables())),
+        assertThat(
+            plugin.createComponents(mock(Client.class), "cluster", () -> Version.CURRENT,
+                new NamedWriteableRegistry(Cursors.getNamedWriteables())),
             hasSize(3));
         assertThat(plugin.getActions(), hasSize(6));
         assertThat(
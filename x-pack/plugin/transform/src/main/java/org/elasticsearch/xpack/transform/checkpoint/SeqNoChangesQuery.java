@@ -0,0 +1,84 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.transform.checkpoint;
+
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.index.mapper.IndexFieldMapper;
+import org.elasticsearch.index.mapper.SeqNoFieldMapper;
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.xpack.core.transform.transforms.TransformCheckpoint;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Builds the query matching the documents that got indexed or updated between 2 checkpoints, based on the global
+ * checkpoints of the source shards the checkpoints have been taken with.
+ *
+ * Sequence numbers are only comparable within a shard, while a search can not be restricted to a range per shard. The
+ * query is therefore only built if it is exact, that is if every changed index has a single shard. Merging the ranges
+ * of several shards would match almost all documents of an index once the sequence numbers of its shards diverge.
+ *
+ * Note: deleted documents and the previous versions of updated documents can not be found this way.
+ */
+public final class SeqNoChangesQuery {
+
+    private SeqNoChangesQuery() {}
+
+    /**
+     * Build the query for the documents changed between the given checkpoints.
+     *
+     * @param lastCheckpoint the last(complete) checkpoint
+     * @param nextCheckpoint the next(currently running) checkpoint
+     * @return a query matching the changed documents or null if the checkpoints do not allow to tell them exactly
+     */
+    @Nullable
+    public static QueryBuilder build(TransformCheckpoint lastCheckpoint, TransformCheckpoint nextCheckpoint) {
+        final Map<String, long[]> lastCheckpoints = lastCheckpoint.getIndicesCheckpoints();
+        if (lastCheckpoints.isEmpty()) {
+            return null;
+        }
+
+        BoolQueryBuilder changesQuery = new BoolQueryBuilder();
+        for (Entry<String, long[]> entry : nextCheckpoint.getIndicesCheckpoints().entrySet()) {
+            final String index = entry.getKey();
+            final long[] next = entry.getValue();
+            final long[] last = lastCheckpoints.get(index);
+
+            if (Arrays.equals(last, next)) {
+                continue;
+            }
+
+            final TermQueryBuilder indexQuery = new TermQueryBuilder(IndexFieldMapper.NAME, index);
+            // a new index or an index whose shards have been split or shrunk: all its documents are changes
+            if (last == null || last.length != next.length) {
+                changesQuery.should(indexQuery);
+                continue;
+            }
+
+            // a search can not tell the shards of the index apart, so their ranges can not be applied exactly
+            if (next.length > 1) {
+                return null;
+            }
+
+            changesQuery.should(
+                new BoolQueryBuilder().filter(indexQuery).filter(new RangeQueryBuilder(SeqNoFieldMapper.NAME).gt(last[0]).lte(next[0]))
+            );
+        }
+
+        if (changesQuery.should().isEmpty()) {
+            return new MatchNoneQueryBuilder();
+        }
+        return changesQuery;
+    }
+}
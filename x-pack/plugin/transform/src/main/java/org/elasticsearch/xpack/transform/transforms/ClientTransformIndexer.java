@@ -35,6 +35,7 @@ import org.elasticsearch.index.mapper.MapperParsingException;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
 import org.elasticsearch.index.reindex.DeleteByQueryAction;
 import org.elasticsearch.index.reindex.DeleteByQueryRequest;
+import org.elasticsearch.license.RemoteClusterLicenseChecker;
 import org.elasticsearch.search.SearchContextMissingException;
 import org.elasticsearch.search.builder.PointInTimeBuilder;
 import org.elasticsearch.threadpool.ThreadPool;
@@ -56,6 +57,7 @@ import org.elasticsearch.xpack.transform.persistence.SeqNoPrimaryTermAndIndex;
 import org.elasticsearch.xpack.transform.transforms.pivot.SchemaUtil;
 import org.elasticsearch.xpack.transform.utils.ExceptionRootCauseFinder;
 
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -129,6 +131,12 @@ class ClientTransformIndexer extends TransformIndexer {
         );
     }
 
+    @Override
+    protected boolean pipelineNextSearch() {
+        // searching a remote cluster is bound by latency, hide it behind indexing the previous page
+        return RemoteClusterLicenseChecker.containsRemoteIndex(Arrays.asList(transformConfig.getSource().getIndex()));
+    }
+
     @Override
     protected void doNextBulk(BulkRequest request, ActionListener<BulkResponse> nextPhase) {
         if (context.getTaskState() == TransformTaskState.FAILED) {
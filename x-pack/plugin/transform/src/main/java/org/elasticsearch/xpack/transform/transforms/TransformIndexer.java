@@ -23,6 +23,7 @@ import org.elasticsearch.common.logging.LoggerMessageFormat;
 import org.elasticsearch.common.util.CollectionUtils;
 import org.elasticsearch.core.Tuple;
 import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
 import org.elasticsearch.index.reindex.BulkByScrollResponse;
@@ -45,6 +46,7 @@ import org.elasticsearch.xpack.core.transform.transforms.TransformTaskState;
 import org.elasticsearch.xpack.core.transform.utils.ExceptionsHelper;
 import org.elasticsearch.xpack.transform.TransformServices;
 import org.elasticsearch.xpack.transform.checkpoint.CheckpointProvider;
+import org.elasticsearch.xpack.transform.checkpoint.SeqNoChangesQuery;
 import org.elasticsearch.xpack.transform.notifications.TransformAuditor;
 import org.elasticsearch.xpack.transform.persistence.TransformConfigManager;
 import org.elasticsearch.xpack.transform.transforms.Function.ChangeCollector;
@@ -1123,8 +1125,17 @@ public abstract class TransformIndexer extends AsyncTwoPhaseIndexer<TransformInd
         QueryBuilder queryBuilder = getConfig().getSource().getQueryConfig().getQuery();
 
         TransformConfig config = getConfig();
-        BoolQueryBuilder filteredQuery = new BoolQueryBuilder().filter(queryBuilder)
-            .filter(config.getSyncConfig().getRangeQuery(lastCheckpoint, nextCheckpoint));
+        QueryBuilder changesQuery = config.getSyncConfig().getRangeQuery(lastCheckpoint, nextCheckpoint);
+
+        // documents indexed or updated since the last checkpoint but dated before its time upper bound are late changes that
+        // the time window misses, they are added if their sequence numbers tell them exactly, without overlapping the window
+        QueryBuilder lateChangesQuery = SeqNoChangesQuery.build(lastCheckpoint, nextCheckpoint);
+        if (lateChangesQuery != null && lateChangesQuery instanceof MatchNoneQueryBuilder == false) {
+            changesQuery = new BoolQueryBuilder().should(changesQuery)
+                .should(new BoolQueryBuilder().filter(lateChangesQuery).filter(config.getSyncConfig().getRangeQuery(lastCheckpoint)));
+        }
+
+        BoolQueryBuilder filteredQuery = new BoolQueryBuilder().filter(queryBuilder).filter(changesQuery);
 
         // TODO: if buildChangesQuery changes the query it get overwritten
         sourceBuilder.query(filteredQuery);
@@ -0,0 +1,87 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.transform.checkpoint;
+
+import org.elasticsearch.index.query.BoolQueryBuilder;
+import org.elasticsearch.index.query.MatchNoneQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.RangeQueryBuilder;
+import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.core.transform.transforms.TransformCheckpoint;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.hamcrest.Matchers.instanceOf;
+
+public class SeqNoChangesQueryTests extends ESTestCase {
+
+    public void testNoIndicesCheckpoints() {
+        TransformCheckpoint last = checkpoint(1, Collections.emptyMap());
+        TransformCheckpoint next = checkpoint(2, Collections.singletonMap("index", new long[] { 10L, 12L }));
+        assertNull(SeqNoChangesQuery.build(last, next));
+    }
+
+    public void testNoChanges() {
+        TransformCheckpoint last = checkpoint(1, Collections.singletonMap("index", new long[] { 10L, 12L }));
+        TransformCheckpoint next = checkpoint(2, Collections.singletonMap("index", new long[] { 10L, 12L }));
+        assertThat(SeqNoChangesQuery.build(last, next), instanceOf(MatchNoneQueryBuilder.class));
+    }
+
+    public void testChangedIndices() {
+        Map<String, long[]> lastCheckpoints = new TreeMap<>();
+        lastCheckpoints.put("unchanged", new long[] { 5L, 7L });
+        lastCheckpoints.put("changed", new long[] { 10L });
+        lastCheckpoints.put("shrunk", new long[] { 3L, 4L });
+        lastCheckpoints.put("deleted", new long[] { 1L });
+
+        Map<String, long[]> nextCheckpoints = new TreeMap<>();
+        nextCheckpoints.put("unchanged", new long[] { 5L, 7L });
+        nextCheckpoints.put("changed", new long[] { 15L });
+        nextCheckpoints.put("shrunk", new long[] { 9L });
+        nextCheckpoints.put("created", new long[] { 2L, 0L });
+
+        QueryBuilder query = SeqNoChangesQuery.build(checkpoint(1, lastCheckpoints), checkpoint(2, nextCheckpoints));
+        assertThat(query, instanceOf(BoolQueryBuilder.class));
+
+        BoolQueryBuilder expected = new BoolQueryBuilder().should(
+            new BoolQueryBuilder().filter(new TermQueryBuilder("_index", "changed"))
+                .filter(new RangeQueryBuilder("_seq_no").gt(10L).lte(15L))
+        ).should(new TermQueryBuilder("_index", "created")).should(new TermQueryBuilder("_index", "shrunk"));
+        assertEquals(expected, query);
+    }
+
+    public void testChangedIndexWithSeveralShards() {
+        Map<String, long[]> lastCheckpoints = new TreeMap<>();
+        lastCheckpoints.put("single", new long[] { 10L });
+        lastCheckpoints.put("multiple", new long[] { 10L, 1200L });
+
+        Map<String, long[]> nextCheckpoints = new TreeMap<>();
+        nextCheckpoints.put("single", new long[] { 15L });
+        nextCheckpoints.put("multiple", new long[] { 12L, 1200L });
+
+        // the ranges of the shards of an index can not be applied exactly
+        assertNull(SeqNoChangesQuery.build(checkpoint(1, lastCheckpoints), checkpoint(2, nextCheckpoints)));
+
+        // unless it did not change
+        nextCheckpoints.put("multiple", new long[] { 10L, 1200L });
+        assertEquals(
+            new BoolQueryBuilder().should(
+                new BoolQueryBuilder().filter(new TermQueryBuilder("_index", "single"))
+                    .filter(new RangeQueryBuilder("_seq_no").gt(10L).lte(15L))
+            ),
+            SeqNoChangesQuery.build(checkpoint(1, lastCheckpoints), checkpoint(2, nextCheckpoints))
+        );
+    }
+
+    private static TransformCheckpoint checkpoint(long checkpoint, Map<String, long[]> indicesCheckpoints) {
+        return new TransformCheckpoint("transform", randomNonNegativeLong(), checkpoint, indicesCheckpoints, randomNonNegativeLong());
+    }
+}
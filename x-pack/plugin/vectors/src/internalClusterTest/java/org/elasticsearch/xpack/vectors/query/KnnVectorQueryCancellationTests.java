@@ -0,0 +1,118 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.action.OriginalIndices;
+import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.action.search.SearchShardTask;
+import org.elasticsearch.action.support.PlainActionFuture;
+import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.index.IndexModule;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.shard.SearchOperationListener;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.search.SearchPhaseResult;
+import org.elasticsearch.search.SearchService;
+import org.elasticsearch.search.builder.SearchSourceBuilder;
+import org.elasticsearch.search.internal.AliasFilter;
+import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.tasks.TaskCancelHelper;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.tasks.TaskId;
+import org.elasticsearch.test.ESSingleNodeTestCase;
+import org.elasticsearch.xpack.core.LocalStateCompositeXPackPlugin;
+import org.elasticsearch.xpack.vectors.Vectors;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+
+public class KnnVectorQueryCancellationTests extends ESSingleNodeTestCase {
+
+    private static volatile boolean cancelOnQueryPhase;
+
+    @Override
+    protected Collection<Class<? extends Plugin>> getPlugins() {
+        return pluginList(Vectors.class, LocalStateCompositeXPackPlugin.class, CancelOnQueryPhasePlugin.class);
+    }
+
+    /**
+     * Cancels the searches once they start their query phase, after their query was rewritten.
+     */
+    public static class CancelOnQueryPhasePlugin extends Plugin {
+        @Override
+        public void onIndexModule(IndexModule indexModule) {
+            indexModule.addSearchOperationListener(new SearchOperationListener() {
+                @Override
+                public void onPreQueryPhase(SearchContext searchContext) {
+                    if (cancelOnQueryPhase) {
+                        TaskCancelHelper.cancel(searchContext.getTask(), "simulated");
+                    }
+                }
+            });
+        }
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        cancelOnQueryPhase = false;
+        super.tearDown();
+    }
+
+    public void testGraphBuildIsCancelledWithTheSearch() throws Exception {
+        client().admin().indices().prepareCreate("index")
+            .setSettings(Settings.builder().put("index.number_of_shards", 1))
+            .addMapping("_doc", "vector", "type=dense_vector,dims=4,index=true,similarity=l2_norm")
+            .get();
+        for (int i = 0; i < 100; i++) {
+            client().prepareIndex("index", "_doc").setSource("vector", new float[] { i, i, i, i }).get();
+        }
+        client().admin().indices().prepareRefresh("index").get();
+
+        final SearchService searchService = getInstanceFromNode(SearchService.class);
+        final IndexShard indexShard = getInstanceFromNode(IndicesService.class).indexServiceSafe(resolveIndex("index")).getShard(0);
+        final CircuitBreaker breaker = getInstanceFromNode(CircuitBreakerService.class).getBreaker(Vectors.CIRCUIT_BREAKER_NAME);
+        final SearchRequest searchRequest = new SearchRequest().allowPartialSearchResults(true)
+            .source(new SearchSourceBuilder().query(new KnnVectorQueryBuilder("vector", new float[] { 1, 1, 1, 1 }, 3, 10, null)));
+        final ShardSearchRequest request = new ShardSearchRequest(OriginalIndices.NONE, searchRequest, indexShard.shardId(), 0, 1,
+            new AliasFilter(null, Strings.EMPTY_ARRAY), 1.0f, -1, null);
+
+        // the search is cancelled after its query was rewritten, so the graph is only built once the search checks for cancellation
+        cancelOnQueryPhase = true;
+        final PlainActionFuture<SearchPhaseResult> cancelled = PlainActionFuture.newFuture();
+        searchService.executeQueryPhase(request, newTask(), cancelled);
+        final ExecutionException e = expectThrows(ExecutionException.class, cancelled::get);
+        final TaskCancelledException cancelledException = (TaskCancelledException) ExceptionsHelper.unwrap(e,
+            TaskCancelledException.class);
+        assertThat(cancelledException, notNullValue());
+        assertThat(cancelledException.getMessage(), equalTo("task cancelled [simulated]"));
+        assertThat(breaker.getUsed(), equalTo(0L));
+
+        cancelOnQueryPhase = false;
+        final PlainActionFuture<SearchPhaseResult> completed = PlainActionFuture.newFuture();
+        searchService.executeQueryPhase(request, newTask(), completed);
+        final SearchPhaseResult result = completed.get();
+        assertThat(result.fetchResult().hits().getHits().length, equalTo(3));
+        assertThat(breaker.getUsed(), greaterThan(0L));
+        searchService.freeReaderContext(result.getContextId());
+    }
+
+    private static SearchShardTask newTask() {
+        return new SearchShardTask(randomLong(), "transport", "action", "", TaskId.EMPTY_TASK_ID, Collections.emptyMap());
+    }
+}
@@ -7,33 +7,86 @@
 
 package org.elasticsearch.xpack.vectors;
 
+import org.apache.lucene.util.SetOnce;
+import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.inject.Module;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.mapper.Mapper;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.monitor.jvm.JvmInfo;
+import org.elasticsearch.plugins.CircuitBreakerPlugin;
 import org.elasticsearch.plugins.MapperPlugin;
 import org.elasticsearch.plugins.Plugin;
+import org.elasticsearch.plugins.SearchPlugin;
 import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper;
 import org.elasticsearch.xpack.vectors.mapper.SparseVectorFieldMapper;
+import org.elasticsearch.xpack.vectors.query.HnswGraphCache;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQueryBuilder;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-public class Vectors extends Plugin implements MapperPlugin {
+import static java.util.Collections.singletonList;
+
+public class Vectors extends Plugin implements MapperPlugin, SearchPlugin, CircuitBreakerPlugin {
 
     public static final String NAME = "vectors";
 
-    public Vectors() { }
+    // accounts for the graphs of the dense vectors, which are held until their segment is closed or they are evicted
+    public static final String CIRCUIT_BREAKER_NAME = "vectors_graph";
+    private static final long CIRCUIT_BREAKER_LIMIT = (long) ((0.20) * JvmInfo.jvmInfo().getMem().getHeapMax().getBytes());
+    private static final double CIRCUIT_BREAKER_OVERHEAD = 1.0D;
+
+    private final SetOnce<CircuitBreaker> circuitBreaker = new SetOnce<>();
+    private final HnswGraphCache graphCache;
+
+    public Vectors(Settings settings) {
+        this.graphCache = new HnswGraphCache(settings, circuitBreaker::get);
+    }
 
     public Collection<Module> createGuiceModules() {
         return Collections.emptyList();
     }
 
+    @Override
+    public List<Setting<?>> getSettings() {
+        return singletonList(HnswGraphCache.GRAPH_CACHE_SIZE_SETTING);
+    }
+
     @Override
     public Map<String, Mapper.TypeParser> getMappers() {
         Map<String, Mapper.TypeParser> mappers = new LinkedHashMap<>();
-        mappers.put(DenseVectorFieldMapper.CONTENT_TYPE, DenseVectorFieldMapper.PARSER);
+        mappers.put(DenseVectorFieldMapper.CONTENT_TYPE, DenseVectorFieldMapper.parser(graphCache));
         mappers.put(SparseVectorFieldMapper.CONTENT_TYPE, SparseVectorFieldMapper.PARSER);
         return Collections.unmodifiableMap(mappers);
     }
+
+    @Override
+    public List<QuerySpec<?>> getQueries() {
+        return singletonList(new QuerySpec<>(KnnVectorQueryBuilder.NAME, KnnVectorQueryBuilder::new, KnnVectorQueryBuilder::fromXContent));
+    }
+
+    @Override
+    public BreakerSettings getCircuitBreaker(Settings settings) {
+        return BreakerSettings.updateFromSettings(
+            new BreakerSettings(
+                CIRCUIT_BREAKER_NAME,
+                CIRCUIT_BREAKER_LIMIT,
+                CIRCUIT_BREAKER_OVERHEAD,
+                CircuitBreaker.Type.MEMORY,
+                CircuitBreaker.Durability.PERMANENT
+            ),
+            settings
+        );
+    }
+
+    @Override
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        assert circuitBreaker.getName().equals(CIRCUIT_BREAKER_NAME);
+        this.circuitBreaker.set(circuitBreaker);
+    }
 }
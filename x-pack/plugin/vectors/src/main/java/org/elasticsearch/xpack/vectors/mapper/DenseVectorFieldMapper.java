@@ -12,6 +12,8 @@ import org.apache.lucene.document.BinaryDocValuesField;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentParser.Token;
 import org.elasticsearch.common.xcontent.support.XContentMapValues;
 import org.elasticsearch.index.fielddata.IndexFieldData;
@@ -27,14 +29,19 @@ import org.elasticsearch.index.query.SearchExecutionContext;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.support.CoreValuesSourceType;
 import org.elasticsearch.search.lookup.SearchLookup;
+import org.elasticsearch.xpack.vectors.query.HnswGraphCache;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
 import org.elasticsearch.xpack.vectors.query.VectorIndexFieldData;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.Supplier;
 
 import static org.elasticsearch.common.xcontent.XContentParserUtils.ensureExpectedToken;
@@ -65,49 +72,306 @@ public class DenseVectorFieldMapper extends FieldMapper {
                         "] should be in the range [1, " + MAX_DIMS_COUNT + "] but was [" + dims + "]");
                 }
             });
+        Parameter<String> elementType = Parameter.restrictedStringParam("element_type", false,
+            m -> toType(m).elementType.toString(), ElementType.FLOAT.toString(), ElementType.BYTE.toString());
+        Parameter<Boolean> indexed = Parameter.indexParam(m -> toType(m).indexed, false);
+        Parameter<VectorSimilarity> similarity = new Parameter<>("similarity", false, () -> null,
+            (n, c, o) -> VectorSimilarity.fromString(XContentMapValues.nodeStringValue(o)), m -> toType(m).similarity)
+            .acceptsNull();
+        Parameter<HnswIndexOptions> indexOptions = new Parameter<>("index_options", false, () -> null,
+            (n, c, o) -> HnswIndexOptions.parse(n, o), m -> toType(m).indexOptions)
+            .setSerializer((b, n, v) -> {
+                if (v != null) {
+                    b.field(n, v);
+                }
+            }, Objects::toString)
+            .acceptsNull()
+            .requiresParameters(indexed);
         Parameter<Map<String, String>> meta = Parameter.metaParam();
 
         final Version indexVersionCreated;
+        final HnswGraphCache graphCache;
 
-        public Builder(String name, Version indexVersionCreated) {
+        public Builder(String name, Version indexVersionCreated, HnswGraphCache graphCache) {
             super(name);
             this.indexVersionCreated = indexVersionCreated;
+            this.graphCache = graphCache;
         }
 
         @Override
         protected List<Parameter<?>> getParameters() {
-            return Arrays.asList(dims, meta);
+            return Arrays.asList(dims, elementType, indexed, similarity, indexOptions, meta);
         }
 
         @Override
         public DenseVectorFieldMapper build(ContentPath contentPath) {
+            if (indexed.getValue() && similarity.getValue() == null) {
+                throw new MapperParsingException("Field [" + name + "] of type [" + CONTENT_TYPE + "] requires [similarity] to be set " +
+                    "when [index] is [true]");
+            }
+            final ElementType type = ElementType.fromString(elementType.getValue());
+            if (type == ElementType.BYTE) {
+                if (indexVersionCreated.before(Version.V_7_15_3)) {
+                    throw new MapperParsingException("Field [" + name + "] of type [" + CONTENT_TYPE + "] only supports [element_type] ["
+                        + type + "] on indices created on or after version [" + Version.V_7_15_3 + "]");
+                }
+                if (similarity.getValue() == VectorSimilarity.DOT_PRODUCT) {
+                    throw new MapperParsingException("Field [" + name + "] of type [" + CONTENT_TYPE + "] with [element_type] [" + type
+                        + "] can't use the [" + VectorSimilarity.DOT_PRODUCT + "] similarity, use [" + VectorSimilarity.COSINE
+                        + "] instead");
+                }
+            }
+            final HnswIndexOptions effectiveIndexOptions;
+            if (indexed.getValue()) {
+                effectiveIndexOptions = indexOptions.getValue() != null ? indexOptions.getValue() : HnswIndexOptions.DEFAULT;
+            } else {
+                effectiveIndexOptions = null;
+            }
             return new DenseVectorFieldMapper(
                 name,
-                new DenseVectorFieldType(buildFullName(contentPath), indexVersionCreated, dims.getValue(), meta.getValue()),
+                new DenseVectorFieldType(buildFullName(contentPath), indexVersionCreated, dims.getValue(), type, similarity.getValue(),
+                    effectiveIndexOptions, graphCache, meta.getValue()),
                 dims.getValue(),
+                type,
+                indexed.getValue(),
+                similarity.getValue(),
+                indexOptions.getValue(),
                 indexVersionCreated,
+                graphCache,
                 multiFieldsBuilder.build(this, contentPath),
                 copyTo.build());
         }
     }
 
-    public static final TypeParser PARSER
-        = new TypeParser((n, c) -> new Builder(n, c.indexVersionCreated()), notInMultiFields(CONTENT_TYPE));
+    /**
+     * Returns the parser of {@code dense_vector} mappings, whose fields build the graphs of their vectors in the given cache.
+     */
+    public static TypeParser parser(HnswGraphCache graphCache) {
+        return new TypeParser((n, c) -> new Builder(n, c.indexVersionCreated(), graphCache), notInMultiFields(CONTENT_TYPE));
+    }
+
+    /**
+     * The type of the elements of the vectors, which determines how they are encoded in doc values.
+     */
+    public enum ElementType {
+        /**
+         * Each element is a 4 bytes float.
+         */
+        FLOAT(INT_BYTES),
+        /**
+         * Each element is a single byte that holds an integer between -128 and 127, so vectors take 4 times less space and are read
+         * 4 times faster than float vectors.
+         */
+        BYTE(1);
+
+        private final int elementBytes;
+
+        ElementType(int elementBytes) {
+            this.elementBytes = elementBytes;
+        }
+
+        static ElementType fromString(String value) {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The function used to compare vectors, turned into a non-negative score that is higher for more similar vectors.
+     */
+    public enum VectorSimilarity {
+        L2_NORM {
+            @Override
+            public float compare(float[] v1, float[] v2) {
+                float squareDistance = 0;
+                for (int dim = 0; dim < v1.length; dim++) {
+                    final float diff = v1[dim] - v2[dim];
+                    squareDistance += diff * diff;
+                }
+                return 1 / (1 + squareDistance);
+            }
+
+            @Override
+            public float compare(float[] queryVector, ElementType elementType, BytesRef vectorBR) {
+                return (float) (1 / (1 + VectorEncoderDecoder.squareDistance(elementType, queryVector, vectorBR)));
+            }
+        },
+        DOT_PRODUCT {
+            @Override
+            public float compare(float[] v1, float[] v2) {
+                // vectors must have a unit length so that the score is between 0 and 1
+                return Math.max(0, (1 + dotProduct(v1, v2)) / 2);
+            }
+
+            @Override
+            public float compare(float[] queryVector, ElementType elementType, BytesRef vectorBR) {
+                return (float) Math.max(0, (1 + VectorEncoderDecoder.dotProduct(elementType, queryVector, vectorBR)) / 2);
+            }
+        },
+        COSINE {
+            @Override
+            public float compare(float[] v1, float[] v2) {
+                final double magnitudes = Math.sqrt((double) dotProduct(v1, v1) * dotProduct(v2, v2));
+                final float cosine = magnitudes == 0 ? 0 : (float) (dotProduct(v1, v2) / magnitudes);
+                return (1 + cosine) / 2;
+            }
+
+            @Override
+            public float compare(float[] queryVector, ElementType elementType, BytesRef vectorBR) {
+                final double magnitudes = Math.sqrt(VectorEncoderDecoder.squaredMagnitude(elementType, queryVector.length, vectorBR)
+                    * dotProduct(queryVector, queryVector));
+                final double dotProduct = VectorEncoderDecoder.dotProduct(elementType, queryVector, vectorBR);
+                final float cosine = magnitudes == 0 ? 0 : (float) (dotProduct / magnitudes);
+                return (1 + cosine) / 2;
+            }
+        };
+
+        public abstract float compare(float[] v1, float[] v2);
+
+        /**
+         * Compares a query vector to an encoded vector, without decoding it.
+         */
+        public abstract float compare(float[] queryVector, ElementType elementType, BytesRef vectorBR);
+
+        private static float dotProduct(float[] v1, float[] v2) {
+            float dotProduct = 0;
+            for (int dim = 0; dim < v1.length; dim++) {
+                dotProduct += v1[dim] * v2[dim];
+            }
+            return dotProduct;
+        }
+
+        static VectorSimilarity fromString(String value) {
+            for (VectorSimilarity similarity : values()) {
+                if (similarity.toString().equals(value)) {
+                    return similarity;
+                }
+            }
+            throw new IllegalArgumentException("Unknown vector similarity [" + value + "], expected one of "
+                + Arrays.toString(values()));
+        }
+
+        @Override
+        public String toString() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * The parameters of the {@code hnsw} graph that indexes vectors, see {@code HnswGraph}.
+     */
+    public static final class HnswIndexOptions implements ToXContentObject {
+
+        public static final String TYPE = "hnsw";
+        static final HnswIndexOptions DEFAULT = new HnswIndexOptions(16, 100);
+
+        private final int m;
+        private final int efConstruction;
+
+        public HnswIndexOptions(int m, int efConstruction) {
+            this.m = m;
+            this.efConstruction = efConstruction;
+        }
+
+        static HnswIndexOptions parse(String fieldName, Object options) {
+            if (options instanceof Map == false) {
+                throw new MapperParsingException("[index_options] of field [" + fieldName + "] must be an object");
+            }
+            @SuppressWarnings("unchecked")
+            final Map<String, Object> map = new HashMap<>((Map<String, Object>) options);
+            final Object type = map.remove("type");
+            if (TYPE.equals(type) == false) {
+                throw new MapperParsingException("[index_options] of field [" + fieldName + "] must have [type] set to [" + TYPE
+                    + "] but was [" + type + "]");
+            }
+            final int m = XContentMapValues.nodeIntegerValue(map.remove("m"), DEFAULT.m);
+            final int efConstruction = XContentMapValues.nodeIntegerValue(map.remove("ef_construction"), DEFAULT.efConstruction);
+            if (map.isEmpty() == false) {
+                throw new MapperParsingException("[index_options] of field [" + fieldName + "] has unknown parameters " + map.keySet());
+            }
+            if (m < 1 || efConstruction < 1) {
+                throw new MapperParsingException("[index_options] of field [" + fieldName + "] must have positive [m] and "
+                    + "[ef_construction] but were [" + m + "] and [" + efConstruction + "]");
+            }
+            return new HnswIndexOptions(m, efConstruction);
+        }
+
+        public int m() {
+            return m;
+        }
+
+        public int efConstruction() {
+            return efConstruction;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject();
+            builder.field("type", TYPE);
+            builder.field("m", m);
+            builder.field("ef_construction", efConstruction);
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final HnswIndexOptions that = (HnswIndexOptions) o;
+            return m == that.m && efConstruction == that.efConstruction;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(m, efConstruction);
+        }
+
+        @Override
+        public String toString() {
+            return "{type=" + TYPE + ", m=" + m + ", ef_construction=" + efConstruction + "}";
+        }
+    }
 
     public static final class DenseVectorFieldType extends MappedFieldType {
         private final int dims;
         private final Version indexVersionCreated;
+        private final ElementType elementType;
+        private final VectorSimilarity similarity;
+        private final HnswIndexOptions indexOptions;
+        private final HnswGraphCache graphCache;
 
         public DenseVectorFieldType(String name, Version indexVersionCreated, int dims, Map<String, String> meta) {
+            this(name, indexVersionCreated, dims, ElementType.FLOAT, null, null, null, meta);
+        }
+
+        public DenseVectorFieldType(String name, Version indexVersionCreated, int dims, ElementType elementType,
+                                    VectorSimilarity similarity, HnswIndexOptions indexOptions, HnswGraphCache graphCache,
+                                    Map<String, String> meta) {
             super(name, false, false, true, TextSearchInfo.NONE, meta);
             this.dims = dims;
             this.indexVersionCreated = indexVersionCreated;
+            this.elementType = elementType;
+            this.similarity = similarity;
+            this.indexOptions = indexOptions;
+            this.graphCache = graphCache;
         }
 
         int dims() {
             return dims;
         }
 
+        public ElementType elementType() {
+            return elementType;
+        }
+
         @Override
         public String typeName() {
             return CONTENT_TYPE;
@@ -139,7 +403,7 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         @Override
         public IndexFieldData.Builder fielddataBuilder(String fullyQualifiedIndexName, Supplier<SearchLookup> searchLookup) {
-            return new VectorIndexFieldData.Builder(name(), true, CoreValuesSourceType.KEYWORD, indexVersionCreated, dims);
+            return new VectorIndexFieldData.Builder(name(), true, CoreValuesSourceType.KEYWORD, indexVersionCreated, dims, elementType);
         }
 
         @Override
@@ -147,16 +411,60 @@ public class DenseVectorFieldMapper extends FieldMapper {
             throw new IllegalArgumentException(
                 "Field [" + name() + "] of type [" + typeName() + "] doesn't support queries");
         }
+
+        /**
+         * Creates a query that matches the {@code k} documents whose vectors are the most similar to the query vector, among the
+         * documents that match the filter if it is not {@code null}. The query searches the graph of the vectors if the field is
+         * indexed, and compares the query vector to all vectors otherwise. Building the graph of a segment checks whether the search was
+         * cancelled or timed out.
+         */
+        public Query createKnnQuery(float[] queryVector, int k, int numCandidates, Query filter, SearchExecutionContext context) {
+            if (similarity == null) {
+                throw new IllegalArgumentException("to perform knn search on field [" + name() + "], its mapping must have [similarity] "
+                    + "set");
+            }
+            if (queryVector.length != dims) {
+                throw new IllegalArgumentException("the query vector has a different number of dimensions [" + queryVector.length
+                    + "] than the field [" + name() + "] has in its mapping [" + dims + "]");
+            }
+            if (similarity == VectorSimilarity.DOT_PRODUCT) {
+                checkUnitLength(name(), "the query vector", queryVector);
+            }
+            return new KnnVectorQuery(name(), queryVector, k, numCandidates, filter, dims, elementType, similarity, indexOptions,
+                graphCache);
+        }
+    }
+
+    private static void checkUnitLength(String fieldName, String what, float[] vector) {
+        double squaredMagnitude = 0;
+        for (float value : vector) {
+            squaredMagnitude += value * value;
+        }
+        if (Math.abs(squaredMagnitude - 1) > 1e-4) {
+            throw new IllegalArgumentException("The [" + VectorSimilarity.DOT_PRODUCT + "] similarity can only be used with unit-length "
+                + "vectors but " + what + " of field [" + fieldName + "] has a length of [" + Math.sqrt(squaredMagnitude) + "]");
+        }
     }
 
     private final Version indexCreatedVersion;
     private final int dims;
-
-    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims,
-                                   Version indexCreatedVersion, MultiFields multiFields, CopyTo copyTo) {
+    private final ElementType elementType;
+    private final boolean indexed;
+    private final VectorSimilarity similarity;
+    private final HnswIndexOptions indexOptions;
+    private final HnswGraphCache graphCache;
+
+    private DenseVectorFieldMapper(String simpleName, MappedFieldType mappedFieldType, int dims, ElementType elementType,
+                                   boolean indexed, VectorSimilarity similarity, HnswIndexOptions indexOptions,
+                                   Version indexCreatedVersion, HnswGraphCache graphCache, MultiFields multiFields, CopyTo copyTo) {
         super(simpleName, mappedFieldType, multiFields, copyTo);
         this.indexCreatedVersion = indexCreatedVersion;
         this.dims = dims;
+        this.elementType = elementType;
+        this.indexed = indexed;
+        this.similarity = similarity;
+        this.indexOptions = indexOptions;
+        this.graphCache = graphCache;
     }
 
     @Override
@@ -175,7 +483,10 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
         // encode array of floats as array of integers and store into buf
         // this code is here and not int the VectorEncoderDecoder so not to create extra arrays
-        byte[] bytes = indexCreatedVersion.onOrAfter(Version.V_7_5_0) ? new byte[dims * INT_BYTES + INT_BYTES] : new byte[dims * INT_BYTES];
+        final int elementBytes = elementType.elementBytes;
+        byte[] bytes = indexCreatedVersion.onOrAfter(Version.V_7_5_0)
+            ? new byte[dims * elementBytes + INT_BYTES]
+            : new byte[dims * elementBytes];
 
         ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
         double dotProduct = 0f;
@@ -189,7 +500,16 @@ public class DenseVectorFieldMapper extends FieldMapper {
             ensureExpectedToken(Token.VALUE_NUMBER, token, context.parser());
             float value = context.parser().floatValue(true);
 
-            byteBuffer.putFloat(value);
+            if (elementType == ElementType.BYTE) {
+                if (value != (byte) value) {
+                    throw new IllegalArgumentException("Field [" + name() + "] of type [" + typeName() + "] with [element_type] ["
+                        + elementType + "] can only hold integers between [" + Byte.MIN_VALUE + "] and [" + Byte.MAX_VALUE
+                        + "] but doc [" + context.sourceToParse().id() + "] has [" + value + "]");
+                }
+                byteBuffer.put((byte) value);
+            } else {
+                byteBuffer.putFloat(value);
+            }
             dotProduct += value * value;
         }
         if (dim != dims) {
@@ -198,6 +518,12 @@ public class DenseVectorFieldMapper extends FieldMapper {
                 "] less than defined in the mapping [" +  dims +"]");
         }
 
+        if (similarity == VectorSimilarity.DOT_PRODUCT && Math.abs(dotProduct - 1) > 1e-4) {
+            throw new IllegalArgumentException("The [" + VectorSimilarity.DOT_PRODUCT + "] similarity can only be used with unit-length "
+                + "vectors but the vector of field [" + name() + "] of doc [" + context.sourceToParse().id() + "] has a length of ["
+                + Math.sqrt(dotProduct) + "]");
+        }
+
         if (indexCreatedVersion.onOrAfter(Version.V_7_5_0)) {
             // encode vector magnitude at the end
             float vectorMagnitude = (float) Math.sqrt(dotProduct);
@@ -223,6 +549,6 @@ public class DenseVectorFieldMapper extends FieldMapper {
 
     @Override
     public FieldMapper.Builder getMergeBuilder() {
-        return new Builder(simpleName(), indexCreatedVersion).init(this);
+        return new Builder(simpleName(), indexCreatedVersion, graphCache).init(this);
     }
 }
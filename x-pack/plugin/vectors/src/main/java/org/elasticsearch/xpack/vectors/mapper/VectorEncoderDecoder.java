@@ -11,6 +11,7 @@ package org.elasticsearch.xpack.vectors.mapper;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.InPlaceMergeSorter;
 import org.elasticsearch.Version;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
 
 import java.nio.ByteBuffer;
 
@@ -205,13 +206,146 @@ public final class VectorEncoderDecoder {
      * @param vector - array of floats where the decoded vector should be stored
      */
     public static void decodeDenseVector(BytesRef vectorBR, float[] vector) {
+        decodeDenseVector(ElementType.FLOAT, vectorBR, vector);
+    }
+
+    /**
+     * Decodes a BytesRef whose elements are of the given type into the provided array of floats
+     * @param elementType - the type of the elements of the encoded vector
+     * @param vectorBR - dense vector encoded in BytesRef
+     * @param vector - array of floats where the decoded vector should be stored
+     */
+    public static void decodeDenseVector(ElementType elementType, BytesRef vectorBR, float[] vector) {
         if (vectorBR == null) {
             throw new IllegalArgumentException("A document doesn't have a value for a vector field!");
         }
-        ByteBuffer byteBuffer = ByteBuffer.wrap(vectorBR.bytes, vectorBR.offset, vectorBR.length);
-        for (int dim = 0; dim < vector.length; dim++) {
-            vector[dim] = byteBuffer.getFloat();
+        final byte[] bytes = vectorBR.bytes;
+        final int offset = vectorBR.offset;
+        if (elementType == ElementType.BYTE) {
+            for (int dim = 0; dim < vector.length; dim++) {
+                vector[dim] = bytes[offset + dim];
+            }
+        } else {
+            for (int dim = 0; dim < vector.length; dim++) {
+                vector[dim] = readFloat(bytes, offset + dim * INT_BYTES);
+            }
         }
     }
 
+    // The following functions compare a query vector to an encoded dense vector without decoding it into an array, so that scoring
+    // a document allocates nothing. Float loops are unrolled with independent sums, which lets the CPU overlap consecutive dimensions.
+
+    /**
+     * Returns the dot product of the query vector and the encoded vector.
+     */
+    public static double dotProduct(ElementType elementType, float[] queryVector, BytesRef vectorBR) {
+        final byte[] bytes = vectorBR.bytes;
+        final int offset = vectorBR.offset;
+        final int dims = queryVector.length;
+        if (elementType == ElementType.BYTE) {
+            double dotProduct = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                dotProduct += queryVector[dim] * bytes[offset + dim];
+            }
+            return dotProduct;
+        }
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int dim = 0;
+        for (final int bound = dims & ~3; dim < bound; dim += 4) {
+            final int pos = offset + dim * INT_BYTES;
+            sum0 += queryVector[dim] * readFloat(bytes, pos);
+            sum1 += queryVector[dim + 1] * readFloat(bytes, pos + 4);
+            sum2 += queryVector[dim + 2] * readFloat(bytes, pos + 8);
+            sum3 += queryVector[dim + 3] * readFloat(bytes, pos + 12);
+        }
+        for (; dim < dims; dim++) {
+            sum0 += queryVector[dim] * readFloat(bytes, offset + dim * INT_BYTES);
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    /**
+     * Returns the squared euclidean distance between the query vector and the encoded vector.
+     */
+    public static double squareDistance(ElementType elementType, float[] queryVector, BytesRef vectorBR) {
+        final byte[] bytes = vectorBR.bytes;
+        final int offset = vectorBR.offset;
+        final int dims = queryVector.length;
+        if (elementType == ElementType.BYTE) {
+            double squareDistance = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                final double diff = queryVector[dim] - bytes[offset + dim];
+                squareDistance += diff * diff;
+            }
+            return squareDistance;
+        }
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int dim = 0;
+        for (final int bound = dims & ~3; dim < bound; dim += 4) {
+            final int pos = offset + dim * INT_BYTES;
+            final double diff0 = queryVector[dim] - readFloat(bytes, pos);
+            final double diff1 = queryVector[dim + 1] - readFloat(bytes, pos + 4);
+            final double diff2 = queryVector[dim + 2] - readFloat(bytes, pos + 8);
+            final double diff3 = queryVector[dim + 3] - readFloat(bytes, pos + 12);
+            sum0 += diff0 * diff0;
+            sum1 += diff1 * diff1;
+            sum2 += diff2 * diff2;
+            sum3 += diff3 * diff3;
+        }
+        for (; dim < dims; dim++) {
+            final double diff = queryVector[dim] - readFloat(bytes, offset + dim * INT_BYTES);
+            sum0 += diff * diff;
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    /**
+     * Returns the manhattan distance between the query vector and the encoded vector.
+     */
+    public static double l1Distance(ElementType elementType, float[] queryVector, BytesRef vectorBR) {
+        final byte[] bytes = vectorBR.bytes;
+        final int offset = vectorBR.offset;
+        final int dims = queryVector.length;
+        if (elementType == ElementType.BYTE) {
+            double l1Distance = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                l1Distance += Math.abs(queryVector[dim] - bytes[offset + dim]);
+            }
+            return l1Distance;
+        }
+        double sum0 = 0, sum1 = 0, sum2 = 0, sum3 = 0;
+        int dim = 0;
+        for (final int bound = dims & ~3; dim < bound; dim += 4) {
+            final int pos = offset + dim * INT_BYTES;
+            sum0 += Math.abs(queryVector[dim] - readFloat(bytes, pos));
+            sum1 += Math.abs(queryVector[dim + 1] - readFloat(bytes, pos + 4));
+            sum2 += Math.abs(queryVector[dim + 2] - readFloat(bytes, pos + 8));
+            sum3 += Math.abs(queryVector[dim + 3] - readFloat(bytes, pos + 12));
+        }
+        for (; dim < dims; dim++) {
+            sum0 += Math.abs(queryVector[dim] - readFloat(bytes, offset + dim * INT_BYTES));
+        }
+        return sum0 + sum1 + sum2 + sum3;
+    }
+
+    /**
+     * Returns the squared magnitude of the first {@code dims} elements of the encoded vector.
+     */
+    public static double squaredMagnitude(ElementType elementType, int dims, BytesRef vectorBR) {
+        final byte[] bytes = vectorBR.bytes;
+        final int offset = vectorBR.offset;
+        double squaredMagnitude = 0;
+        for (int dim = 0; dim < dims; dim++) {
+            final float value = elementType == ElementType.BYTE ? bytes[offset + dim] : readFloat(bytes, offset + dim * INT_BYTES);
+            squaredMagnitude += value * value;
+        }
+        return squaredMagnitude;
+    }
+
+    // reads a big-endian float like ByteBuffer#getFloat does
+    private static float readFloat(byte[] bytes, int pos) {
+        return Float.intBitsToFloat(((bytes[pos] & 0xFF) << 24) | ((bytes[pos + 1] & 0xFF) << 16)
+            | ((bytes[pos + 2] & 0xFF) << 8) | (bytes[pos + 3] & 0xFF));
+    }
+
 }
@@ -0,0 +1,385 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.apache.lucene.util.SparseFixedBitSet;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A hierarchical navigable small world graph (Malkov and Yashunin, 2016) over the dense vectors of a segment, used to find approximate
+ * nearest neighbors of a query vector without comparing it to every vector of the segment.
+ * <p>
+ * Every vector is a node of the bottom level of the graph, and is also a node of each of the levels above it up to a randomly drawn
+ * level, with exponentially fewer nodes on higher levels. Searches greedily descend the upper levels to find a good entry point in the
+ * bottom level, where they explore the neighbors of the best candidates found so far. Nodes are linked to at most {@code m} neighbors on
+ * upper levels and {@code 2 * m} on the bottom level, which are chosen among the {@code efConstruction} nearest nodes found when the node
+ * is added.
+ * <p>
+ * Vectors are kept in memory one after the other in a single array, normalized if the similarity is {@link VectorSimilarity#COSINE}.
+ * The graph is immutable once built and can be searched concurrently.
+ */
+final class HnswGraph implements Accountable {
+
+    private static final long SEED = 42L;
+
+    private final VectorSimilarity similarity;
+    private final boolean normalized;
+    private final int[] docs;
+    private final float[] vectors;
+    private final int dims;
+    private final int m;
+    private final int efConstruction;
+    // node -> level -> neighbors, the first slot of each array holds the number of neighbors
+    private final int[][][] neighbors;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long ramBytesUsed;
+
+    private HnswGraph(VectorSimilarity similarity, int[] docs, float[] vectors, int dims, int m, int efConstruction) {
+        assert (long) docs.length * dims == vectors.length;
+        // cosine similarity is the dot product of normalized vectors, which is cheaper to compute
+        this.normalized = similarity == VectorSimilarity.COSINE;
+        this.similarity = normalized ? VectorSimilarity.DOT_PRODUCT : similarity;
+        this.docs = docs;
+        this.vectors = vectors;
+        this.dims = dims;
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.neighbors = new int[docs.length][][];
+        if (normalized) {
+            for (int offset = 0; offset < vectors.length; offset += dims) {
+                normalize(vectors, offset, dims);
+            }
+        }
+    }
+
+    /**
+     * Builds the graph of the given vectors, stored one after the other in a single array in the order of the given doc ids, which must
+     * be increasing. {@code checkCancelled} is run before each vector is linked, and may throw an exception to stop the build.
+     */
+    static HnswGraph build(
+        VectorSimilarity similarity,
+        int[] docs,
+        float[] vectors,
+        int dims,
+        int m,
+        int efConstruction,
+        Runnable checkCancelled
+    ) {
+        final HnswGraph graph = new HnswGraph(similarity, docs, vectors, dims, m, efConstruction);
+        final Random random = new Random(SEED);
+        final double levelMultiplier = 1 / Math.log(Math.max(2, m));
+        for (int node = 0; node < docs.length; node++) {
+            checkCancelled.run();
+            final int level = (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier);
+            graph.add(node, level);
+        }
+        graph.ramBytesUsed = graph.computeRamBytesUsed();
+        return graph;
+    }
+
+    /**
+     * Estimates the memory that the graph of {@code count} vectors with {@code dims} dimensions will use, before it is built. Nodes
+     * are on {@code 1 / (m - 1)} upper levels on average.
+     */
+    static long estimateRamBytesUsed(int count, int dims, int m) {
+        final long upperLevelBytes = RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.alignObjectSize(
+            RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * (m + 1));
+        final long nodeBytes = RamUsageEstimator.NUM_BYTES_OBJECT_REF
+            + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + RamUsageEstimator.NUM_BYTES_OBJECT_REF)
+            + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * (2 * m + 1))
+            + upperLevelBytes / Math.max(1, m - 1);
+        return RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Integer.BYTES * count)
+            + RamUsageEstimator.alignObjectSize(RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + (long) Float.BYTES * count * dims)
+            + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER
+            + nodeBytes * count;
+    }
+
+    int size() {
+        return docs.length;
+    }
+
+    private void add(int node, int level) {
+        neighbors[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            neighbors[node][l] = new int[maxConn(l) + 1];
+        }
+        if (entryPoint == -1) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        final int offset = node * dims;
+        int[] entryPoints = new int[] { entryPoint };
+        for (int l = maxLevel; l > level; l--) {
+            final NodeHeap results = searchLevel(vectors, offset, entryPoints, 1, l, null, Integer.MAX_VALUE);
+            entryPoints = new int[] { results.topNode() };
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            final NodeHeap results = searchLevel(vectors, offset, entryPoints, efConstruction, l, null, Integer.MAX_VALUE);
+            // results pop the farthest node first
+            final int[] candidates = new int[results.size()];
+            final float[] scores = new float[results.size()];
+            for (int i = candidates.length - 1; i >= 0; i--) {
+                scores[i] = results.topScore();
+                candidates[i] = results.pop();
+            }
+            for (int neighbor : selectNeighbors(candidates, scores, maxConn(l))) {
+                link(node, neighbor, l);
+                link(neighbor, node, l);
+            }
+            entryPoints = candidates;
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+    }
+
+    private int maxConn(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    /**
+     * Selects neighbors among the given candidates, sorted from the nearest to the farthest, preferring candidates that are closer to
+     * the new node than to the neighbors selected before them so that links reach out in diverse directions.
+     */
+    private int[] selectNeighbors(int[] candidates, float[] scores, int maxConn) {
+        final int[] selected = new int[Math.min(maxConn, candidates.length)];
+        final boolean[] used = new boolean[candidates.length];
+        int count = 0;
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < count; j++) {
+                if (compare(vectors, candidates[i] * dims, selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[count++] = candidates[i];
+                used[i] = true;
+            }
+        }
+        for (int i = 0; i < candidates.length && count < selected.length; i++) {
+            if (used[i] == false) {
+                selected[count++] = candidates[i];
+            }
+        }
+        return selected;
+    }
+
+    private void link(int node, int neighbor, int level) {
+        final int[] links = neighbors[node][level];
+        final int count = links[0];
+        if (count < links.length - 1) {
+            links[count + 1] = neighbor;
+            links[0] = count + 1;
+            return;
+        }
+        // the node has as many neighbors as allowed, replace the farthest one if the new neighbor is nearer
+        final int offset = node * dims;
+        int farthest = -1;
+        float farthestScore = compare(vectors, offset, neighbor);
+        for (int i = 1; i <= count; i++) {
+            final float score = compare(vectors, offset, links[i]);
+            if (score < farthestScore) {
+                farthest = i;
+                farthestScore = score;
+            }
+        }
+        if (farthest != -1) {
+            links[farthest] = neighbor;
+        }
+    }
+
+    /**
+     * Searches the {@code ef} nodes of the given level that are the nearest to the query, which starts at {@code queryOffset} in
+     * {@code query}, and are accepted by {@code acceptNodes}, starting from the given entry points. Returns {@code null} if more than
+     * {@code visitLimit} nodes had to be compared to the query.
+     */
+    private NodeHeap searchLevel(float[] query, int queryOffset, int[] entryPoints, int ef, int level, Bits acceptNodes, int visitLimit) {
+        final SparseFixedBitSet visited = new SparseFixedBitSet(docs.length);
+        final NodeHeap candidates = new NodeHeap(true);
+        final NodeHeap results = new NodeHeap(false);
+        int visitCount = 0;
+        for (int entry : entryPoints) {
+            if (visited.get(entry) == false) {
+                visited.set(entry);
+                visitCount++;
+                final float score = compare(query, queryOffset, entry);
+                candidates.push(entry, score);
+                if (acceptNodes == null || acceptNodes.get(entry)) {
+                    results.push(entry, score);
+                    if (results.size() > ef) {
+                        results.pop();
+                    }
+                }
+            }
+        }
+        while (candidates.size() > 0) {
+            final float candidateScore = candidates.topScore();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            final int[] links = neighbors[candidates.pop()][level];
+            for (int i = 1; i <= links[0]; i++) {
+                final int neighbor = links[i];
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                if (++visitCount > visitLimit) {
+                    return null;
+                }
+                final float score = compare(query, queryOffset, neighbor);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(neighbor, score);
+                    if (acceptNodes == null || acceptNodes.get(neighbor)) {
+                        results.push(neighbor, score);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the {@code ef} approximately nearest vectors to the query among the documents accepted by {@code acceptDocs}, or all
+     * documents if it is {@code null}. Returns {@code null} if the graph is empty or if more than {@code visitLimit} vectors had to
+     * be compared to the query, in which case searching exhaustively is cheaper.
+     */
+    TopDocs search(float[] query, int ef, Bits acceptDocs, int visitLimit) {
+        if (entryPoint == -1) {
+            return null;
+        }
+        final float[] target = normalizedQuery(query);
+        int[] entryPoints = new int[] { entryPoint };
+        for (int l = maxLevel; l > 0; l--) {
+            final NodeHeap results = searchLevel(target, 0, entryPoints, 1, l, null, Integer.MAX_VALUE);
+            entryPoints = new int[] { results.topNode() };
+        }
+        final Bits acceptNodes = acceptDocs == null ? null : new Bits() {
+            @Override
+            public boolean get(int node) {
+                return acceptDocs.get(docs[node]);
+            }
+
+            @Override
+            public int length() {
+                return docs.length;
+            }
+        };
+        final NodeHeap results = searchLevel(target, 0, entryPoints, ef, 0, acceptNodes, visitLimit);
+        return results == null ? null : toTopDocs(results);
+    }
+
+    /**
+     * Returns the {@code k} nearest vectors to the query among the documents accepted by {@code acceptDocs}, or all documents if it is
+     * {@code null}, by comparing the query to each of them.
+     */
+    TopDocs exhaustiveSearch(float[] query, int k, Bits acceptDocs) {
+        final float[] target = normalizedQuery(query);
+        final NodeHeap results = new NodeHeap(false);
+        for (int node = 0; node < docs.length; node++) {
+            if (acceptDocs == null || acceptDocs.get(docs[node])) {
+                final float score = compare(target, 0, node);
+                if (results.size() < k) {
+                    results.push(node, score);
+                } else if (score > results.topScore()) {
+                    results.pop();
+                    results.push(node, score);
+                }
+            }
+        }
+        return toTopDocs(results);
+    }
+
+    private TopDocs toTopDocs(NodeHeap results) {
+        final ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            final float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(docs[results.pop()], score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    /**
+     * Compares the vector that starts at {@code offset} in {@code vector} to the vector of the given node, like
+     * {@link VectorSimilarity#compare(float[], float[])} does, without copying either of them.
+     */
+    private float compare(float[] vector, int offset, int node) {
+        final int nodeOffset = node * dims;
+        if (similarity == VectorSimilarity.L2_NORM) {
+            float squareDistance = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                final float diff = vector[offset + dim] - vectors[nodeOffset + dim];
+                squareDistance += diff * diff;
+            }
+            return 1 / (1 + squareDistance);
+        }
+        assert similarity == VectorSimilarity.DOT_PRODUCT;
+        float dotProduct = 0;
+        for (int dim = 0; dim < dims; dim++) {
+            dotProduct += vector[offset + dim] * vectors[nodeOffset + dim];
+        }
+        return Math.max(0, (1 + dotProduct) / 2);
+    }
+
+    private float[] normalizedQuery(float[] query) {
+        if (normalized) {
+            final float[] target = Arrays.copyOf(query, query.length);
+            normalize(target, 0, target.length);
+            return target;
+        }
+        return query;
+    }
+
+    private static void normalize(float[] vectors, int offset, int dims) {
+        double magnitude = 0;
+        for (int i = offset; i < offset + dims; i++) {
+            magnitude += vectors[i] * vectors[i];
+        }
+        if (magnitude > 0) {
+            final float scale = (float) (1 / Math.sqrt(magnitude));
+            for (int i = offset; i < offset + dims; i++) {
+                vectors[i] *= scale;
+            }
+        }
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        return ramBytesUsed;
+    }
+
+    private long computeRamBytesUsed() {
+        long size = RamUsageEstimator.sizeOf(docs) + RamUsageEstimator.sizeOf(vectors) + RamUsageEstimator.shallowSizeOf(neighbors);
+        for (int[][] levels : neighbors) {
+            if (levels != null) {
+                size += RamUsageEstimator.shallowSizeOf(levels);
+                for (int[] links : levels) {
+                    size += RamUsageEstimator.sizeOf(links);
+                }
+            }
+        }
+        return size;
+    }
+}
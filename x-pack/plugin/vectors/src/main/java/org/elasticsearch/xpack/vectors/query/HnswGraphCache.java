@@ -0,0 +1,270 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.util.ArrayUtil;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.core.TimeValue;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.HnswIndexOptions;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Holds the {@link HnswGraph}s of the segments of the node, so that each graph is built by the first kNN search on a segment and reused
+ * by the following ones. Lucene cannot store the graphs in the index, so they are rebuilt for the segments that result from merges. A
+ * graph is dropped once its segment is closed, or when the graphs of the node use more memory than
+ * {@link #GRAPH_CACHE_SIZE_SETTING} allows, least recently used first.
+ * <p>
+ * The memory that a graph is estimated to use is reserved on the circuit breaker before its vectors are loaded, and released once the
+ * graph is dropped. Segments whose graph would not fit in the cache are not given a graph, and are searched exhaustively instead.
+ */
+public final class HnswGraphCache {
+
+    private static final Logger logger = LogManager.getLogger(HnswGraphCache.class);
+
+    /**
+     * The maximum memory that the graphs of the node may use, either as a percentage of the heap or as an absolute size. {@code 0}
+     * disables the graphs, so that all segments are searched exhaustively.
+     */
+    public static final Setting<ByteSizeValue> GRAPH_CACHE_SIZE_SETTING = Setting.memorySizeSetting(
+        "xpack.vectors.graph_cache.size",
+        "10%",
+        Property.NodeScope
+    );
+
+    // how many vectors are iterated between two checks for cancellation
+    private static final int CHECK_CANCELLED_INTERVAL = 1 << 10;
+
+    private final long maxSizeInBytes;
+    private final Supplier<CircuitBreaker> circuitBreaker;
+    private final Cache<Key, HnswGraph> cache;
+    // the fields that graphs were built for, by segment, which are dropped once the segment is closed
+    private final ConcurrentMap<IndexReader.CacheKey, Set<String>> fieldsByCore = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * @param circuitBreaker supplies the breaker that the memory of the graphs is accounted on, which may only be available once the
+     *                       node has started
+     */
+    public HnswGraphCache(Settings settings, Supplier<CircuitBreaker> circuitBreaker) {
+        this.maxSizeInBytes = GRAPH_CACHE_SIZE_SETTING.get(settings).getBytes();
+        this.circuitBreaker = circuitBreaker;
+        this.cache = CacheBuilder.<Key, HnswGraph>builder()
+            .setMaximumWeight(maxSizeInBytes)
+            .weigher((key, graph) -> graph.ramBytesUsed())
+            .removalListener(notification -> circuitBreaker.get().addWithoutBreaking(-notification.getValue().ramBytesUsed()))
+            .build();
+    }
+
+    /**
+     * Returns the graph of the vectors of the given field in the segment, building it if needed, or {@code null} if the segment should
+     * be searched exhaustively because its graph could not be cached. {@code checkCancelled} is run regularly while the graph is built,
+     * and may throw an exception to stop the build. Searches that wait for the graph that another search is building build it again if
+     * that search fails.
+     */
+    @Nullable
+    HnswGraph getOrBuild(
+        LeafReader reader,
+        String field,
+        int dims,
+        ElementType elementType,
+        VectorSimilarity similarity,
+        HnswIndexOptions options,
+        Runnable checkCancelled
+    ) throws IOException {
+        final IndexReader.CacheHelper cacheHelper = reader.getCoreCacheHelper();
+        if (cacheHelper == null) {
+            // the graph could not be released with the segment
+            return null;
+        }
+        final Key key = new Key(cacheHelper.getKey(), field);
+        final HnswGraph cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        final int count = countVectors(reader, field, checkCancelled);
+        final long estimatedBytes = HnswGraph.estimateRamBytesUsed(count, dims, options.m());
+        if (estimatedBytes > maxSizeInBytes || (long) count * dims > ArrayUtil.MAX_ARRAY_LENGTH) {
+            logger.debug(
+                "not building graph of [{}] vectors of field [{}], it would use [{}] but the graph cache is limited to [{}]",
+                count,
+                field,
+                new ByteSizeValue(estimatedBytes),
+                new ByteSizeValue(maxSizeInBytes)
+            );
+            return null;
+        }
+        while (true) {
+            final AtomicBoolean builtBySelf = new AtomicBoolean();
+            try {
+                return cache.computeIfAbsent(key, k -> {
+                    builtBySelf.set(true);
+                    // a single listener per segment drops all of its graphs, however often they are evicted and built again
+                    fieldsByCore.computeIfAbsent(k.coreKey, coreKey -> {
+                        cacheHelper.addClosedListener(this::onCoreClosed);
+                        return ConcurrentCollections.newConcurrentSet();
+                    }).add(k.field);
+                    return build(reader, field, dims, elementType, similarity, options, count, estimatedBytes, checkCancelled);
+                });
+            } catch (ExecutionException e) {
+                if (builtBySelf.get() == false) {
+                    // the search that was building the graph failed, for instance because it was cancelled or timed out, which says
+                    // nothing about this search: build the graph again unless this search is cancelled or timed out too
+                    checkCancelled.run();
+                    continue;
+                }
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IOException("failed to build graph of field [" + field + "]", e.getCause());
+            }
+        }
+    }
+
+    private void onCoreClosed(IndexReader.CacheKey coreKey) {
+        final Set<String> fields = fieldsByCore.remove(coreKey);
+        if (fields != null) {
+            for (String field : fields) {
+                cache.invalidate(new Key(coreKey, field));
+            }
+        }
+    }
+
+    /**
+     * Returns the number of graphs in the cache.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    private HnswGraph build(
+        LeafReader reader,
+        String field,
+        int dims,
+        ElementType elementType,
+        VectorSimilarity similarity,
+        HnswIndexOptions options,
+        int count,
+        long estimatedBytes,
+        Runnable checkCancelled
+    ) throws IOException {
+        final CircuitBreaker breaker = circuitBreaker.get();
+        breaker.addEstimateBytesAndMaybeBreak(estimatedBytes, "hnsw graph of field [" + field + "]");
+        final HnswGraph graph;
+        try {
+            final long startTimeNanos = System.nanoTime();
+            final int[] docs = new int[count];
+            final float[] vectors = new float[count * dims];
+            loadVectors(reader, field, dims, elementType, docs, vectors, checkCancelled);
+            graph = HnswGraph.build(similarity, docs, vectors, dims, options.m(), options.efConstruction(), checkCancelled);
+            logger.debug(
+                "built graph of [{}] vectors of field [{}] in [{}]",
+                graph.size(),
+                field,
+                TimeValue.timeValueNanos(System.nanoTime() - startTimeNanos)
+            );
+        } catch (Exception e) {
+            breaker.addWithoutBreaking(-estimatedBytes);
+            throw e;
+        }
+        // the cache releases the memory that the graph actually uses once it drops the graph
+        breaker.addWithoutBreaking(graph.ramBytesUsed() - estimatedBytes);
+        return graph;
+    }
+
+    private static int countVectors(LeafReader reader, String field, Runnable checkCancelled) throws IOException {
+        final BinaryDocValues values = DocValues.getBinary(reader, field);
+        int count = 0;
+        while (values.nextDoc() != DocIdSetIterator.NO_MORE_DOCS) {
+            if (count++ % CHECK_CANCELLED_INTERVAL == 0) {
+                checkCancelled.run();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Decodes the vectors of the field one after the other into {@code vectors}, and their doc ids into {@code docs}.
+     */
+    private static void loadVectors(
+        LeafReader reader,
+        String field,
+        int dims,
+        ElementType elementType,
+        int[] docs,
+        float[] vectors,
+        Runnable checkCancelled
+    ) throws IOException {
+        final BinaryDocValues values = DocValues.getBinary(reader, field);
+        final float[] vector = new float[dims];
+        int count = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (count % CHECK_CANCELLED_INTERVAL == 0) {
+                checkCancelled.run();
+            }
+            VectorEncoderDecoder.decodeDenseVector(elementType, values.binaryValue(), vector);
+            docs[count] = doc;
+            System.arraycopy(vector, 0, vectors, count * dims, dims);
+            count++;
+        }
+        assert count == docs.length;
+    }
+
+    private static final class Key {
+        private final IndexReader.CacheKey coreKey;
+        private final String field;
+
+        Key(IndexReader.CacheKey coreKey, String field) {
+            this.coreKey = coreKey;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return coreKey.equals(key.coreKey) && field.equals(key.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(coreKey, field);
+        }
+    }
+}
@@ -0,0 +1,363 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.index.BinaryDocValues;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.DocIdSetIterator;
+import org.apache.lucene.search.Explanation;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.QueryVisitor;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.ScoreMode;
+import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TotalHits;
+import org.apache.lucene.search.Weight;
+import org.apache.lucene.util.BitSet;
+import org.apache.lucene.util.BitSetIterator;
+import org.apache.lucene.util.Bits;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.core.Nullable;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.HnswIndexOptions;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A query that matches the {@code k} documents whose vectors are the most similar to a query vector, optionally among the documents
+ * that match a filter. It searches the {@link HnswGraph} of each segment for {@code numCandidates} candidates and keeps the best
+ * {@code k} of all segments, which is approximate. Segments where the filter matches few documents, or where the search of the graph
+ * would compare more vectors than the filter matches, are searched exhaustively instead. Fields that are not indexed have no graph,
+ * and are always searched exhaustively by comparing the query vector to the encoded vectors of the doc values, which is exact. So are
+ * segments whose graph does not fit in the {@link HnswGraphCache}.
+ * <p>
+ * The search is done when the weight is created rather than when the query is rewritten, because a search only checks whether it was
+ * cancelled or timed out once it executes the query. Searching the graphs, and building the missing ones, regularly runs these checks
+ * when the searcher is the one of a search.
+ */
+public class KnnVectorQuery extends Query {
+
+    // how many vectors are compared between two checks for cancellation
+    private static final int CHECK_CANCELLED_INTERVAL = 1 << 10;
+
+    private final String field;
+    private final float[] queryVector;
+    private final int k;
+    private final int numCandidates;
+    private final Query filter;
+    private final int dims;
+    private final ElementType elementType;
+    private final VectorSimilarity similarity;
+    private final HnswIndexOptions indexOptions;
+    private final HnswGraphCache graphCache;
+
+    public KnnVectorQuery(
+        String field,
+        float[] queryVector,
+        int k,
+        int numCandidates,
+        Query filter,
+        int dims,
+        ElementType elementType,
+        VectorSimilarity similarity,
+        @Nullable HnswIndexOptions indexOptions,
+        @Nullable HnswGraphCache graphCache
+    ) {
+        assert (indexOptions == null) == (graphCache == null) : "indexed fields need both index options and a graph cache";
+        this.field = Objects.requireNonNull(field);
+        this.queryVector = Objects.requireNonNull(queryVector);
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.filter = filter;
+        this.dims = dims;
+        this.elementType = Objects.requireNonNull(elementType);
+        this.similarity = Objects.requireNonNull(similarity);
+        this.indexOptions = indexOptions;
+        this.graphCache = graphCache;
+    }
+
+    @Override
+    public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) throws IOException {
+        final Runnable checkCancelled = searcher instanceof ContextIndexSearcher
+            ? ((ContextIndexSearcher) searcher)::checkCancelled
+            : () -> {};
+        final IndexReader reader = searcher.getIndexReader();
+        final Weight filterWeight;
+        if (filter != null) {
+            final IndexSearcher filterSearcher = new IndexSearcher(reader);
+            filterSearcher.setQueryCache(null);
+            filterWeight = filterSearcher.createWeight(filterSearcher.rewrite(filter), ScoreMode.COMPLETE_NO_SCORES, 1f);
+        } else {
+            filterWeight = null;
+        }
+
+        final List<LeafReaderContext> leaves = reader.leaves();
+        final TopDocs[] perLeafResults = new TopDocs[leaves.size()];
+        for (int i = 0; i < perLeafResults.length; i++) {
+            perLeafResults[i] = searchLeaf(leaves.get(i), filterWeight, checkCancelled);
+        }
+        final TopDocs topDocs = TopDocs.merge(k, perLeafResults);
+        final Query topDocsQuery = topDocs.scoreDocs.length == 0
+            ? new MatchNoDocsQuery("no vector of field [" + field + "] matches")
+            : new TopDocsQuery(topDocs.scoreDocs, reader);
+        return topDocsQuery.createWeight(searcher, scoreMode, boost);
+    }
+
+    private TopDocs searchLeaf(LeafReaderContext context, Weight filterWeight, Runnable checkCancelled) throws IOException {
+        final Bits liveDocs = context.reader().getLiveDocs();
+        final Bits acceptDocs;
+        int acceptCount = Integer.MAX_VALUE;
+        if (filterWeight != null) {
+            final Scorer scorer = filterWeight.scorer(context);
+            if (scorer == null) {
+                return new TopDocs(new TotalHits(0, TotalHits.Relation.EQUAL_TO), new ScoreDoc[0]);
+            }
+            final FixedBitSet bitSet = new FixedBitSet(context.reader().maxDoc());
+            final DocIdSetIterator iterator = scorer.iterator();
+            for (int doc = iterator.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = iterator.nextDoc()) {
+                if (liveDocs == null || liveDocs.get(doc)) {
+                    bitSet.set(doc);
+                }
+            }
+            acceptDocs = bitSet;
+            acceptCount = bitSet.cardinality();
+        } else {
+            acceptDocs = liveDocs;
+        }
+
+        if (graphCache == null) {
+            return exactSearchLeaf(context, acceptDocs, checkCancelled);
+        }
+        final HnswGraph graph = graphCache.getOrBuild(
+            context.reader(),
+            field,
+            dims,
+            elementType,
+            similarity,
+            indexOptions,
+            checkCancelled
+        );
+        if (graph == null) {
+            return exactSearchLeaf(context, acceptDocs, checkCancelled);
+        }
+        TopDocs results = null;
+        if (acceptCount > numCandidates) {
+            results = graph.search(queryVector, numCandidates, acceptDocs, acceptCount);
+        }
+        if (results == null) {
+            results = graph.exhaustiveSearch(queryVector, k, acceptDocs);
+        }
+        final ScoreDoc[] scoreDocs = results.scoreDocs.length > k ? Arrays.copyOf(results.scoreDocs, k) : results.scoreDocs;
+        for (ScoreDoc scoreDoc : scoreDocs) {
+            scoreDoc.doc += context.docBase;
+        }
+        return new TopDocs(results.totalHits, scoreDocs);
+    }
+
+    /**
+     * Compares the query vector to the vectors of all accepted documents of the segment, directly on their encoded doc values.
+     */
+    private TopDocs exactSearchLeaf(LeafReaderContext context, Bits acceptDocs, Runnable checkCancelled) throws IOException {
+        final BinaryDocValues values = DocValues.getBinary(context.reader(), field);
+        final NodeHeap results = new NodeHeap(false);
+        int count = 0;
+        for (int doc = values.nextDoc(); doc != DocIdSetIterator.NO_MORE_DOCS; doc = values.nextDoc()) {
+            if (count++ % CHECK_CANCELLED_INTERVAL == 0) {
+                checkCancelled.run();
+            }
+            if (acceptDocs != null && acceptDocs.get(doc) == false) {
+                continue;
+            }
+            final float score = similarity.compare(queryVector, elementType, values.binaryValue());
+            if (results.size() < k) {
+                results.push(doc, score);
+            } else if (score > results.topScore()) {
+                results.pop();
+                results.push(doc, score);
+            }
+        }
+        final ScoreDoc[] scoreDocs = new ScoreDoc[results.size()];
+        for (int i = scoreDocs.length - 1; i >= 0; i--) {
+            final float score = results.topScore();
+            scoreDocs[i] = new ScoreDoc(results.pop() + context.docBase, score);
+        }
+        return new TopDocs(new TotalHits(scoreDocs.length, TotalHits.Relation.EQUAL_TO), scoreDocs);
+    }
+
+    @Override
+    public void visit(QueryVisitor visitor) {
+        if (visitor.acceptField(field)) {
+            visitor.visitLeaf(this);
+        }
+    }
+
+    @Override
+    public String toString(String field) {
+        return "KnnVectorQuery(field=" + this.field + ",k=" + k + ",num_candidates=" + numCandidates
+            + (filter == null ? "" : ",filter=" + filter) + ")";
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (sameClassAs(obj) == false) {
+            return false;
+        }
+        final KnnVectorQuery other = (KnnVectorQuery) obj;
+        return field.equals(other.field)
+            && Arrays.equals(queryVector, other.queryVector)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && Objects.equals(filter, other.filter)
+            && elementType == other.elementType
+            && similarity == other.similarity
+            && Objects.equals(indexOptions, other.indexOptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(
+            classHash(),
+            field,
+            Arrays.hashCode(queryVector),
+            k,
+            numCandidates,
+            filter,
+            elementType,
+            similarity,
+            indexOptions
+        );
+    }
+
+    /**
+     * Matches the given top documents of a reader, with their scores.
+     */
+    static final class TopDocsQuery extends Query {
+
+        private final int[] docs;
+        private final float[] scores;
+        private final Object readerKey;
+
+        TopDocsQuery(ScoreDoc[] scoreDocs, IndexReader reader) {
+            final ScoreDoc[] sorted = scoreDocs.clone();
+            Arrays.sort(sorted, Comparator.comparingInt(scoreDoc -> scoreDoc.doc));
+            this.docs = new int[sorted.length];
+            this.scores = new float[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                docs[i] = sorted[i].doc;
+                scores[i] = sorted[i].score;
+            }
+            // the documents are only valid for the reader that they were found in
+            this.readerKey = reader.getContext();
+        }
+
+        @Override
+        public Weight createWeight(IndexSearcher searcher, ScoreMode scoreMode, float boost) {
+            if (searcher.getIndexReader().getContext() != readerKey) {
+                throw new IllegalStateException("the query was rewritten against a different reader");
+            }
+            return new Weight(this) {
+                @Override
+                public void extractTerms(Set<Term> terms) {}
+
+                @Override
+                public Explanation explain(LeafReaderContext context, int doc) {
+                    final int index = Arrays.binarySearch(docs, doc + context.docBase);
+                    if (index < 0) {
+                        return Explanation.noMatch("not among the nearest vectors");
+                    }
+                    return Explanation.match(scores[index] * boost, "similarity of the vector, among the nearest vectors");
+                }
+
+                @Override
+                public Scorer scorer(LeafReaderContext context) {
+                    final int from = lowerBound(context.docBase);
+                    final int to = lowerBound(context.docBase + context.reader().maxDoc());
+                    if (from == to) {
+                        return null;
+                    }
+                    final BitSet bitSet = new FixedBitSet(context.reader().maxDoc());
+                    float maxScore = 0f;
+                    for (int i = from; i < to; i++) {
+                        bitSet.set(docs[i] - context.docBase);
+                        maxScore = Math.max(maxScore, scores[i]);
+                    }
+                    final float segmentMaxScore = maxScore * boost;
+                    final DocIdSetIterator iterator = new BitSetIterator(bitSet, to - from);
+                    return new Scorer(this) {
+                        @Override
+                        public DocIdSetIterator iterator() {
+                            return iterator;
+                        }
+
+                        @Override
+                        public float getMaxScore(int upTo) {
+                            return segmentMaxScore;
+                        }
+
+                        @Override
+                        public float score() {
+                            return scores[Arrays.binarySearch(docs, from, to, iterator.docID() + context.docBase)] * boost;
+                        }
+
+                        @Override
+                        public int docID() {
+                            return iterator.docID();
+                        }
+                    };
+                }
+
+                @Override
+                public boolean isCacheable(LeafReaderContext ctx) {
+                    return false;
+                }
+            };
+        }
+
+        private int lowerBound(int doc) {
+            final int index = Arrays.binarySearch(docs, doc);
+            return index < 0 ? -1 - index : index;
+        }
+
+        @Override
+        public void visit(QueryVisitor visitor) {
+            visitor.visitLeaf(this);
+        }
+
+        @Override
+        public String toString(String field) {
+            return "TopDocsQuery(" + docs.length + " docs)";
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (sameClassAs(obj) == false) {
+                return false;
+            }
+            final TopDocsQuery other = (TopDocsQuery) obj;
+            return readerKey == other.readerKey && Arrays.equals(docs, other.docs) && Arrays.equals(scores, other.scores);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(classHash(), System.identityHashCode(readerKey), Arrays.hashCode(docs), Arrays.hashCode(scores));
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.MatchNoDocsQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.ParsingException;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.xcontent.ConstructingObjectParser;
+import org.elasticsearch.common.xcontent.ParseField;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentParser;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.query.AbstractQueryBuilder;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.index.query.QueryRewriteContext;
+import org.elasticsearch.index.query.SearchExecutionContext;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.DenseVectorFieldType;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.constructorArg;
+import static org.elasticsearch.common.xcontent.ConstructingObjectParser.optionalConstructorArg;
+
+/**
+ * A query that finds the {@code k} documents whose vectors are the nearest to a query vector, searching {@code num_candidates} candidates
+ * in the graph of each shard segment, optionally among the documents that match a filter. The field must be a {@code dense_vector} field
+ * with {@code index: true}.
+ */
+public class KnnVectorQueryBuilder extends AbstractQueryBuilder<KnnVectorQueryBuilder> {
+    public static final String NAME = "knn";
+    public static final int MAX_NUM_CANDIDATES = 10_000;
+
+    private static final ParseField FIELD_FIELD = new ParseField("field");
+    private static final ParseField QUERY_VECTOR_FIELD = new ParseField("query_vector");
+    private static final ParseField K_FIELD = new ParseField("k");
+    private static final ParseField NUM_CANDIDATES_FIELD = new ParseField("num_candidates");
+    private static final ParseField FILTER_FIELD = new ParseField("filter");
+
+    private final String fieldName;
+    private final float[] queryVector;
+    private final int k;
+    private final int numCandidates;
+    private final QueryBuilder filter;
+
+    public KnnVectorQueryBuilder(String fieldName, float[] queryVector, int k, int numCandidates, QueryBuilder filter) {
+        if (fieldName == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a [" + FIELD_FIELD.getPreferredName() + "]");
+        }
+        if (queryVector == null) {
+            throw new IllegalArgumentException("[" + NAME + "] requires a [" + QUERY_VECTOR_FIELD.getPreferredName() + "]");
+        }
+        if (k < 1) {
+            throw new IllegalArgumentException("[" + NAME + "] requires [" + K_FIELD.getPreferredName() + "] to be at least 1");
+        }
+        if (numCandidates < k || numCandidates > MAX_NUM_CANDIDATES) {
+            throw new IllegalArgumentException("[" + NAME + "] requires [" + NUM_CANDIDATES_FIELD.getPreferredName()
+                + "] to be between [" + K_FIELD.getPreferredName() + "] and [" + MAX_NUM_CANDIDATES + "] but was [" + numCandidates + "]");
+        }
+        this.fieldName = fieldName;
+        this.queryVector = queryVector;
+        this.k = k;
+        this.numCandidates = numCandidates;
+        this.filter = filter;
+    }
+
+    /**
+     * Read from a stream.
+     */
+    public KnnVectorQueryBuilder(StreamInput in) throws IOException {
+        super(in);
+        fieldName = in.readString();
+        queryVector = in.readFloatArray();
+        k = in.readVInt();
+        numCandidates = in.readVInt();
+        filter = in.readOptionalNamedWriteable(QueryBuilder.class);
+    }
+
+    @Override
+    protected void doWriteTo(StreamOutput out) throws IOException {
+        out.writeString(fieldName);
+        out.writeFloatArray(queryVector);
+        out.writeVInt(k);
+        out.writeVInt(numCandidates);
+        out.writeOptionalNamedWriteable(filter);
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public float[] queryVector() {
+        return queryVector;
+    }
+
+    public int k() {
+        return k;
+    }
+
+    public int numCandidates() {
+        return numCandidates;
+    }
+
+    public QueryBuilder filter() {
+        return filter;
+    }
+
+    @Override
+    protected void doXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(NAME);
+        builder.field(FIELD_FIELD.getPreferredName(), fieldName);
+        builder.array(QUERY_VECTOR_FIELD.getPreferredName(), queryVector);
+        builder.field(K_FIELD.getPreferredName(), k);
+        builder.field(NUM_CANDIDATES_FIELD.getPreferredName(), numCandidates);
+        if (filter != null) {
+            builder.field(FILTER_FIELD.getPreferredName(), filter);
+        }
+        printBoostAndQueryName(builder);
+        builder.endObject();
+    }
+
+    private static final ConstructingObjectParser<KnnVectorQueryBuilder, Void> PARSER = new ConstructingObjectParser<>(NAME, a -> {
+        @SuppressWarnings("unchecked")
+        final List<Float> vector = (List<Float>) a[1];
+        final float[] queryVector = new float[vector.size()];
+        for (int i = 0; i < queryVector.length; i++) {
+            queryVector[i] = vector.get(i);
+        }
+        final int k = (Integer) a[2];
+        // by default, search as many candidates as usually needed for a good recall of the top hits
+        final int numCandidates = a[3] == null ? Math.min(MAX_NUM_CANDIDATES, Math.max(k, 100)) : (Integer) a[3];
+        return new KnnVectorQueryBuilder((String) a[0], queryVector, k, numCandidates, (QueryBuilder) a[4]);
+    });
+    static {
+        PARSER.declareString(constructorArg(), FIELD_FIELD);
+        PARSER.declareFloatArray(constructorArg(), QUERY_VECTOR_FIELD);
+        PARSER.declareInt(constructorArg(), K_FIELD);
+        PARSER.declareInt(optionalConstructorArg(), NUM_CANDIDATES_FIELD);
+        PARSER.declareObject(optionalConstructorArg(), (p, c) -> parseInnerQueryBuilder(p), FILTER_FIELD);
+        declareStandardFields(PARSER);
+    }
+
+    public static KnnVectorQueryBuilder fromXContent(XContentParser parser) {
+        try {
+            return PARSER.apply(parser, null);
+        } catch (IllegalArgumentException e) {
+            throw new ParsingException(parser.getTokenLocation(), e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String getWriteableName() {
+        return NAME;
+    }
+
+    @Override
+    protected QueryBuilder doRewrite(QueryRewriteContext queryRewriteContext) throws IOException {
+        if (filter != null) {
+            final QueryBuilder rewrittenFilter = filter.rewrite(queryRewriteContext);
+            if (rewrittenFilter != filter) {
+                return new KnnVectorQueryBuilder(fieldName, queryVector, k, numCandidates, rewrittenFilter).boost(boost)
+                    .queryName(queryName);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    protected Query doToQuery(SearchExecutionContext context) throws IOException {
+        final MappedFieldType fieldType = context.getFieldType(fieldName);
+        if (fieldType == null) {
+            return new MatchNoDocsQuery("field [" + fieldName + "] does not exist");
+        }
+        if (fieldType instanceof DenseVectorFieldType == false) {
+            throw new IllegalArgumentException("[" + NAME + "] queries are only supported on [" + DenseVectorFieldMapper.CONTENT_TYPE
+                + "] fields but field [" + fieldName + "] is of type [" + fieldType.typeName() + "]");
+        }
+        final Query filterQuery = filter == null ? null : filter.toQuery(context);
+        return ((DenseVectorFieldType) fieldType).createKnnQuery(queryVector, k, numCandidates, filterQuery, context);
+    }
+
+    @Override
+    protected int doHashCode() {
+        return Objects.hash(fieldName, Arrays.hashCode(queryVector), k, numCandidates, filter);
+    }
+
+    @Override
+    protected boolean doEquals(KnnVectorQueryBuilder other) {
+        return fieldName.equals(other.fieldName)
+            && Arrays.equals(queryVector, other.queryVector)
+            && k == other.k
+            && numCandidates == other.numCandidates
+            && Objects.equals(filter, other.filter);
+    }
+}
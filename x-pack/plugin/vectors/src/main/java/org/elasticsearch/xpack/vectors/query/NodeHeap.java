@@ -0,0 +1,97 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.util.ArrayUtil;
+import org.apache.lucene.util.NumericUtils;
+
+/**
+ * A binary heap of (score, node) pairs that are packed into longs so that no object is allocated per visited vector. The heap pops the
+ * pair with the lowest score first, or the pair with the highest score first if it is created with {@code maxHeap == true}. Ties are
+ * broken on the node.
+ */
+final class NodeHeap {
+
+    private final boolean maxHeap;
+    private long[] heap = new long[16];
+    private int size;
+
+    NodeHeap(boolean maxHeap) {
+        this.maxHeap = maxHeap;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void push(int node, float score) {
+        final long encoded = encode(node, score);
+        heap = ArrayUtil.grow(heap, size + 1);
+        int i = size++;
+        while (i > 0) {
+            final int parent = (i - 1) >>> 1;
+            if (heap[parent] <= encoded) {
+                break;
+            }
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = encoded;
+    }
+
+    /**
+     * Returns the node on top of the heap.
+     */
+    int topNode() {
+        assert size > 0;
+        return (int) decode(heap[0]);
+    }
+
+    /**
+     * Returns the score on top of the heap.
+     */
+    float topScore() {
+        assert size > 0;
+        return NumericUtils.sortableIntToFloat((int) (decode(heap[0]) >> 32));
+    }
+
+    /**
+     * Removes the top of the heap and returns its node.
+     */
+    int pop() {
+        assert size > 0;
+        final int node = topNode();
+        final long last = heap[--size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] < heap[child]) {
+                child++;
+            }
+            if (last <= heap[child]) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return node;
+    }
+
+    private long encode(int node, float score) {
+        final long encoded = ((long) NumericUtils.floatToSortableInt(score) << 32) | (node & 0xFFFFFFFFL);
+        return maxHeap ? ~encoded : encoded;
+    }
+
+    private long decode(long value) {
+        return maxHeap ? ~value : value;
+    }
+}
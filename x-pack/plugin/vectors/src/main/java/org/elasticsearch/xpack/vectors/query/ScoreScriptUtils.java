@@ -20,7 +20,6 @@ import org.elasticsearch.xpack.vectors.query.VectorScriptDocValues.DenseVectorSc
 import org.elasticsearch.xpack.vectors.query.VectorScriptDocValues.SparseVectorScriptDocValues;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 
@@ -114,15 +113,7 @@ public class ScoreScriptUtils {
         }
 
         public double l1norm() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double l1norm = 0;
-
-            for (float queryValue : queryVector) {
-                l1norm += Math.abs(queryValue - byteBuffer.getFloat());
-            }
-            return l1norm;
+            return VectorEncoderDecoder.l1Distance(docValues.elementType(), queryVector, getEncodedVector());
         }
     }
 
@@ -134,15 +125,7 @@ public class ScoreScriptUtils {
         }
 
         public double l2norm() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double l2norm = 0;
-            for (float queryValue : queryVector) {
-                double diff = queryValue - byteBuffer.getFloat();
-                l2norm += diff * diff;
-            }
-            return Math.sqrt(l2norm);
+            return Math.sqrt(VectorEncoderDecoder.squareDistance(docValues.elementType(), queryVector, getEncodedVector()));
         }
     }
 
@@ -154,14 +137,7 @@ public class ScoreScriptUtils {
         }
 
         public double dotProduct() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-
-            double dotProduct = 0;
-            for (float queryValue : queryVector) {
-                dotProduct += queryValue * byteBuffer.getFloat();
-            }
-            return dotProduct;
+            return VectorEncoderDecoder.dotProduct(docValues.elementType(), queryVector, getEncodedVector());
         }
     }
 
@@ -173,12 +149,7 @@ public class ScoreScriptUtils {
         }
 
         public double cosineSimilarity() {
-            BytesRef vector = getEncodedVector();
-            ByteBuffer byteBuffer = ByteBuffer.wrap(vector.bytes, vector.offset, vector.length);
-            double dotProduct = 0.0;
-            for (float queryValue : queryVector) {
-                dotProduct += queryValue * byteBuffer.getFloat();
-            }
+            double dotProduct = VectorEncoderDecoder.dotProduct(docValues.elementType(), queryVector, getEncodedVector());
             return dotProduct / docValues.getMagnitude();
         }
     }
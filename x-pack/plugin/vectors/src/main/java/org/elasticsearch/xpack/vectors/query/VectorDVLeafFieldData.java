@@ -17,6 +17,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.index.fielddata.LeafFieldData;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -29,13 +30,15 @@ final class VectorDVLeafFieldData implements LeafFieldData {
     private final boolean isDense;
     private final Version indexVersion;
     private final int dims;
+    private final ElementType elementType;
 
-    VectorDVLeafFieldData(LeafReader reader, String field, boolean isDense, Version indexVersion, int dims) {
+    VectorDVLeafFieldData(LeafReader reader, String field, boolean isDense, Version indexVersion, int dims, ElementType elementType) {
         this.reader = reader;
         this.field = field;
         this.isDense = isDense;
         this.indexVersion = indexVersion;
         this.dims = dims;
+        this.elementType = elementType;
     }
 
     @Override
@@ -58,7 +61,7 @@ final class VectorDVLeafFieldData implements LeafFieldData {
         try {
             final BinaryDocValues values = DocValues.getBinary(reader, field);
             if (isDense) {
-                return new VectorScriptDocValues.DenseVectorScriptDocValues(values, indexVersion, dims);
+                return new VectorScriptDocValues.DenseVectorScriptDocValues(values, indexVersion, dims, elementType);
             } else {
                 return new VectorScriptDocValues.SparseVectorScriptDocValues(values, indexVersion);
             }
@@ -23,6 +23,7 @@ import org.elasticsearch.search.aggregations.support.ValuesSourceType;
 import org.elasticsearch.search.sort.BucketedSort;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
 
 
 public class VectorIndexFieldData implements IndexFieldData<VectorDVLeafFieldData> {
@@ -32,13 +33,16 @@ public class VectorIndexFieldData implements IndexFieldData<VectorDVLeafFieldDat
     protected final ValuesSourceType valuesSourceType;
     private final Version indexVersion;
     private final int dims;
+    private final ElementType elementType;
 
-    public VectorIndexFieldData(String fieldName, boolean isDense, ValuesSourceType valuesSourceType, Version indexVersion, int dims) {
+    public VectorIndexFieldData(String fieldName, boolean isDense, ValuesSourceType valuesSourceType, Version indexVersion, int dims,
+                                ElementType elementType) {
         this.fieldName = fieldName;
         this.isDense = isDense;
         this.valuesSourceType = valuesSourceType;
         this.indexVersion = indexVersion;
         this.dims = dims;
+        this.elementType = elementType;
     }
 
     @Override
@@ -65,7 +69,7 @@ public class VectorIndexFieldData implements IndexFieldData<VectorDVLeafFieldDat
 
     @Override
     public VectorDVLeafFieldData load(LeafReaderContext context) {
-        return new VectorDVLeafFieldData(context.reader(), fieldName, isDense, indexVersion, dims);
+        return new VectorDVLeafFieldData(context.reader(), fieldName, isDense, indexVersion, dims, elementType);
     }
 
     @Override
@@ -79,18 +83,21 @@ public class VectorIndexFieldData implements IndexFieldData<VectorDVLeafFieldDat
         private final ValuesSourceType valuesSourceType;
         private final Version indexVersion;
         private final int dims;
+        private final ElementType elementType;
 
-        public Builder(String name, boolean isDense, ValuesSourceType valuesSourceType, Version indexVersion, int dims) {
+        public Builder(String name, boolean isDense, ValuesSourceType valuesSourceType, Version indexVersion, int dims,
+                       ElementType elementType) {
             this.name = name;
             this.isDense = isDense;
             this.valuesSourceType = valuesSourceType;
             this.indexVersion = indexVersion;
             this.dims = dims;
+            this.elementType = elementType;
         }
 
         @Override
         public IndexFieldData<?> build(IndexFieldDataCache cache, CircuitBreakerService breakerService) {
-            return new VectorIndexFieldData(name, isDense, valuesSourceType, indexVersion, dims);
+            return new VectorIndexFieldData(name, isDense, valuesSourceType, indexVersion, dims, elementType);
         }
     }
 }
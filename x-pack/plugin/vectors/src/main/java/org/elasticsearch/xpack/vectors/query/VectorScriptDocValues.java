@@ -13,6 +13,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.index.fielddata.ScriptDocValues;
 import org.elasticsearch.script.Field;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
 import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
 
 import java.io.IOException;
@@ -62,11 +63,17 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
     // not final, as it needs to be extended by Mockito for tests
     public static class DenseVectorScriptDocValues extends VectorScriptDocValues {
         private final int dims;
+        private final ElementType elementType;
         private final float[] vector;
 
         public DenseVectorScriptDocValues(BinaryDocValues in, Version indexVersion, int dims) {
+            this(in, indexVersion, dims, ElementType.FLOAT);
+        }
+
+        public DenseVectorScriptDocValues(BinaryDocValues in, Version indexVersion, int dims, ElementType elementType) {
             super(in, indexVersion);
             this.dims = dims;
+            this.elementType = elementType;
             this.vector = new float[dims];
         }
 
@@ -81,11 +88,16 @@ public abstract class VectorScriptDocValues extends ScriptDocValues<BytesRef> {
             return dims;
         }
 
+        // package private access only for {@link ScoreScriptUtils}
+        ElementType elementType() {
+            return elementType;
+        }
+
         /**
          * Get dense vector's value as an array of floats
          */
         public float[] getVectorValue() {
-            VectorEncoderDecoder.decodeDenseVector(value, vector);
+            VectorEncoderDecoder.decodeDenseVector(elementType, value, vector);
             return vector;
         }
 
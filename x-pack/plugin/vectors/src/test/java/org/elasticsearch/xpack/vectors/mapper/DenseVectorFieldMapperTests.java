@@ -12,6 +12,7 @@ import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.core.List;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
@@ -34,7 +35,7 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
 
     @Override
     protected Collection<? extends Plugin> getPlugins() {
-        return Collections.singletonList(new Vectors());
+        return Collections.singletonList(new Vectors(Settings.EMPTY));
     }
 
     @Override
@@ -52,6 +53,19 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         checker.registerConflictCheck("dims",
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
             fieldMapping(b -> b.field("type", "dense_vector").field("dims", 5)));
+        checker.registerConflictCheck("element_type",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("element_type", "byte")));
+        checker.registerConflictCheck("index",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4)),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")));
+        checker.registerConflictCheck("similarity",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "cosine")));
+        checker.registerConflictCheck("index_options",
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")),
+            fieldMapping(b -> b.field("type", "dense_vector").field("dims", 4).field("index", true).field("similarity", "l2_norm")
+                .startObject("index_options").field("type", "hnsw").field("m", 32).field("ef_construction", 200).endObject()));
     }
 
     @Override
@@ -83,6 +97,99 @@ public class DenseVectorFieldMapperTests extends MapperTestCase {
         }
     }
 
+    public void testIndexedRequiresSimilarity() {
+        Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("index", true);
+        })));
+        assertThat(e.getMessage(), containsString("Field [field] of type [dense_vector] requires [similarity] to be set"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("index", true);
+            b.field("similarity", "manhattan");
+        })));
+        assertThat(e.getMessage(), containsString("Unknown vector similarity [manhattan]"));
+    }
+
+    public void testByteElementType() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector")
+            .field("dims", 3)
+            .field("element_type", "byte")
+            .field("similarity", "cosine")));
+
+        ParsedDocument doc = mapper.parse(source(b -> b.array("field", new int[] { -128, 0, 127 })));
+        IndexableField[] fields = doc.rootDoc().getFields("field");
+        assertEquals(1, fields.length);
+        BytesRef vectorBR = fields[0].binaryValue();
+        // one byte per dimension followed by the magnitude
+        assertEquals(3 + 4, vectorBR.length);
+        float[] decodedValues = new float[3];
+        VectorEncoderDecoder.decodeDenseVector(DenseVectorFieldMapper.ElementType.BYTE, vectorBR, decodedValues);
+        assertArrayEquals(new float[] { -128, 0, 127 }, decodedValues, 0f);
+        assertEquals((float) Math.sqrt(128 * 128 + 127 * 127), VectorEncoderDecoder.decodeMagnitude(Version.CURRENT, vectorBR), 0.001f);
+
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", new float[] { 1.5f, 0, 0 }))));
+        assertThat(e.getCause().getMessage(), containsString("can only hold integers between [-128] and [127]"));
+        e = expectThrows(MapperParsingException.class, () -> mapper.parse(source(b -> b.array("field", new int[] { 128, 0, 0 }))));
+        assertThat(e.getCause().getMessage(), containsString("can only hold integers between [-128] and [127]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("element_type", "byte");
+            b.field("index", true);
+            b.field("similarity", "dot_product");
+        })));
+        assertThat(e.getMessage(), containsString("can't use the [dot_product] similarity"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(Version.V_7_15_0, fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("element_type", "byte");
+        })));
+        assertThat(e.getMessage(), containsString("only supports [element_type] [byte] on indices created on or after version"));
+    }
+
+    public void testIndexOptions() {
+        Exception e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("index", true);
+            b.field("similarity", "cosine");
+            b.startObject("index_options").field("type", "flat").endObject();
+        })));
+        assertThat(e.getMessage(), containsString("must have [type] set to [hnsw] but was [flat]"));
+
+        e = expectThrows(MapperParsingException.class, () -> createMapperService(fieldMapping(b -> {
+            b.field("type", "dense_vector");
+            b.field("dims", 3);
+            b.field("index", true);
+            b.field("similarity", "cosine");
+            b.startObject("index_options").field("type", "hnsw").field("m", 0).endObject();
+        })));
+        assertThat(e.getMessage(), containsString("must have positive [m] and [ef_construction] but were [0] and [100]"));
+    }
+
+    public void testDotProductRequiresUnitVectors() throws Exception {
+        DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector")
+            .field("dims", 3)
+            .field("index", true)
+            .field("similarity", "dot_product")));
+
+        float[] unitVector = { 0.6f, 0.8f, 0f };
+        ParsedDocument doc = mapper.parse(source(b -> b.array("field", unitVector)));
+        assertEquals(1, doc.rootDoc().getFields("field").length);
+
+        float[] otherVector = { 3f, 4f, 0f };
+        MapperParsingException e = expectThrows(MapperParsingException.class,
+            () -> mapper.parse(source(b -> b.array("field", otherVector))));
+        assertThat(e.getCause().getMessage(), containsString("The [dot_product] similarity can only be used with unit-length vectors"));
+    }
+
     public void testDefaults() throws Exception {
 
         DocumentMapper mapper = createDocumentMapper(fieldMapping(b -> b.field("type", "dense_vector").field("dims", 3)));
@@ -8,12 +8,23 @@
 package org.elasticsearch.xpack.vectors.mapper;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.NoopCircuitBreaker;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.mapper.FieldTypeTestCase;
+import org.elasticsearch.xpack.vectors.Vectors;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.HnswIndexOptions;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+import org.elasticsearch.xpack.vectors.query.HnswGraphCache;
+import org.elasticsearch.xpack.vectors.query.KnnVectorQuery;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.instanceOf;
+
 public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
 
     public void testHasDocValues() {
@@ -48,4 +59,36 @@ public class DenseVectorFieldTypeTests extends FieldTypeTestCase {
         List<Double> vector = org.elasticsearch.core.List.of(0.0, 1.0, 2.0, 3.0, 4.0);
         assertEquals(vector, fetchSourceValue(ft, vector));
     }
+
+    public void testCreateKnnQuery() {
+        DenseVectorFieldMapper.DenseVectorFieldType noSimilarity = new DenseVectorFieldMapper.DenseVectorFieldType(
+            "f", Version.CURRENT, 3, Collections.emptyMap());
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> noSimilarity.createKnnQuery(new float[] { 0.3f, 0.1f, 1.0f }, 10, 100, null, MOCK_CONTEXT));
+        assertThat(e.getMessage(), containsString("its mapping must have [similarity] set"));
+
+        DenseVectorFieldMapper.DenseVectorFieldType unindexed = new DenseVectorFieldMapper.DenseVectorFieldType(
+            "f", Version.CURRENT, 3, ElementType.BYTE, VectorSimilarity.COSINE, null, null, Collections.emptyMap());
+        assertThat(unindexed.createKnnQuery(new float[] { 3f, 1f, 2f }, 10, 100, null, MOCK_CONTEXT), instanceOf(KnnVectorQuery.class));
+
+        DenseVectorFieldMapper.DenseVectorFieldType ft = new DenseVectorFieldMapper.DenseVectorFieldType(
+            "f", Version.CURRENT, 3, ElementType.FLOAT, VectorSimilarity.DOT_PRODUCT, new HnswIndexOptions(16, 100),
+            new HnswGraphCache(Settings.EMPTY, () -> new NoopCircuitBreaker(Vectors.CIRCUIT_BREAKER_NAME)), Collections.emptyMap());
+        e = expectThrows(IllegalArgumentException.class, () -> ft.createKnnQuery(new float[] { 0.6f, 0.8f }, 10, 100, null, MOCK_CONTEXT));
+        assertThat(e.getMessage(), containsString("the query vector has a different number of dimensions [2]"));
+        e = expectThrows(IllegalArgumentException.class, () -> ft.createKnnQuery(new float[] { 3f, 4f, 0f }, 10, 100, null, MOCK_CONTEXT));
+        assertThat(e.getMessage(), containsString("can only be used with unit-length vectors"));
+        assertThat(ft.createKnnQuery(new float[] { 0.6f, 0.8f, 0f }, 10, 100, null, MOCK_CONTEXT), instanceOf(KnnVectorQuery.class));
+    }
+
+    public void testVectorSimilarity() {
+        float[] v1 = { 1f, 0f };
+        float[] v2 = { 0f, 1f };
+        assertEquals(1f, VectorSimilarity.L2_NORM.compare(v1, v1), 0f);
+        assertEquals(1f / 3, VectorSimilarity.L2_NORM.compare(v1, v2), 1e-6f);
+        assertEquals(1f, VectorSimilarity.DOT_PRODUCT.compare(v1, v1), 0f);
+        assertEquals(0.5f, VectorSimilarity.DOT_PRODUCT.compare(v1, v2), 0f);
+        assertEquals(1f, VectorSimilarity.COSINE.compare(v1, new float[] { 5f, 0f }), 1e-6f);
+        assertEquals(0f, VectorSimilarity.COSINE.compare(v1, new float[] { -2f, 0f }), 1e-6f);
+    }
 }
@@ -95,6 +95,52 @@ public class VectorEncoderDecoderTests extends ESTestCase {
         );
     }
 
+    public void testDenseVectorFunctions() {
+        int dims = randomIntBetween(1, 67);
+        float[] queryVector = new float[dims];
+        float[] floatVector = new float[dims];
+        float[] byteVector = new float[dims];
+        byte[] bytes = new byte[dims + VectorEncoderDecoder.INT_BYTES];
+        for (int dim = 0; dim < dims; dim++) {
+            queryVector[dim] = randomFloat() * 200 - 100;
+            floatVector[dim] = randomFloat() * 200 - 100;
+            bytes[dim] = randomByte();
+            byteVector[dim] = bytes[dim];
+        }
+        // encoded vectors may not start at the beginning of their array
+        BytesRef encodedFloatVector = mockEncodeDenseVector(floatVector, Version.CURRENT);
+        byte[] shifted = new byte[encodedFloatVector.length + 3];
+        System.arraycopy(encodedFloatVector.bytes, 0, shifted, 3, encodedFloatVector.length);
+        encodedFloatVector = new BytesRef(shifted, 3, encodedFloatVector.length);
+        BytesRef encodedByteVector = new BytesRef(bytes);
+
+        for (DenseVectorFieldMapper.ElementType elementType : DenseVectorFieldMapper.ElementType.values()) {
+            boolean isByte = elementType == DenseVectorFieldMapper.ElementType.BYTE;
+            float[] vector = isByte ? byteVector : floatVector;
+            BytesRef encoded = isByte ? encodedByteVector : encodedFloatVector;
+
+            double dotProduct = 0;
+            double squareDistance = 0;
+            double l1Distance = 0;
+            double squaredMagnitude = 0;
+            for (int dim = 0; dim < dims; dim++) {
+                dotProduct += queryVector[dim] * vector[dim];
+                double diff = queryVector[dim] - vector[dim];
+                squareDistance += diff * diff;
+                l1Distance += Math.abs(queryVector[dim] - vector[dim]);
+                squaredMagnitude += vector[dim] * vector[dim];
+            }
+            assertEquals(dotProduct, VectorEncoderDecoder.dotProduct(elementType, queryVector, encoded), 0.01);
+            assertEquals(squareDistance, VectorEncoderDecoder.squareDistance(elementType, queryVector, encoded), 0.01);
+            assertEquals(l1Distance, VectorEncoderDecoder.l1Distance(elementType, queryVector, encoded), 0.01);
+            assertEquals(squaredMagnitude, VectorEncoderDecoder.squaredMagnitude(elementType, dims, encoded), 0.01);
+
+            float[] decoded = new float[dims];
+            VectorEncoderDecoder.decodeDenseVector(elementType, encoded, decoded);
+            assertArrayEquals(vector, decoded, 0f);
+        }
+    }
+
     // imitates the code in DenseVectorFieldMapper::parse
     public static BytesRef mockEncodeDenseVector(float[] values, Version indexVersion) {
         byte[] bytes = indexVersion.onOrAfter(Version.V_7_5_0)
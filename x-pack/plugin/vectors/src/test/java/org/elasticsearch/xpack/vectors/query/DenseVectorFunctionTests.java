@@ -11,6 +11,7 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.Version;
 import org.elasticsearch.script.ScoreScript;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
 import org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoder;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.CosineSimilarity;
 import org.elasticsearch.xpack.vectors.query.ScoreScriptUtils.DotProduct;
@@ -51,6 +52,7 @@ public class DenseVectorFunctionTests extends ESTestCase {
             when(docValues.getEncodedValue()).thenReturn(encodedDocVector);
             when(docValues.getMagnitude()).thenReturn(magnitude);
             when(docValues.dims()).thenReturn(docVector.length);
+            when(docValues.elementType()).thenReturn(ElementType.FLOAT);
 
             ScoreScript scoreScript = mock(ScoreScript.class);
             when(scoreScript.getDoc()).thenReturn(Collections.singletonMap(field, docValues));
@@ -0,0 +1,151 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.util.FixedBitSet;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class HnswGraphTests extends ESTestCase {
+
+    public void testRecall() {
+        final int numVectors = 2000;
+        final int dims = randomIntBetween(8, 32);
+        final VectorSimilarity similarity = randomFrom(VectorSimilarity.L2_NORM, VectorSimilarity.COSINE);
+        final HnswGraph graph = HnswGraph.build(similarity, docs(numVectors), randomVectors(numVectors, dims), dims, 16, 100, () -> {});
+        assertEquals(numVectors, graph.size());
+
+        final int k = 10;
+        final int numQueries = 20;
+        int found = 0;
+        for (int i = 0; i < numQueries; i++) {
+            final float[] query = randomVector(dims);
+            final TopDocs approximate = graph.search(query, 100, null, Integer.MAX_VALUE);
+            final TopDocs exact = graph.exhaustiveSearch(query, k, null);
+            found += overlap(approximate, exact, k);
+        }
+        final double recall = (double) found / (numQueries * k);
+        assertThat("recall of the graph search", recall, greaterThanOrEqualTo(0.9));
+    }
+
+    public void testFilteredSearch() {
+        final int numVectors = 1000;
+        final int dims = 16;
+        final HnswGraph graph = HnswGraph.build(VectorSimilarity.L2_NORM, docs(numVectors), randomVectors(numVectors, dims), dims, 16,
+            100, () -> {});
+        final FixedBitSet acceptDocs = new FixedBitSet(numVectors * 2);
+        for (int doc = 0; doc < numVectors * 2; doc += 4) {
+            acceptDocs.set(doc);
+        }
+
+        final int k = 10;
+        final float[] query = randomVector(dims);
+        final TopDocs approximate = graph.search(query, 100, acceptDocs, Integer.MAX_VALUE);
+        for (ScoreDoc scoreDoc : approximate.scoreDocs) {
+            assertTrue(acceptDocs.get(scoreDoc.doc));
+        }
+        final TopDocs exact = graph.exhaustiveSearch(query, k, acceptDocs);
+        assertEquals(k, exact.scoreDocs.length);
+        for (ScoreDoc scoreDoc : exact.scoreDocs) {
+            assertTrue(acceptDocs.get(scoreDoc.doc));
+        }
+        assertThat(overlap(approximate, exact, k), greaterThanOrEqualTo(k / 2));
+    }
+
+    public void testVisitLimit() {
+        final int numVectors = 500;
+        final HnswGraph graph = HnswGraph.build(VectorSimilarity.L2_NORM, docs(numVectors), randomVectors(numVectors, 8), 8, 8, 50,
+            () -> {});
+        assertNull(graph.search(randomVector(8), 50, null, 10));
+        assertNotNull(graph.search(randomVector(8), 50, null, numVectors));
+    }
+
+    public void testExhaustiveSearch() {
+        final int numVectors = 100;
+        final HnswGraph graph = HnswGraph.build(VectorSimilarity.COSINE, docs(numVectors), randomVectors(numVectors, 4), 4, 8, 50,
+            () -> {});
+        final TopDocs topDocs = graph.exhaustiveSearch(randomVector(4), 10, null);
+        assertEquals(10, topDocs.scoreDocs.length);
+        for (int i = 1; i < topDocs.scoreDocs.length; i++) {
+            assertThat(topDocs.scoreDocs[i].score, lessThanOrEqualTo(topDocs.scoreDocs[i - 1].score));
+        }
+    }
+
+    public void testCancellation() {
+        final int numVectors = 100;
+        final int cancelAfter = randomIntBetween(1, numVectors);
+        final AtomicInteger checks = new AtomicInteger();
+        expectThrows(TaskCancelledException.class, () -> HnswGraph.build(VectorSimilarity.L2_NORM, docs(numVectors),
+            randomVectors(numVectors, 4), 4, 8, 50, () -> {
+                if (checks.incrementAndGet() > cancelAfter) {
+                    throw new TaskCancelledException("cancelled");
+                }
+            }));
+        assertEquals(cancelAfter + 1, checks.get());
+    }
+
+    public void testEstimateRamBytesUsed() {
+        final int numVectors = randomIntBetween(500, 2000);
+        final int dims = randomIntBetween(2, 32);
+        final int m = randomIntBetween(4, 32);
+        final HnswGraph graph = HnswGraph.build(VectorSimilarity.L2_NORM, docs(numVectors), randomVectors(numVectors, dims), dims, m, 50,
+            () -> {});
+        final long estimate = HnswGraph.estimateRamBytesUsed(numVectors, dims, m);
+        assertThat((double) estimate, closeTo(graph.ramBytesUsed(), graph.ramBytesUsed() * 0.1));
+    }
+
+    private static int overlap(TopDocs approximate, TopDocs exact, int k) {
+        final Set<Integer> exactDocs = new HashSet<>();
+        for (ScoreDoc scoreDoc : exact.scoreDocs) {
+            exactDocs.add(scoreDoc.doc);
+        }
+        int overlap = 0;
+        for (int i = 0; i < Math.min(k, approximate.scoreDocs.length); i++) {
+            if (exactDocs.contains(approximate.scoreDocs[i].doc)) {
+                overlap++;
+            }
+        }
+        return overlap;
+    }
+
+    private static int[] docs(int numVectors) {
+        // leave gaps between the docs that have a vector
+        final int[] docs = new int[numVectors];
+        for (int i = 0; i < numVectors; i++) {
+            docs[i] = i * 2;
+        }
+        return docs;
+    }
+
+    private static float[] randomVectors(int numVectors, int dims) {
+        final float[] vectors = new float[numVectors * dims];
+        for (int i = 0; i < numVectors; i++) {
+            System.arraycopy(randomVector(dims), 0, vectors, i * dims, dims);
+        }
+        return vectors;
+    }
+
+    private static float[] randomVector(int dims) {
+        final float[] vector = new float[dims];
+        for (int dim = 0; dim < dims; dim++) {
+            vector[dim] = randomFloat() * 2 - 1;
+        }
+        return vector;
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * Copyright Elasticsearch B.V. and/or licensed to Elasticsearch B.V. under one
+ * or more contributor license agreements. Licensed under the Elastic License
+ * 2.0; you may not use this file except in compliance with the Elastic License
+ * 2.0.
+ */
+
+package org.elasticsearch.xpack.vectors.query;
+
+import org.apache.lucene.document.BinaryDocValuesField;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.FilterLeafReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ElasticsearchTimeoutException;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.breaker.CircuitBreaker;
+import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.indices.breaker.BreakerSettings;
+import org.elasticsearch.indices.breaker.CircuitBreakerService;
+import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
+import org.elasticsearch.search.internal.ContextIndexSearcher;
+import org.elasticsearch.tasks.TaskCancelledException;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.xpack.vectors.Vectors;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.ElementType;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.HnswIndexOptions;
+import org.elasticsearch.xpack.vectors.mapper.DenseVectorFieldMapper.VectorSimilarity;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.elasticsearch.xpack.vectors.mapper.VectorEncoderDecoderTests.mockEncodeDenseVector;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class KnnVectorQueryTests extends ESTestCase {
+
+    private static final String FIELD = "vector";
+    private static final int DIMS = 4;
+
+    public void testSearch() throws IOException {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(100, ByteSizeUnit.MB));
+        final HnswGraphCache graphCache = newGraphCache(Settings.EMPTY, breaker);
+        doTestSearch(graphCache, reader -> {
+            assertEquals(reader.leaves().size(), graphCache.count());
+            assertThat(breaker.getUsed(), greaterThan(0L));
+        });
+        // the graphs are released with their segments
+        assertEquals(0, graphCache.count());
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testExactSearch() throws IOException {
+        doTestSearch(null, reader -> {});
+    }
+
+    public void testSegmentsThatDoNotFitInTheCacheAreSearchedExhaustively() throws IOException {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(100, ByteSizeUnit.MB));
+        final Settings settings = Settings.builder()
+            .put(HnswGraphCache.GRAPH_CACHE_SIZE_SETTING.getKey(), randomFrom("0b", "32b"))
+            .build();
+        final HnswGraphCache graphCache = newGraphCache(settings, breaker);
+        doTestSearch(graphCache, reader -> {
+            assertEquals(0, graphCache.count());
+            assertEquals(0, breaker.getUsed());
+        });
+    }
+
+    private void doTestSearch(HnswGraphCache graphCache, Consumer<IndexReader> afterSearch) throws IOException {
+        // segments are not merged so that doc ids are the order in which documents were added
+        final IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, config)) {
+            final int numDocs = randomIntBetween(200, 500);
+            for (int i = 0; i < numDocs; i++) {
+                final Document doc = new Document();
+                doc.add(new StringField("parity", i % 2 == 0 ? "even" : "odd", Field.Store.NO));
+                // leave some documents without a vector
+                if (i % 7 != 0) {
+                    final float[] vector = { i, i, i, i };
+                    doc.add(new BinaryDocValuesField(FIELD, mockEncodeDenseVector(vector, Version.CURRENT)));
+                }
+                writer.addDocument(doc);
+                if (rarely()) {
+                    writer.commit();
+                }
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final float[] queryVector = { 100.2f, 100.2f, 100.2f, 100.2f };
+
+                final TopDocs topDocs = searcher.search(knnQuery(queryVector, 5, null, graphCache), 10);
+                assertEquals(5, topDocs.totalHits.value);
+                assertArrayEquals(new int[] { 100, 101, 99, 102, 103 }, docs(topDocs));
+                for (int i = 1; i < topDocs.scoreDocs.length; i++) {
+                    assertThat(topDocs.scoreDocs[i].score, lessThanOrEqualTo(topDocs.scoreDocs[i - 1].score));
+                }
+                afterSearch.accept(reader);
+
+                final Query filter = new TermQuery(new Term("parity", "odd"));
+                final TopDocs filtered = searcher.search(knnQuery(queryVector, 3, filter, graphCache), 10);
+                assertArrayEquals(new int[] { 101, 99, 103 }, docs(filtered));
+
+                final Query noMatch = new TermQuery(new Term("parity", "none"));
+                assertEquals(0, searcher.search(knnQuery(queryVector, 3, noMatch, graphCache), 10).totalHits.value);
+            }
+        }
+    }
+
+    public void testByteVectors() throws IOException {
+        final HnswGraphCache graphCache = randomBoolean()
+            ? newGraphCache(Settings.EMPTY, newBreaker(new ByteSizeValue(1, ByteSizeUnit.MB)))
+            : null;
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                final byte value = (byte) (i - 50);
+                final byte[] bytes = { value, value, value, value, 0, 0, 0, 0 };
+                doc.add(new BinaryDocValuesField(FIELD, new BytesRef(bytes)));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final KnnVectorQuery query = new KnnVectorQuery(FIELD, new float[] { 10.2f, 10.2f, 10.2f, 10.2f }, 3, 10, null, DIMS,
+                    ElementType.BYTE, VectorSimilarity.L2_NORM, graphCache == null ? null : new HnswIndexOptions(8, 50), graphCache);
+                final TopDocs topDocs = new IndexSearcher(reader).search(query, 10);
+                assertArrayEquals(new int[] { 60, 61, 59 }, docs(topDocs));
+            }
+        }
+    }
+
+    public void testBuildIsBoundedByTheCircuitBreaker() throws IOException {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(1, ByteSizeUnit.KB));
+        final HnswGraphCache graphCache = newGraphCache(Settings.EMPTY, breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                doc.add(new BinaryDocValuesField(FIELD, mockEncodeDenseVector(new float[] { i, i, i, i }, Version.CURRENT)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final IndexSearcher searcher = new IndexSearcher(reader);
+                final Query query = knnQuery(new float[] { 1, 1, 1, 1 }, 3, null, graphCache);
+                expectThrows(CircuitBreakingException.class, () -> searcher.search(query, 10));
+                assertEquals(0, graphCache.count());
+                assertEquals(0, breaker.getUsed());
+            }
+        }
+    }
+
+    public void testBuildChecksForCancellation() throws IOException {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(100, ByteSizeUnit.MB));
+        final HnswGraphCache graphCache = newGraphCache(Settings.EMPTY, breaker);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                doc.add(new BinaryDocValuesField(FIELD, mockEncodeDenseVector(new float[] { i, i, i, i }, Version.CURRENT)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final ContextIndexSearcher searcher = new ContextIndexSearcher(reader, IndexSearcher.getDefaultSimilarity(),
+                    IndexSearcher.getDefaultQueryCache(), IndexSearcher.getDefaultQueryCachingPolicy(), true);
+                // cancel while counting, loading or linking the vectors
+                final AtomicInteger checksBeforeCancellation = new AtomicInteger(randomIntBetween(0, 50));
+                searcher.addQueryCancellation(() -> {
+                    if (checksBeforeCancellation.getAndDecrement() <= 0) {
+                        throw new TaskCancelledException("cancelled");
+                    }
+                });
+                final Query query = knnQuery(new float[] { 1, 1, 1, 1 }, 3, null, graphCache);
+                // the graphs are only built once the search executes the query, when it checks for cancellation
+                assertSame(query, searcher.rewrite(query));
+                assertEquals(0, graphCache.count());
+                expectThrows(TaskCancelledException.class, () -> searcher.search(query, 10));
+                assertEquals(0, graphCache.count());
+                assertEquals(0, breaker.getUsed());
+
+                checksBeforeCancellation.set(Integer.MAX_VALUE);
+                assertEquals(3, searcher.search(query, 10).scoreDocs.length);
+                assertEquals(reader.leaves().size(), graphCache.count());
+            }
+        }
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testSearchesWaitingForAGraphBuildItIfTheBuildingSearchFails() throws Exception {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(100, ByteSizeUnit.MB));
+        final HnswGraphCache graphCache = newGraphCache(Settings.EMPTY, breaker);
+        final HnswIndexOptions indexOptions = new HnswIndexOptions(8, 50);
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                doc.add(new BinaryDocValuesField(FIELD, mockEncodeDenseVector(new float[] { i, i, i, i }, Version.CURRENT)));
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final LeafReader leafReader = getOnlyLeafReader(reader);
+                final CountDownLatch buildStarted = new CountDownLatch(1);
+                final CountDownLatch failBuild = new CountDownLatch(1);
+                final AtomicInteger checks = new AtomicInteger();
+                final AtomicReference<Exception> buildFailure = new AtomicReference<>();
+                // the search that builds the graph times out once it has counted the vectors
+                final Thread failingSearch = new Thread(() -> {
+                    try {
+                        graphCache.getOrBuild(leafReader, FIELD, DIMS, ElementType.FLOAT, VectorSimilarity.L2_NORM, indexOptions, () -> {
+                            if (checks.incrementAndGet() > 1) {
+                                buildStarted.countDown();
+                                try {
+                                    failBuild.await();
+                                } catch (InterruptedException e) {
+                                    throw new AssertionError(e);
+                                }
+                                throw new ElasticsearchTimeoutException("timed out");
+                            }
+                        });
+                    } catch (Exception e) {
+                        buildFailure.set(e);
+                    }
+                });
+                final AtomicReference<HnswGraph> graph = new AtomicReference<>();
+                final AtomicReference<Exception> waiterFailure = new AtomicReference<>();
+                final Thread waitingSearch = new Thread(() -> {
+                    try {
+                        graph.set(graphCache.getOrBuild(leafReader, FIELD, DIMS, ElementType.FLOAT, VectorSimilarity.L2_NORM,
+                            indexOptions, () -> {}));
+                    } catch (Exception e) {
+                        waiterFailure.set(e);
+                    }
+                });
+                failingSearch.start();
+                buildStarted.await();
+                waitingSearch.start();
+                assertBusy(() -> assertEquals(Thread.State.WAITING, waitingSearch.getState()));
+                failBuild.countDown();
+                failingSearch.join();
+                waitingSearch.join();
+
+                assertThat(buildFailure.get(), instanceOf(ElasticsearchTimeoutException.class));
+                assertNull(waiterFailure.get());
+                assertNotNull(graph.get());
+                assertEquals(1, graphCache.count());
+            }
+        }
+        assertEquals(0, graphCache.count());
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testSegmentsRegisterASingleClosedListener() throws IOException {
+        final CircuitBreaker breaker = newBreaker(new ByteSizeValue(100, ByteSizeUnit.MB));
+        final HnswIndexOptions indexOptions = new HnswIndexOptions(8, 50);
+        // the cache only has room for the graph of one of the fields, so that they evict each other
+        final Settings settings = Settings.builder()
+            .put(HnswGraphCache.GRAPH_CACHE_SIZE_SETTING.getKey(), HnswGraph.estimateRamBytesUsed(100, DIMS, 8) * 3 / 2 + "b")
+            .build();
+        final HnswGraphCache graphCache = newGraphCache(settings, breaker);
+        final String[] fields = { FIELD, "other_vector" };
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 100; i++) {
+                final Document doc = new Document();
+                for (String field : fields) {
+                    doc.add(new BinaryDocValuesField(field, mockEncodeDenseVector(new float[] { i, i, i, i }, Version.CURRENT)));
+                }
+                writer.addDocument(doc);
+            }
+            writer.forceMerge(1);
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final LeafReader in = getOnlyLeafReader(reader);
+                final AtomicInteger closedListeners = new AtomicInteger();
+                final LeafReader leafReader = new FilterLeafReader(in) {
+                    @Override
+                    public CacheHelper getCoreCacheHelper() {
+                        final CacheHelper cacheHelper = in.getCoreCacheHelper();
+                        return new CacheHelper() {
+                            @Override
+                            public IndexReader.CacheKey getKey() {
+                                return cacheHelper.getKey();
+                            }
+
+                            @Override
+                            public void addClosedListener(IndexReader.ClosedListener listener) {
+                                closedListeners.incrementAndGet();
+                                cacheHelper.addClosedListener(listener);
+                            }
+                        };
+                    }
+
+                    @Override
+                    public CacheHelper getReaderCacheHelper() {
+                        return null;
+                    }
+                };
+                for (int i = 0; i < 5; i++) {
+                    for (String field : fields) {
+                        assertNotNull(graphCache.getOrBuild(leafReader, field, DIMS, ElementType.FLOAT, VectorSimilarity.L2_NORM,
+                            indexOptions, () -> {}));
+                        assertThat(graphCache.count(), lessThanOrEqualTo(1));
+                    }
+                }
+                assertEquals(1, closedListeners.get());
+            }
+        }
+        // the graphs of all fields are dropped with the segment
+        assertEquals(0, graphCache.count());
+        assertEquals(0, breaker.getUsed());
+    }
+
+    public void testTopDocsQueryIsBoundToItsReader() throws IOException {
+        try (Directory dir = newDirectory(); IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig())) {
+            for (int i = 0; i < 10; i++) {
+                final Document doc = new Document();
+                doc.add(new BinaryDocValuesField(FIELD, mockEncodeDenseVector(new float[] { i, i, i, i }, Version.CURRENT)));
+                writer.addDocument(doc);
+            }
+            try (DirectoryReader reader = DirectoryReader.open(writer)) {
+                final Query topDocsQuery = new KnnVectorQuery.TopDocsQuery(new ScoreDoc[] { new ScoreDoc(1, 1f) }, reader);
+                assertEquals(1, new IndexSearcher(reader).search(topDocsQuery, 10).totalHits.value);
+                writer.addDocument(new Document());
+                try (DirectoryReader otherReader = DirectoryReader.open(writer)) {
+                    expectThrows(IllegalStateException.class, () -> new IndexSearcher(otherReader).search(topDocsQuery, 10));
+                }
+            }
+        }
+    }
+
+    private static KnnVectorQuery knnQuery(float[] queryVector, int k, Query filter, HnswGraphCache graphCache) {
+        final HnswIndexOptions indexOptions = graphCache == null ? null : new HnswIndexOptions(8, 50);
+        return new KnnVectorQuery(FIELD, queryVector, k, 10, filter, DIMS, ElementType.FLOAT, VectorSimilarity.L2_NORM, indexOptions,
+            graphCache);
+    }
+
+    private static HnswGraphCache newGraphCache(Settings settings, CircuitBreaker breaker) {
+        return new HnswGraphCache(settings, () -> breaker);
+    }
+
+    private static CircuitBreaker newBreaker(ByteSizeValue limit) {
+        final Settings settings = Settings.builder()
+            .put(HierarchyCircuitBreakerService.USE_REAL_MEMORY_USAGE_SETTING.getKey(), false)
+            .build();
+        final BreakerSettings breakerSettings = new BreakerSettings(Vectors.CIRCUIT_BREAKER_NAME, limit.getBytes(), 1.0,
+            CircuitBreaker.Type.MEMORY, CircuitBreaker.Durability.PERMANENT);
+        final CircuitBreakerService breakerService = new HierarchyCircuitBreakerService(
+            settings,
+            Collections.singletonList(breakerSettings),
+            new ClusterSettings(settings, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS)
+        );
+        return breakerService.getBreaker(Vectors.CIRCUIT_BREAKER_NAME);
+    }
+
+    private static int[] docs(TopDocs topDocs) {
+        final int[] docs = new int[topDocs.scoreDocs.length];
+        int i = 0;
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            docs[i++] = scoreDoc.doc;
+        }
+        return docs;
+    }
+}